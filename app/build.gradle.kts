@@ -56,6 +56,15 @@ android {
         viewBinding = true
     }
 
+    // 数据库性能测试的数据规模通过 -PbenchNotes=100000 -PbenchFileDb=true 传入
+    testOptions {
+        unitTests.all {
+            it.systemProperty("qingnote.bench.notes", providers.gradleProperty("benchNotes").getOrElse("2000"))
+            it.systemProperty("qingnote.bench.fileDb", providers.gradleProperty("benchFileDb").getOrElse("false"))
+            it.maxHeapSize = "2g"
+        }
+    }
+
     // 配置App Bundle，不按语言拆分
     bundle {
         language {
@@ -99,6 +108,8 @@ dependencies {
     implementation(libs.material)
     implementation(libs.activity)
     implementation(libs.constraintlayout)
+    implementation(libs.asynclayoutinflater)
+    implementation(libs.exifinterface)
     
     // Lifecycle components
     implementation(libs.lifecycle.viewmodel)
@@ -129,6 +140,8 @@ dependencies {
     
     // Testing
     testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
+    testImplementation(libs.test.core)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
\ No newline at end of file
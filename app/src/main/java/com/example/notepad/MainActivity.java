@@ -7,30 +7,63 @@ import android.text.TextWatcher;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.widget.EditText;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.ConcatAdapter;
 import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import androidx.recyclerview.widget.StaggeredGridLayoutManager;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.notepad.data.model.Note;
+import com.example.notepad.data.model.Notebook;
+import com.example.notepad.data.model.Tag;
 import com.example.notepad.data.repository.UserRepository;
 import com.example.notepad.databinding.ActivityMainBinding;
 import com.example.notepad.ui.auth.LoginActivity;
 import com.example.notepad.ui.note.CreateNoteActivity;
 import com.example.notepad.ui.note.NoteAdapter;
-import com.example.notepad.ui.note.NoteViewModel;
+import com.example.notepad.ui.note.NoteListViewModel;
+import com.example.notepad.ui.note.NoteReorderCallback;
+import com.example.notepad.ui.note.NotebookEntry;
+import com.example.notepad.ui.note.SectionHeaderAdapter;
 import com.example.notepad.ui.profile.ProfileActivity;
+import com.example.notepad.utils.MinuteTicker;
 import com.example.notepad.utils.SessionManager;
+import com.example.notepad.utils.StartupPipeline;
+import com.example.notepad.utils.TraceRecorder;
 import com.example.notepad.ui.base.BaseActivity;
 
 public class MainActivity extends BaseActivity {
+    // 预加载的条目视图数，约为一屏加上预取的数量
+    private static final int PREINFLATE_ITEM_COUNT = 10;
+
     private ActivityMainBinding binding;
-    private NoteViewModel noteViewModel;
+    private NoteListViewModel noteListViewModel;
     private SessionManager sessionManager;
     private NoteAdapter noteAdapter;
+    // 首页分为收藏和其他笔记两个分区，只有存在收藏时才显示分区标题
+    private NoteAdapter favoriteAdapter;
+    private SectionHeaderAdapter favoritesHeader;
+    private SectionHeaderAdapter otherNotesHeader;
+    private boolean hasFavorites;
+    private boolean hasOtherNotes;
     private UserRepository userRepository;
+    // 从修改搜索关键字到显示结果
+    private TraceRecorder.AsyncSpan searchSpan;
+    // 按层级展开的笔记本，用于选择对话框
+    private List<NotebookEntry> notebookEntries = new ArrayList<>();
+    // 用户的标签（含笔记数），用于标签筛选对话框
+    private List<Tag> tags = new ArrayList<>();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -47,9 +80,9 @@ public class MainActivity extends BaseActivity {
         setSupportActionBar(binding.toolbar);
 
         // 初始化ViewModel和SessionManager
-        noteViewModel = new ViewModelProvider(this).get(NoteViewModel.class);
+        noteListViewModel = new ViewModelProvider(this).get(NoteListViewModel.class);
         sessionManager = new SessionManager(this);
-        userRepository = new UserRepository(getApplication());
+        userRepository = UserRepository.getInstance(this);
 
         // 检查用户是否已登录
         if (!sessionManager.isLoggedIn()) {
@@ -65,6 +98,9 @@ public class MainActivity extends BaseActivity {
         setupRecyclerView();
         setupListeners();
         loadNotes();
+
+        // 每分钟只刷新可见条目的相对时间
+        new MinuteTicker(this, this::refreshVisibleTimestamps);
     }
     
     /**
@@ -72,33 +108,59 @@ public class MainActivity extends BaseActivity {
      */
     private void ensureUserExists() {
         int userId = sessionManager.getUserId();
-        String username = sessionManager.getUsername();
-        if (userId != -1) {
-            userRepository.ensureUserExists(userId, username);
+        if (userId == -1) {
+            return;
+        }
+        // 启动预热已检查过该用户时无需再次查询
+        StartupPipeline pipeline = StartupPipeline.get();
+        if (pipeline != null && pipeline.isUserEnsured(userId)) {
+            return;
         }
+        userRepository.ensureUserExists(userId, sessionManager.getUsername());
     }
 
     private void setupRecyclerView() {
-        noteAdapter = new NoteAdapter();
+        // 适配器由ViewModel持有，页面恢复和重建时复用，不丢失已渲染的数据
+        noteAdapter = noteListViewModel.getAdapter();
+        favoriteAdapter = noteListViewModel.getFavoriteAdapter();
+        bindNoteListeners(noteAdapter);
+        bindNoteListeners(favoriteAdapter);
+        favoritesHeader = noteListViewModel.getFavoritesHeader();
+        otherNotesHeader = noteListViewModel.getOtherNotesHeader();
+        hasFavorites = favoriteAdapter.getItemCount() > 0;
+        hasOtherNotes = noteAdapter.getItemCount() > 0;
         
-        // 设置点击事件监听器
-        noteAdapter.setOnNoteClickListener(note -> {
+        // 使用默认列表布局，恢复上次的滚动位置
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        if (noteListViewModel.getLayoutState() != null) {
+            layoutManager.onRestoreInstanceState(noteListViewModel.getLayoutState());
+        }
+        // 空闲时提前创建并绑定即将滚入屏幕的条目
+        layoutManager.setItemPrefetchEnabled(true);
+        binding.recyclerViewNotes.setLayoutManager(layoutManager);
+        // 列表大小由约束决定，数据变化时不需要重新测量RecyclerView
+        binding.recyclerViewNotes.setHasFixedSize(true);
+        binding.recyclerViewNotes.setAdapter(noteListViewModel.getConcatAdapter());
+        // 在后台预先加载一屏左右的条目视图，首次显示和快速滚动时不在主线程中加载布局
+        noteAdapter.preinflate(this, binding.recyclerViewNotes, PREINFLATE_ITEM_COUNT);
+        // 手动排序时长按拖动，松手后只更新被移动笔记的排序键
+        new ItemTouchHelper(new NoteReorderCallback(noteListViewModel::canReorder,
+            (note, beforeId, afterId) -> noteListViewModel.moveNote(note, beforeId, afterId)))
+            .attachToRecyclerView(binding.recyclerViewNotes);
+        updateSections();
+    }
+
+    /**
+     * 设置点击和删除事件监听器（每次创建页面时重新绑定，避免持有旧页面）
+     */
+    private void bindNoteListeners(NoteAdapter adapter) {
+        adapter.setOnNoteClickListener(note -> {
             // 打开编辑笔记页面
             Intent intent = new Intent(this, CreateNoteActivity.class);
             intent.putExtra(CreateNoteActivity.EXTRA_NOTE_ID, note.getId());
             startActivity(intent);
         });
-
-        // 设置删除事件监听器
-        noteAdapter.setOnNoteDeleteListener(note -> {
-            // 删除笔记
-            noteViewModel.delete(note);
-        });
-        
-        // 使用默认列表布局
-        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
-        binding.recyclerViewNotes.setLayoutManager(layoutManager);
-        binding.recyclerViewNotes.setAdapter(noteAdapter);
+        adapter.setOnNoteDeleteListener(note -> noteListViewModel.delete(note));
     }
 
     private void setupListeners() {
@@ -113,7 +175,13 @@ public class MainActivity extends BaseActivity {
             if (id == R.id.menu_home) {
                 return true;
             } else if (id == R.id.menu_add) {
-                startActivity(new Intent(this, CreateNoteActivity.class));
+                Intent intent = new Intent(this, CreateNoteActivity.class);
+                // 在笔记本中新建的笔记归入该笔记本
+                Long notebookId = noteListViewModel.getNotebookId();
+                if (notebookId != null) {
+                    intent.putExtra(CreateNoteActivity.EXTRA_NOTEBOOK_ID, notebookId.longValue());
+                }
+                startActivity(intent);
                 return false;
             } else if (id == R.id.menu_settings) {
                 startActivity(new Intent(this, ProfileActivity.class));
@@ -137,39 +205,275 @@ public class MainActivity extends BaseActivity {
         });
     }
 
+    /**
+     * 观察笔记列表，只在onCreate中注册一次
+     * 搜索通过切换ViewModel中的关键字完成，不再重复注册观察者
+     */
     private void loadNotes() {
         int userId = sessionManager.getUserId();
         if (userId != -1) {
-            noteViewModel.getAllNotesByUser(userId).observe(this, notes -> {
-                if (notes != null && !notes.isEmpty()) {
-                    noteAdapter.submitList(notes);
-                    binding.recyclerViewNotes.setVisibility(View.VISIBLE);
-                    binding.textEmpty.setVisibility(View.GONE);
-                } else {
-                    binding.recyclerViewNotes.setVisibility(View.GONE);
-                    binding.textEmpty.setVisibility(View.VISIBLE);
-                }
-            });
+            renderPrefetchedNotes(userId);
+            noteListViewModel.getNotes(userId).observe(this, this::renderNotes);
+            noteListViewModel.getFavoriteNotes(userId).observe(this, this::renderFavorites);
+            noteListViewModel.getNotebooks(userId).observe(this, this::onNotebooksChanged);
+            noteListViewModel.getTags(userId).observe(this, this::onTagsChanged);
         }
     }
 
-    private void searchNotes(String query) {
-        int userId = sessionManager.getUserId();
-        if (userId != -1) {
-            if (query.isEmpty()) {
-                loadNotes();
-            } else {
-                noteViewModel.searchNotes(userId, query).observe(this, notes -> {
-                    noteAdapter.submitList(notes);
-                    if (notes != null && !notes.isEmpty()) {
-                        binding.recyclerViewNotes.setVisibility(View.VISIBLE);
-                        binding.textEmpty.setVisibility(View.GONE);
+    /**
+     * 笔记本变化时重新展开层级；当前笔记本被删除（包括随上级一起删除）时回到全部笔记
+     */
+    private void onNotebooksChanged(List<Notebook> notebooks) {
+        notebookEntries = NotebookEntry.flatten(notebooks);
+        Long current = noteListViewModel.getNotebookId();
+        if (current != null && findNotebookEntry(current) == null) {
+            noteListViewModel.setNotebookId(null);
+        }
+        updateTitle();
+    }
+
+    /**
+     * 标签变化时更新列表；当前筛选的标签被删除时回到全部笔记
+     */
+    private void onTagsChanged(List<Tag> newTags) {
+        tags = newTags != null ? newTags : new ArrayList<>();
+        Long current = noteListViewModel.getTagId();
+        if (current != null && findTag(current) == null) {
+            noteListViewModel.setTagId(null);
+        }
+        updateTitle();
+    }
+
+    private Tag findTag(long tagId) {
+        for (Tag tag : tags) {
+            if (tag.getId() == tagId) {
+                return tag;
+            }
+        }
+        return null;
+    }
+
+    private void updateTitle() {
+        if (getSupportActionBar() == null) {
+            return;
+        }
+        Long current = noteListViewModel.getNotebookId();
+        NotebookEntry entry = current != null ? findNotebookEntry(current) : null;
+        Long tagId = noteListViewModel.getTagId();
+        Tag tag = tagId != null ? findTag(tagId) : null;
+        if (entry != null) {
+            getSupportActionBar().setTitle(entry.notebook.getName());
+        } else if (tag != null) {
+            getSupportActionBar().setTitle(getString(R.string.tag_title, tag.getName()));
+        } else {
+            getSupportActionBar().setTitle(R.string.app_name);
+        }
+    }
+
+    private NotebookEntry findNotebookEntry(long notebookId) {
+        for (NotebookEntry entry : notebookEntries) {
+            if (entry.notebook.getId() == notebookId) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 笔记本选择对话框：全部笔记、各级笔记本，以及新建、移动和删除当前笔记本
+     */
+    private void showNotebookDialog() {
+        Long current = noteListViewModel.getNotebookId();
+        List<CharSequence> items = new ArrayList<>();
+        items.add(getString(R.string.all_notes));
+        for (NotebookEntry entry : notebookEntries) {
+            items.add(entry.indentedName());
+        }
+        int newIndex = items.size();
+        items.add(getString(R.string.new_notebook));
+        if (current != null) {
+            items.add(getString(R.string.move_notebook));
+            items.add(getString(R.string.delete_notebook));
+        }
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.notebooks)
+                .setItems(items.toArray(new CharSequence[0]), (dialog, which) -> {
+                    if (which == 0) {
+                        selectNotebook(null);
+                    } else if (which < newIndex) {
+                        selectNotebook(notebookEntries.get(which - 1).notebook.getId());
+                    } else if (which == newIndex) {
+                        showCreateNotebookDialog(current);
+                    } else if (which == newIndex + 1) {
+                        showMoveNotebookDialog(current);
                     } else {
-                        binding.recyclerViewNotes.setVisibility(View.GONE);
-                        binding.textEmpty.setVisibility(View.VISIBLE);
+                        showDeleteNotebookDialog(current);
+                    }
+                })
+                .show();
+    }
+
+    /**
+     * 标签筛选对话框：全部笔记以及各个标签（显示笔记数）
+     */
+    private void showTagDialog() {
+        List<CharSequence> items = new ArrayList<>();
+        items.add(getString(R.string.all_notes));
+        for (Tag tag : tags) {
+            items.add(getString(R.string.tag_with_count, tag.getName(), tag.getNoteCount()));
+        }
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.tags)
+                .setItems(items.toArray(new CharSequence[0]), (dialog, which) -> {
+                    noteListViewModel.setTagId(which == 0 ? null : tags.get(which - 1).getId());
+                    updateTitle();
+                })
+                .show();
+    }
+
+    private void selectNotebook(Long notebookId) {
+        noteListViewModel.setNotebookId(notebookId);
+        updateTitle();
+    }
+
+    /**
+     * 新建笔记本，选中笔记本时作为它的子笔记本
+     */
+    private void showCreateNotebookDialog(Long parentId) {
+        EditText input = new EditText(this);
+        input.setHint(R.string.notebook_name);
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.new_notebook)
+                .setView(input)
+                .setPositiveButton(R.string.ok, (dialog, which) -> {
+                    String name = input.getText().toString().trim();
+                    if (!name.isEmpty()) {
+                        noteListViewModel.createNotebook(sessionManager.getUserId(), parentId, name);
                     }
-                });
+                })
+                .setNegativeButton(R.string.cancel, null)
+                .show();
+    }
+
+    /**
+     * 选择新的上级，当前笔记本自身和它的子笔记本不可选
+     */
+    private void showMoveNotebookDialog(long notebookId) {
+        List<CharSequence> items = new ArrayList<>();
+        List<Long> targets = new ArrayList<>();
+        items.add(getString(R.string.notebook_root));
+        targets.add(null);
+        int skipDepth = -1;
+        for (NotebookEntry entry : notebookEntries) {
+            if (skipDepth >= 0 && entry.depth > skipDepth) {
+                continue;
             }
+            skipDepth = -1;
+            if (entry.notebook.getId() == notebookId) {
+                skipDepth = entry.depth;
+                continue;
+            }
+            items.add(entry.indentedName());
+            targets.add(entry.notebook.getId());
+        }
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.move_notebook)
+                .setItems(items.toArray(new CharSequence[0]), (dialog, which) ->
+                    noteListViewModel.moveNotebook(notebookId, targets.get(which), success -> {
+                        if (!success) {
+                            Toast.makeText(this, R.string.move_notebook_failed, Toast.LENGTH_SHORT).show();
+                        }
+                    }))
+                .show();
+    }
+
+    private void showDeleteNotebookDialog(long notebookId) {
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.delete_notebook)
+                .setMessage(R.string.delete_notebook_message)
+                .setPositiveButton(R.string.delete, (dialog, which) -> {
+                    noteListViewModel.deleteNotebook(notebookId);
+                    selectNotebook(null);
+                })
+                .setNegativeButton(R.string.cancel, null)
+                .show();
+    }
+
+    /**
+     * 冷启动时先显示预热流程取到的首页笔记，完整列表查询完成后再差异更新
+     */
+    private void renderPrefetchedNotes(int userId) {
+        // 预取的是按更新时间排序的笔记，手动排序时直接等待查询结果
+        if (noteAdapter.getItemCount() > 0 || noteListViewModel.isManualOrder()) {
+            return;
+        }
+        StartupPipeline pipeline = StartupPipeline.get();
+        List<Note> prefetched = pipeline != null ? pipeline.getPrefetchedNotes(userId) : null;
+        if (prefetched != null && !prefetched.isEmpty()) {
+            noteAdapter.submitNotes(prefetched, null);
+            hasOtherNotes = true;
+            updateSections();
+        }
+    }
+
+    private void renderNotes(List<Note> notes) {
+        // 数据未变化时跳过，避免重复差异计算
+        if (noteListViewModel.isSameAsRendered(notes)) {
+            return;
+        }
+        noteListViewModel.setLastRenderedNotes(notes);
+        if (searchSpan != null) {
+            searchSpan.end();
+            searchSpan = null;
+        }
+        // 先在后台预计算首屏的标题和预览，再在后台线程计算差异，只重新绑定发生变化的行
+        TraceRecorder.AsyncSpan diffSpan = TraceRecorder.beginAsync("list.diff");
+        noteAdapter.submitNotes(notes, diffSpan::end);
+        hasOtherNotes = notes != null && !notes.isEmpty();
+        updateSections();
+    }
+
+    private void renderFavorites(List<Note> notes) {
+        favoriteAdapter.submitNotes(notes, null);
+        hasFavorites = notes != null && !notes.isEmpty();
+        updateSections();
+    }
+
+    private void updateSections() {
+        favoritesHeader.setVisible(hasFavorites);
+        otherNotesHeader.setVisible(hasFavorites && hasOtherNotes);
+        updateEmptyState(hasFavorites || hasOtherNotes);
+    }
+
+    private void refreshVisibleTimestamps() {
+        LinearLayoutManager layoutManager = (LinearLayoutManager) binding.recyclerViewNotes.getLayoutManager();
+        ConcatAdapter adapter = (ConcatAdapter) binding.recyclerViewNotes.getAdapter();
+        if (layoutManager == null || adapter == null) {
+            return;
+        }
+        // 可见范围是整个列表中的位置，换算到各个分区中
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        int offset = 0;
+        for (RecyclerView.Adapter<? extends RecyclerView.ViewHolder> section : adapter.getAdapters()) {
+            if (section instanceof NoteAdapter) {
+                ((NoteAdapter) section).refreshTimestamps(first - offset, last - offset);
+            }
+            offset += section.getItemCount();
+        }
+    }
+
+    private void updateEmptyState(boolean hasNotes) {
+        binding.recyclerViewNotes.setVisibility(hasNotes ? View.VISIBLE : View.GONE);
+        binding.textEmpty.setVisibility(hasNotes ? View.GONE : View.VISIBLE);
+    }
+
+    private void searchNotes(String query) {
+        if (noteListViewModel.setQuery(query)) {
+            if (searchSpan != null) {
+                searchSpan.end();
+            }
+            searchSpan = TraceRecorder.beginAsync("note.search");
         }
     }
 
@@ -179,8 +483,34 @@ public class MainActivity extends BaseActivity {
         return true;
     }
 
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        MenuItem manualOrder = menu.findItem(R.id.action_manual_order);
+        if (manualOrder != null) {
+            manualOrder.setChecked(noteListViewModel.isManualOrder());
+        }
+        return super.onPrepareOptionsMenu(menu);
+    }
+
     @Override
     public boolean onOptionsItemSelected(@NonNull MenuItem item) {
+        if (item.getItemId() == R.id.action_notebooks) {
+            showNotebookDialog();
+            return true;
+        }
+        if (item.getItemId() == R.id.action_tags) {
+            showTagDialog();
+            return true;
+        }
+        if (item.getItemId() == R.id.action_manual_order) {
+            boolean manualOrder = !item.isChecked();
+            item.setChecked(manualOrder);
+            noteListViewModel.setManualOrder(manualOrder);
+            if (manualOrder) {
+                Toast.makeText(this, R.string.manual_order_hint, Toast.LENGTH_SHORT).show();
+            }
+            return true;
+        }
         if (item.getItemId() == R.id.action_profile) {
             // 打开个人资料页面
             Intent intent = new Intent(this, ProfileActivity.class);
@@ -193,19 +523,31 @@ public class MainActivity extends BaseActivity {
     @Override
     protected void onResume() {
         super.onResume();
-        // 每次回到主页时重新加载笔记列表
-        loadNotes();
+        // 列表数据由LiveData自动更新，回到主页时无需重新加载或重建适配器
         // 设置底部导航选中状态
         binding.bottomNav.setSelectedItemId(R.id.menu_home);
-        // 检查卡片样式是否改变
-        if (binding != null && binding.recyclerViewNotes != null) {
-            setupRecyclerView();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // 保存滚动位置，页面重建时恢复
+        if (binding != null && binding.recyclerViewNotes.getLayoutManager() != null) {
+            noteListViewModel.setLayoutState(
+                binding.recyclerViewNotes.getLayoutManager().onSaveInstanceState());
         }
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        if (binding != null) {
+            // 解除适配器与旧RecyclerView的绑定，ViewModel中的适配器不会持有已销毁的页面
+            binding.recyclerViewNotes.setAdapter(null);
+        }
+        if (noteAdapter != null) {
+            noteAdapter.clearPreinflatedViews();
+        }
         binding = null;
     }
 }
\ No newline at end of file
@@ -2,16 +2,33 @@ package com.example.notepad;
 
 import android.app.Application;
 import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.SystemClock;
+import android.util.Log;
 
 import com.example.notepad.utils.LanguageManager;
+import com.example.notepad.utils.MainThreadIoDetector;
+import com.example.notepad.utils.Metrics;
+import com.example.notepad.utils.StartupPipeline;
 
 public class QingNoteApplication extends Application {
+    private static final String TAG = "QingNoteApplication";
     
     @Override
     public void onCreate() {
         super.onCreate();
+        // 调试版本默认开启性能统计，发布版本可在调试页面手动开启
+        Metrics.setEnabled((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0);
+        // 调试版本检测主线程I/O，汇总报告保存在应用私有目录
+        MainThreadIoDetector.install(this);
+
+        // 先启动后台预热，数据库打开和首页查询与主线程的初始化并行进行
+        StartupPipeline.start(this);
+        
         // 初始化语言设置
+        long start = SystemClock.elapsedRealtime();
         LanguageManager.getInstance(this).applyLanguage(this);
+        Log.d(TAG, "语言初始化耗时: " + (SystemClock.elapsedRealtime() - start) + "ms");
     }
     
     @Override
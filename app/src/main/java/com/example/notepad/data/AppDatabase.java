@@ -1,50 +1,232 @@
 package com.example.notepad.data;
 
 import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.database.Cursor;
 
 import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.example.notepad.data.dao.AttachmentDao;
+import com.example.notepad.data.dao.DraftDao;
 import com.example.notepad.data.dao.NoteDao;
+import com.example.notepad.data.dao.NoteRevisionDao;
+import com.example.notepad.data.dao.NotebookDao;
+import com.example.notepad.data.dao.TagDao;
 import com.example.notepad.data.dao.UserDao;
 import com.example.notepad.data.model.Attachment;
+import com.example.notepad.data.model.Draft;
 import com.example.notepad.data.model.Note;
+import com.example.notepad.data.model.NoteRevision;
+import com.example.notepad.data.model.NoteTag;
+import com.example.notepad.data.model.Notebook;
+import com.example.notepad.data.model.NotebookClosure;
+import com.example.notepad.data.model.Tag;
 import com.example.notepad.data.model.User;
+import com.example.notepad.utils.AppExecutors;
 import com.example.notepad.utils.DateConverter;
+import com.example.notepad.utils.OrderKeys;
 import com.example.notepad.utils.UriConverter;
 
-import java.util.concurrent.Executors;
-
 /**
  * 应用数据库类，用于管理Room数据库
  */
-@Database(entities = {User.class, Note.class, Attachment.class}, version = 3, exportSchema = false)
+@Database(entities = {User.class, Note.class, Attachment.class, Draft.class, NoteRevision.class, Tag.class, NoteTag.class,
+                      Notebook.class, NotebookClosure.class},
+          version = 10, exportSchema = false)
 @TypeConverters({DateConverter.class, UriConverter.class})
 public abstract class AppDatabase extends RoomDatabase {
     private static final String DATABASE_NAME = "qingnote_db";
     private static AppDatabase instance;
+    private static QueryTracer queryTracer;
     
     public abstract UserDao userDao();
     public abstract NoteDao noteDao();
     public abstract AttachmentDao attachmentDao();
+    public abstract DraftDao draftDao();
+    public abstract NoteRevisionDao noteRevisionDao();
+    public abstract TagDao tagDao();
+    public abstract NotebookDao notebookDao();
+    
+    /**
+     * 版本3到4：用户表增加头像版本号
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE users ADD COLUMN avatarVersion INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+    
+    /**
+     * 版本4到5：增加编辑草稿表
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `drafts` (`userId` INTEGER NOT NULL, "
+                + "`noteId` INTEGER NOT NULL, `title` TEXT, `content` TEXT, "
+                + "`contentHash` INTEGER NOT NULL, `updatedAt` INTEGER, "
+                + "PRIMARY KEY(`userId`, `noteId`))");
+        }
+    };
+    
+    /**
+     * 版本5到6：增加笔记历史版本表
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `note_revisions` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                + "`noteId` INTEGER NOT NULL, `revision` INTEGER NOT NULL, `keyframe` INTEGER NOT NULL, "
+                + "`title` TEXT, `data` TEXT, `contentLength` INTEGER NOT NULL, `createdAt` INTEGER, "
+                + "FOREIGN KEY(`noteId`) REFERENCES `notes`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE)");
+            database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_note_revisions_noteId_revision` "
+                + "ON `note_revisions` (`noteId`, `revision`)");
+        }
+    };
+    
+    /**
+     * 版本6到7：增加标签表、笔记标签关联表及维护计数的触发器
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `tags` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                + "`userId` INTEGER NOT NULL, `name` TEXT NOT NULL, `noteCount` INTEGER NOT NULL, `createdAt` INTEGER, "
+                + "FOREIGN KEY(`userId`) REFERENCES `users`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE)");
+            database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_tags_userId_name` ON `tags` (`userId`, `name`)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `note_tags` (`noteId` INTEGER NOT NULL, "
+                + "`tagId` INTEGER NOT NULL, `noteUpdatedAt` INTEGER, PRIMARY KEY(`noteId`, `tagId`), "
+                + "FOREIGN KEY(`noteId`) REFERENCES `notes`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE, "
+                + "FOREIGN KEY(`tagId`) REFERENCES `tags`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_note_tags_tagId_noteUpdatedAt` "
+                + "ON `note_tags` (`tagId`, `noteUpdatedAt`)");
+            createTagTriggers(database);
+        }
+    };
+
+    /**
+     * 版本7到8：增加笔记本表和闭包表，笔记增加所属笔记本
+     */
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `notebooks` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                + "`userId` INTEGER NOT NULL, `parentId` INTEGER, `name` TEXT NOT NULL, `createdAt` INTEGER, "
+                + "FOREIGN KEY(`userId`) REFERENCES `users`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_notebooks_userId` ON `notebooks` (`userId`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_notebooks_parentId` ON `notebooks` (`parentId`)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `notebook_closure` (`ancestor` INTEGER NOT NULL, "
+                + "`descendant` INTEGER NOT NULL, `depth` INTEGER NOT NULL, PRIMARY KEY(`ancestor`, `descendant`), "
+                + "FOREIGN KEY(`ancestor`) REFERENCES `notebooks`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE, "
+                + "FOREIGN KEY(`descendant`) REFERENCES `notebooks`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_notebook_closure_descendant` "
+                + "ON `notebook_closure` (`descendant`)");
+            // 新增列的默认值为NULL，SQLite允许在ADD COLUMN时声明外键
+            database.execSQL("ALTER TABLE `notes` ADD COLUMN `notebookId` INTEGER "
+                + "REFERENCES `notebooks`(`id`) ON UPDATE NO ACTION ON DELETE SET NULL");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_notes_notebookId_updatedAt` "
+                + "ON `notes` (`notebookId`, `updatedAt`)");
+        }
+    };
+
+    /**
+     * 版本8到9：笔记增加收藏标记
+     * Room不支持部分索引（WHERE favorite = 1），迁移后的结构校验也会比对表上的所有索引，
+     * 所以用 (userId, favorite, updatedAt) 索引代替原来的userId索引，收藏和未收藏两个分区都只做范围扫描
+     */
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `notes` ADD COLUMN `favorite` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("DROP INDEX IF EXISTS `index_notes_userId`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_notes_userId_favorite_updatedAt` "
+                + "ON `notes` (`userId`, `favorite`, `updatedAt`)");
+        }
+    };
+
+    /**
+     * 版本9到10：笔记增加手动排序的排序键
+     * 已有笔记按各分区当前的显示顺序（更新时间倒序）分配均匀分布的排序键
+     */
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `notes` ADD COLUMN `orderKey` TEXT");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_notes_userId_favorite_orderKey` "
+                + "ON `notes` (`userId`, `favorite`, `orderKey`)");
+
+            List<List<Long>> sections = new ArrayList<>();
+            try (Cursor cursor = database.query(
+                    "SELECT id, userId, favorite FROM notes ORDER BY userId, favorite, updatedAt DESC")) {
+                List<Long> section = null;
+                long lastUserId = -1;
+                int lastFavorite = -1;
+                while (cursor.moveToNext()) {
+                    long userId = cursor.getLong(1);
+                    int favorite = cursor.getInt(2);
+                    if (section == null || userId != lastUserId || favorite != lastFavorite) {
+                        section = new ArrayList<>();
+                        sections.add(section);
+                        lastUserId = userId;
+                        lastFavorite = favorite;
+                    }
+                    section.add(cursor.getLong(0));
+                }
+            }
+            for (List<Long> ids : sections) {
+                List<String> keys = OrderKeys.evenlySpaced(ids.size());
+                for (int i = 0; i < ids.size(); i++) {
+                    database.execSQL("UPDATE `notes` SET `orderKey` = ? WHERE `id` = ?",
+                        new Object[] {keys.get(i), ids.get(i)});
+                }
+            }
+        }
+    };
+
+    /**
+     * 创建标签相关的触发器，Room不会根据实体生成触发器，新建数据库和升级时都需要调用
+     * 1. 增删关联时增减标签的笔记数，读取计数是常数开销（外键级联删除关联时同样触发）
+     * 2. 插入关联和笔记更新时同步关联中的笔记更新时间，使按标签分页的索引顺序与笔记更新时间一致
+     */
+    static void createTagTriggers(SupportSQLiteDatabase database) {
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `note_tags_after_insert` AFTER INSERT ON `note_tags` BEGIN "
+            + "UPDATE `tags` SET `noteCount` = `noteCount` + 1 WHERE `id` = NEW.`tagId`; "
+            + "UPDATE `note_tags` SET `noteUpdatedAt` = (SELECT `updatedAt` FROM `notes` WHERE `id` = NEW.`noteId`) "
+            + "WHERE `noteId` = NEW.`noteId` AND `tagId` = NEW.`tagId`; END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `note_tags_after_delete` AFTER DELETE ON `note_tags` BEGIN "
+            + "UPDATE `tags` SET `noteCount` = `noteCount` - 1 WHERE `id` = OLD.`tagId`; END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS `notes_after_update_updatedAt` AFTER UPDATE OF `updatedAt` ON `notes` "
+            + "WHEN NEW.`updatedAt` IS NOT OLD.`updatedAt` BEGIN "
+            + "UPDATE `note_tags` SET `noteUpdatedAt` = NEW.`updatedAt` WHERE `noteId` = NEW.`id`; END");
+    }
     
     public static synchronized AppDatabase getInstance(Context context) {
         if (instance == null) {
-            instance = Room.databaseBuilder(
+            RoomDatabase.Builder<AppDatabase> builder = Room.databaseBuilder(
                     context.getApplicationContext(),
                     AppDatabase.class,
                     DATABASE_NAME)
+                    // Room的查询（LiveData、分页）也在统一的IO线程池中执行
+                    .setQueryExecutor(AppExecutors.getInstance().io())
+                    .addMigrations(MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8,
+                            MIGRATION_8_9, MIGRATION_9_10)
                     .addCallback(new RoomDatabase.Callback() {
                         @Override
                         public void onCreate(@NonNull SupportSQLiteDatabase db) {
                             super.onCreate(db);
-                            // 在新线程中创建默认用户
-                            Executors.newSingleThreadExecutor().execute(() -> {
+                            createTagTriggers(db);
+                            // 在数据库写线程中创建默认用户
+                            AppExecutors.getInstance().diskWrite().execute(() -> {
                                 User defaultUser = new User();
                                 defaultUser.setUsername("admin");
                                 defaultUser.setPassword("admin123");
@@ -53,11 +235,32 @@ public abstract class AppDatabase extends RoomDatabase {
                                 getInstance(context).userDao().insert(defaultUser);
                             });
                         }
-                    })
-                    .build();
+                    });
+
+            // 调试版本记录每条SQL的耗时，回调在执行语句的线程中同步调用
+            boolean debuggable = (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+            QueryTracer tracer = null;
+            if (debuggable) {
+                tracer = new QueryTracer();
+                builder.setQueryCallback(tracer::onQuery, Runnable::run);
+            }
+
+            instance = builder.build();
+            if (tracer != null) {
+                tracer.attach(instance);
+                queryTracer = tracer;
+            }
         }
         return instance;
     }
+
+    /**
+     * 获取SQL耗时追踪器
+     * @return 追踪器，非调试版本返回null
+     */
+    public static synchronized QueryTracer getQueryTracer() {
+        return queryTracer;
+    }
     
     /**
      * 清除数据库实例，用于测试和重置
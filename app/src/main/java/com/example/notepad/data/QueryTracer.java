@@ -0,0 +1,275 @@
+package com.example.notepad.data;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.notepad.utils.AppExecutors;
+import com.example.notepad.utils.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * SQL查询耗时追踪
+ * 通过Room的QueryCallback获取每条语句及其参数，按语句分别统计耗时分布，
+ * 超过阈值的慢查询会输出日志，并在后台获取一次查询计划（EXPLAIN QUERY PLAN）
+ *
+ * QueryCallback只在语句执行前回调，没有结束通知，因此回调在调用线程中同步执行，
+ * 一条语句的耗时计为从开始执行到同一线程的下一条语句或当前任务结束，包含读取游标和映射结果的时间；
+ * 任务结束由AppExecutors的线程池通知，Room的查询也在该线程池中执行
+ */
+public class QueryTracer {
+    private static final String TAG = "QueryTracer";
+
+    // 慢查询阈值
+    private static final long SLOW_QUERY_NANOS = 50_000_000L;
+    // 原始SQL到统计的映射最多缓存的条数，超出后每次重新规范化
+    private static final int MAX_CACHED_SQL = 256;
+
+    // IN (?,?,?) 展开后的参数个数不同，视为同一条语句
+    private static final Pattern IN_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final ThreadLocal<PendingQuery> PENDING = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> EXPLAINING = new ThreadLocal<>();
+
+    private static final Metrics.Counter SLOW_QUERIES = Metrics.counter("sql.slow");
+
+    private static volatile boolean explainSlowQueries = true;
+
+    private final Map<String, QueryStats> statsByRawSql = new ConcurrentHashMap<>();
+    private final Map<String, QueryStats> statsBySql = new ConcurrentHashMap<>();
+    private volatile AppDatabase database;
+
+    /**
+     * 关联数据库，用于获取慢查询的查询计划
+     */
+    void attach(AppDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * 设置是否为慢查询获取查询计划
+     */
+    public static void setExplainSlowQueries(boolean enable) {
+        explainSlowQueries = enable;
+    }
+
+    /**
+     * Room的查询回调，在执行语句的线程中调用
+     */
+    void onQuery(String sql, List<?> bindArgs) {
+        long now = System.nanoTime();
+        finishPending(now);
+        if (!Metrics.isEnabled() || EXPLAINING.get() != null) {
+            return;
+        }
+        PENDING.set(new PendingQuery(this, statsFor(sql), sql, bindArgs, now));
+    }
+
+    /**
+     * 当前线程的任务结束，结束正在统计的语句
+     * 由线程池在每个任务执行完后调用
+     */
+    public static void onTaskFinished() {
+        if (PENDING.get() != null) {
+            finishPending(System.nanoTime());
+        }
+    }
+
+    private static void finishPending(long now) {
+        PendingQuery pending = PENDING.get();
+        if (pending == null) {
+            return;
+        }
+        PENDING.remove();
+        pending.tracer.complete(pending, now - pending.startNanos);
+    }
+
+    private void complete(PendingQuery pending, long durationNanos) {
+        QueryStats stats = pending.stats;
+        stats.timer.record(durationNanos, TimeUnit.NANOSECONDS);
+        if (durationNanos < SLOW_QUERY_NANOS) {
+            return;
+        }
+
+        SLOW_QUERIES.increment();
+        String shape = describeArgs(pending.bindArgs);
+        stats.lastSlowShape = shape;
+        stats.slowCount.incrementAndGet();
+        Log.w(TAG, String.format(Locale.US, "慢查询 %.1fms: %s 参数: %s",
+            durationNanos / 1e6, stats.sql, shape));
+
+        if (explainSlowQueries && stats.plan == null && stats.isSelect) {
+            explain(stats, pending.rawSql, pending.bindArgs);
+        }
+    }
+
+    /**
+     * 在后台获取查询计划，每条语句只获取一次
+     */
+    private void explain(QueryStats stats, String rawSql, List<?> bindArgs) {
+        AppDatabase db = database;
+        if (db == null) {
+            return;
+        }
+        stats.plan = Collections.emptyList();
+        Object[] args = bindArgs.toArray();
+        AppExecutors.getInstance().io().execute(() -> {
+            EXPLAINING.set(Boolean.TRUE);
+            List<String> plan = new ArrayList<>();
+            try {
+                SupportSQLiteDatabase sqlite = db.getOpenHelper().getReadableDatabase();
+                try (Cursor cursor = sqlite.query("EXPLAIN QUERY PLAN " + rawSql, args)) {
+                    int detailIndex = cursor.getColumnIndex("detail");
+                    while (cursor.moveToNext()) {
+                        plan.add(cursor.getString(detailIndex));
+                    }
+                }
+                stats.plan = plan;
+                Log.w(TAG, "查询计划: " + stats.sql + "\n  " + String.join("\n  ", plan));
+            } catch (Exception e) {
+                Log.e(TAG, "获取查询计划失败: " + e.getMessage());
+            } finally {
+                EXPLAINING.remove();
+            }
+        });
+    }
+
+    /**
+     * 生成慢查询报告，包含参数形态和查询计划
+     */
+    public String dumpSlowQueries() {
+        StringBuilder builder = new StringBuilder("== 慢查询 ==\n");
+        for (QueryStats stats : statsBySql.values()) {
+            if (stats.slowCount.get() == 0) {
+                continue;
+            }
+            builder.append(stats.sql)
+                .append("\n  次数=").append(stats.slowCount.get())
+                .append(" 参数=").append(stats.lastSlowShape).append('\n');
+            List<String> plan = stats.plan;
+            if (plan != null) {
+                for (String line : plan) {
+                    builder.append("  ").append(line).append('\n');
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private QueryStats statsFor(String sql) {
+        QueryStats stats = statsByRawSql.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        stats = statsBySql.computeIfAbsent(normalize(sql), QueryStats::new);
+        if (statsByRawSql.size() < MAX_CACHED_SQL) {
+            statsByRawSql.put(sql, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * 描述参数形态（类型和文本长度），不记录参数值
+     */
+    static String describeArgs(List<?> bindArgs) {
+        if (bindArgs.isEmpty()) {
+            return "()";
+        }
+        StringBuilder builder = new StringBuilder("(");
+        String previous = null;
+        int repeat = 0;
+        for (Object arg : bindArgs) {
+            String type = describeArg(arg);
+            if (type.equals(previous)) {
+                repeat++;
+                continue;
+            }
+            appendType(builder, previous, repeat);
+            previous = type;
+            repeat = 1;
+        }
+        appendType(builder, previous, repeat);
+        return builder.append(')').toString();
+    }
+
+    private static void appendType(StringBuilder builder, String type, int repeat) {
+        if (type == null) {
+            return;
+        }
+        if (builder.length() > 1) {
+            builder.append(", ");
+        }
+        builder.append(type);
+        if (repeat > 1) {
+            builder.append(" x").append(repeat);
+        }
+    }
+
+    private static String describeArg(Object arg) {
+        if (arg == null) {
+            return "null";
+        } else if (arg instanceof Long || arg instanceof Integer
+                || arg instanceof Short || arg instanceof Byte) {
+            return "int";
+        } else if (arg instanceof Double || arg instanceof Float) {
+            return "real";
+        } else if (arg instanceof byte[]) {
+            return "blob[" + ((byte[]) arg).length + "]";
+        } else {
+            return "text[" + arg.toString().length() + "]";
+        }
+    }
+
+    static String normalize(String sql) {
+        String normalized = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        return IN_LIST.matcher(normalized).replaceAll("?…");
+    }
+
+    /**
+     * 单条语句的统计
+     */
+    private static final class QueryStats {
+        final String sql;
+        final boolean isSelect;
+        final Metrics.Timer timer;
+        final AtomicInteger slowCount = new AtomicInteger();
+        volatile String lastSlowShape;
+        volatile List<String> plan;
+
+        QueryStats(String sql) {
+            this.sql = sql;
+            this.isSelect = sql.regionMatches(true, 0, "SELECT", 0, 6);
+            this.timer = Metrics.timer("sql: " + sql);
+        }
+    }
+
+    /**
+     * 正在执行的语句
+     */
+    private static final class PendingQuery {
+        final QueryTracer tracer;
+        final QueryStats stats;
+        final String rawSql;
+        final List<?> bindArgs;
+        final long startNanos;
+
+        PendingQuery(QueryTracer tracer, QueryStats stats, String rawSql, List<?> bindArgs, long startNanos) {
+            this.tracer = tracer;
+            this.stats = stats;
+            this.rawSql = rawSql;
+            this.bindArgs = bindArgs;
+            this.startNanos = startNanos;
+        }
+    }
+}
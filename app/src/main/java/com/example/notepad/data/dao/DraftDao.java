@@ -0,0 +1,32 @@
+package com.example.notepad.data.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.example.notepad.data.model.Draft;
+
+/**
+ * 编辑草稿数据访问对象接口
+ */
+@Dao
+public interface DraftDao {
+    /**
+     * 写入草稿，已存在时整行替换
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsert(Draft draft);
+
+    @Query("SELECT * FROM drafts WHERE userId = :userId AND noteId = :noteId")
+    Draft getDraftSync(int userId, long noteId);
+
+    @Query("DELETE FROM drafts WHERE userId = :userId AND noteId = :noteId")
+    int deleteDraft(int userId, long noteId);
+
+    @Query("DELETE FROM drafts WHERE noteId = :noteId")
+    void deleteDraftsForNote(long noteId);
+
+    @Query("DELETE FROM drafts WHERE userId = :userId")
+    void deleteDraftsByUser(int userId);
+}
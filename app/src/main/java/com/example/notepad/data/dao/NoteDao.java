@@ -12,6 +12,7 @@ import androidx.room.Transaction;
 import androidx.room.Update;
 
 import com.example.notepad.data.model.Note;
+import com.example.notepad.data.model.NoteVersion;
 import com.example.notepad.data.model.NoteWithAttachments;
 
 import java.util.List;
@@ -33,12 +34,97 @@ public interface NoteDao {
     @Query("SELECT * FROM notes WHERE id = :id")
     LiveData<Note> getNoteById(long id);
     
+    @Query("SELECT * FROM notes WHERE id = :id")
+    Note getNoteByIdSync(long id);
+    
+    /**
+     * 批量查询笔记的更新时间，用于校验内存缓存是否过期
+     */
+    @Query("SELECT id, updatedAt FROM notes WHERE id IN (:ids)")
+    List<NoteVersion> getNoteVersions(List<Long> ids);
+    
     @Query("SELECT * FROM notes WHERE userId = :userId ORDER BY updatedAt DESC")
     PagingSource<Integer, Note> getAllNotesByUserPaged(int userId);
     
     @Query("SELECT * FROM notes WHERE userId = :userId ORDER BY updatedAt DESC")
     LiveData<List<Note>> getAllNotesByUser(int userId);
     
+    /**
+     * 查询收藏或未收藏的笔记，按更新时间倒序，用于首页的两个分区
+     * 在 (userId, favorite, updatedAt) 索引上做范围扫描，不扫描用户的其他笔记，也不需要排序
+     */
+    @Query("SELECT * FROM notes WHERE userId = :userId AND favorite = :favorite ORDER BY updatedAt DESC")
+    LiveData<List<Note>> getNotesByFavorite(int userId, boolean favorite);
+    
+    @Query("SELECT * FROM notes WHERE userId = :userId AND favorite = :favorite ORDER BY updatedAt DESC")
+    PagingSource<Integer, Note> getNotesByFavoritePaged(int userId, boolean favorite);
+    
+    /**
+     * 按手动排序查询收藏或未收藏的笔记
+     * (userId, favorite, orderKey) 索引的顺序即结果顺序（索引末尾隐含行ID），不需要排序
+     */
+    @Query("SELECT * FROM notes WHERE userId = :userId AND favorite = :favorite ORDER BY orderKey, id")
+    LiveData<List<Note>> getNotesByFavoriteOrdered(int userId, boolean favorite);
+    
+    @Query("SELECT * FROM notes WHERE userId = :userId AND favorite = :favorite ORDER BY orderKey, id")
+    PagingSource<Integer, Note> getNotesByFavoriteOrderedPaged(int userId, boolean favorite);
+    
+    @Query("SELECT id FROM notes WHERE userId = :userId AND favorite = :favorite ORDER BY orderKey, id")
+    List<Long> getOrderedNoteIds(int userId, boolean favorite);
+    
+    /**
+     * 分区中最前面的排序键，分区为空时返回null
+     */
+    @Query("SELECT MIN(orderKey) FROM notes WHERE userId = :userId AND favorite = :favorite")
+    String getFirstOrderKey(int userId, boolean favorite);
+    
+    @Query("SELECT orderKey FROM notes WHERE id = :noteId")
+    String getOrderKey(long noteId);
+    
+    @Query("UPDATE notes SET orderKey = :orderKey WHERE id = :noteId")
+    void setOrderKey(long noteId, String orderKey);
+    
+    /**
+     * 查询最近更新的若干条未收藏笔记，用于启动时预取首页数据
+     */
+    @Query("SELECT * FROM notes WHERE userId = :userId AND favorite = 0 ORDER BY updatedAt DESC LIMIT :limit")
+    List<Note> getRecentNotesByUser(int userId, int limit);
+    
+    /**
+     * 只修改收藏标记和排序键（移到新分区的最前面），不改写笔记内容和更新时间
+     */
+    @Query("UPDATE notes SET favorite = :favorite, orderKey = :orderKey WHERE id = :noteId")
+    void setFavorite(long noteId, boolean favorite, String orderKey);
+    
+    /**
+     * 按标签分页查询笔记，按更新时间倒序
+     * 在 note_tags 的 (tagId, noteUpdatedAt) 索引上做范围扫描，顺序即结果顺序，
+     * 每页只读取需要的行，再按主键取笔记
+     */
+    @Query("SELECT notes.* FROM note_tags INNER JOIN notes ON notes.id = note_tags.noteId "
+        + "WHERE note_tags.tagId = :tagId ORDER BY note_tags.noteUpdatedAt DESC")
+    PagingSource<Integer, Note> getNotesByTagPaged(long tagId);
+    
+    @Query("SELECT notes.* FROM note_tags INNER JOIN notes ON notes.id = note_tags.noteId "
+        + "WHERE note_tags.tagId = :tagId ORDER BY note_tags.noteUpdatedAt DESC")
+    LiveData<List<Note>> getNotesByTag(long tagId);
+    
+    /**
+     * 分页查询笔记本及其所有子笔记本下的笔记，按更新时间倒序
+     * 闭包表主键按祖先取出子树中的笔记本，每个笔记本在 (notebookId, updatedAt) 索引上查询笔记，
+     * 不需要递归查询；多个笔记本的结果需要合并排序
+     */
+    @Query("SELECT notes.* FROM notebook_closure INNER JOIN notes ON notes.notebookId = notebook_closure.descendant "
+        + "WHERE notebook_closure.ancestor = :notebookId ORDER BY notes.updatedAt DESC")
+    PagingSource<Integer, Note> getNotesInNotebookPaged(long notebookId);
+    
+    @Query("SELECT notes.* FROM notebook_closure INNER JOIN notes ON notes.notebookId = notebook_closure.descendant "
+        + "WHERE notebook_closure.ancestor = :notebookId ORDER BY notes.updatedAt DESC")
+    LiveData<List<Note>> getNotesInNotebook(long notebookId);
+    
+    @Query("UPDATE notes SET notebookId = :notebookId WHERE id = :noteId")
+    void setNotebook(long noteId, Long notebookId);
+    
     @Query("SELECT * FROM notes WHERE userId = :userId AND (title LIKE '%' || :query || '%' OR content LIKE '%' || :query || '%') ORDER BY updatedAt DESC")
     PagingSource<Integer, Note> searchNotesPaged(int userId, String query);
     
@@ -51,4 +137,8 @@ public interface NoteDao {
     @Transaction
     @Query("SELECT * FROM notes WHERE id = :noteId")
     LiveData<NoteWithAttachments> getNoteWithAttachments(long noteId);
+    
+    @Transaction
+    @Query("SELECT * FROM notes WHERE id = :noteId")
+    NoteWithAttachments getNoteWithAttachmentsSync(long noteId);
 } 
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.example.notepad.data.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.notepad.data.model.NoteRevision;
+import com.example.notepad.data.model.NoteRevisionInfo;
+
+import java.util.List;
+
+/**
+ * 笔记历史版本数据访问对象接口
+ */
+@Dao
+public interface NoteRevisionDao {
+    @Insert
+    long insert(NoteRevision revision);
+
+    @Insert
+    void insertAll(List<NoteRevision> revisions);
+
+    @Query("SELECT MAX(revision) FROM note_revisions WHERE noteId = :noteId")
+    Integer getLatestRevision(long noteId);
+
+    /**
+     * 不晚于指定版本的最近一个关键帧
+     */
+    @Query("SELECT MAX(revision) FROM note_revisions WHERE noteId = :noteId AND keyframe = 1 AND revision <= :revision")
+    Integer getKeyframeAtOrBefore(long noteId, int revision);
+
+    @Query("SELECT COUNT(*) FROM note_revisions WHERE noteId = :noteId AND revision > :afterRevision")
+    int countRevisionsAfter(long noteId, int afterRevision);
+
+    @Query("SELECT COUNT(*) FROM note_revisions WHERE noteId = :noteId")
+    int countRevisions(long noteId);
+
+    /**
+     * 查询一段版本链，用于从关键帧依次应用补丁
+     */
+    @Query("SELECT * FROM note_revisions WHERE noteId = :noteId AND revision BETWEEN :fromRevision AND :toRevision ORDER BY revision ASC")
+    List<NoteRevision> getRevisionRange(long noteId, int fromRevision, int toRevision);
+
+    @Query("SELECT noteId, revision, keyframe, title, contentLength, createdAt FROM note_revisions WHERE noteId = :noteId ORDER BY revision DESC")
+    LiveData<List<NoteRevisionInfo>> getRevisionInfos(long noteId);
+
+    @Query("DELETE FROM note_revisions WHERE noteId = :noteId AND revision <= :toRevision")
+    void deleteRevisionsUpTo(long noteId, int toRevision);
+
+    /**
+     * 用压缩后的版本替换不晚于指定版本的所有历史
+     */
+    @Transaction
+    default void replaceRevisionsUpTo(long noteId, int toRevision, List<NoteRevision> revisions) {
+        deleteRevisionsUpTo(noteId, toRevision);
+        insertAll(revisions);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.notepad.data.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.notepad.data.model.Notebook;
+
+import java.util.List;
+
+/**
+ * 笔记本数据访问对象接口
+ * 笔记本表和闭包表必须一起修改，只使用这里的事务方法创建、移动和删除笔记本
+ */
+@Dao
+public interface NotebookDao {
+    @Insert
+    long insertNotebook(Notebook notebook);
+
+    /**
+     * 为新笔记本写入闭包：上级的每个祖先到新笔记本各一行，再加上到自身的一行
+     */
+    @Query("INSERT INTO notebook_closure (ancestor, descendant, depth) "
+        + "SELECT ancestor, :notebookId, depth + 1 FROM notebook_closure WHERE descendant = :parentId "
+        + "UNION ALL SELECT :notebookId, :notebookId, 0")
+    void insertClosure(long notebookId, Long parentId);
+
+    @Query("SELECT COUNT(*) FROM notebook_closure WHERE ancestor = :ancestor AND descendant = :descendant")
+    int countPath(long ancestor, long descendant);
+
+    /**
+     * 断开子树与原祖先的连接：删除 (子树外的祖先, 子树内的笔记本) 的所有行，子树内部的行保留
+     */
+    @Query("DELETE FROM notebook_closure "
+        + "WHERE descendant IN (SELECT descendant FROM notebook_closure WHERE ancestor = :notebookId) "
+        + "AND ancestor IN (SELECT ancestor FROM notebook_closure WHERE descendant = :notebookId AND ancestor != :notebookId)")
+    void detachSubtree(long notebookId);
+
+    /**
+     * 把子树连接到新的上级：新上级的每个祖先与子树的每个笔记本组合成一行
+     */
+    @Query("INSERT INTO notebook_closure (ancestor, descendant, depth) "
+        + "SELECT p.ancestor, s.descendant, p.depth + s.depth + 1 "
+        + "FROM notebook_closure AS p CROSS JOIN notebook_closure AS s "
+        + "WHERE p.descendant = :parentId AND s.ancestor = :notebookId")
+    void attachSubtree(long notebookId, long parentId);
+
+    @Query("UPDATE notebooks SET parentId = :parentId WHERE id = :notebookId")
+    void setParent(long notebookId, Long parentId);
+
+    @Query("UPDATE notebooks SET name = :name WHERE id = :notebookId")
+    int renameNotebook(long notebookId, String name);
+
+    /**
+     * 删除笔记本及其所有子笔记本，闭包通过外键级联删除，其中的笔记变为未归入笔记本
+     */
+    @Query("DELETE FROM notebooks WHERE id IN (SELECT descendant FROM notebook_closure WHERE ancestor = :notebookId)")
+    int deleteSubtree(long notebookId);
+
+    @Query("SELECT * FROM notebooks WHERE userId = :userId ORDER BY name")
+    LiveData<List<Notebook>> getNotebooksByUser(int userId);
+
+    /**
+     * 创建笔记本
+     * @return 新笔记本的ID
+     */
+    @Transaction
+    default long createNotebook(Notebook notebook) {
+        long id = insertNotebook(notebook);
+        insertClosure(id, notebook.getParentId());
+        return id;
+    }
+
+    /**
+     * 把笔记本连同整个子树移动到新的上级下，无论子树多大都只执行固定的几条语句
+     * @param notebookId 被移动的笔记本
+     * @param newParentId 新的上级，为null表示移动到顶层
+     * @throws IllegalArgumentException 新上级是被移动的笔记本自身或其子笔记本
+     */
+    @Transaction
+    default void moveSubtree(long notebookId, Long newParentId) {
+        if (newParentId != null && countPath(notebookId, newParentId) > 0) {
+            throw new IllegalArgumentException("不能移动到自身或子笔记本下: " + notebookId + " -> " + newParentId);
+        }
+        detachSubtree(notebookId);
+        if (newParentId != null) {
+            attachSubtree(notebookId, newParentId);
+        }
+        setParent(notebookId, newParentId);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.notepad.data.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.notepad.data.model.NoteTag;
+import com.example.notepad.data.model.Tag;
+
+import java.util.List;
+
+/**
+ * 标签数据访问对象接口
+ * 标签的笔记数由触发器维护，关联只能用IGNORE插入（REPLACE删除旧行时不会触发计数减一）
+ */
+@Dao
+public interface TagDao {
+    /**
+     * @return 新标签的ID，同名标签已存在时返回-1
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insertTag(Tag tag);
+
+    @Query("SELECT * FROM tags WHERE userId = :userId AND name = :name")
+    Tag getTagByName(int userId, String name);
+
+    /**
+     * 用户的所有标签及笔记数，按名称排序（走 (userId, name) 唯一索引，不需要排序和计数）
+     */
+    @Query("SELECT * FROM tags WHERE userId = :userId ORDER BY name")
+    LiveData<List<Tag>> getTagsByUser(int userId);
+
+    @Query("SELECT tags.* FROM note_tags INNER JOIN tags ON tags.id = note_tags.tagId "
+        + "WHERE note_tags.noteId = :noteId ORDER BY tags.name")
+    LiveData<List<Tag>> getTagsForNote(long noteId);
+
+    @Query("SELECT tagId FROM note_tags WHERE noteId = :noteId")
+    List<Long> getTagIdsForNoteSync(long noteId);
+
+    @Query("UPDATE tags SET name = :name WHERE id = :tagId")
+    int renameTag(long tagId, String name);
+
+    /**
+     * 删除标签，关联通过外键级联删除
+     */
+    @Query("DELETE FROM tags WHERE id = :tagId")
+    int deleteTag(long tagId);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertNoteTags(List<NoteTag> noteTags);
+
+    @Query("DELETE FROM note_tags WHERE noteId = :noteId AND tagId IN (:tagIds)")
+    int deleteNoteTags(long noteId, List<Long> tagIds);
+
+    /**
+     * 在一个事务中把笔记的标签改为指定集合，只增删有变化的关联
+     */
+    @Transaction
+    default void setTagsForNote(long noteId, List<NoteTag> added, List<Long> removedTagIds) {
+        if (!removedTagIds.isEmpty()) {
+            deleteNoteTags(noteId, removedTagIds);
+        }
+        if (!added.isEmpty()) {
+            insertNoteTags(added);
+        }
+    }
+}
@@ -49,4 +49,11 @@ public interface UserDao {
 
     @Query("SELECT * FROM users WHERE id = :id")
     User getUserById(int id);
+
+    /**
+     * 仅当密码仍为旧值时更新密码，避免覆盖期间发生的其他修改
+     * @return 更新的行数
+     */
+    @Query("UPDATE users SET password = :newPassword WHERE id = :id AND password = :oldPassword")
+    int replacePassword(int id, String oldPassword, String newPassword);
 } 
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.example.notepad.data.model;
+
+import androidx.room.Entity;
+import androidx.room.Ignore;
+
+import java.util.Date;
+
+/**
+ * 编辑草稿实体类
+ * 编辑页自动保存的未提交内容，每个用户的每条笔记最多一份草稿，新建笔记的noteId为0
+ */
+@Entity(tableName = "drafts", primaryKeys = {"userId", "noteId"})
+public class Draft {
+    /** 新建笔记（尚未插入数据库）的草稿使用的笔记ID */
+    public static final long NEW_NOTE_ID = 0;
+
+    private int userId;
+    private long noteId;
+    private String title;
+    private String content;
+    // 标题和内容的哈希，用于跳过未变化的写入
+    private long contentHash;
+    private Date updatedAt;
+
+    /**
+     * 默认构造函数 - Room需要
+     */
+    public Draft() {
+    }
+
+    @Ignore
+    public Draft(int userId, long noteId, String title, String content, long contentHash) {
+        this.userId = userId;
+        this.noteId = noteId;
+        this.title = title;
+        this.content = content;
+        this.contentHash = contentHash;
+        this.updatedAt = new Date();
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(long noteId) {
+        this.noteId = noteId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(long contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -11,18 +11,31 @@ import com.example.notepad.utils.DateConverter;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * 笔记实体类，用于存储笔记信息
  */
 @Entity(tableName = "notes", 
-        foreignKeys = @ForeignKey(
-            entity = User.class,
-            parentColumns = "id",
-            childColumns = "userId",
-            onDelete = ForeignKey.CASCADE
-        ),
-        indices = {@Index("userId")}
+        foreignKeys = {
+            @ForeignKey(
+                entity = User.class,
+                parentColumns = "id",
+                childColumns = "userId",
+                onDelete = ForeignKey.CASCADE
+            ),
+            @ForeignKey(
+                entity = Notebook.class,
+                parentColumns = "id",
+                childColumns = "notebookId",
+                onDelete = ForeignKey.SET_NULL
+            )
+        },
+        indices = {
+            @Index(value = {"userId", "favorite", "updatedAt"}),
+            @Index(value = {"userId", "favorite", "orderKey"}),
+            @Index(value = {"notebookId", "updatedAt"})
+        }
 )
 @TypeConverters(DateConverter.class)
 public class Note {
@@ -35,6 +48,9 @@ public class Note {
     private Date updatedAt;
     private int userId;
     private String imagePath; // 存储图片路径
+    private Long notebookId; // 所属笔记本，为null表示未归入笔记本
+    private boolean favorite; // 是否收藏，收藏的笔记显示在首页顶部
+    private String orderKey; // 手动排序的排序键，见OrderKeys
     
     /**
      * 默认构造函数 - Room需要
@@ -60,6 +76,34 @@ public class Note {
         this.updatedAt = new Date();
     }
     
+    /**
+     * 复制构造函数，用于缓存中保存独立副本
+     * @param other 被复制的笔记
+     */
+    @Ignore
+    public Note(Note other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.content = other.content;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.userId = other.userId;
+        this.imagePath = other.imagePath;
+        this.notebookId = other.notebookId;
+        this.favorite = other.favorite;
+        this.orderKey = other.orderKey;
+    }
+    
+    /**
+     * 判断列表显示的内容是否相同，用于列表差异计算
+     * @param other 另一条笔记
+     */
+    public boolean hasSameContents(Note other) {
+        return Objects.equals(title, other.title)
+            && Objects.equals(content, other.content)
+            && Objects.equals(updatedAt, other.updatedAt);
+    }
+    
     // Getters and Setters
     public long getId() {
         return id;
@@ -116,4 +160,28 @@ public class Note {
     public void setImagePath(String imagePath) {
         this.imagePath = imagePath;
     }
+    
+    public Long getNotebookId() {
+        return notebookId;
+    }
+    
+    public void setNotebookId(Long notebookId) {
+        this.notebookId = notebookId;
+    }
+    
+    public boolean isFavorite() {
+        return favorite;
+    }
+    
+    public void setFavorite(boolean favorite) {
+        this.favorite = favorite;
+    }
+    
+    public String getOrderKey() {
+        return orderKey;
+    }
+    
+    public void setOrderKey(String orderKey) {
+        this.orderKey = orderKey;
+    }
 } 
\ No newline at end of file
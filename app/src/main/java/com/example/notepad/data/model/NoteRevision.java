@@ -0,0 +1,120 @@
+package com.example.notepad.data.model;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import java.util.Date;
+
+/**
+ * 笔记历史版本实体类
+ * 关键帧保存完整内容，其余版本只保存相对上一个版本的按行补丁（见 {@link com.example.notepad.utils.LineDiff}）
+ */
+@Entity(tableName = "note_revisions",
+        foreignKeys = @ForeignKey(
+            entity = Note.class,
+            parentColumns = "id",
+            childColumns = "noteId",
+            onDelete = ForeignKey.CASCADE
+        ),
+        indices = {@Index(value = {"noteId", "revision"}, unique = true)}
+)
+public class NoteRevision {
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    private long noteId;
+    // 版本号，同一笔记内递增，压缩后可能不连续
+    private int revision;
+    private boolean keyframe;
+    private String title;
+    // 关键帧为完整内容，否则为补丁
+    private String data;
+    // 完整内容的长度，用于展示和统计
+    private int contentLength;
+    private Date createdAt;
+
+    /**
+     * 默认构造函数 - Room需要
+     */
+    public NoteRevision() {
+    }
+
+    @Ignore
+    public NoteRevision(long noteId, int revision, boolean keyframe, String title, String data,
+                        int contentLength, Date createdAt) {
+        this.noteId = noteId;
+        this.revision = revision;
+        this.keyframe = keyframe;
+        this.title = title;
+        this.data = data;
+        this.contentLength = contentLength;
+        this.createdAt = createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(long noteId) {
+        this.noteId = noteId;
+    }
+
+    public int getRevision() {
+        return revision;
+    }
+
+    public void setRevision(int revision) {
+        this.revision = revision;
+    }
+
+    public boolean isKeyframe() {
+        return keyframe;
+    }
+
+    public void setKeyframe(boolean keyframe) {
+        this.keyframe = keyframe;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public void setData(String data) {
+        this.data = data;
+    }
+
+    public int getContentLength() {
+        return contentLength;
+    }
+
+    public void setContentLength(int contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
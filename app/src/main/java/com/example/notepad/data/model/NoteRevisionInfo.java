@@ -0,0 +1,16 @@
+package com.example.notepad.data.model;
+
+import java.util.Date;
+
+/**
+ * 笔记历史版本的摘要信息，不包含内容和补丁
+ * 用于展示版本列表
+ */
+public class NoteRevisionInfo {
+    public long noteId;
+    public int revision;
+    public boolean keyframe;
+    public String title;
+    public int contentLength;
+    public Date createdAt;
+}
@@ -0,0 +1,74 @@
+package com.example.notepad.data.model;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Ignore;
+import androidx.room.Index;
+
+import java.util.Date;
+
+/**
+ * 笔记与标签的关联（多对多）
+ * 主键 (noteId, tagId) 用于按笔记查标签；索引 (tagId, noteUpdatedAt) 用于按标签分页查询笔记，
+ * 按索引顺序扫描即可得到按更新时间倒序的结果，不需要临时排序。
+ * noteUpdatedAt 是笔记更新时间的冗余副本，插入关联和更新笔记时由触发器同步
+ */
+@Entity(tableName = "note_tags",
+        primaryKeys = {"noteId", "tagId"},
+        foreignKeys = {
+            @ForeignKey(
+                entity = Note.class,
+                parentColumns = "id",
+                childColumns = "noteId",
+                onDelete = ForeignKey.CASCADE
+            ),
+            @ForeignKey(
+                entity = Tag.class,
+                parentColumns = "id",
+                childColumns = "tagId",
+                onDelete = ForeignKey.CASCADE
+            )
+        },
+        indices = {@Index(value = {"tagId", "noteUpdatedAt"})}
+)
+public class NoteTag {
+    private long noteId;
+    private long tagId;
+    private Date noteUpdatedAt;
+
+    /**
+     * 默认构造函数 - Room需要
+     */
+    public NoteTag() {
+    }
+
+    @Ignore
+    public NoteTag(long noteId, long tagId) {
+        this.noteId = noteId;
+        this.tagId = tagId;
+    }
+
+    public long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(long noteId) {
+        this.noteId = noteId;
+    }
+
+    public long getTagId() {
+        return tagId;
+    }
+
+    public void setTagId(long tagId) {
+        this.tagId = tagId;
+    }
+
+    public Date getNoteUpdatedAt() {
+        return noteUpdatedAt;
+    }
+
+    public void setNoteUpdatedAt(Date noteUpdatedAt) {
+        this.noteUpdatedAt = noteUpdatedAt;
+    }
+}
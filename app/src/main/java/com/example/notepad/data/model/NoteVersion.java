@@ -0,0 +1,12 @@
+package com.example.notepad.data.model;
+
+import java.util.Date;
+
+/**
+ * 笔记版本信息，仅包含ID和更新时间
+ * 用于低成本地判断缓存中的笔记是否已被修改
+ */
+public class NoteVersion {
+    public long id;
+    public Date updatedAt;
+}
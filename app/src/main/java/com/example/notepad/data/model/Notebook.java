@@ -0,0 +1,91 @@
+package com.example.notepad.data.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import java.util.Date;
+
+/**
+ * 笔记本实体类，笔记本可以任意嵌套
+ * 层级关系保存在闭包表 {@link NotebookClosure} 中，parentId只用于显示直接上级，
+ * 修改层级必须通过 {@link com.example.notepad.data.dao.NotebookDao} 中的事务方法，保证两者一致
+ */
+@Entity(tableName = "notebooks",
+        foreignKeys = @ForeignKey(
+            entity = User.class,
+            parentColumns = "id",
+            childColumns = "userId",
+            onDelete = ForeignKey.CASCADE
+        ),
+        indices = {@Index("userId"), @Index("parentId")}
+)
+public class Notebook {
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    private int userId;
+    // 直接上级，为null表示顶层笔记本
+    private Long parentId;
+    @NonNull
+    private String name = "";
+    private Date createdAt;
+
+    /**
+     * 默认构造函数 - Room需要
+     */
+    public Notebook() {
+    }
+
+    @Ignore
+    public Notebook(int userId, Long parentId, @NonNull String name) {
+        this.userId = userId;
+        this.parentId = parentId;
+        this.name = name;
+        this.createdAt = new Date();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+    }
+
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    public void setName(@NonNull String name) {
+        this.name = name;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.notepad.data.model;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+/**
+ * 笔记本闭包表
+ * 每对 (祖先, 后代) 一行，包括每个笔记本到自身（depth = 0）。
+ * 主键 (ancestor, descendant) 用于查询子树，索引 descendant 用于查询祖先，
+ * 查询"某个笔记本及其所有子笔记本下的笔记"只需要一次索引连接，不需要递归查询
+ */
+@Entity(tableName = "notebook_closure",
+        primaryKeys = {"ancestor", "descendant"},
+        foreignKeys = {
+            @ForeignKey(
+                entity = Notebook.class,
+                parentColumns = "id",
+                childColumns = "ancestor",
+                onDelete = ForeignKey.CASCADE
+            ),
+            @ForeignKey(
+                entity = Notebook.class,
+                parentColumns = "id",
+                childColumns = "descendant",
+                onDelete = ForeignKey.CASCADE
+            )
+        },
+        indices = {@Index("descendant")}
+)
+public class NotebookClosure {
+    private long ancestor;
+    private long descendant;
+    // 祖先到后代的层数
+    private int depth;
+
+    public long getAncestor() {
+        return ancestor;
+    }
+
+    public void setAncestor(long ancestor) {
+        this.ancestor = ancestor;
+    }
+
+    public long getDescendant() {
+        return descendant;
+    }
+
+    public void setDescendant(long descendant) {
+        this.descendant = descendant;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+}
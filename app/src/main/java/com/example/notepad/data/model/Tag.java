@@ -0,0 +1,90 @@
+package com.example.notepad.data.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import java.util.Date;
+
+/**
+ * 标签实体类
+ * 同一用户的标签名唯一。noteCount由note_tags表上的触发器维护（见 {@link com.example.notepad.data.AppDatabase}），
+ * 读取计数不需要COUNT(*)；修改标签时只能用更新指定列的查询，不能用@Update整行覆盖
+ */
+@Entity(tableName = "tags",
+        foreignKeys = @ForeignKey(
+            entity = User.class,
+            parentColumns = "id",
+            childColumns = "userId",
+            onDelete = ForeignKey.CASCADE
+        ),
+        indices = {@Index(value = {"userId", "name"}, unique = true)}
+)
+public class Tag {
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    private int userId;
+    @NonNull
+    private String name = "";
+    // 使用该标签的笔记数，由触发器维护
+    private int noteCount;
+    private Date createdAt;
+
+    /**
+     * 默认构造函数 - Room需要
+     */
+    public Tag() {
+    }
+
+    @Ignore
+    public Tag(int userId, @NonNull String name) {
+        this.userId = userId;
+        this.name = name;
+        this.createdAt = new Date();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    public void setName(@NonNull String name) {
+        this.name = name;
+    }
+
+    public int getNoteCount() {
+        return noteCount;
+    }
+
+    public void setNoteCount(int noteCount) {
+        this.noteCount = noteCount;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -14,6 +14,7 @@ public class User {
     private String password;
     private String fullName;
     private String avatarUrl;
+    private long avatarVersion; // 头像版本号，用作图片缓存签名
     
     /**
      * 默认构造函数（Room需要）
@@ -42,6 +43,21 @@ public class User {
         this.fullName = fullName;
     }
     
+    /**
+     * 复制构造函数，用于对外返回副本或在写入成功前不修改原对象
+     * @param other 被复制的用户
+     */
+    @Ignore
+    public User(User other) {
+        this.id = other.id;
+        this.username = other.username;
+        this.email = other.email;
+        this.password = other.password;
+        this.fullName = other.fullName;
+        this.avatarUrl = other.avatarUrl;
+        this.avatarVersion = other.avatarVersion;
+    }
+    
     public int getId() {
         return id;
     }
@@ -90,6 +106,14 @@ public class User {
         this.avatarUrl = avatarUrl;
     }
     
+    public long getAvatarVersion() {
+        return avatarVersion;
+    }
+    
+    public void setAvatarVersion(long avatarVersion) {
+        this.avatarVersion = avatarVersion;
+    }
+    
     // Backward compatibility for old code that might use profileImage
     public String getProfileImage() {
         return avatarUrl;
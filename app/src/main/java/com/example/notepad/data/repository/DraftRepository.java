@@ -0,0 +1,97 @@
+package com.example.notepad.data.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.concurrent.Executor;
+
+import com.example.notepad.data.AppDatabase;
+import com.example.notepad.data.dao.DraftDao;
+import com.example.notepad.data.model.Draft;
+import com.example.notepad.utils.AppExecutors;
+import com.example.notepad.utils.Metrics;
+
+/**
+ * 草稿仓库类，用于管理编辑草稿的读写
+ * 写入由编辑页的草稿写入器在数据库写线程中同步调用，读取只在打开编辑页时发生一次
+ */
+public class DraftRepository {
+    private static final String TAG = "DraftRepository";
+
+    private static volatile DraftRepository instance;
+
+    // 数据库访问耗时统计
+    private static final Metrics.Timer LOAD_TIMER = Metrics.timer("db.draft.load");
+    private static final Metrics.Timer WRITE_TIMER = Metrics.timer("db.draft.write");
+    private static final Metrics.Timer DELETE_TIMER = Metrics.timer("db.draft.delete");
+
+    private final DraftDao draftDao;
+    private final Executor ioExecutor;
+    private final Executor mainThread;
+
+    private DraftRepository(Context context) {
+        draftDao = AppDatabase.getInstance(context).draftDao();
+        ioExecutor = AppExecutors.getInstance().io();
+        mainThread = AppExecutors.getInstance().mainThread();
+    }
+
+    public static DraftRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (DraftRepository.class) {
+                if (instance == null) {
+                    instance = new DraftRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    public interface LoadCallback {
+        /**
+         * 在主线程中回调
+         * @param draft 草稿，不存在或读取失败时为null
+         */
+        void onLoaded(Draft draft);
+    }
+
+    /**
+     * 异步读取草稿，只读取一次，不会因为后续的草稿写入而重复回调
+     * @param userId 用户ID
+     * @param noteId 笔记ID，新建笔记使用 {@link Draft#NEW_NOTE_ID}
+     * @param callback 读取完成回调
+     */
+    public void getDraft(int userId, long noteId, LoadCallback callback) {
+        ioExecutor.execute(() -> {
+            Draft draft = null;
+            try {
+                long start = LOAD_TIMER.start();
+                draft = draftDao.getDraftSync(userId, noteId);
+                LOAD_TIMER.stop(start);
+            } catch (Exception e) {
+                Log.e(TAG, "读取草稿失败: " + e.getMessage(), e);
+            }
+            Draft result = draft;
+            mainThread.execute(() -> callback.onLoaded(result));
+        });
+    }
+
+    /**
+     * 同步写入草稿，必须在工作线程中调用
+     */
+    public void saveDraftSync(Draft draft) {
+        long start = WRITE_TIMER.start();
+        draftDao.upsert(draft);
+        WRITE_TIMER.stop(start);
+    }
+
+    /**
+     * 同步删除草稿，必须在工作线程中调用
+     * @return 是否删除了已有的草稿
+     */
+    public boolean deleteDraftSync(int userId, long noteId) {
+        long start = DELETE_TIMER.start();
+        int deleted = draftDao.deleteDraft(userId, noteId);
+        DELETE_TIMER.stop(start);
+        return deleted > 0;
+    }
+}
@@ -1,79 +1,212 @@
 package com.example.notepad.data.repository;
 
-import android.app.Application;
 import android.content.Context;
-import android.os.Handler;
-import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
 
+import androidx.annotation.NonNull;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Transformations;
 import androidx.paging.Pager;
 import androidx.paging.PagingConfig;
 import androidx.paging.PagingData;
 import androidx.paging.PagingLiveData;
+import androidx.room.InvalidationTracker;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.function.LongFunction;
+import java.util.function.UnaryOperator;
 
 import com.example.notepad.data.AppDatabase;
 import com.example.notepad.data.dao.NoteDao;
 import com.example.notepad.data.dao.AttachmentDao;
+import com.example.notepad.data.dao.DraftDao;
 import com.example.notepad.data.model.Note;
 import com.example.notepad.data.model.Attachment;
+import com.example.notepad.data.model.NoteVersion;
 import com.example.notepad.data.model.NoteWithAttachments;
 import com.example.notepad.data.callback.InsertCallback;
-
-import java.util.List;
+import com.example.notepad.utils.AppExecutors;
+import com.example.notepad.utils.Metrics;
+import com.example.notepad.utils.OrderKeys;
 
 /**
  * 笔记仓库类，用于管理笔记数据的访问
+ * 进程内单例，按笔记ID缓存最近访问的笔记，并通过Room的InvalidationTracker精确失效
  */
 public class NoteRepository {
+    private static final String TAG = "NoteRepository";
     private static final int PAGE_SIZE = 20;
+    private static final int NOTE_CACHE_SIZE = 64;
+    private static final int NOTE_WITH_ATTACHMENTS_CACHE_SIZE = 16;
+
+    private static volatile NoteRepository instance;
+
+    // 数据库访问耗时统计
+    private static final Metrics.Timer INSERT_TIMER = Metrics.timer("db.note.insert");
+    private static final Metrics.Timer UPDATE_TIMER = Metrics.timer("db.note.update");
+    private static final Metrics.Timer FAVORITE_TIMER = Metrics.timer("db.note.favorite");
+    private static final Metrics.Timer MOVE_TIMER = Metrics.timer("db.note.move");
+    private static final Metrics.Timer REBALANCE_TIMER = Metrics.timer("db.note.rebalance");
+    private static final Metrics.Timer DELETE_TIMER = Metrics.timer("db.note.delete");
+    private static final Metrics.Timer DELETE_ALL_TIMER = Metrics.timer("db.note.deleteAllByUser");
+    private static final Metrics.Timer LOAD_NOTE_TIMER = Metrics.timer("db.note.loadById");
+    private static final Metrics.Timer LOAD_WITH_ATTACHMENTS_TIMER = Metrics.timer("db.note.loadWithAttachments");
+    private static final Metrics.Timer RECENT_NOTES_TIMER = Metrics.timer("db.note.recent");
+    private static final Metrics.Timer VERSIONS_TIMER = Metrics.timer("db.note.versions");
+    private static final Metrics.Timer DELETE_ATTACHMENT_TIMER = Metrics.timer("db.attachment.delete");
+    private static final Metrics.Counter CACHE_HITS = Metrics.counter("cache.note.hit");
+    private static final Metrics.Counter CACHE_MISSES = Metrics.counter("cache.note.miss");
+    // 数据库失效通知次数和缓存LiveData的查询次数，用于验证每次失效最多只查询一次
+    private static final Metrics.Counter INVALIDATIONS = Metrics.counter("cache.note.invalidation");
+    private static final Metrics.Counter CACHED_QUERIES = Metrics.counter("cache.note.query");
+
     private final NoteDao noteDao;
     private final AttachmentDao attachmentDao;
+    private final DraftDao draftDao;
+    private final AppDatabase database;
+    private final NoteRevisionRepository revisionRepository;
     private final Executor executor;
-    private Handler mainHandler;
-    
-    public NoteRepository(Context context) {
+    private final Executor ioExecutor;
+    private final Executor mainThread;
+
+    // 笔记缓存，缓存中保存的是独立副本；发给观察者的也是副本，页面修改拿到的对象不会影响缓存
+    private final LruCache<Long, Note> noteCache = new LruCache<>(NOTE_CACHE_SIZE);
+    private final LruCache<Long, NoteWithAttachments> noteWithAttachmentsCache =
+        new LruCache<>(NOTE_WITH_ATTACHMENTS_CACHE_SIZE);
+
+    // 当前处于活跃状态的缓存LiveData，失效时需要重新加载
+    private final Set<CachedLiveData<?>> activeLiveData = ConcurrentHashMap.newKeySet();
+
+    private NoteRepository(Context context) {
         AppDatabase db = AppDatabase.getInstance(context);
+        database = db;
+        revisionRepository = NoteRevisionRepository.getInstance(context);
         noteDao = db.noteDao();
         attachmentDao = db.attachmentDao();
-        executor = Executors.newSingleThreadExecutor();
-        mainHandler = new Handler(Looper.getMainLooper());
+        draftDao = db.draftDao();
+        // 写操作统一在数据库写线程中串行执行
+        executor = AppExecutors.getInstance().diskWrite();
+        ioExecutor = AppExecutors.getInstance().io();
+        mainThread = AppExecutors.getInstance().mainThread();
+
+        db.getInvalidationTracker().addObserver(new InvalidationTracker.Observer("notes", "attachments") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                INVALIDATIONS.increment();
+                ioExecutor.execute(() -> validateCache(tables));
+            }
+        });
     }
-    
-    public NoteRepository(Application application) {
-        this((Context) application);
+
+    public static NoteRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (NoteRepository.class) {
+                if (instance == null) {
+                    instance = new NoteRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
     }
-    
+
     public void insert(Note note) {
-        executor.execute(() -> noteDao.insert(note));
+        executor.execute(() -> {
+            long start = INSERT_TIMER.start();
+            database.runInTransaction(() -> {
+                assignFirstOrderKey(note);
+                Note inserted = new Note(note);
+                inserted.setId(noteDao.insert(note));
+                revisionRepository.recordSync(null, inserted);
+            });
+            INSERT_TIMER.stop(start);
+            rebalanceIfNeeded(note);
+        });
     }
-    
+
     public void insert(Note note, InsertCallback callback) {
         executor.execute(() -> {
             try {
-                long noteId = noteDao.insert(note);
+                long start = INSERT_TIMER.start();
+                long noteId = database.runInTransaction(() -> {
+                    assignFirstOrderKey(note);
+                    long id = noteDao.insert(note);
+                    Note inserted = new Note(note);
+                    inserted.setId(id);
+                    revisionRepository.recordSync(null, inserted);
+                    return id;
+                });
+                INSERT_TIMER.stop(start);
                 note.setId(noteId);
-                mainHandler.post(() -> callback.onComplete(note));
+                rebalanceIfNeeded(note);
+                mainThread.execute(() -> callback.onComplete(note));
             } catch (Exception e) {
-                mainHandler.post(() -> callback.onError(e));
+                mainThread.execute(() -> callback.onError(e));
             }
         });
     }
-    
+
+    @SuppressWarnings("unchecked")
     public void update(Note note) {
-        executor.execute(() -> noteDao.update(note));
+        Note snapshot = new Note(note);
+        executor.execute(() -> {
+            long start = UPDATE_TIMER.start();
+            // 与历史版本在同一事务中写入，保证版本链中的补丁总是基于上一次保存的内容
+            boolean exists = database.runInTransaction(() -> {
+                Note previous = noteDao.getNoteByIdSync(snapshot.getId());
+                if (previous == null) {
+                    return false;
+                }
+                // 所属笔记本、收藏和排序只通过setNotebook、setFavorite、moveNote修改，编辑时的副本可能已过期
+                snapshot.setNotebookId(previous.getNotebookId());
+                snapshot.setFavorite(previous.isFavorite());
+                snapshot.setOrderKey(previous.getOrderKey());
+                noteDao.update(snapshot);
+                revisionRepository.recordSync(previous, snapshot);
+                return true;
+            });
+            UPDATE_TIMER.stop(start);
+            if (!exists) {
+                // 笔记已被删除，不能写回缓存
+                return;
+            }
+            // 写穿缓存，校验时更新时间一致，无需重新查询
+            noteCache.put(snapshot.getId(), snapshot);
+            for (CachedLiveData<?> liveData : activeLiveData) {
+                if (liveData.cache == noteCache && liveData.id == snapshot.getId()) {
+                    ((CachedLiveData<Note>) liveData).publish(snapshot);
+                }
+            }
+        });
     }
-    
+
     public void delete(Note note) {
-        executor.execute(() -> noteDao.delete(note));
+        executor.execute(() -> {
+            long start = DELETE_TIMER.start();
+            noteDao.delete(note);
+            DELETE_TIMER.stop(start);
+            // 草稿表没有外键，笔记删除后一并清理它的草稿
+            draftDao.deleteDraftsForNote(note.getId());
+            noteCache.remove(note.getId());
+            noteWithAttachmentsCache.remove(note.getId());
+        });
     }
-    
+
+    /**
+     * 获取笔记，优先从内存缓存读取
+     */
     public LiveData<Note> getNoteById(long noteId) {
-        return noteDao.getNoteById(noteId);
+        return new CachedLiveData<>(noteId, noteCache, noteDao::getNoteByIdSync, Note::new, LOAD_NOTE_TIMER);
     }
-    
+
     public LiveData<PagingData<Note>> getAllNotesByUserPaged(int userId) {
         return PagingLiveData.getLiveData(
             new Pager<>(
@@ -87,11 +220,230 @@ public class NoteRepository {
             )
         );
     }
-    
+
     public LiveData<List<Note>> getAllNotesByUser(int userId) {
-        return noteDao.getAllNotesByUser(userId);
+        // 列表最前面的笔记最可能被打开，预先放入缓存
+        return Transformations.map(noteDao.getAllNotesByUser(userId), notes -> {
+            primeCache(notes);
+            return notes;
+        });
+    }
+
+    /**
+     * 按标签分页获取笔记，按更新时间倒序
+     */
+    public LiveData<PagingData<Note>> getNotesByTagPaged(long tagId) {
+        return PagingLiveData.getLiveData(
+            new Pager<>(
+                new PagingConfig(
+                    PAGE_SIZE,
+                    PAGE_SIZE,
+                    false,
+                    PAGE_SIZE * 3
+                ),
+                () -> noteDao.getNotesByTagPaged(tagId)
+            )
+        );
+    }
+
+    public LiveData<List<Note>> getNotesByTag(long tagId) {
+        return noteDao.getNotesByTag(tagId);
+    }
+
+    /**
+     * 获取收藏或未收藏的笔记，按更新时间倒序
+     */
+    public LiveData<List<Note>> getNotesByFavorite(int userId, boolean favorite) {
+        return Transformations.map(noteDao.getNotesByFavorite(userId, favorite), notes -> {
+            primeCache(notes);
+            return notes;
+        });
+    }
+
+    public LiveData<PagingData<Note>> getNotesByFavoritePaged(int userId, boolean favorite) {
+        return PagingLiveData.getLiveData(
+            new Pager<>(
+                new PagingConfig(
+                    PAGE_SIZE,
+                    PAGE_SIZE,
+                    false,
+                    PAGE_SIZE * 3
+                ),
+                () -> noteDao.getNotesByFavoritePaged(userId, favorite)
+            )
+        );
+    }
+
+    public LiveData<List<Note>> getNotesByFavoriteOrdered(int userId, boolean favorite) {
+        return Transformations.map(noteDao.getNotesByFavoriteOrdered(userId, favorite), notes -> {
+            primeCache(notes);
+            return notes;
+        });
+    }
+
+    public LiveData<PagingData<Note>> getNotesByFavoriteOrderedPaged(int userId, boolean favorite) {
+        return PagingLiveData.getLiveData(
+            new Pager<>(
+                new PagingConfig(
+                    PAGE_SIZE,
+                    PAGE_SIZE,
+                    false,
+                    PAGE_SIZE * 3
+                ),
+                () -> noteDao.getNotesByFavoriteOrderedPaged(userId, favorite)
+            )
+        );
+    }
+
+    /**
+     * 收藏或取消收藏，只更新这一行的收藏标记和排序键，笔记移到新分区手动排序的最前面
+     * 更新时间不变，缓存校验发现不了这次修改，所以直接淘汰缓存并重新加载正在观察的数据
+     */
+    public void setFavorite(long noteId, int userId, boolean favorite) {
+        executor.execute(() -> {
+            long start = FAVORITE_TIMER.start();
+            String orderKey = database.runInTransaction(() -> {
+                String key = OrderKeys.between(null, noteDao.getFirstOrderKey(userId, favorite));
+                noteDao.setFavorite(noteId, favorite, key);
+                return key;
+            });
+            FAVORITE_TIMER.stop(start);
+            if (OrderKeys.needsRebalance(orderKey)) {
+                rebalance(userId, favorite);
+            }
+            noteCache.remove(noteId);
+            noteWithAttachmentsCache.remove(noteId);
+            for (CachedLiveData<?> liveData : activeLiveData) {
+                if (liveData.id == noteId) {
+                    liveData.reload();
+                }
+            }
+        });
+    }
+
+    /**
+     * 手动调整笔记在分区中的位置，通常只更新被移动的一行
+     * @param noteId 被移动的笔记
+     * @param beforeId 移动后排在它前面的笔记，为null表示移到最前面
+     * @param afterId 移动后排在它后面的笔记，为null表示移到最后面
+     */
+    public void moveNote(long noteId, Long beforeId, Long afterId) {
+        executor.execute(() -> {
+            Note note = noteDao.getNoteByIdSync(noteId);
+            if (note == null) {
+                return;
+            }
+            long start = MOVE_TIMER.start();
+            String orderKey;
+            try {
+                orderKey = database.runInTransaction(() -> {
+                    try {
+                        return moveSync(noteId, beforeId, afterId);
+                    } catch (IllegalArgumentException e) {
+                        // 相邻的键相同或顺序错误，先重新分配整个分区再移动
+                        Log.w(TAG, "排序键无法插入，重新分配: " + e.getMessage());
+                        rebalanceSync(note.getUserId(), note.isFavorite());
+                        return moveSync(noteId, beforeId, afterId);
+                    }
+                });
+            } catch (IllegalArgumentException e) {
+                // 拖动期间相邻的笔记移到了其他分区，放弃这次移动
+                Log.w(TAG, "移动笔记失败: " + noteId, e);
+                return;
+            }
+            MOVE_TIMER.stop(start);
+            if (OrderKeys.needsRebalance(orderKey)) {
+                rebalance(note.getUserId(), note.isFavorite());
+            }
+        });
+    }
+
+    private String moveSync(long noteId, Long beforeId, Long afterId) {
+        String before = beforeId != null ? noteDao.getOrderKey(beforeId) : null;
+        String after = afterId != null ? noteDao.getOrderKey(afterId) : null;
+        String key = OrderKeys.between(before, after);
+        noteDao.setOrderKey(noteId, key);
+        return key;
+    }
+
+    /**
+     * 新笔记排在所在分区手动排序的最前面
+     */
+    private void assignFirstOrderKey(Note note) {
+        note.setOrderKey(OrderKeys.between(null, noteDao.getFirstOrderKey(note.getUserId(), note.isFavorite())));
+    }
+
+    private void rebalanceIfNeeded(Note note) {
+        if (OrderKeys.needsRebalance(note.getOrderKey())) {
+            rebalance(note.getUserId(), note.isFavorite());
+        }
+    }
+
+    /**
+     * 在写线程中排在当前写操作之后重新分配分区的排序键
+     * 键过长说明同一位置插入过很多次，这种情况很少发生，重新分配是O(n)次写入
+     */
+    private void rebalance(int userId, boolean favorite) {
+        executor.execute(() -> {
+            long start = REBALANCE_TIMER.start();
+            database.runInTransaction(() -> rebalanceSync(userId, favorite));
+            REBALANCE_TIMER.stop(start);
+        });
+    }
+
+    private void rebalanceSync(int userId, boolean favorite) {
+        List<Long> ids = noteDao.getOrderedNoteIds(userId, favorite);
+        List<String> keys = OrderKeys.evenlySpaced(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            noteDao.setOrderKey(ids.get(i), keys.get(i));
+        }
+        Log.d(TAG, "重新分配排序键: " + ids.size() + " 条笔记");
+    }
+
+    /**
+     * 分页获取笔记本及其所有子笔记本下的笔记，按更新时间倒序
+     */
+    public LiveData<PagingData<Note>> getNotesInNotebookPaged(long notebookId) {
+        return PagingLiveData.getLiveData(
+            new Pager<>(
+                new PagingConfig(
+                    PAGE_SIZE,
+                    PAGE_SIZE,
+                    false,
+                    PAGE_SIZE * 3
+                ),
+                () -> noteDao.getNotesInNotebookPaged(notebookId)
+            )
+        );
+    }
+
+    public LiveData<List<Note>> getNotesInNotebook(long notebookId) {
+        return Transformations.map(noteDao.getNotesInNotebook(notebookId), notes -> {
+            primeCache(notes);
+            return notes;
+        });
+    }
+
+    /**
+     * 把笔记移动到指定笔记本
+     * @param notebookId 目标笔记本，为null表示移出笔记本
+     */
+    public void setNotebook(long noteId, Long notebookId) {
+        executor.execute(() -> {
+            long start = UPDATE_TIMER.start();
+            noteDao.setNotebook(noteId, notebookId);
+            UPDATE_TIMER.stop(start);
+            // 更新时间不变，缓存校验发现不了这次修改
+            noteCache.remove(noteId);
+            noteWithAttachmentsCache.remove(noteId);
+            for (CachedLiveData<?> liveData : activeLiveData) {
+                if (liveData.id == noteId) {
+                    liveData.reload();
+                }
+            }
+        });
     }
-    
+
     public LiveData<PagingData<Note>> searchNotesPaged(int userId, String query) {
         return PagingLiveData.getLiveData(
             new Pager<>(
@@ -105,24 +457,218 @@ public class NoteRepository {
             )
         );
     }
-    
+
     public LiveData<List<Note>> searchNotes(int userId, String query) {
         return noteDao.searchNotes(userId, query);
     }
-    
+
     public void deleteAllNotesByUser(int userId) {
-        executor.execute(() -> noteDao.deleteAllNotesByUser(userId));
+        executor.execute(() -> {
+            long start = DELETE_ALL_TIMER.start();
+            noteDao.deleteAllNotesByUser(userId);
+            DELETE_ALL_TIMER.stop(start);
+            draftDao.deleteDraftsByUser(userId);
+        });
     }
-    
+
+    /**
+     * 获取笔记及其附件，优先从内存缓存读取
+     */
     public LiveData<NoteWithAttachments> getNoteWithAttachments(long noteId) {
-        return noteDao.getNoteWithAttachments(noteId);
+        return new CachedLiveData<>(noteId, noteWithAttachmentsCache, noteDao::getNoteWithAttachmentsSync,
+            NoteRepository::copyOf, LOAD_WITH_ATTACHMENTS_TIMER);
     }
-    
+
     /**
      * 删除附件
      * @param attachment 要删除的附件
      */
     public void deleteAttachment(Attachment attachment) {
-        executor.execute(() -> attachmentDao.delete(attachment));
+        executor.execute(() -> {
+            long start = DELETE_ATTACHMENT_TIMER.start();
+            attachmentDao.delete(attachment);
+            DELETE_ATTACHMENT_TIMER.stop(start);
+        });
+    }
+
+    /**
+     * 获取数据库失效通知次数，关闭性能统计时不计数
+     */
+    public long getInvalidationCount() {
+        return INVALIDATIONS.get();
+    }
+
+    /**
+     * 获取缓存LiveData查询数据库的次数（缓存未命中或失效后重新加载），关闭性能统计时不计数
+     */
+    public long getCachedQueryCount() {
+        return CACHED_QUERIES.get();
+    }
+
+    /**
+     * 同步查询最近更新的未收藏笔记并放入缓存，必须在工作线程中调用
+     * @param userId 用户ID
+     * @return 按更新时间倒序的首页笔记（收藏分区之外的部分）
+     */
+    public List<Note> prefetchRecentNotes(int userId) {
+        long start = RECENT_NOTES_TIMER.start();
+        List<Note> notes = noteDao.getRecentNotesByUser(userId, PAGE_SIZE);
+        RECENT_NOTES_TIMER.stop(start);
+        primeCache(notes);
+        return notes;
+    }
+
+    private void primeCache(List<Note> notes) {
+        if (notes == null) {
+            return;
+        }
+        int count = Math.min(notes.size(), NOTE_CACHE_SIZE);
+        for (int i = 0; i < count; i++) {
+            Note note = notes.get(i);
+            noteCache.put(note.getId(), new Note(note));
+        }
+    }
+
+    /**
+     * 数据表变化后校验缓存
+     * 笔记表变化时批量比对更新时间，只淘汰真正被修改或删除的笔记；
+     * 附件表变化时无法定位到笔记，淘汰全部带附件的缓存
+     */
+    private void validateCache(Set<String> tables) {
+        Set<Long> staleNoteIds = new HashSet<>();
+        Set<Long> staleWithAttachmentsIds = new HashSet<>();
+
+        if (tables.contains("notes")) {
+            Map<Long, Note> cachedNotes = noteCache.snapshot();
+            Map<Long, NoteWithAttachments> cachedWithAttachments = noteWithAttachmentsCache.snapshot();
+
+            Set<Long> ids = new HashSet<>(cachedNotes.keySet());
+            ids.addAll(cachedWithAttachments.keySet());
+            if (!ids.isEmpty()) {
+                Map<Long, Date> currentVersions = new HashMap<>();
+                long start = VERSIONS_TIMER.start();
+                List<NoteVersion> versions = noteDao.getNoteVersions(new ArrayList<>(ids));
+                VERSIONS_TIMER.stop(start);
+                for (NoteVersion version : versions) {
+                    currentVersions.put(version.id, version.updatedAt);
+                }
+                for (Map.Entry<Long, Note> entry : cachedNotes.entrySet()) {
+                    if (isStale(entry.getValue(), currentVersions.get(entry.getKey()))) {
+                        staleNoteIds.add(entry.getKey());
+                    }
+                }
+                for (Map.Entry<Long, NoteWithAttachments> entry : cachedWithAttachments.entrySet()) {
+                    if (isStale(entry.getValue().note, currentVersions.get(entry.getKey()))) {
+                        staleWithAttachmentsIds.add(entry.getKey());
+                    }
+                }
+            }
+        }
+
+        for (Long id : staleNoteIds) {
+            noteCache.remove(id);
+        }
+        if (tables.contains("attachments")) {
+            noteWithAttachmentsCache.evictAll();
+        } else {
+            for (Long id : staleWithAttachmentsIds) {
+                noteWithAttachmentsCache.remove(id);
+            }
+        }
+
+        if (!staleNoteIds.isEmpty()) {
+            Log.d(TAG, "缓存失效笔记: " + staleNoteIds);
+        }
+
+        // 只重新加载受影响且仍在被观察的数据
+        for (CachedLiveData<?> liveData : activeLiveData) {
+            boolean affected;
+            if (liveData.cache == noteCache) {
+                affected = staleNoteIds.contains(liveData.id);
+            } else {
+                affected = tables.contains("attachments") || staleWithAttachmentsIds.contains(liveData.id);
+            }
+            if (affected) {
+                liveData.reload();
+            }
+        }
+    }
+
+    private static boolean isStale(Note cached, Date currentUpdatedAt) {
+        return cached == null || currentUpdatedAt == null || !currentUpdatedAt.equals(cached.getUpdatedAt());
+    }
+
+    /**
+     * 复制带附件的笔记，附件列表也复制一份
+     */
+    private static NoteWithAttachments copyOf(NoteWithAttachments source) {
+        NoteWithAttachments copy = new NoteWithAttachments();
+        copy.note = source.note != null ? new Note(source.note) : null;
+        copy.attachments = source.attachments != null ? new ArrayList<>(source.attachments) : null;
+        return copy;
+    }
+
+    /**
+     * 带内存缓存的LiveData
+     * 激活时缓存命中则发布缓存值的副本，否则在IO线程中查询并写入缓存
+     * 缓存中的对象只在仓库内部使用，观察者修改收到的对象不会影响缓存
+     */
+    private class CachedLiveData<T> extends LiveData<T> {
+        private final long id;
+        private final LruCache<Long, T> cache;
+        private final LongFunction<T> loader;
+        private final UnaryOperator<T> copier;
+        private final Metrics.Timer loadTimer;
+        // 当前值复制自的缓存对象，未变化时不重复发出
+        private volatile T source;
+
+        CachedLiveData(long id, LruCache<Long, T> cache, LongFunction<T> loader, UnaryOperator<T> copier,
+                       Metrics.Timer loadTimer) {
+            this.id = id;
+            this.cache = cache;
+            this.loader = loader;
+            this.copier = copier;
+            this.loadTimer = loadTimer;
+        }
+
+        @Override
+        protected void onActive() {
+            activeLiveData.add(this);
+            T cached = cache.get(id);
+            if (cached != null) {
+                CACHE_HITS.increment();
+                if (source != cached) {
+                    source = cached;
+                    setValue(copier.apply(cached));
+                }
+            } else {
+                CACHE_MISSES.increment();
+                reload();
+            }
+        }
+
+        @Override
+        protected void onInactive() {
+            activeLiveData.remove(this);
+        }
+
+        void publish(T value) {
+            source = value;
+            postValue(copier.apply(value));
+        }
+
+        void reload() {
+            ioExecutor.execute(() -> {
+                CACHED_QUERIES.increment();
+                long start = loadTimer.start();
+                T value = loader.apply(id);
+                loadTimer.stop(start);
+                if (value != null) {
+                    cache.put(id, value);
+                }
+                source = value;
+                postValue(value != null ? copier.apply(value) : null);
+            });
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,313 @@
+package com.example.notepad.data.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import com.example.notepad.data.AppDatabase;
+import com.example.notepad.data.dao.NoteRevisionDao;
+import com.example.notepad.data.model.Note;
+import com.example.notepad.data.model.NoteRevision;
+import com.example.notepad.data.model.NoteRevisionInfo;
+import com.example.notepad.utils.AppExecutors;
+import com.example.notepad.utils.LineDiff;
+import com.example.notepad.utils.Metrics;
+
+/**
+ * 笔记历史版本仓库
+ * 每次保存笔记时记录一个版本：每隔 {@link #KEYFRAME_INTERVAL} 个版本保存一次完整内容（关键帧），
+ * 其余版本只保存相对上一个版本的按行补丁，存储量与实际修改量成正比。
+ * 还原任意版本最多从关键帧开始应用 KEYFRAME_INTERVAL - 1 个补丁。
+ *
+ * 单条笔记的版本数超过 {@link #COMPACT_THRESHOLD} 时在后台压缩：保留最近的若干版本，
+ * 更早的版本每天只保留最后一个，并重新编码版本链
+ */
+public class NoteRevisionRepository {
+    private static final String TAG = "NoteRevisionRepository";
+
+    // 关键帧间隔，决定还原一个版本最多需要应用的补丁数
+    static final int KEYFRAME_INTERVAL = 16;
+    // 补丁的最大增删行数，超过时直接保存关键帧
+    private static final int MAX_DIFF_EDITS = 2000;
+    // 触发压缩的版本数
+    static final int COMPACT_THRESHOLD = 64;
+    // 压缩时完整保留的最近版本数
+    static final int KEEP_RECENT = 32;
+    // 压缩时更早的版本最多保留的天数（每天一个版本）
+    static final int KEEP_DAILY = 30;
+
+    private static volatile NoteRevisionRepository instance;
+
+    private static final Metrics.Counter KEYFRAMES = Metrics.counter("revision.keyframes");
+    private static final Metrics.Counter DELTAS = Metrics.counter("revision.deltas");
+    private static final Metrics.Histogram STORED_CHARS = Metrics.histogram("revision.stored.chars");
+    private static final Metrics.Timer RECORD_TIMER = Metrics.timer("revision.record");
+    private static final Metrics.Timer RECONSTRUCT_TIMER = Metrics.timer("revision.reconstruct");
+    private static final Metrics.Timer COMPACT_TIMER = Metrics.timer("revision.compact");
+
+    private final NoteRevisionDao revisionDao;
+    private final Executor writeExecutor;
+    private final Executor ioExecutor;
+    private final Executor mainThread;
+
+    // 正在压缩的笔记，避免同一笔记同时压缩
+    private final Set<Long> compacting = ConcurrentHashMap.newKeySet();
+
+    private NoteRevisionRepository(Context context) {
+        revisionDao = AppDatabase.getInstance(context).noteRevisionDao();
+        writeExecutor = AppExecutors.getInstance().diskWrite();
+        ioExecutor = AppExecutors.getInstance().io();
+        mainThread = AppExecutors.getInstance().mainThread();
+    }
+
+    public static NoteRevisionRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (NoteRevisionRepository.class) {
+                if (instance == null) {
+                    instance = new NoteRevisionRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    public interface RevisionCallback {
+        /**
+         * 在主线程中回调
+         * @param title 该版本的标题
+         * @param content 该版本的内容，还原失败时为null
+         */
+        void onLoaded(String title, String content);
+    }
+
+    /**
+     * 记录一次保存，必须在数据库写线程中与笔记的写入放在同一个事务里调用
+     * @param previous 保存前数据库中的笔记，新建笔记时为null
+     * @param current 保存后的笔记
+     */
+    public void recordSync(Note previous, Note current) {
+        if (previous != null && equals(previous.getTitle(), current.getTitle())
+                && equals(previous.getContent(), current.getContent())) {
+            return;
+        }
+        long start = RECORD_TIMER.start();
+        long noteId = current.getId();
+        Integer latest = revisionDao.getLatestRevision(noteId);
+        if (latest == null) {
+            if (previous == null) {
+                insertKeyframe(noteId, 1, current);
+                RECORD_TIMER.stop(start);
+                return;
+            }
+            // 升级前创建的笔记没有历史，先把保存前的内容作为第一个关键帧
+            insertKeyframe(noteId, 1, previous);
+            latest = 1;
+        }
+
+        int revision = latest + 1;
+        String content = nonNull(current.getContent());
+        String patch = null;
+        Integer keyframe = revisionDao.getKeyframeAtOrBefore(noteId, latest);
+        if (keyframe != null && revisionDao.countRevisionsAfter(noteId, keyframe) < KEYFRAME_INTERVAL - 1) {
+            patch = LineDiff.diff(nonNull(previous != null ? previous.getContent() : null), content, MAX_DIFF_EDITS);
+        }
+        // 补丁接近完整内容时保存完整内容更划算，也缩短了后续版本的还原链
+        if (patch == null || patch.length() > content.length() / 2) {
+            insertKeyframe(noteId, revision, current);
+        } else {
+            revisionDao.insert(new NoteRevision(noteId, revision, false, current.getTitle(), patch,
+                content.length(), current.getUpdatedAt()));
+            DELTAS.increment();
+            STORED_CHARS.record(patch.length());
+        }
+        RECORD_TIMER.stop(start);
+
+        if (revisionDao.countRevisions(noteId) > COMPACT_THRESHOLD) {
+            compactAsync(noteId);
+        }
+    }
+
+    private void insertKeyframe(long noteId, int revision, Note note) {
+        String content = nonNull(note.getContent());
+        revisionDao.insert(new NoteRevision(noteId, revision, true, note.getTitle(), content,
+            content.length(), note.getUpdatedAt()));
+        KEYFRAMES.increment();
+        STORED_CHARS.record(content.length());
+    }
+
+    /**
+     * 获取笔记的版本列表，按版本号倒序
+     */
+    public LiveData<List<NoteRevisionInfo>> getRevisions(long noteId) {
+        return revisionDao.getRevisionInfos(noteId);
+    }
+
+    /**
+     * 异步还原指定版本的内容
+     */
+    public void loadRevision(long noteId, int revision, RevisionCallback callback) {
+        ioExecutor.execute(() -> {
+            NoteRevision result = null;
+            try {
+                result = loadRevisionSync(noteId, revision);
+            } catch (Exception e) {
+                Log.e(TAG, "还原版本失败: " + noteId + "@" + revision, e);
+            }
+            NoteRevision loaded = result;
+            mainThread.execute(() -> callback.onLoaded(
+                loaded != null ? loaded.getTitle() : null, loaded != null ? loaded.getData() : null));
+        });
+    }
+
+    /**
+     * 同步还原指定版本，必须在工作线程中调用
+     * @return 以关键帧形式表示的版本（data为完整内容），版本不存在时返回null
+     */
+    public NoteRevision loadRevisionSync(long noteId, int revision) {
+        long start = RECONSTRUCT_TIMER.start();
+        Integer keyframe = revisionDao.getKeyframeAtOrBefore(noteId, revision);
+        if (keyframe == null) {
+            return null;
+        }
+        List<NoteRevision> chain = revisionDao.getRevisionRange(noteId, keyframe, revision);
+        NoteRevision last = chain.isEmpty() ? null : chain.get(chain.size() - 1);
+        if (last == null || last.getRevision() != revision) {
+            return null;
+        }
+        String content = rebuild(chain);
+        RECONSTRUCT_TIMER.stop(start);
+        return new NoteRevision(noteId, revision, true, last.getTitle(), content,
+            content.length(), last.getCreatedAt());
+    }
+
+    /**
+     * 从关键帧开始依次应用补丁
+     */
+    private static String rebuild(List<NoteRevision> chain) {
+        String content = null;
+        for (NoteRevision revision : chain) {
+            content = revision.isKeyframe() ? revision.getData() : LineDiff.apply(content, revision.getData());
+        }
+        return content;
+    }
+
+    /**
+     * 在后台压缩笔记的历史版本
+     * 在IO线程中读取并重新编码，在数据库写线程中用一个事务替换旧版本。
+     * 新的保存只会追加更大的版本号，且只依赖最新版本，不受压缩影响
+     */
+    public void compactAsync(long noteId) {
+        if (!compacting.add(noteId)) {
+            return;
+        }
+        ioExecutor.execute(() -> {
+            try {
+                long start = COMPACT_TIMER.start();
+                List<NoteRevision> compacted = compact(noteId);
+                if (compacted == null) {
+                    compacting.remove(noteId);
+                    return;
+                }
+                int boundary = compacted.get(compacted.size() - 1).getRevision();
+                writeExecutor.execute(() -> {
+                    try {
+                        revisionDao.replaceRevisionsUpTo(noteId, boundary, compacted);
+                        COMPACT_TIMER.stop(start);
+                        Log.d(TAG, "笔记 " + noteId + " 的历史已压缩到版本 " + boundary
+                            + "，保留 " + compacted.size() + " 个");
+                    } catch (Exception e) {
+                        // 压缩期间笔记被删除等情况，下次保存时会重新触发
+                        Log.e(TAG, "保存压缩结果失败: " + e.getMessage());
+                    } finally {
+                        compacting.remove(noteId);
+                    }
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "压缩历史版本失败: " + noteId, e);
+                compacting.remove(noteId);
+            }
+        });
+    }
+
+    /**
+     * 计算压缩后的版本链
+     * @return 替换范围内的新版本（最后一个是保留区的第一个版本，改为关键帧，使后续版本的还原链不变长），
+     *         无需压缩时返回null
+     */
+    private List<NoteRevision> compact(long noteId) {
+        Integer latest = revisionDao.getLatestRevision(noteId);
+        if (latest == null || revisionDao.countRevisions(noteId) <= COMPACT_THRESHOLD) {
+            return null;
+        }
+        List<NoteRevision> all = revisionDao.getRevisionRange(noteId, 0, latest);
+        int boundaryIndex = all.size() - KEEP_RECENT;
+        if (boundaryIndex <= 0) {
+            return null;
+        }
+
+        // 依次还原每个版本，决定保留哪些：每天保留最后一个，最多保留KEEP_DAILY天
+        List<NoteRevision> restored = new ArrayList<>(boundaryIndex + 1);
+        String content = null;
+        for (int i = 0; i <= boundaryIndex; i++) {
+            NoteRevision revision = all.get(i);
+            content = revision.isKeyframe() ? revision.getData() : LineDiff.apply(content, revision.getData());
+            restored.add(new NoteRevision(noteId, revision.getRevision(), true, revision.getTitle(), content,
+                content.length(), revision.getCreatedAt()));
+        }
+        List<NoteRevision> kept = new ArrayList<>();
+        long nextDay = Long.MAX_VALUE;
+        for (int i = boundaryIndex - 1; i >= 0 && kept.size() < KEEP_DAILY; i--) {
+            long day = day(restored.get(i).getCreatedAt());
+            if (day < nextDay) {
+                kept.add(0, restored.get(i));
+                nextDay = day;
+            }
+        }
+        kept.add(restored.get(boundaryIndex));
+
+        // 重新编码：每段第一个为关键帧，其余为相对前一个保留版本的补丁
+        List<NoteRevision> result = new ArrayList<>(kept.size());
+        String previous = null;
+        int sinceKeyframe = 0;
+        for (int i = 0; i < kept.size(); i++) {
+            NoteRevision revision = kept.get(i);
+            String full = revision.getData();
+            String patch = null;
+            boolean boundary = i == kept.size() - 1;
+            if (previous != null && !boundary && sinceKeyframe < KEYFRAME_INTERVAL - 1) {
+                patch = LineDiff.diff(previous, full, MAX_DIFF_EDITS);
+            }
+            if (patch != null && patch.length() <= full.length() / 2) {
+                revision.setKeyframe(false);
+                revision.setData(patch);
+                sinceKeyframe++;
+            } else {
+                sinceKeyframe = 0;
+            }
+            result.add(revision);
+            previous = full;
+        }
+        return result;
+    }
+
+    private static long day(Date date) {
+        return date != null ? TimeUnit.MILLISECONDS.toDays(date.getTime()) : 0;
+    }
+
+    private static String nonNull(String text) {
+        return text != null ? text : "";
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
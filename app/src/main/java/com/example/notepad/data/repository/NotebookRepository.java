@@ -0,0 +1,118 @@
+package com.example.notepad.data.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import com.example.notepad.data.AppDatabase;
+import com.example.notepad.data.dao.NotebookDao;
+import com.example.notepad.data.model.Notebook;
+import com.example.notepad.utils.AppExecutors;
+import com.example.notepad.utils.Metrics;
+
+/**
+ * 笔记本仓库类，用于管理多级笔记本
+ * 层级关系保存在闭包表中，查询子树、移动和删除都不需要递归
+ */
+public class NotebookRepository {
+    private static final String TAG = "NotebookRepository";
+
+    private static volatile NotebookRepository instance;
+
+    // 数据库访问耗时统计
+    private static final Metrics.Timer MOVE_TIMER = Metrics.timer("db.notebook.move");
+    private static final Metrics.Timer WRITE_TIMER = Metrics.timer("db.notebook.write");
+
+    private final NotebookDao notebookDao;
+    private final Executor writeExecutor;
+    private final Executor mainThread;
+
+    private NotebookRepository(Context context) {
+        notebookDao = AppDatabase.getInstance(context).notebookDao();
+        writeExecutor = AppExecutors.getInstance().diskWrite();
+        mainThread = AppExecutors.getInstance().mainThread();
+    }
+
+    public static NotebookRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (NotebookRepository.class) {
+                if (instance == null) {
+                    instance = new NotebookRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    public interface UpdateCallback {
+        void onComplete(boolean success);
+    }
+
+    /**
+     * 获取用户的所有笔记本，按名称排序，层级由parentId表示
+     */
+    public LiveData<List<Notebook>> getNotebooks(int userId) {
+        return notebookDao.getNotebooksByUser(userId);
+    }
+
+    /**
+     * 创建笔记本
+     * @param parentId 上级笔记本，为null表示顶层
+     */
+    public void createNotebook(int userId, Long parentId, String name) {
+        writeExecutor.execute(() -> {
+            try {
+                long start = WRITE_TIMER.start();
+                notebookDao.createNotebook(new Notebook(userId, parentId, name.trim()));
+                WRITE_TIMER.stop(start);
+            } catch (Exception e) {
+                Log.e(TAG, "创建笔记本失败: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 移动笔记本及其所有子笔记本，在一个事务中完成
+     * @param newParentId 新的上级，为null表示移动到顶层
+     * @param callback 在主线程中回调，移动到自身或子笔记本下时失败
+     */
+    public void moveNotebook(long notebookId, Long newParentId, UpdateCallback callback) {
+        writeExecutor.execute(() -> {
+            boolean success;
+            try {
+                long start = MOVE_TIMER.start();
+                notebookDao.moveSubtree(notebookId, newParentId);
+                MOVE_TIMER.stop(start);
+                success = true;
+            } catch (Exception e) {
+                Log.e(TAG, "移动笔记本失败: " + e.getMessage());
+                success = false;
+            }
+            boolean result = success;
+            mainThread.execute(() -> callback.onComplete(result));
+        });
+    }
+
+    public void renameNotebook(long notebookId, String name) {
+        writeExecutor.execute(() -> {
+            long start = WRITE_TIMER.start();
+            notebookDao.renameNotebook(notebookId, name.trim());
+            WRITE_TIMER.stop(start);
+        });
+    }
+
+    /**
+     * 删除笔记本及其所有子笔记本，其中的笔记保留，变为未归入笔记本
+     */
+    public void deleteNotebook(long notebookId) {
+        writeExecutor.execute(() -> {
+            long start = WRITE_TIMER.start();
+            notebookDao.deleteSubtree(notebookId);
+            WRITE_TIMER.stop(start);
+        });
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.notepad.data.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import com.example.notepad.data.AppDatabase;
+import com.example.notepad.data.dao.TagDao;
+import com.example.notepad.data.model.NoteTag;
+import com.example.notepad.data.model.Tag;
+import com.example.notepad.utils.AppExecutors;
+import com.example.notepad.utils.Metrics;
+
+/**
+ * 标签仓库类，用于管理标签和笔记标签关联
+ * 标签的笔记数由数据库触发器维护，这里只增删关联，不做计数
+ */
+public class TagRepository {
+    private static final String TAG = "TagRepository";
+
+    private static volatile TagRepository instance;
+
+    // 数据库访问耗时统计
+    private static final Metrics.Timer SET_TAGS_TIMER = Metrics.timer("db.tag.setForNote");
+    private static final Metrics.Timer WRITE_TIMER = Metrics.timer("db.tag.write");
+
+    private final AppDatabase database;
+    private final TagDao tagDao;
+    private final Executor writeExecutor;
+
+    private TagRepository(Context context) {
+        database = AppDatabase.getInstance(context);
+        tagDao = database.tagDao();
+        writeExecutor = AppExecutors.getInstance().diskWrite();
+    }
+
+    public static TagRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (TagRepository.class) {
+                if (instance == null) {
+                    instance = new TagRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 获取用户的所有标签（含笔记数），按名称排序
+     */
+    public LiveData<List<Tag>> getTags(int userId) {
+        return tagDao.getTagsByUser(userId);
+    }
+
+    public LiveData<List<Tag>> getTagsForNote(long noteId) {
+        return tagDao.getTagsForNote(noteId);
+    }
+
+    /**
+     * 把笔记的标签设置为指定的名称集合，不存在的标签自动创建
+     * 只增删有变化的关联，全部在一个事务中完成
+     * @param userId 用户ID
+     * @param noteId 笔记ID
+     * @param names 标签名称，首尾空白会被去掉，空名称被忽略
+     */
+    public void setNoteTags(int userId, long noteId, Collection<String> names) {
+        writeExecutor.execute(() -> {
+            try {
+                long start = SET_TAGS_TIMER.start();
+                database.runInTransaction(() -> {
+                    Set<Long> wanted = new LinkedHashSet<>();
+                    for (String name : names) {
+                        String trimmed = name != null ? name.trim() : "";
+                        if (!trimmed.isEmpty()) {
+                            wanted.add(getOrCreateTagId(userId, trimmed));
+                        }
+                    }
+                    Set<Long> current = new HashSet<>(tagDao.getTagIdsForNoteSync(noteId));
+                    List<NoteTag> added = new ArrayList<>();
+                    for (Long tagId : wanted) {
+                        if (!current.remove(tagId)) {
+                            added.add(new NoteTag(noteId, tagId));
+                        }
+                    }
+                    // current中剩下的是不再需要的关联
+                    tagDao.setTagsForNote(noteId, added, new ArrayList<>(current));
+                });
+                SET_TAGS_TIMER.stop(start);
+            } catch (Exception e) {
+                Log.e(TAG, "设置笔记标签失败: " + noteId, e);
+            }
+        });
+    }
+
+    private long getOrCreateTagId(int userId, String name) {
+        long id = tagDao.insertTag(new Tag(userId, name));
+        if (id == -1) {
+            id = tagDao.getTagByName(userId, name).getId();
+        }
+        return id;
+    }
+
+    /**
+     * 重命名标签，与已有标签重名时失败
+     */
+    public void renameTag(long tagId, String name) {
+        writeExecutor.execute(() -> {
+            try {
+                long start = WRITE_TIMER.start();
+                tagDao.renameTag(tagId, name.trim());
+                WRITE_TIMER.stop(start);
+            } catch (Exception e) {
+                Log.e(TAG, "重命名标签失败: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 删除标签，笔记本身不受影响
+     */
+    public void deleteTag(long tagId) {
+        writeExecutor.execute(() -> {
+            long start = WRITE_TIMER.start();
+            tagDao.deleteTag(tagId);
+            WRITE_TIMER.stop(start);
+        });
+    }
+}
@@ -1,41 +1,69 @@
 package com.example.notepad.data.repository;
 
-import android.app.Application;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.net.Uri;
 import android.os.AsyncTask;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import java.io.File;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 import com.example.notepad.data.AppDatabase;
 import com.example.notepad.data.dao.UserDao;
 import com.example.notepad.data.model.User;
+import com.example.notepad.utils.AppExecutors;
+import com.example.notepad.utils.AvatarUtils;
 import com.example.notepad.utils.FileUtils;
+import com.example.notepad.utils.Metrics;
 import com.example.notepad.utils.PasswordUtils;
 import com.example.notepad.utils.SessionManager;
 
 /**
  * 用户仓库类，用于管理用户数据的访问
+ * 进程内单例，所有页面共享同一个实例
  */
 public class UserRepository {
+    private static volatile UserRepository instance;
     private final UserDao userDao;
     private final Executor executor;
+    private final Executor ioExecutor;
+    private final Executor authExecutor;
     private final Context context;
     private static final String TAG = "UserRepository";
+
+    // 密码哈希迭代次数按设备性能校准后保存，单次哈希的目标耗时为登录耗时预算的一部分
+    private static final String PREF_SECURITY = "QingNoteSecurity";
+    private static final String KEY_PBKDF2_ITERATIONS = "pbkdf2_iterations";
+    private static final long HASH_TARGET_MILLIS = 150;
+
+    // 数据库访问和密码哈希耗时统计
+    private static final Metrics.Timer LOOKUP_TIMER = Metrics.timer("db.user.lookup");
+    private static final Metrics.Timer INSERT_TIMER = Metrics.timer("db.user.insert");
+    private static final Metrics.Timer UPDATE_TIMER = Metrics.timer("db.user.update");
+    private static final Metrics.Timer VERIFY_TIMER = Metrics.timer("auth.verifyPassword");
+    private static final Metrics.Timer HASH_TIMER = Metrics.timer("auth.hashPassword");
     
-    public UserRepository(Context context) {
+    private UserRepository(Context context) {
         this.context = context;
         AppDatabase db = AppDatabase.getInstance(context);
         userDao = db.userDao();
-        executor = Executors.newSingleThreadExecutor();
+        executor = AppExecutors.getInstance().diskWrite();
+        ioExecutor = AppExecutors.getInstance().io();
+        authExecutor = AppExecutors.getInstance().cpu();
     }
     
-    public UserRepository(Application application) {
-        this((Context) application);
+    public static UserRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (UserRepository.class) {
+                if (instance == null) {
+                    instance = new UserRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
     }
     
     public void insert(User user) {
@@ -62,10 +90,21 @@ public class UserRepository {
         return userDao.getUserByEmailAsync(email);
     }
     
+    /**
+     * 验证用户名和密码，必须在工作线程中调用
+     * 验证成功且存储的是旧格式或强度不足的哈希时，在后台重新哈希，不增加本次登录耗时
+     * @return 验证成功返回用户，否则返回null
+     */
     public User login(String username, String password) {
         try {
-            User user = userDao.getUserByUsername(username);
-            if (user != null && PasswordUtils.verifyPassword(password, user.getPassword())) {
+            ensurePasswordHashCalibrated();
+            long start = System.nanoTime();
+            User user = findUserByUsername(username);
+            if (user != null && verifyPassword(password, user.getPassword())) {
+                Log.d(TAG, "登录验证耗时: " + (System.nanoTime() - start) / 1_000_000 + "ms");
+                if (PasswordUtils.needsRehash(user.getPassword())) {
+                    rehashPassword(user.getId(), user.getPassword(), password);
+                }
                 return user;
             }
         } catch (Exception e) {
@@ -73,25 +112,75 @@ public class UserRepository {
         }
         return null;
     }
+
+    /**
+     * 使用当前强度重新哈希密码
+     * 只有数据库中的密码仍是旧值时才写入，期间修改过密码则放弃
+     */
+    private void rehashPassword(int userId, String oldHash, String password) {
+        authExecutor.execute(() -> {
+            String newHash = hashPassword(password);
+            if (newHash == null) {
+                return;
+            }
+            executor.execute(() -> {
+                long start = UPDATE_TIMER.start();
+                int updated = userDao.replacePassword(userId, oldHash, newHash);
+                UPDATE_TIMER.stop(start);
+                Log.d(TAG, updated > 0 ? "密码哈希已升级: 用户 " + userId : "密码已被修改，跳过哈希升级");
+            });
+        });
+    }
+
+    /**
+     * 确保密码哈希的迭代次数已设置
+     * 首次运行时按目标耗时校准并保存，之后直接读取保存的值
+     */
+    public void ensurePasswordHashCalibrated() {
+        if (PasswordUtils.isCalibrated()) {
+            return;
+        }
+        synchronized (PasswordUtils.class) {
+            if (PasswordUtils.isCalibrated()) {
+                return;
+            }
+            SharedPreferences prefs = context.getSharedPreferences(PREF_SECURITY, Context.MODE_PRIVATE);
+            int iterations = prefs.getInt(KEY_PBKDF2_ITERATIONS, 0);
+            if (iterations <= 0) {
+                iterations = PasswordUtils.calibrateIterations(HASH_TARGET_MILLIS);
+                prefs.edit().putInt(KEY_PBKDF2_ITERATIONS, iterations).apply();
+            }
+            PasswordUtils.setIterations(iterations);
+        }
+    }
     
     /**
      * 确保用户存在，如果不存在则创建一个默认用户
      * 用于解决外键约束问题
      */
     public void ensureUserExists(int userId, String username) {
-        executor.execute(() -> {
-            User user = userDao.getUserByIdSync(userId);
-            if (user == null) {
-                // 创建默认用户
-                User defaultUser = new User();
-                defaultUser.setId(userId);
-                defaultUser.setUsername(username != null ? username : "default_user");
-                defaultUser.setEmail("default@example.com");
-                defaultUser.setPassword("default_password");
-                defaultUser.setFullName("Default User");
-                userDao.insert(defaultUser);
-            }
-        });
+        executor.execute(() -> ensureUserExistsSync(userId, username));
+    }
+    
+    /**
+     * 同步确保用户存在，必须在工作线程中调用
+     */
+    public void ensureUserExistsSync(int userId, String username) {
+        long start = LOOKUP_TIMER.start();
+        User user = userDao.getUserByIdSync(userId);
+        LOOKUP_TIMER.stop(start);
+        if (user == null) {
+            // 创建默认用户
+            User defaultUser = new User();
+            defaultUser.setId(userId);
+            defaultUser.setUsername(username != null ? username : "default_user");
+            defaultUser.setEmail("default@example.com");
+            defaultUser.setPassword("default_password");
+            defaultUser.setFullName("Default User");
+            start = INSERT_TIMER.start();
+            userDao.insert(defaultUser);
+            INSERT_TIMER.stop(start);
+        }
     }
 
     public interface UploadCallback {
@@ -102,33 +191,55 @@ public class UserRepository {
         void onComplete(boolean success);
     }
 
-    public void uploadAvatar(Uri imageUri, UploadCallback callback) {
-        executor.execute(() -> {
+    /**
+     * 处理并保存头像，然后与用户的其他信息一起写入数据库
+     * 图片会被缩放到限定尺寸并压缩为WebP；数据库更新成功后才修改用户的头像地址和版本号，
+     * 失败时删除新保存的头像文件，用户对象保持不变
+     * @param imageUri 选中的图片URI
+     * @param user 当前用户
+     * @param callback 完成回调，参数为新头像地址，失败时为null
+     */
+    public void uploadAvatar(Uri imageUri, User user, UploadCallback callback) {
+        ioExecutor.execute(() -> {
+            File avatarFile;
+            long version = System.currentTimeMillis();
             try {
-                // 尝试获取URI的永久权限（如果是content URI）
-                if (imageUri.toString().startsWith("content://")) {
-                    try {
-                        context.getContentResolver().takePersistableUriPermission(
-                            imageUri, 
-                            android.content.Intent.FLAG_GRANT_READ_URI_PERMISSION
-                        );
-                    } catch (SecurityException e) {
-                        // 无法获取永久权限，但仍然继续
-                    }
-                }
-                
-                // 返回URI字符串
-                callback.onComplete(imageUri.toString());
+                avatarFile = AvatarUtils.storeAvatar(context, imageUri, user.getId(), version);
             } catch (Exception e) {
+                Log.e(TAG, "处理头像失败", e);
+                avatarFile = null;
+            }
+            if (avatarFile == null) {
                 callback.onComplete(null);
+                return;
             }
+
+            File storedFile = avatarFile;
+            String avatarUrl = Uri.fromFile(storedFile).toString();
+            User updated = new User(user);
+            updated.setAvatarUrl(avatarUrl);
+            updated.setAvatarVersion(version);
+            updateUser(updated, success -> {
+                if (success) {
+                    user.setAvatarUrl(avatarUrl);
+                    user.setAvatarVersion(version);
+                    callback.onComplete(avatarUrl);
+                } else {
+                    if (!storedFile.delete()) {
+                        Log.w(TAG, "删除未使用的头像失败: " + storedFile.getName());
+                    }
+                    callback.onComplete(null);
+                }
+            });
         });
     }
 
     public void updateUser(User user, UpdateCallback callback) {
         executor.execute(() -> {
             try {
+                long start = UPDATE_TIMER.start();
                 userDao.update(user);
+                UPDATE_TIMER.stop(start);
                 callback.onComplete(true);
             } catch (Exception e) {
                 callback.onComplete(false);
@@ -142,13 +253,16 @@ public class UserRepository {
             Log.d(TAG, "密码长度: " + (user.getPassword() != null ? user.getPassword().length() : "null"));
             
             // 检查用户名是否已存在
-            if (userDao.getUserByUsername(user.getUsername()) != null) {
+            if (findUserByUsername(user.getUsername()) != null) {
                 Log.e(TAG, "用户名已存在: " + user.getUsername());
                 return -1;
             }
             
             // 检查邮箱是否已存在
-            if (userDao.getUserByEmail(user.getEmail()) != null) {
+            long lookupStart = LOOKUP_TIMER.start();
+            User existingByEmail = userDao.getUserByEmail(user.getEmail());
+            LOOKUP_TIMER.stop(lookupStart);
+            if (existingByEmail != null) {
                 Log.e(TAG, "邮箱已存在: " + user.getEmail());
                 return -2;
             }
@@ -161,7 +275,8 @@ public class UserRepository {
             }
             
             // 对密码进行哈希处理
-            String hashedPassword = PasswordUtils.hashPassword(password);
+            ensurePasswordHashCalibrated();
+            String hashedPassword = hashPassword(password);
             if (hashedPassword == null) {
                 Log.e(TAG, "密码哈希失败");
                 return -4;
@@ -176,7 +291,9 @@ public class UserRepository {
             Log.d(TAG, "即将插入用户，密码哈希: " + user.getPassword());
             
             // 插入用户
+            long insertStart = INSERT_TIMER.start();
             long userId = userDao.insert(user);
+            INSERT_TIMER.stop(insertStart);
             Log.d(TAG, "用户注册成功，ID: " + userId);
             
             // 验证用户是否已正确插入
@@ -199,7 +316,7 @@ public class UserRepository {
 
     public User getUserByUsername(String username) {
         try {
-            return userDao.getUserByUsername(username);
+            return findUserByUsername(username);
         } catch (Exception e) {
             Log.e(TAG, "获取用户信息失败", e);
             return null;
@@ -218,7 +335,8 @@ public class UserRepository {
                 return null;
             }
             
-            return PasswordUtils.hashPassword(password);
+            ensurePasswordHashCalibrated();
+            return hashPassword(password);
         } catch (Exception e) {
             Log.e(TAG, "密码哈希失败: " + e.getMessage(), e);
             return null;
@@ -228,10 +346,11 @@ public class UserRepository {
     public boolean updatePassword(String username, String newPassword) {
         try {
             Log.d(TAG, "尝试更新密码：用户 " + username);
-            User user = userDao.getUserByUsername(username);
+            User user = findUserByUsername(username);
             if (user != null) {
                 // 对密码进行哈希处理
-                String hashedPassword = PasswordUtils.hashPassword(newPassword);
+                ensurePasswordHashCalibrated();
+                String hashedPassword = hashPassword(newPassword);
                 if (hashedPassword == null) {
                     Log.e(TAG, "密码哈希失败");
                     return false;
@@ -239,7 +358,9 @@ public class UserRepository {
                 
                 user.setPassword(hashedPassword);
                 Log.d(TAG, "正在更新密码...");
+                long start = UPDATE_TIMER.start();
                 userDao.update(user);
+                UPDATE_TIMER.stop(start);
                 Log.d(TAG, "密码更新成功");
                 return true;
             } else {
@@ -251,4 +372,25 @@ public class UserRepository {
             return false;
         }
     }
+
+    private User findUserByUsername(String username) {
+        long start = LOOKUP_TIMER.start();
+        User user = userDao.getUserByUsername(username);
+        LOOKUP_TIMER.stop(start);
+        return user;
+    }
+
+    private static boolean verifyPassword(String password, String storedPassword) {
+        long start = VERIFY_TIMER.start();
+        boolean matches = PasswordUtils.verifyPassword(password, storedPassword);
+        VERIFY_TIMER.stop(start);
+        return matches;
+    }
+
+    private static String hashPassword(String password) {
+        long start = HASH_TIMER.start();
+        String hash = PasswordUtils.hashPassword(password);
+        HASH_TIMER.stop(start);
+        return hash;
+    }
 } 
\ No newline at end of file
@@ -10,15 +10,15 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.example.notepad.data.model.User;
 import com.example.notepad.data.repository.UserRepository;
-import com.example.notepad.utils.PasswordUtils;
+import com.example.notepad.utils.AppExecutors;
 import com.example.notepad.utils.ValidationUtils;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 public class AuthViewModel extends AndroidViewModel {
     private final UserRepository userRepository;
-    private final Executor executor;
+    // 登录、注册和重置密码都需要计算密码哈希，在计算线程池中执行
+    private final Executor authExecutor;
     private final MutableLiveData<Boolean> loginResult = new MutableLiveData<>();
     private final MutableLiveData<Boolean> registerResult = new MutableLiveData<>();
     private final MutableLiveData<Boolean> resetPasswordResult = new MutableLiveData<>();
@@ -26,20 +26,15 @@ public class AuthViewModel extends AndroidViewModel {
 
     public AuthViewModel(@NonNull Application application) {
         super(application);
-        userRepository = new UserRepository(application);
-        executor = Executors.newSingleThreadExecutor();
+        userRepository = UserRepository.getInstance(application);
+        authExecutor = AppExecutors.getInstance().cpu();
     }
 
     public void login(String username, String password) {
-        executor.execute(() -> {
+        authExecutor.execute(() -> {
             try {
-                // 获取用户信息
-                User user = userRepository.getUserByUsername(username);
-                if (user != null && PasswordUtils.verifyPassword(password, user.getPassword())) {
-                    loginResult.postValue(true);
-                } else {
-                    loginResult.postValue(false);
-                }
+                // 验证密码，旧格式的哈希会在验证成功后自动升级
+                loginResult.postValue(userRepository.login(username, password) != null);
             } catch (Exception e) {
                 Log.e(TAG, "登录失败", e);
                 loginResult.postValue(false);
@@ -48,7 +43,7 @@ public class AuthViewModel extends AndroidViewModel {
     }
 
     public void register(String username, String password, String email) {
-        executor.execute(() -> {
+        authExecutor.execute(() -> {
             try {
                 // 创建用户对象，不对密码进行哈希处理
                 User user = new User(username, password, email);
@@ -62,7 +57,7 @@ public class AuthViewModel extends AndroidViewModel {
     }
 
     public void resetPassword(String username, String email, String newPassword) {
-        executor.execute(() -> {
+        authExecutor.execute(() -> {
             try {
                 // 验证用户名和邮箱是否匹配
                 User user = userRepository.getUserByUsername(username);
@@ -114,7 +109,7 @@ public class AuthViewModel extends AndroidViewModel {
                 Log.e(TAG, "无法哈希空密码");
                 return null;
             }
-            return PasswordUtils.hashPassword(password);
+            return userRepository.hashPasswordForUser(password);
         } catch (Exception e) {
             Log.e(TAG, "密码哈希失败: " + e.getMessage(), e);
             return null;
@@ -2,19 +2,16 @@ package com.example.notepad.ui.auth;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.widget.Toast;
 
 import androidx.lifecycle.ViewModelProvider;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 import com.example.notepad.MainActivity;
 import com.example.notepad.R;
 import com.example.notepad.data.model.User;
 import com.example.notepad.databinding.ActivityLoginBinding;
 import com.example.notepad.ui.base.BaseActivity;
+import com.example.notepad.utils.AppExecutors;
 import com.example.notepad.utils.SessionManager;
 
 public class LoginActivity extends BaseActivity {
@@ -22,8 +19,7 @@ public class LoginActivity extends BaseActivity {
     private UserViewModel userViewModel;
     private AuthViewModel authViewModel;
     private SessionManager sessionManager;
-    private final Executor executor = Executors.newSingleThreadExecutor();
-    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AppExecutors appExecutors = AppExecutors.getInstance();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -60,7 +56,7 @@ public class LoginActivity extends BaseActivity {
                 // 登录成功，获取用户信息
                 String username = binding.editUsername.getText().toString().trim();
                 
-                executor.execute(() -> {
+                appExecutors.executeFor(this, appExecutors.io(), () -> {
                     User user = userViewModel.getUserByUsername(username);
                     
                     if (user != null) {
@@ -68,12 +64,12 @@ public class LoginActivity extends BaseActivity {
                         sessionManager.saveUser(user);
                         
                         // 在主线程中跳转到主页
-                        mainHandler.post(() -> {
+                        appExecutors.mainThread().execute(() -> {
                             startActivity(new Intent(LoginActivity.this, MainActivity.class));
                             finish();
                         });
                     } else {
-                        mainHandler.post(() -> {
+                        appExecutors.mainThread().execute(() -> {
                             Toast.makeText(LoginActivity.this, R.string.error_user_not_found, Toast.LENGTH_SHORT).show();
                         });
                     }
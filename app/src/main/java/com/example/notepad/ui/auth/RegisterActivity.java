@@ -2,20 +2,17 @@ package com.example.notepad.ui.auth;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.text.TextUtils;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.ViewModelProvider;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 import com.example.notepad.MainActivity;
 import com.example.notepad.R;
 import com.example.notepad.data.model.User;
 import com.example.notepad.databinding.ActivityRegisterBinding;
+import com.example.notepad.utils.AppExecutors;
 import com.example.notepad.utils.SessionManager;
 
 public class RegisterActivity extends AppCompatActivity {
@@ -23,8 +20,7 @@ public class RegisterActivity extends AppCompatActivity {
     private UserViewModel userViewModel;
     private AuthViewModel authViewModel;
     private SessionManager sessionManager;
-    private final Executor executor = Executors.newSingleThreadExecutor();
-    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AppExecutors appExecutors = AppExecutors.getInstance();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -62,7 +58,7 @@ public class RegisterActivity extends AppCompatActivity {
         authViewModel.getLoginResult().observe(this, success -> {
             if (success) {
                 // 登录成功，获取用户信息并保存
-                executor.execute(() -> {
+                appExecutors.executeFor(this, appExecutors.io(), () -> {
                     String username = binding.editUsername.getText().toString().trim();
                     String fullName = binding.editFullName.getText().toString().trim();
                     String password = binding.editPassword.getText().toString().trim();
@@ -93,7 +89,7 @@ public class RegisterActivity extends AppCompatActivity {
                         );
                         
                         // 在主线程中跳转到主页
-                        mainHandler.post(() -> {
+                        appExecutors.mainThread().execute(() -> {
                             startActivity(new Intent(RegisterActivity.this, MainActivity.class));
                             finishAffinity();
                         });
@@ -165,11 +161,11 @@ public class RegisterActivity extends AppCompatActivity {
         binding.buttonRegister.setText(R.string.registering);
 
         // 在工作线程中验证用户名是否存在
-        executor.execute(() -> {
+        appExecutors.executeFor(this, appExecutors.io(), () -> {
             // 检查用户名是否已存在
             User existingUser = userViewModel.getUserByUsername(username);
             
-            mainHandler.post(() -> {
+            appExecutors.mainThread().execute(() -> {
                 if (existingUser != null) {
                     binding.usernameLayout.setError(getString(R.string.error_username_exists));
                     binding.buttonRegister.setEnabled(true);
@@ -19,7 +19,7 @@ public class UserViewModel extends AndroidViewModel {
     
     public UserViewModel(@NonNull Application application) {
         super(application);
-        repository = new UserRepository(application);
+        repository = UserRepository.getInstance(application);
     }
     
     public void insert(User user) {
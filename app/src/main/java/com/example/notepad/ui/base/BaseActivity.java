@@ -29,7 +29,7 @@ public abstract class BaseActivity extends AppCompatActivity {
     @Override
     public void onConfigurationChanged(Configuration newConfig) {
         super.onConfigurationChanged(newConfig);
-        // 系统配置改变时（如系统语言改变）重新应用语言设置
-        LanguageManager.getInstance(this).applyLanguage(this);
+        // 系统配置改变时（如系统语言改变）清除语言资源缓存
+        LanguageManager.getInstance(this).onConfigurationChanged(newConfig);
     }
 } 
\ No newline at end of file
@@ -21,13 +21,14 @@ import com.bumptech.glide.request.RequestOptions;
 import com.example.notepad.R;
 import com.example.notepad.data.model.Attachment;
 import com.example.notepad.databinding.ItemAttachmentBinding;
+import com.example.notepad.utils.AppExecutors;
+import com.example.notepad.utils.Metrics;
+import com.example.notepad.utils.MetricsRequestListener;
+import com.example.notepad.utils.TraceRecorder;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import android.os.Handler;
-import android.os.Looper;
+import java.util.concurrent.Executor;
 
 /**
  * 附件列表适配器
@@ -38,11 +39,13 @@ public class AttachmentAdapter extends RecyclerView.Adapter<AttachmentAdapter.At
     private final List<Attachment> attachments = new ArrayList<>();
     private final Context context;
     private final AttachmentClickListener listener;
-    private final ExecutorService executorService;
-    private final Handler mainHandler;
+    private final Executor decodeExecutor;
+    private final Executor mainThread;
     
     // 缩略图尺寸
     private static final int THUMBNAIL_SIZE = 300;
+
+    private static final Metrics.Timer THUMBNAIL_DECODE_TIMER = Metrics.timer("thumbnail.decode");
     
     // 附件点击监听器接口
     public interface AttachmentClickListener {
@@ -58,8 +61,8 @@ public class AttachmentAdapter extends RecyclerView.Adapter<AttachmentAdapter.At
     public AttachmentAdapter(Context context, AttachmentClickListener listener) {
         this.context = context;
         this.listener = listener;
-        this.executorService = Executors.newFixedThreadPool(2);
-        this.mainHandler = new Handler(Looper.getMainLooper());
+        this.decodeExecutor = AppExecutors.getInstance().cpu();
+        this.mainThread = AppExecutors.getInstance().mainThread();
     }
     
     @NonNull
@@ -149,6 +152,7 @@ public class AttachmentAdapter extends RecyclerView.Adapter<AttachmentAdapter.At
                         .diskCacheStrategy(DiskCacheStrategy.RESOURCE)
                         .override(THUMBNAIL_SIZE, THUMBNAIL_SIZE)
                         .error(R.drawable.ic_image))
+                    .addListener(new MetricsRequestListener<>("glide.attachment"))
                     .into(imageView);
                 
             } else {
@@ -167,11 +171,11 @@ public class AttachmentAdapter extends RecyclerView.Adapter<AttachmentAdapter.At
     private void loadImageThumbnail(ImageView imageView, Attachment attachment) {
         imageView.setImageResource(R.drawable.ic_image);
         
-        executorService.execute(() -> {
+        decodeExecutor.execute(() -> {
             try {
                 Bitmap thumbnail = generateImageThumbnail(attachment.getPath());
                 if (thumbnail != null) {
-                    mainHandler.post(() -> imageView.setImageBitmap(thumbnail));
+                    mainThread.execute(() -> imageView.setImageBitmap(thumbnail));
                 }
             } catch (Exception e) {
                 Log.e(TAG, "加载缩略图失败: " + e.getMessage());
@@ -180,7 +184,8 @@ public class AttachmentAdapter extends RecyclerView.Adapter<AttachmentAdapter.At
     }
     
     private Bitmap generateImageThumbnail(String imagePath) {
-        try {
+        long start = THUMBNAIL_DECODE_TIMER.start();
+        try (TraceRecorder.Section ignored = TraceRecorder.section("thumbnail.decode")) {
             BitmapFactory.Options options = new BitmapFactory.Options();
             options.inJustDecodeBounds = true;
             BitmapFactory.decodeFile(imagePath, options);
@@ -201,6 +206,8 @@ public class AttachmentAdapter extends RecyclerView.Adapter<AttachmentAdapter.At
         } catch (Exception e) {
             Log.e(TAG, "生成缩略图失败: " + e.getMessage());
             return null;
+        } finally {
+            THUMBNAIL_DECODE_TIMER.stop(start);
         }
     }
     
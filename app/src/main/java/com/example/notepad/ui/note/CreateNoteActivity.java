@@ -33,7 +33,9 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.notepad.R;
 import com.example.notepad.data.model.Attachment;
+import com.example.notepad.data.model.Draft;
 import com.example.notepad.data.model.Note;
+import com.example.notepad.data.repository.DraftRepository;
 import com.example.notepad.data.callback.InsertCallback;
 import com.example.notepad.databinding.ActivityCreateNoteBinding;
 import com.example.notepad.utils.FileUtils;
@@ -41,6 +43,7 @@ import com.example.notepad.utils.SessionManager;
 import com.example.notepad.utils.PermissionUtils;
 import com.example.notepad.ui.base.BaseActivity;
 import com.example.notepad.utils.MediaUtils;
+import com.example.notepad.utils.TraceRecorder;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -62,9 +65,16 @@ public class CreateNoteActivity extends BaseActivity implements AttachmentAdapte
     private Uri currentPhotoUri;
     private Uri currentAudioUri;
     private AttachmentAdapter attachmentAdapter;
+    // 从启动相机到处理完拍照结果
+    private TraceRecorder.AsyncSpan imageCaptureSpan;
+    // 自动保存草稿，编辑过程中进程被杀也不会丢失内容
+    private DraftWriter draftWriter;
+    private boolean draftRestoreRequested = false;
     
     private static final int PERMISSION_REQUEST_CODE = 100;
     public static final String EXTRA_NOTE_ID = "extra_note_id";
+    // 新建笔记时所属的笔记本
+    public static final String EXTRA_NOTEBOOK_ID = "extra_notebook_id";
 
     // 功能标识常量
     private static final int FEATURE_CAMERA = 1;
@@ -95,6 +105,10 @@ public class CreateNoteActivity extends BaseActivity implements AttachmentAdapte
             if (result.getResultCode() == RESULT_OK) {
                 handleImageCapture(currentPhotoUri);
             }
+            if (imageCaptureSpan != null) {
+                imageCaptureSpan.end();
+                imageCaptureSpan = null;
+            }
         }
     );
 
@@ -146,6 +160,9 @@ public class CreateNoteActivity extends BaseActivity implements AttachmentAdapte
         binding.recyclerAttachments.setLayoutManager(new LinearLayoutManager(this));
         binding.recyclerAttachments.setAdapter(attachmentAdapter);
 
+        // Markdown高亮，在填入笔记内容之前注册，之后每次输入只重新解析被修改的行
+        new MarkdownHighlighter(this).attach(binding.editNoteContent);
+
         // 检查是否为编辑模式
         if (getIntent().hasExtra(EXTRA_NOTE_ID)) {
             isEditMode = true;
@@ -154,12 +171,15 @@ public class CreateNoteActivity extends BaseActivity implements AttachmentAdapte
                 if (getSupportActionBar() != null) {
                     getSupportActionBar().setTitle(R.string.edit_note);
                 }
+                setupDraftWriter(noteId);
                 loadNote(noteId);
             }
         } else {
             if (getSupportActionBar() != null) {
                 getSupportActionBar().setTitle(R.string.new_note);
             }
+            setupDraftWriter(Draft.NEW_NOTE_ID);
+            restoreDraft(null);
         }
 
         // 设置保存按钮点击事件
@@ -188,14 +208,23 @@ public class CreateNoteActivity extends BaseActivity implements AttachmentAdapte
     }
 
     private void loadNote(long noteId) {
+        // 从请求笔记到首次显示内容
+        TraceRecorder.AsyncSpan openSpan = TraceRecorder.beginAsync("note.open");
         noteViewModel.getNoteById(noteId).observe(this, note -> {
+            openSpan.end();
             if (note != null) {
-                noteToEdit = note;
-                binding.editNoteTitle.setText(note.getTitle());
-                binding.editNoteContent.setText(note.getContent());
-                
-                // 解析内容中的附件标记并恢复附件列表
-                parseAttachmentsFromContent(note.getContent());
+                try (TraceRecorder.Section ignored = TraceRecorder.section("note.open.bind")) {
+                    noteToEdit = note;
+                    binding.editNoteTitle.setText(note.getTitle());
+                    binding.editNoteContent.setText(note.getContent());
+
+                    // 解析内容中的附件标记并恢复附件列表
+                    parseAttachmentsFromContent(note.getContent());
+                }
+                // 只在第一次加载时检查草稿，保存后的刷新不再覆盖编辑器
+                if (!draftRestoreRequested) {
+                    restoreDraft(note);
+                }
             } else {
                 Toast.makeText(this, "笔记不存在", Toast.LENGTH_SHORT).show();
                 finish();
@@ -203,6 +232,45 @@ public class CreateNoteActivity extends BaseActivity implements AttachmentAdapte
         });
     }
 
+    private void setupDraftWriter(long noteId) {
+        draftWriter = new DraftWriter(DraftRepository.getInstance(this), sessionManager.getUserId(), noteId,
+            () -> binding.editNoteTitle.getText(), () -> binding.editNoteContent.getText());
+        binding.editNoteTitle.addTextChangedListener(draftWriter);
+        binding.editNoteContent.addTextChangedListener(draftWriter);
+    }
+
+    /**
+     * 读取上次未保存的草稿，与笔记内容不同时恢复到编辑器
+     * 草稿读取完成后才开始记录改动，恢复时的setText不会触发写入
+     * @param note 正在编辑的笔记，新建笔记时为null
+     */
+    private void restoreDraft(Note note) {
+        draftRestoreRequested = true;
+        String baseTitle = note != null ? note.getTitle() : "";
+        String baseContent = note != null ? note.getContent() : "";
+        DraftRepository.getInstance(this).getDraft(sessionManager.getUserId(),
+            note != null ? note.getId() : Draft.NEW_NOTE_ID, draft -> {
+                if (binding == null || draftWriter == null) {
+                    return;
+                }
+                boolean differs = draft != null
+                    && draft.getContentHash() != DraftWriter.hash(baseTitle, baseContent);
+                // 新建笔记时如果在读取草稿期间已经开始输入，不覆盖输入的内容
+                boolean untouched = note != null || (binding.editNoteTitle.length() == 0
+                    && binding.editNoteContent.length() == 0);
+                if (differs && untouched) {
+                    binding.editNoteTitle.setText(draft.getTitle());
+                    binding.editNoteContent.setText(draft.getContent());
+                    Toast.makeText(this, "已恢复未保存的草稿", Toast.LENGTH_SHORT).show();
+                    draftWriter.start(draft.getTitle(), draft.getContent(), true);
+                } else if (draft != null && !untouched) {
+                    draftWriter.start(draft.getTitle(), draft.getContent(), true);
+                } else {
+                    draftWriter.start(baseTitle, baseContent, draft != null);
+                }
+            });
+    }
+
     /**
      * 从笔记内容中解析附件信息并恢复附件列表
      * @param content 笔记内容
@@ -236,6 +304,12 @@ public class CreateNoteActivity extends BaseActivity implements AttachmentAdapte
      * @param noteId 笔记ID
      */
     private void loadAttachmentsForNote(long noteId) {
+        try (TraceRecorder.Section ignored = TraceRecorder.section("attachments.load")) {
+            scanAttachmentsDir(noteId);
+        }
+    }
+
+    private void scanAttachmentsDir(long noteId) {
         // 获取应用内存储目录
         File attachmentsDir = new File(getFilesDir(), "attachments/" + noteId);
         if (!attachmentsDir.exists()) {
@@ -366,6 +440,7 @@ public class CreateNoteActivity extends BaseActivity implements AttachmentAdapte
             takePictureIntent.addFlags(Intent.FLAG_GRANT_WRITE_URI_PERMISSION);
             
             // 启动相机
+            imageCaptureSpan = TraceRecorder.beginAsync("image.capture");
             takePictureLauncher.launch(takePictureIntent);
             
         } catch (Exception e) {
@@ -425,6 +500,12 @@ public class CreateNoteActivity extends BaseActivity implements AttachmentAdapte
     private String currentPhotoPath;
     
     private void handleImageCapture(Uri photoUri) {
+        try (TraceRecorder.Section ignored = TraceRecorder.section("image.capture.process")) {
+            processCapturedImage(photoUri);
+        }
+    }
+
+    private void processCapturedImage(Uri photoUri) {
         Log.d("CreateNoteActivity", "处理拍照结果 - URI: " + photoUri);
         
         if (photoUri != null) {
@@ -526,7 +607,7 @@ public class CreateNoteActivity extends BaseActivity implements AttachmentAdapte
     }
 
     private void handleSelectedImage(Uri imageUri) {
-        try {
+        try (TraceRecorder.Section ignored = TraceRecorder.section("image.import")) {
             Log.d("CreateNoteActivity", "处理选中的图片: " + imageUri);
             
             // 获取文件扩展名
@@ -1150,6 +1231,12 @@ public class CreateNoteActivity extends BaseActivity implements AttachmentAdapte
     }
 
     private void saveNote() {
+        try (TraceRecorder.Section ignored = TraceRecorder.section("note.save")) {
+            saveNoteInternal();
+        }
+    }
+
+    private void saveNoteInternal() {
         String title = binding.editNoteTitle.getText().toString().trim();
         String content = binding.editNoteContent.getText().toString().trim();
         
@@ -1168,18 +1255,31 @@ public class CreateNoteActivity extends BaseActivity implements AttachmentAdapte
             noteToEdit.setUpdatedAt(new Date());
             noteViewModel.update(noteToEdit);
             saveAttachments(noteToEdit.getId());
+            if (draftWriter != null) {
+                draftWriter.discard();
+            }
+            TraceRecorder.instant("note.save.done");
             Toast.makeText(this, "笔记已更新", Toast.LENGTH_SHORT).show();
             finish();
         } else {
             // 创建新笔记 - 使用带参数的构造函数
             Note newNote = new Note(title, content, userId);
+            if (getIntent().hasExtra(EXTRA_NOTEBOOK_ID)) {
+                newNote.setNotebookId(getIntent().getLongExtra(EXTRA_NOTEBOOK_ID, -1));
+            }
             
-            // 插入新笔记
+            // 插入新笔记，插入完成后才能保存附件
+            TraceRecorder.AsyncSpan insertSpan = TraceRecorder.beginAsync("note.save.insert");
             noteViewModel.insert(newNote, new InsertCallback() {
                 @Override
                 public void onComplete(Note insertedNote) {
                     runOnUiThread(() -> {
+                        insertSpan.end();
                         saveAttachments(insertedNote.getId());
+                        if (draftWriter != null) {
+                            draftWriter.discard();
+                        }
+                        TraceRecorder.instant("note.save.done");
                         Toast.makeText(CreateNoteActivity.this, "笔记已保存", Toast.LENGTH_SHORT).show();
                         finish();
                     });
@@ -1188,6 +1288,7 @@ public class CreateNoteActivity extends BaseActivity implements AttachmentAdapte
                 @Override
                 public void onError(Exception e) {
                     runOnUiThread(() -> {
+                        insertSpan.end();
                         Toast.makeText(CreateNoteActivity.this, "保存笔记失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
                     });
                 }
@@ -1204,7 +1305,7 @@ public class CreateNoteActivity extends BaseActivity implements AttachmentAdapte
             return;
         }
         
-        try {
+        try (TraceRecorder.Section ignored = TraceRecorder.section("note.saveAttachments")) {
             // 创建笔记专属的附件目录
             File attachmentsDir = new File(getFilesDir(), "attachments/" + noteId);
             if (!attachmentsDir.exists()) {
@@ -1248,8 +1349,20 @@ public class CreateNoteActivity extends BaseActivity implements AttachmentAdapte
         }
     }
 
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // 进入后台后进程随时可能被杀，立即写入尚未保存的改动
+        if (draftWriter != null) {
+            draftWriter.flush();
+        }
+    }
+
     @Override
     protected void onDestroy() {
+        if (draftWriter != null) {
+            draftWriter.close();
+        }
         // 清理URI权限
         if (currentPhotoUri != null) {
             revokeUriPermission(currentPhotoUri, 
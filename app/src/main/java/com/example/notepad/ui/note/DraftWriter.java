@@ -0,0 +1,238 @@
+package com.example.notepad.ui.note;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.util.Log;
+
+import com.example.notepad.data.model.Draft;
+import com.example.notepad.data.repository.DraftRepository;
+import com.example.notepad.utils.AppExecutors;
+import com.example.notepad.utils.Metrics;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * 编辑页草稿写入器
+ * 编辑器的每次改动只在主线程中重置一个防抖计时器，停止输入一段时间后（持续输入时最长间隔
+ * {@link #MAX_DELAY_MILLIS}）才取一次文本快照，哈希计算和数据库写入都在数据库写线程中执行，
+ * 内容哈希与上次写入相同时跳过写入
+ *
+ * 统计编辑的字符数和写入的字符数，两者之比即写放大系数
+ * 除构造函数外的公开方法都必须在主线程中调用
+ */
+public class DraftWriter implements TextWatcher {
+    private static final String TAG = "DraftWriter";
+
+    // 停止输入后多久写入草稿
+    static final long DEBOUNCE_MILLIS = 1_000;
+    // 持续输入时两次写入的最长间隔，限制进程被杀时最多丢失的输入
+    static final long MAX_DELAY_MILLIS = 5_000;
+
+    private static final Metrics.Counter CHANGES = Metrics.counter("draft.changes");
+    private static final Metrics.Counter FLUSHES = Metrics.counter("draft.flushes");
+    private static final Metrics.Counter WRITES = Metrics.counter("draft.writes");
+    private static final Metrics.Counter SKIPPED = Metrics.counter("draft.skippedUnchanged");
+    private static final Metrics.Counter EDITED_CHARS = Metrics.counter("draft.editedChars");
+    private static final Metrics.Counter WRITTEN_CHARS = Metrics.counter("draft.writtenChars");
+    private static final Metrics.Histogram WRITE_SIZE = Metrics.histogram("draft.write.chars");
+
+    private final DraftRepository repository;
+    private final Executor writeExecutor = AppExecutors.getInstance().diskWrite();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+    private final int userId;
+    private final long noteId;
+    private final Supplier<CharSequence> titleSource;
+    private final Supplier<CharSequence> contentSource;
+
+    // 以下字段只在主线程中访问
+    private boolean started;
+    private boolean closed;
+    private boolean pending;
+    private long firstPendingAt;
+    private long sessionEditedChars;
+
+    // 上次写入（或恢复、加载）内容的哈希，只在数据库写线程中访问
+    private long lastWrittenHash;
+    private boolean draftExists;
+
+    // 本次编辑的写入统计，用于关闭时输出写放大系数，只在数据库写线程中访问
+    private long sessionWrittenChars;
+    private int sessionWrites;
+    private int sessionFlushes;
+
+    /**
+     * @param repository 草稿仓库
+     * @param userId 用户ID
+     * @param noteId 笔记ID，新建笔记使用 {@link Draft#NEW_NOTE_ID}
+     * @param titleSource 读取当前标题
+     * @param contentSource 读取当前内容
+     */
+    public DraftWriter(DraftRepository repository, int userId, long noteId,
+                       Supplier<CharSequence> titleSource, Supplier<CharSequence> contentSource) {
+        this.repository = repository;
+        this.userId = userId;
+        this.noteId = noteId;
+        this.titleSource = titleSource;
+        this.contentSource = contentSource;
+    }
+
+    /**
+     * 开始记录改动，在编辑器填入初始内容之后调用，之前的setText不会触发写入
+     * @param baselineTitle 当前已持久化的标题（笔记或恢复的草稿）
+     * @param baselineContent 当前已持久化的内容
+     * @param hasDraft 数据库中是否已有草稿
+     */
+    public void start(String baselineTitle, String baselineContent, boolean hasDraft) {
+        if (started || closed) {
+            return;
+        }
+        started = true;
+        writeExecutor.execute(() -> {
+            lastWrittenHash = hash(baselineTitle, baselineContent);
+            draftExists = hasDraft;
+        });
+    }
+
+    @Override
+    public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+    }
+
+    @Override
+    public void onTextChanged(CharSequence s, int start, int before, int count) {
+        if (!started || closed) {
+            return;
+        }
+        int edited = Math.max(before, count);
+        CHANGES.increment();
+        EDITED_CHARS.add(edited);
+        sessionEditedChars += edited;
+        schedule();
+    }
+
+    @Override
+    public void afterTextChanged(Editable s) {
+    }
+
+    private void schedule() {
+        long now = SystemClock.uptimeMillis();
+        if (!pending) {
+            pending = true;
+            firstPendingAt = now;
+        }
+        handler.removeCallbacks(flushRunnable);
+        long delay = Math.min(DEBOUNCE_MILLIS, firstPendingAt + MAX_DELAY_MILLIS - now);
+        handler.postDelayed(flushRunnable, Math.max(0, delay));
+    }
+
+    /**
+     * 立即写入尚未保存的改动，用于页面进入后台时
+     */
+    public void flush() {
+        handler.removeCallbacks(flushRunnable);
+        if (!pending || closed) {
+            return;
+        }
+        pending = false;
+        FLUSHES.increment();
+        // 主线程中只复制文本，哈希和写入在写线程中完成
+        String title = titleSource.get().toString();
+        String content = contentSource.get().toString();
+        writeExecutor.execute(() -> write(title, content));
+    }
+
+    private void write(String title, String content) {
+        sessionFlushes++;
+        long contentHash = hash(title, content);
+        if (contentHash == lastWrittenHash) {
+            SKIPPED.increment();
+            return;
+        }
+        try {
+            if (title.trim().isEmpty() && content.trim().isEmpty()) {
+                // 内容被清空时不保留空草稿
+                if (draftExists) {
+                    repository.deleteDraftSync(userId, noteId);
+                    draftExists = false;
+                }
+            } else {
+                repository.saveDraftSync(new Draft(userId, noteId, title, content, contentHash));
+                draftExists = true;
+                int chars = title.length() + content.length();
+                WRITES.increment();
+                WRITTEN_CHARS.add(chars);
+                WRITE_SIZE.record(chars);
+                sessionWrites++;
+                sessionWrittenChars += chars;
+            }
+            lastWrittenHash = contentHash;
+        } catch (Exception e) {
+            // 写入失败时保留旧的哈希，下次改动会重试
+            Log.e(TAG, "保存草稿失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 笔记已保存，删除草稿并停止记录
+     */
+    public void discard() {
+        handler.removeCallbacks(flushRunnable);
+        pending = false;
+        closed = true;
+        long editedChars = sessionEditedChars;
+        // 与之前排队的写入在同一个串行线程中执行，删除一定发生在最后
+        writeExecutor.execute(() -> {
+            repository.deleteDraftSync(userId, noteId);
+            draftExists = false;
+            logSession(editedChars);
+        });
+    }
+
+    /**
+     * 页面销毁时调用，写入剩余改动后停止记录
+     */
+    public void close() {
+        flush();
+        if (closed) {
+            return;
+        }
+        closed = true;
+        long editedChars = sessionEditedChars;
+        writeExecutor.execute(() -> logSession(editedChars));
+    }
+
+    private void logSession(long editedChars) {
+        if (editedChars == 0) {
+            return;
+        }
+        Log.d(TAG, String.format(Locale.US,
+            "草稿统计 note=%d: 编辑%d字符, 防抖触发%d次, 写入%d次共%d字符, 写放大%.1fx",
+            noteId, editedChars, sessionFlushes, sessionWrites, sessionWrittenChars,
+            (double) sessionWrittenChars / editedChars));
+    }
+
+    /**
+     * 计算标题和内容的64位FNV-1a哈希
+     */
+    static long hash(String title, String content) {
+        long hash = 0xcbf29ce484222325L;
+        hash = hash(hash, title);
+        hash = (hash ^ 0xffff) * 0x100000001b3L;
+        return hash(hash, content);
+    }
+
+    private static long hash(long hash, String text) {
+        if (text == null) {
+            return hash;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+}
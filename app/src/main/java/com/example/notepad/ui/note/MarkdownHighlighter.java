@@ -0,0 +1,280 @@
+package com.example.notepad.ui.note;
+
+import android.content.Context;
+import android.graphics.Typeface;
+import android.text.Editable;
+import android.text.Spanned;
+import android.text.TextPaint;
+import android.text.TextWatcher;
+import android.text.style.MetricAffectingSpan;
+import android.util.Log;
+import android.widget.EditText;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+
+import com.example.notepad.R;
+import com.example.notepad.utils.MarkdownParser;
+import com.example.notepad.utils.Metrics;
+
+import java.util.List;
+
+/**
+ * 编辑器中的Markdown高亮
+ * 保留源文本（标记字符变暗），按语法设置样式。每次编辑只增量解析被修改的块，
+ * 并只重新设置这些块的样式，输入时的开销与笔记长度基本无关。
+ * 所有方法都必须在主线程中调用
+ */
+public class MarkdownHighlighter implements TextWatcher {
+    private static final String TAG = "MarkdownHighlighter";
+
+    // 超过该长度时关闭高亮，避免一次性设置过多样式
+    static final int MAX_HIGHLIGHT_CHARS = 200_000;
+    private static final float[] HEADING_SCALES = {1.3f, 1.2f, 1.1f, 1.05f, 1f, 1f};
+    private static final int CODE_BACKGROUND = 0x22888888;
+
+    private static final Metrics.Timer REPARSE_TIMER = Metrics.timer("markdown.reparse");
+    private static final Metrics.Histogram REPARSED_BLOCKS = Metrics.histogram("markdown.reparse.blocks");
+
+    private final int markerColor;
+    private MarkdownParser.Document document;
+
+    // 最近一次编辑，在onTextChanged中记录，afterTextChanged中使用
+    private int editStart;
+    private int removed;
+    private int added;
+
+    public MarkdownHighlighter(Context context) {
+        markerColor = ContextCompat.getColor(context, R.color.text_secondary);
+    }
+
+    /**
+     * 开始高亮编辑框，已有的文本立即完整解析一次
+     */
+    public void attach(EditText editText) {
+        editText.addTextChangedListener(this);
+        Editable text = editText.getText();
+        if (text != null && text.length() > 0) {
+            highlightAll(text);
+        }
+    }
+
+    @Override
+    public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+    }
+
+    @Override
+    public void onTextChanged(CharSequence s, int start, int before, int count) {
+        editStart = start;
+        removed = before;
+        added = count;
+    }
+
+    @Override
+    public void afterTextChanged(Editable s) {
+        if (s.length() > MAX_HIGHLIGHT_CHARS) {
+            if (document != null) {
+                Log.d(TAG, "内容超过 " + MAX_HIGHLIGHT_CHARS + " 字符，关闭高亮");
+                removeSpans(s, 0, s.length());
+                document = null;
+            }
+            return;
+        }
+        if (document == null) {
+            highlightAll(s);
+            return;
+        }
+        long start = REPARSE_TIMER.start();
+        document = MarkdownParser.reparse(document, s, editStart, removed, added);
+        apply(s, document.getChangedFrom(), document.getChangedTo());
+        REPARSE_TIMER.stop(start);
+        REPARSED_BLOCKS.record(document.getChangedTo() - document.getChangedFrom());
+    }
+
+    private void highlightAll(Editable s) {
+        if (s.length() > MAX_HIGHLIGHT_CHARS) {
+            return;
+        }
+        long start = REPARSE_TIMER.start();
+        document = MarkdownParser.parse(s);
+        apply(s, 0, document.getBlocks().size());
+        REPARSE_TIMER.stop(start);
+        REPARSED_BLOCKS.record(document.getBlocks().size());
+    }
+
+    /**
+     * 重新设置 [from, to) 范围内各块的样式
+     */
+    private void apply(Editable s, int from, int to) {
+        List<MarkdownParser.Block> blocks = document.getBlocks();
+        if (from >= to) {
+            return;
+        }
+        // 被删除的行上的样式已收缩到编辑位置，也在这个范围内
+        removeSpans(s, blocks.get(from).getStart(), blocks.get(to - 1).getEnd());
+        for (int i = from; i < to; i++) {
+            applyBlock(s, blocks.get(i));
+        }
+    }
+
+    private void applyBlock(Editable s, MarkdownParser.Block block) {
+        int base = block.getStart();
+        switch (block.type) {
+            case MarkdownParser.BLANK:
+                return;
+            case MarkdownParser.RULE:
+                setSpan(s, EditorSpan.marker(markerColor), base, block.getEnd());
+                return;
+            case MarkdownParser.CODE_BLOCK:
+                setSpan(s, EditorSpan.code(), base, block.getEnd());
+                setSpan(s, EditorSpan.marker(markerColor), base, base + block.contentStart);
+                setSpan(s, EditorSpan.marker(markerColor), base + block.contentEnd, block.getEnd());
+                return;
+            case MarkdownParser.HEADING:
+                setSpan(s, EditorSpan.heading(HEADING_SCALES[block.level - 1]), base, block.getEnd());
+                break;
+            default:
+                break;
+        }
+        // 块标记（#、-、>、序号）
+        if (block.type != MarkdownParser.PARAGRAPH) {
+            setSpan(s, EditorSpan.marker(markerColor), base, base + block.contentStart);
+        }
+        for (MarkdownParser.Inline inline : block.inlines) {
+            int contentStart = base + inline.contentStart;
+            int contentEnd = base + inline.contentEnd;
+            setSpan(s, EditorSpan.marker(markerColor), base + inline.start, contentStart);
+            setSpan(s, EditorSpan.marker(markerColor), contentEnd, base + inline.end);
+            switch (inline.type) {
+                case MarkdownParser.BOLD:
+                    setSpan(s, EditorSpan.style(Typeface.BOLD), contentStart, contentEnd);
+                    break;
+                case MarkdownParser.ITALIC:
+                    setSpan(s, EditorSpan.style(Typeface.ITALIC), contentStart, contentEnd);
+                    break;
+                case MarkdownParser.STRIKE:
+                    setSpan(s, EditorSpan.strike(), contentStart, contentEnd);
+                    break;
+                case MarkdownParser.CODE:
+                    setSpan(s, EditorSpan.code(), contentStart, contentEnd);
+                    break;
+                case MarkdownParser.LINK:
+                    setSpan(s, EditorSpan.link(markerColor), base + inline.end - inline.url.length() - 1,
+                        base + inline.end - 1);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static void setSpan(Editable s, EditorSpan span, int start, int end) {
+        if (end > start) {
+            s.setSpan(span, start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
+    }
+
+    /**
+     * 只移除高亮自己设置的样式，输入法的组合文本样式等不受影响
+     */
+    private static void removeSpans(Editable s, int start, int end) {
+        for (EditorSpan span : s.getSpans(start, end, EditorSpan.class)) {
+            s.removeSpan(span);
+        }
+    }
+
+    /**
+     * 编辑器中使用的样式，用一个类型表示便于只移除高亮设置的样式
+     */
+    static final class EditorSpan extends MetricAffectingSpan {
+        private final int textStyle;
+        private final float sizeScale;
+        private final boolean monospace;
+        private final boolean strike;
+        private final boolean underline;
+        private final int color;
+        private final int background;
+
+        private EditorSpan(int textStyle, float sizeScale, boolean monospace, boolean strike, boolean underline,
+                           int color, int background) {
+            this.textStyle = textStyle;
+            this.sizeScale = sizeScale;
+            this.monospace = monospace;
+            this.strike = strike;
+            this.underline = underline;
+            this.color = color;
+            this.background = background;
+        }
+
+        static EditorSpan marker(int color) {
+            return new EditorSpan(Typeface.NORMAL, 1f, false, false, false, color, 0);
+        }
+
+        static EditorSpan heading(float scale) {
+            return new EditorSpan(Typeface.BOLD, scale, false, false, false, 0, 0);
+        }
+
+        static EditorSpan style(int textStyle) {
+            return new EditorSpan(textStyle, 1f, false, false, false, 0, 0);
+        }
+
+        static EditorSpan strike() {
+            return new EditorSpan(Typeface.NORMAL, 1f, false, true, false, 0, 0);
+        }
+
+        static EditorSpan code() {
+            return new EditorSpan(Typeface.NORMAL, 1f, true, false, false, 0, CODE_BACKGROUND);
+        }
+
+        static EditorSpan link(int color) {
+            return new EditorSpan(Typeface.NORMAL, 1f, false, false, true, color, 0);
+        }
+
+        @Override
+        public void updateMeasureState(@NonNull TextPaint paint) {
+            applyMetrics(paint);
+        }
+
+        @Override
+        public void updateDrawState(TextPaint paint) {
+            applyMetrics(paint);
+            if (color != 0) {
+                paint.setColor(color);
+            }
+            if (background != 0) {
+                paint.bgColor = background;
+            }
+            if (strike) {
+                paint.setStrikeThruText(true);
+            }
+            if (underline) {
+                paint.setUnderlineText(true);
+            }
+        }
+
+        /**
+         * 与StyleSpan相同的字体合成方式，字体没有对应样式时用伪粗体和倾斜代替
+         */
+        private void applyMetrics(TextPaint paint) {
+            if (sizeScale != 1f) {
+                paint.setTextSize(paint.getTextSize() * sizeScale);
+            }
+            if (textStyle == Typeface.NORMAL && !monospace) {
+                return;
+            }
+            Typeface old = paint.getTypeface();
+            int oldStyle = old != null ? old.getStyle() : Typeface.NORMAL;
+            int wanted = oldStyle | textStyle;
+            Typeface base = monospace ? Typeface.MONOSPACE : old;
+            Typeface typeface = base != null ? Typeface.create(base, wanted) : Typeface.defaultFromStyle(wanted);
+            int fake = wanted & ~typeface.getStyle();
+            if ((fake & Typeface.BOLD) != 0) {
+                paint.setFakeBoldText(true);
+            }
+            if ((fake & Typeface.ITALIC) != 0) {
+                paint.setTextSkewX(-0.25f);
+            }
+            paint.setTypeface(typeface);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.notepad.ui.note;
 
 import android.app.AlertDialog;
+import android.content.Context;
+import android.util.LruCache;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -8,24 +10,128 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.appcompat.widget.AppCompatTextView;
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.DiffUtil;
-import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.ListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.notepad.R;
 import com.example.notepad.data.model.Note;
+import com.example.notepad.utils.AppExecutors;
+import com.example.notepad.utils.DateUtils;
+import com.example.notepad.utils.MarkdownCache;
+import com.example.notepad.utils.Metrics;
+import com.example.notepad.utils.NoteTextUtils;
 
-import java.text.SimpleDateFormat;
-import java.util.Locale;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
-public class NoteAdapter extends ListAdapter<Note, NoteAdapter.NoteViewHolder> {
+/**
+ * 首页笔记列表适配器
+ * 滚动时主线程只做绑定，不做文本测量和布局加载：
+ * 1. 标题和预览（Markdown渲染结果，见 {@link MarkdownCache}）的PrecomputedTextCompat在提交列表时（差异计算之前）以及滚动前方的窗口中在后台线程预计算；
+ *    缓存未命中的条目通过setTextFuture在专用的排版线程池中计算，测量时再取结果，不会排在CPU线程池的批量任务之后
+ * 2. 页面创建时用AsyncLayoutInflater在后台预先加载若干个条目视图，创建ViewHolder时优先使用
+ * 3. 差异计算在统一的CPU线程池中进行
+ * 拖动排序时显示本地列表，每次移动只调用notifyItemMoved，松手后再提交一次列表
+ */
+public class NoteAdapter extends RecyclerView.Adapter<NoteAdapter.NoteViewHolder> {
     
-    private static final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
+    // 局部刷新标记：只重新绑定时间
+    public static final Object PAYLOAD_TIMESTAMP = new Object();
+    // 提交列表时预计算的条目数（约一屏半）
+    private static final int PRECOMPUTE_INITIAL = 16;
+    // 滚动时在当前绑定位置前方预计算的条目数
+    private static final int PRECOMPUTE_AHEAD = 24;
+    private static final int PREVIEW_CACHE_SIZE = 256;
+
+    private static final Metrics.Timer PRECOMPUTE_TIMER = Metrics.timer("list.precompute");
+    private static final Metrics.Counter PREVIEW_HITS = Metrics.counter("list.preview.hit");
+    private static final Metrics.Counter PREVIEW_MISSES = Metrics.counter("list.preview.miss");
+    private static final Metrics.Counter INFLATE_POOLED = Metrics.counter("list.inflate.pooled");
+    private static final Metrics.Counter INFLATE_SYNC = Metrics.counter("list.inflate.sync");
+
     private OnNoteClickListener listener;
     private OnNoteDeleteListener deleteListener;
 
+    private final AsyncListDiffer<Note> differ;
+    private final Executor precomputeExecutor;
+    // 绑定时缓存未命中的排版，测量时主线程会等待结果
+    private final Executor bindLayoutExecutor;
+    private final Executor mainThread;
+    // 按笔记ID缓存预计算的标题和预览，更新时间变化后失效
+    private final LruCache<Long, PreviewText> previewCache = new LruCache<>(PREVIEW_CACHE_SIZE);
+    // 标题和预览的文本样式，从最近创建的条目视图读取，只在主线程中修改，后台线程只读取
+    // 适配器由ViewModel持有，页面因字体大小、语言等配置变化重建后，新视图的样式可能不同
+    private volatile PrecomputedTextCompat.Params titleParams;
+    private volatile PrecomputedTextCompat.Params contentParams;
+    // 预览的Markdown渲染结果缓存，与文本样式一起从第一个条目视图的Context获取
+    private volatile MarkdownCache markdownCache;
+
+    // 以下字段只在主线程中访问
+    private int submitGeneration = 0;
+    // 拖动排序期间及拖动结果提交完成前显示的列表，不为null时优先于differ中的列表
+    private List<Note> dragList;
+    private boolean dragging;
+    // 最后一次提交拖动结果的代数
+    private int dragCommitGeneration;
+    // 拖动期间推迟提交的列表
+    private boolean hasDeferred;
+    private List<Note> deferredNotes;
+    private Runnable deferredCallback;
+    // 已安排预计算的最远位置（不包含）
+    private int precomputedUntil = 0;
+    private final ArrayDeque<View> preinflatedViews = new ArrayDeque<>();
+    private int preinflateGeneration = 0;
+
     public NoteAdapter() {
-        super(DIFF_CALLBACK);
+        ListUpdateCallback updateCallback = new AdapterListUpdateCallback(this);
+        // 显示拖动列表时，列表已经通过notifyItemMoved更新为提交的顺序，不再分发差异
+        differ = new AsyncListDiffer<>(new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                if (dragList == null) {
+                    updateCallback.onInserted(position, count);
+                }
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                if (dragList == null) {
+                    updateCallback.onRemoved(position, count);
+                }
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                if (dragList == null) {
+                    updateCallback.onMoved(fromPosition, toPosition);
+                }
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                if (dragList == null) {
+                    updateCallback.onChanged(position, count, payload);
+                }
+            }
+        }, new AsyncDifferConfig.Builder<>(DIFF_CALLBACK)
+            .setBackgroundThreadExecutor(AppExecutors.getInstance().cpu())
+            .build());
+        precomputeExecutor = AppExecutors.getInstance().cpu();
+        bindLayoutExecutor = AppExecutors.getInstance().textLayout();
+        mainThread = AppExecutors.getInstance().mainThread();
     }
 
     private static final DiffUtil.ItemCallback<Note> DIFF_CALLBACK = new DiffUtil.ItemCallback<Note>() {
@@ -36,16 +142,229 @@ public class NoteAdapter extends ListAdapter<Note, NoteAdapter.NoteViewHolder> {
 
         @Override
         public boolean areContentsTheSame(@NonNull Note oldItem, @NonNull Note newItem) {
-            return oldItem.getTitle().equals(newItem.getTitle()) &&
-                   oldItem.getContent().equals(newItem.getContent()) &&
-                   oldItem.getUpdatedAt().equals(newItem.getUpdatedAt());
+            return oldItem.hasSameContents(newItem);
         }
     };
 
+    /**
+     * 在后台预先加载条目视图，必须在主线程中调用
+     * 视图使用页面的Context创建，页面销毁时需要调用 {@link #clearPreinflatedViews()}
+     * @param context 页面Context（需要页面主题）
+     * @param parent 列表，用于生成布局参数
+     * @param count 预加载的数量
+     */
+    public void preinflate(Context context, ViewGroup parent, int count) {
+        int generation = preinflateGeneration;
+        AsyncLayoutInflater inflater = new AsyncLayoutInflater(context);
+        for (int i = 0; i < count; i++) {
+            inflater.inflate(R.layout.item_note, parent, (view, resid, p) -> {
+                if (generation != preinflateGeneration) {
+                    return;
+                }
+                captureTextParams(view);
+                preinflatedViews.add(view);
+            });
+        }
+    }
+
+    /**
+     * 丢弃预加载的视图，避免适配器（由ViewModel持有）引用已销毁的页面
+     */
+    public void clearPreinflatedViews() {
+        preinflateGeneration++;
+        preinflatedViews.clear();
+    }
+
+    /**
+     * 提交列表，先在后台预计算前几条的标题和预览，再进入差异计算
+     * 必须在主线程中调用
+     * @param notes 笔记列表
+     * @param commitCallback 列表提交完成后的回调，可以为null
+     */
+    public void submitNotes(List<Note> notes, Runnable commitCallback) {
+        if (dragList != null) {
+            // 拖动期间显示的是本地列表，新的列表等拖动结果提交后再提交，被替换的回调直接执行
+            if (deferredCallback != null) {
+                deferredCallback.run();
+            }
+            hasDeferred = true;
+            deferredNotes = notes;
+            deferredCallback = commitCallback;
+            return;
+        }
+        submit(notes, commitCallback);
+    }
+
+    private void submit(List<Note> notes, Runnable commitCallback) {
+        int generation = ++submitGeneration;
+        PrecomputedTextCompat.Params title = titleParams;
+        PrecomputedTextCompat.Params content = contentParams;
+        if (notes == null || notes.isEmpty() || title == null) {
+            precomputedUntil = 0;
+            differ.submitList(notes, commitCallback);
+            return;
+        }
+        precomputeExecutor.execute(() -> {
+            precompute(notes, 0, PRECOMPUTE_INITIAL, title, content);
+            mainThread.execute(() -> {
+                if (generation != submitGeneration) {
+                    // 已经提交了更新的列表
+                    if (commitCallback != null) {
+                        commitCallback.run();
+                    }
+                    return;
+                }
+                precomputedUntil = Math.min(notes.size(), PRECOMPUTE_INITIAL);
+                differ.submitList(notes, commitCallback);
+            });
+        });
+    }
+
+    /**
+     * 当前提交的列表（不可变），拖动期间不包含未提交的移动
+     */
+    public List<Note> getCurrentList() {
+        return differ.getCurrentList();
+    }
+
+    public Note getItem(int position) {
+        return dragList != null ? dragList.get(position) : differ.getCurrentList().get(position);
+    }
+
+    @Override
+    public int getItemCount() {
+        return dragList != null ? dragList.size() : differ.getCurrentList().size();
+    }
+
+    /**
+     * 开始拖动排序，之后的移动只更新本地列表，必须在主线程中调用
+     */
+    public void startDrag() {
+        if (dragList == null) {
+            dragList = new ArrayList<>(differ.getCurrentList());
+        }
+        dragging = true;
+    }
+
+    /**
+     * 拖动时移动一个条目
+     */
+    public void moveItem(int from, int to) {
+        dragList.add(to, dragList.remove(from));
+        notifyItemMoved(from, to);
+    }
+
+    /**
+     * 结束拖动，通过 {@link #submitNotes(List, Runnable)} 的提交流程提交拖动后的列表
+     * 提交完成后恢复显示differ中的列表，并提交拖动期间推迟的列表
+     * @return 拖动后的列表
+     */
+    public List<Note> finishDrag() {
+        dragging = false;
+        List<Note> moved = new ArrayList<>(dragList);
+        int generation = submitGeneration + 1;
+        dragCommitGeneration = generation;
+        // 提交完成后differ中的列表与显示的一致；之后又开始拖动或有更新的拖动结果时继续显示本地列表
+        submit(moved, () -> {
+            if (generation != dragCommitGeneration || dragging) {
+                return;
+            }
+            dragList = null;
+            if (hasDeferred) {
+                List<Note> notes = deferredNotes;
+                Runnable callback = deferredCallback;
+                hasDeferred = false;
+                deferredNotes = null;
+                deferredCallback = null;
+                submit(notes, callback);
+            }
+        });
+        return moved;
+    }
+
+    /**
+     * 预计算指定范围内缓存中没有的标题和预览，在后台线程中调用
+     */
+    private void precompute(List<Note> notes, int from, int to,
+                            PrecomputedTextCompat.Params title, PrecomputedTextCompat.Params content) {
+        long start = PRECOMPUTE_TIMER.start();
+        for (int i = from; i < to && i < notes.size(); i++) {
+            if (title != titleParams) {
+                // 文本样式已经变化，按旧样式计算的结果不再使用
+                break;
+            }
+            Note note = notes.get(i);
+            if (getCachedPreview(note) == null) {
+                previewCache.put(note.getId(), new PreviewText(note.getUpdatedAt(),
+                    PrecomputedTextCompat.create(nonNull(note.getTitle()), title),
+                    PrecomputedTextCompat.create(markdownCache.getPreview(note), content)));
+            }
+        }
+        PRECOMPUTE_TIMER.stop(start);
+    }
+
+    /**
+     * 在当前绑定位置前方安排预计算，与RecyclerView的预取配合，让滚动到的条目总是命中缓存
+     */
+    private void scheduleAhead(int position) {
+        PrecomputedTextCompat.Params title = titleParams;
+        PrecomputedTextCompat.Params content = contentParams;
+        List<Note> notes = getCurrentList();
+        if (title == null || position + PRECOMPUTE_AHEAD / 2 < precomputedUntil) {
+            return;
+        }
+        int from = Math.max(position, precomputedUntil);
+        int to = Math.min(notes.size(), position + PRECOMPUTE_AHEAD);
+        if (from >= to) {
+            return;
+        }
+        precomputedUntil = to;
+        // getCurrentList返回不可变列表，可以直接在后台线程中读取
+        precomputeExecutor.execute(() -> precompute(notes, from, to, title, content));
+    }
+
+    private PreviewText getCachedPreview(Note note) {
+        PreviewText preview = previewCache.get(note.getId());
+        return preview != null && Objects.equals(preview.updatedAt, note.getUpdatedAt()) ? preview : null;
+    }
+
+    private void captureTextParams(View itemView) {
+        captureTextParams(itemView.getContext(),
+            TextViewCompat.getTextMetricsParams(itemView.findViewById(R.id.textTitle)),
+            TextViewCompat.getTextMetricsParams(itemView.findViewById(R.id.textContent)));
+    }
+
+    /**
+     * 记录新视图的文本样式，与之前的不同时替换，并丢弃按旧样式预计算的结果
+     * 必须在主线程中调用
+     */
+    private void captureTextParams(Context context, PrecomputedTextCompat.Params title,
+                                   PrecomputedTextCompat.Params content) {
+        if (title.equals(titleParams) && content.equals(contentParams)) {
+            return;
+        }
+        markdownCache = MarkdownCache.getInstance(context);
+        contentParams = content;
+        titleParams = title;
+        previewCache.evictAll();
+        // 已安排的预计算使用的是旧样式，之后按新样式重新安排
+        precomputedUntil = 0;
+    }
+
+    private static String nonNull(String text) {
+        return text != null ? text : "";
+    }
+
     @NonNull
     @Override
     public NoteViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View itemView = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_note, parent, false);
+        View itemView = preinflatedViews.poll();
+        if (itemView != null) {
+            INFLATE_POOLED.increment();
+        } else {
+            INFLATE_SYNC.increment();
+            itemView = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_note, parent, false);
+        }
         return new NoteViewHolder(itemView);
     }
 
@@ -55,6 +374,34 @@ public class NoteAdapter extends ListAdapter<Note, NoteAdapter.NoteViewHolder> {
         if (note != null) {
             holder.bind(note);
         }
+        scheduleAhead(position);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull NoteViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && payloads.stream().allMatch(payload -> payload == PAYLOAD_TIMESTAMP)) {
+            Note note = getItem(position);
+            if (note != null) {
+                holder.bindTimestamp(note, DateUtils.currentTick());
+            }
+            return;
+        }
+        super.onBindViewHolder(holder, position, payloads);
+    }
+
+    /**
+     * 刷新指定范围内的时间显示，不重新绑定标题和内容
+     * @param first 第一个位置
+     * @param last 最后一个位置（包含）
+     */
+    public void refreshTimestamps(int first, int last) {
+        // 放在ConcatAdapter中时，调用方传入的可见范围可能超出本适配器
+        first = Math.max(first, 0);
+        last = Math.min(last, getItemCount() - 1);
+        if (last < first) {
+            return;
+        }
+        notifyItemRangeChanged(first, last - first + 1, PAYLOAD_TIMESTAMP);
     }
 
     public void setOnNoteClickListener(OnNoteClickListener listener) {
@@ -73,28 +420,49 @@ public class NoteAdapter extends ListAdapter<Note, NoteAdapter.NoteViewHolder> {
         void onNoteDelete(Note note);
     }
 
+    /**
+     * 预计算的标题和预览
+     */
+    private static class PreviewText {
+        final Date updatedAt;
+        final PrecomputedTextCompat title;
+        final PrecomputedTextCompat content;
+
+        PreviewText(Date updatedAt, PrecomputedTextCompat title, PrecomputedTextCompat content) {
+            this.updatedAt = updatedAt;
+            this.title = title;
+            this.content = content;
+        }
+    }
+
     class NoteViewHolder extends RecyclerView.ViewHolder {
-        private TextView textTitle;
-        private TextView textContent;
+        private AppCompatTextView textTitle;
+        private AppCompatTextView textContent;
         private TextView textDate;
         private ImageButton buttonDelete;
+        // 本条目视图的文本样式，只有与适配器当前的样式一致时才能使用预计算的文本
+        private final PrecomputedTextCompat.Params titleViewParams;
+        private final PrecomputedTextCompat.Params contentViewParams;
 
         public NoteViewHolder(@NonNull View itemView) {
             super(itemView);
             textTitle = itemView.findViewById(R.id.textTitle);
             textContent = itemView.findViewById(R.id.textContent);
+            titleViewParams = TextViewCompat.getTextMetricsParams(textTitle);
+            contentViewParams = TextViewCompat.getTextMetricsParams(textContent);
+            captureTextParams(itemView.getContext(), titleViewParams, contentViewParams);
             textDate = itemView.findViewById(R.id.textDate);
             buttonDelete = itemView.findViewById(R.id.buttonDelete);
 
             itemView.setOnClickListener(v -> {
-                int position = getAdapterPosition();
+                int position = getBindingAdapterPosition();
                 if (listener != null && position != RecyclerView.NO_POSITION) {
                     listener.onNoteClick(getItem(position));
                 }
             });
 
             buttonDelete.setOnClickListener(v -> {
-                int position = getAdapterPosition();
+                int position = getBindingAdapterPosition();
                 if (position != RecyclerView.NO_POSITION) {
                     showDeleteConfirmationDialog(getItem(position));
                 }
@@ -115,26 +483,46 @@ public class NoteAdapter extends ListAdapter<Note, NoteAdapter.NoteViewHolder> {
         }
 
         public void bind(Note note) {
-            textTitle.setText(note.getTitle());
-            
-            // 处理内容显示
-            String content = note.getContent();
-            // 去除图片标记、录音标记等非文本内容
-            content = content.replaceAll("\\[图片:.*?\\]", "")
-                             .replaceAll("\\[录音:.*?\\]", "")
-                             .replaceAll("\\[附件:.*?\\]", "")
-                             .trim();
-            
-            // 截取内容长度
-            int maxLength = 120;
-            if (content.length() > maxLength) {
-                content = content.substring(0, maxLength) + "...";
+            PrecomputedTextCompat.Params title = titleParams;
+            PrecomputedTextCompat.Params params = contentParams;
+            // 视图的样式与适配器当前的不一致时（例如仍在显示的旧视图），预计算的文本不能用于该视图
+            boolean paramsMatch = titleViewParams.equals(title) && contentViewParams.equals(params);
+            PreviewText preview = paramsMatch ? getCachedPreview(note) : null;
+            if (preview != null && setPrecomputed(preview)) {
+                PREVIEW_HITS.increment();
+            } else if (paramsMatch) {
+                // 缓存未命中时在后台计算，视图测量时才取结果
+                PREVIEW_MISSES.increment();
+                textTitle.setTextFuture(PrecomputedTextCompat.getTextFuture(
+                    nonNull(note.getTitle()), title, bindLayoutExecutor));
+                // 预览的Markdown渲染（去除非文本标记并截取长度）也在后台完成
+                MarkdownCache cache = markdownCache;
+                FutureTask<PrecomputedTextCompat> content = new FutureTask<>(
+                    () -> PrecomputedTextCompat.create(cache.getPreview(note), params));
+                bindLayoutExecutor.execute(content);
+                textContent.setTextFuture(content);
+            } else {
+                textTitle.setText(note.getTitle());
+                textContent.setText(NoteTextUtils.extractPreview(note.getContent()));
             }
             
-            textContent.setText(content);
-            
             // 设置日期
-            textDate.setText(dateFormat.format(note.getUpdatedAt()));
+            bindTimestamp(note, DateUtils.currentTick());
+        }
+
+        private boolean setPrecomputed(PreviewText preview) {
+            try {
+                TextViewCompat.setPrecomputedText(textTitle, preview.title);
+                TextViewCompat.setPrecomputedText(textContent, preview.content);
+                return true;
+            } catch (IllegalArgumentException e) {
+                // 预计算时的文本样式与视图不一致（样式变化前安排的预计算），按当前样式重新计算
+                return false;
+            }
+        }
+
+        void bindTimestamp(Note note, DateUtils.Tick tick) {
+            textDate.setText(DateUtils.formatDateTime(note.getUpdatedAt(), tick));
         }
     }
 } 
\ No newline at end of file
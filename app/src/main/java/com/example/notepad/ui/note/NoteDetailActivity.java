@@ -2,27 +2,68 @@ package com.example.notepad.ui.note;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.Spanned;
+import android.text.method.LinkMovementMethod;
 import android.view.View;
+import android.widget.EditText;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.ConcatAdapter;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
+import com.example.notepad.R;
 import com.example.notepad.data.model.Attachment;
-import com.example.notepad.data.model.NoteWithAttachments;
+import com.example.notepad.data.model.Note;
+import com.example.notepad.data.model.Notebook;
+import com.example.notepad.data.model.Tag;
 import com.example.notepad.databinding.ActivityNoteDetailBinding;
+import com.example.notepad.utils.AppExecutors;
 import com.example.notepad.utils.DateUtils;
+import com.example.notepad.utils.MarkdownCache;
+import com.example.notepad.utils.Metrics;
+import com.example.notepad.utils.TextChunker;
+import com.example.notepad.utils.TraceRecorder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 public class NoteDetailActivity extends AppCompatActivity implements AttachmentAdapter.AttachmentClickListener {
     private ActivityNoteDetailBinding binding;
-    private NoteViewModel noteViewModel;
+    private NoteDetailViewModel viewModel;
     private AttachmentAdapter attachmentAdapter;
     private long noteId;
 
+    // 长笔记模式：内容按段落放入RecyclerView，只排版可见的段落
+    private NoteParagraphAdapter paragraphAdapter;
+    private boolean longNoteMode = false;
+    // 每次渲染递增，丢弃过期的后台排版结果
+    private int renderGeneration = 0;
+    // 最后一次渲染的笔记，只有收藏状态变化时不重新渲染内容
+    private Note renderedNote;
+    // 笔记所属用户的笔记本，按层级展开，第一次加载笔记后开始观察
+    private List<NotebookEntry> notebookEntries = new ArrayList<>();
+    // 用户的全部标签和当前笔记的标签，用于标签选择对话框
+    private List<Tag> userTags = new ArrayList<>();
+    private List<Tag> noteTags = new ArrayList<>();
+
     public static final String EXTRA_NOTE_ID = "extra_note_id";
 
+    // 超过该长度的笔记使用长笔记模式
+    static final int LONG_NOTE_CHARS = 20_000;
+    // 长笔记每段的目标长度和最大长度
+    private static final int PARAGRAPH_TARGET_CHARS = 1_000;
+    private static final int PARAGRAPH_MAX_CHARS = 4_000;
+
+    private static final Metrics.Timer PRECOMPUTE_TIMER = Metrics.timer("text.precompute");
+    private static final Metrics.Timer CHUNK_TIMER = Metrics.timer("text.chunk");
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -30,7 +71,7 @@ public class NoteDetailActivity extends AppCompatActivity implements AttachmentA
         setContentView(binding.getRoot());
 
         // 初始化ViewModel
-        noteViewModel = new ViewModelProvider(this).get(NoteViewModel.class);
+        viewModel = new ViewModelProvider(this).get(NoteDetailViewModel.class);
 
         // 初始化附件列表
         setupAttachmentsList();
@@ -39,7 +80,8 @@ public class NoteDetailActivity extends AppCompatActivity implements AttachmentA
         if (getIntent().hasExtra(EXTRA_NOTE_ID)) {
             noteId = getIntent().getLongExtra(EXTRA_NOTE_ID, -1);
             if (noteId != -1) {
-                loadNote();
+                viewModel.setNoteId(noteId);
+                observeNote();
             } else {
                 Toast.makeText(this, "笔记不存在", Toast.LENGTH_SHORT).show();
                 finish();
@@ -58,42 +100,167 @@ public class NoteDetailActivity extends AppCompatActivity implements AttachmentA
         attachmentAdapter = new AttachmentAdapter(this, this);
         binding.recyclerAttachments.setLayoutManager(new LinearLayoutManager(this));
         binding.recyclerAttachments.setAdapter(attachmentAdapter);
+        binding.textNoteContent.setMovementMethod(LinkMovementMethod.getInstance());
     }
 
-    private void loadNote() {
-        noteViewModel.getNoteById(noteId).observe(this, note -> {
-            if (note != null) {
-                binding.textNoteTitle.setText(note.getTitle());
-                binding.textNoteContent.setText(note.getContent());
-                binding.textNoteDate.setText(DateUtils.formatDateTime(note.getUpdatedAt()));
-                
-                // 加载附件
-                loadAttachments();
-            } else {
+    /**
+     * 观察笔记状态，笔记和附件来自同一次查询，只在onCreate中注册一次
+     */
+    private void observeNote() {
+        viewModel.getNoteState().observe(this, noteWithAttachments -> {
+            if (isFinishing()) {
+                return;
+            }
+            if (noteWithAttachments == null || noteWithAttachments.note == null) {
                 Toast.makeText(this, "笔记不存在", Toast.LENGTH_SHORT).show();
                 finish();
+                return;
+            }
+            viewModel.onStateRendered();
+            Note note = noteWithAttachments.note;
+            if (renderedNote == null) {
+                observeNotebooks(note.getUserId());
+                observeTags(note.getUserId());
+            }
+            if (renderedNote == null || !renderedNote.hasSameContents(note)) {
+                renderNote(note);
             }
+            renderedNote = note;
+            renderFavorite(note.isFavorite());
+            renderAttachments(noteWithAttachments.attachments);
         });
     }
 
-    private void loadAttachments() {
-        noteViewModel.getNoteWithAttachments(noteId).observe(this, noteWithAttachments -> {
-            if (noteWithAttachments != null && noteWithAttachments.attachments != null) {
-                if (!noteWithAttachments.attachments.isEmpty()) {
-                    binding.textAttachmentsTitle.setVisibility(View.VISIBLE);
-                    binding.recyclerAttachments.setVisibility(View.VISIBLE);
-                    attachmentAdapter.getAttachments().clear();
-                    for (Attachment attachment : noteWithAttachments.attachments) {
-                        attachmentAdapter.addAttachment(attachment);
-                    }
-                } else {
-                    binding.textAttachmentsTitle.setVisibility(View.GONE);
-                    binding.recyclerAttachments.setVisibility(View.GONE);
+    private void observeNotebooks(int userId) {
+        viewModel.getNotebooks(userId).observe(this,
+            notebooks -> notebookEntries = NotebookEntry.flatten(notebooks));
+    }
+
+    private void observeTags(int userId) {
+        viewModel.getTags(userId).observe(this, tags -> userTags = tags != null ? tags : new ArrayList<>());
+        viewModel.getTagsForNote(noteId).observe(this, tags -> {
+            noteTags = tags != null ? tags : new ArrayList<>();
+            binding.buttonTags.setText(noteTags.isEmpty()
+                ? getString(R.string.tags)
+                : getString(R.string.tags_count, noteTags.size()));
+        });
+    }
+
+    private void renderNote(Note note) {
+        String content = note.getContent() != null ? note.getContent() : "";
+        String date = DateUtils.formatDateTime(note.getUpdatedAt());
+        int generation = ++renderGeneration;
+        setLongNoteMode(content.length() >= LONG_NOTE_CHARS);
+        if (longNoteMode) {
+            paragraphAdapter.setHeader(note.getTitle(), date);
+            renderLongContent(note, generation);
+        } else {
+            binding.textNoteTitle.setText(note.getTitle());
+            binding.textNoteDate.setText(date);
+            renderContent(note, generation);
+        }
+    }
+
+    private void renderFavorite(boolean favorite) {
+        binding.buttonFavorite.setText(favorite ? R.string.unfavorite : R.string.favorite);
+        binding.buttonFavorite.setCompoundDrawablesRelativeWithIntrinsicBounds(
+            favorite ? R.drawable.ic_star : R.drawable.ic_star_border, 0, 0, 0);
+    }
+
+    /**
+     * 普通笔记：在后台渲染Markdown（按笔记版本缓存，含链接识别）并预计算文本排版，主线程只设置结果
+     */
+    private void renderContent(Note note, int generation) {
+        // 文本样式只能在主线程中从视图读取
+        PrecomputedTextCompat.Params params = TextViewCompat.getTextMetricsParams(binding.textNoteContent);
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.executeFor(this, executors.cpu(), () -> {
+            PrecomputedTextCompat precomputed;
+            try (TraceRecorder.Section ignored = TraceRecorder.section("note.detail.precompute")) {
+                Spanned rendered = MarkdownCache.getInstance(this).getRendered(note);
+                long start = PRECOMPUTE_TIMER.start();
+                precomputed = PrecomputedTextCompat.create(rendered, params);
+                PRECOMPUTE_TIMER.stop(start);
+            }
+            executors.mainThread().execute(() -> {
+                if (binding == null || generation != renderGeneration) {
+                    return;
+                }
+                TextViewCompat.setPrecomputedText(binding.textNoteContent, precomputed);
+            });
+        });
+    }
+
+    /**
+     * 长笔记：在后台渲染Markdown并按段落切分渲染结果，各段的排版在绑定时异步预计算
+     */
+    private void renderLongContent(Note note, int generation) {
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.executeFor(this, executors.cpu(), () -> {
+            List<CharSequence> paragraphs = new ArrayList<>();
+            try (TraceRecorder.Section ignored = TraceRecorder.section("note.detail.chunk")) {
+                Spanned rendered = MarkdownCache.getInstance(this).getRendered(note);
+                long start = CHUNK_TIMER.start();
+                // 各段依次拼接后与渲染结果相同，按长度截取即可保留样式
+                int offset = 0;
+                for (String chunk : TextChunker.split(rendered.toString(), PARAGRAPH_TARGET_CHARS, PARAGRAPH_MAX_CHARS)) {
+                    paragraphs.add(rendered.subSequence(offset, offset + chunk.length()));
+                    offset += chunk.length();
                 }
+                CHUNK_TIMER.stop(start);
             }
+            executors.mainThread().execute(() -> {
+                if (binding == null || generation != renderGeneration) {
+                    return;
+                }
+                paragraphAdapter.setParagraphs(paragraphs);
+            });
         });
     }
 
+    /**
+     * 切换普通模式和长笔记模式，附件列表随之移动到对应的容器中
+     */
+    private void setLongNoteMode(boolean enabled) {
+        if (longNoteMode == enabled) {
+            return;
+        }
+        longNoteMode = enabled;
+        if (enabled) {
+            if (paragraphAdapter == null) {
+                paragraphAdapter = new NoteParagraphAdapter(AppExecutors.getInstance().textLayout());
+                binding.recyclerContent.setLayoutManager(new LinearLayoutManager(this));
+            }
+            binding.recyclerAttachments.setAdapter(null);
+            binding.textNoteContent.setText(null);
+            binding.recyclerContent.setAdapter(new ConcatAdapter(paragraphAdapter, attachmentAdapter));
+            binding.scrollContent.setVisibility(View.GONE);
+            binding.recyclerContent.setVisibility(View.VISIBLE);
+        } else {
+            binding.recyclerContent.setAdapter(null);
+            paragraphAdapter.setParagraphs(new ArrayList<>());
+            binding.recyclerAttachments.setAdapter(attachmentAdapter);
+            binding.recyclerContent.setVisibility(View.GONE);
+            binding.scrollContent.setVisibility(View.VISIBLE);
+        }
+    }
+
+    private void renderAttachments(List<Attachment> attachments) {
+        if (longNoteMode) {
+            paragraphAdapter.setShowAttachmentsTitle(attachments != null && !attachments.isEmpty());
+            attachmentAdapter.setAttachments(attachments);
+            return;
+        }
+        if (attachments != null && !attachments.isEmpty()) {
+            binding.textAttachmentsTitle.setVisibility(View.VISIBLE);
+            binding.recyclerAttachments.setVisibility(View.VISIBLE);
+            attachmentAdapter.setAttachments(attachments);
+        } else {
+            binding.textAttachmentsTitle.setVisibility(View.GONE);
+            binding.recyclerAttachments.setVisibility(View.GONE);
+        }
+    }
+
     private void setupClickListeners() {
         // 返回按钮点击事件
         binding.buttonBack.setOnClickListener(v -> finish());
@@ -112,10 +279,103 @@ public class NoteDetailActivity extends AppCompatActivity implements AttachmentA
         binding.buttonShare.setOnClickListener(v -> shareNote());
 
         // 收藏按钮点击事件
-        binding.buttonFavorite.setOnClickListener(v -> {
-            // TODO: 实现收藏功能
-            Toast.makeText(this, "收藏功能开发中", Toast.LENGTH_SHORT).show();
-        });
+        binding.buttonFavorite.setOnClickListener(v -> toggleFavorite());
+
+        // 移到笔记本按钮点击事件
+        binding.buttonNotebook.setOnClickListener(v -> showMoveToNotebookDialog());
+
+        // 标签按钮点击事件
+        binding.buttonTags.setOnClickListener(v -> showTagsDialog());
+    }
+
+    /**
+     * 选择笔记的标签：勾选已有标签，也可以输入新标签（多个用逗号或空格分隔）
+     */
+    private void showTagsDialog() {
+        Note note = viewModel.getCurrentNote();
+        if (note == null) {
+            return;
+        }
+        List<Tag> tags = userTags;
+        Set<Long> currentIds = new LinkedHashSet<>();
+        for (Tag tag : noteTags) {
+            currentIds.add(tag.getId());
+        }
+        CharSequence[] names = new CharSequence[tags.size()];
+        boolean[] checked = new boolean[tags.size()];
+        for (int i = 0; i < tags.size(); i++) {
+            names[i] = tags.get(i).getName();
+            checked[i] = currentIds.contains(tags.get(i).getId());
+        }
+        EditText input = new EditText(this);
+        input.setHint(R.string.new_tags_hint);
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.tags)
+                .setMultiChoiceItems(names, checked, (dialog, which, isChecked) -> checked[which] = isChecked)
+                .setView(input)
+                .setPositiveButton(R.string.ok, (dialog, which) -> {
+                    Set<String> selected = new LinkedHashSet<>();
+                    for (int i = 0; i < tags.size(); i++) {
+                        if (checked[i]) {
+                            selected.add(tags.get(i).getName());
+                        }
+                    }
+                    for (String name : input.getText().toString().split("[,，\\s]+")) {
+                        if (!name.isEmpty()) {
+                            selected.add(name);
+                        }
+                    }
+                    viewModel.setNoteTags(note, selected);
+                })
+                .setNegativeButton(R.string.cancel, null)
+                .show();
+    }
+
+    /**
+     * 选择笔记所属的笔记本，当前所在的笔记本被选中
+     */
+    private void showMoveToNotebookDialog() {
+        Note note = viewModel.getCurrentNote();
+        if (note == null) {
+            return;
+        }
+        List<CharSequence> items = new ArrayList<>();
+        List<Long> targets = new ArrayList<>();
+        items.add(getString(R.string.no_notebook));
+        targets.add(null);
+        int checked = 0;
+        for (NotebookEntry entry : notebookEntries) {
+            Notebook notebook = entry.notebook;
+            if (note.getNotebookId() != null && note.getNotebookId() == notebook.getId()) {
+                checked = items.size();
+            }
+            items.add(entry.indentedName());
+            targets.add(notebook.getId());
+        }
+        int current = checked;
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.move_to_notebook)
+                .setSingleChoiceItems(items.toArray(new CharSequence[0]), checked, (dialog, which) -> {
+                    dialog.dismiss();
+                    if (which != current) {
+                        viewModel.moveToNotebook(note, targets.get(which));
+                        Toast.makeText(this, R.string.moved_to_notebook, Toast.LENGTH_SHORT).show();
+                    }
+                })
+                .setNegativeButton(R.string.cancel, null)
+                .show();
+    }
+
+    /**
+     * 收藏或取消收藏，只更新收藏标记，按钮状态随笔记数据刷新
+     */
+    private void toggleFavorite() {
+        Note note = viewModel.getCurrentNote();
+        if (note != null) {
+            boolean favorite = !note.isFavorite();
+            viewModel.setFavorite(note, favorite);
+            Toast.makeText(this, favorite ? "已收藏" : "已取消收藏", Toast.LENGTH_SHORT).show();
+        }
     }
 
     private void showDeleteConfirmationDialog() {
@@ -128,32 +388,24 @@ public class NoteDetailActivity extends AppCompatActivity implements AttachmentA
     }
 
     private void deleteNote() {
-        noteViewModel.getNoteById(noteId).observe(this, note -> {
-            if (note != null) {
-                noteViewModel.delete(note);
-                Toast.makeText(this, "笔记已删除", Toast.LENGTH_SHORT).show();
-                finish();
-            }
-        });
+        // 直接使用当前快照，不再重新查询
+        Note note = viewModel.getCurrentNote();
+        if (note != null) {
+            viewModel.delete(note);
+            Toast.makeText(this, "笔记已删除", Toast.LENGTH_SHORT).show();
+            finish();
+        }
     }
 
     private void shareNote() {
-        noteViewModel.getNoteById(noteId).observe(this, note -> {
-            if (note != null) {
-                Intent shareIntent = new Intent(Intent.ACTION_SEND);
-                shareIntent.setType("text/plain");
-                shareIntent.putExtra(Intent.EXTRA_SUBJECT, note.getTitle());
-                shareIntent.putExtra(Intent.EXTRA_TEXT, note.getTitle() + "\n\n" + note.getContent());
-                startActivity(Intent.createChooser(shareIntent, "分享笔记"));
-            }
-        });
-    }
-
-    @Override
-    protected void onResume() {
-        super.onResume();
-        // 页面恢复时重新加载笔记，以获取可能的更新
-        loadNote();
+        Note note = viewModel.getCurrentNote();
+        if (note != null) {
+            Intent shareIntent = new Intent(Intent.ACTION_SEND);
+            shareIntent.setType("text/plain");
+            shareIntent.putExtra(Intent.EXTRA_SUBJECT, note.getTitle());
+            shareIntent.putExtra(Intent.EXTRA_TEXT, note.getTitle() + "\n\n" + note.getContent());
+            startActivity(Intent.createChooser(shareIntent, "分享笔记"));
+        }
     }
 
     @Override
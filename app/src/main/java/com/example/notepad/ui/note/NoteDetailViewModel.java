@@ -0,0 +1,123 @@
+package com.example.notepad.ui.note;
+
+import android.app.Application;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+
+import com.example.notepad.data.model.Note;
+import com.example.notepad.data.model.NoteWithAttachments;
+import com.example.notepad.data.model.Notebook;
+import com.example.notepad.data.model.Tag;
+import com.example.notepad.data.repository.NoteRepository;
+import com.example.notepad.data.repository.NotebookRepository;
+import com.example.notepad.data.repository.TagRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 笔记详情ViewModel
+ * 笔记和附件通过同一个数据流提供，页面只注册一次观察者
+ */
+public class NoteDetailViewModel extends AndroidViewModel {
+    private static final String TAG = "NoteDetailViewModel";
+
+    private final NoteRepository repository;
+    private final NotebookRepository notebookRepository;
+    private final TagRepository tagRepository;
+    private final MutableLiveData<Long> noteId = new MutableLiveData<>();
+    private final LiveData<NoteWithAttachments> noteState;
+
+    // 统计数据刷新次数，配合仓库的查询计数验证每次失效只查询一次
+    private int emissionCount = 0;
+    private long startQueryCount;
+    private long startInvalidationCount;
+
+    public NoteDetailViewModel(@NonNull Application application) {
+        super(application);
+        repository = NoteRepository.getInstance(application);
+        notebookRepository = NotebookRepository.getInstance(application);
+        tagRepository = TagRepository.getInstance(application);
+        noteState = Transformations.switchMap(noteId, id -> repository.getNoteWithAttachments(id));
+    }
+
+    /**
+     * 设置要显示的笔记ID，重复设置相同ID不会触发重新加载
+     * @param id 笔记ID
+     */
+    public void setNoteId(long id) {
+        Long current = noteId.getValue();
+        if (current == null || current != id) {
+            startQueryCount = repository.getCachedQueryCount();
+            startInvalidationCount = repository.getInvalidationCount();
+            emissionCount = 0;
+            noteId.setValue(id);
+        }
+    }
+
+    /**
+     * 获取笔记状态数据流
+     */
+    public LiveData<NoteWithAttachments> getNoteState() {
+        return noteState;
+    }
+
+    /**
+     * 获取当前笔记快照
+     * @return 当前笔记，尚未加载或已删除时返回null
+     */
+    public Note getCurrentNote() {
+        NoteWithAttachments state = noteState.getValue();
+        return state != null ? state.note : null;
+    }
+
+    public void delete(Note note) {
+        repository.delete(note);
+    }
+
+    public void setFavorite(Note note, boolean favorite) {
+        repository.setFavorite(note.getId(), note.getUserId(), favorite);
+    }
+
+    public LiveData<List<Notebook>> getNotebooks(int userId) {
+        return notebookRepository.getNotebooks(userId);
+    }
+
+    /**
+     * 把笔记移动到指定笔记本
+     * @param notebookId 目标笔记本，为null表示移出笔记本
+     */
+    public void moveToNotebook(Note note, Long notebookId) {
+        repository.setNotebook(note.getId(), notebookId);
+    }
+
+    public LiveData<List<Tag>> getTags(int userId) {
+        return tagRepository.getTags(userId);
+    }
+
+    public LiveData<List<Tag>> getTagsForNote(long noteId) {
+        return tagRepository.getTagsForNote(noteId);
+    }
+
+    /**
+     * 把笔记的标签设置为指定的名称集合，不存在的标签自动创建
+     */
+    public void setNoteTags(Note note, Collection<String> names) {
+        tagRepository.setNoteTags(note.getUserId(), note.getId(), names);
+    }
+
+    /**
+     * 记录一次数据刷新并输出查询统计
+     */
+    void onStateRendered() {
+        emissionCount++;
+        Log.d(TAG, "笔记刷新次数: " + emissionCount
+            + ", 查询次数: " + (repository.getCachedQueryCount() - startQueryCount)
+            + ", 失效次数: " + (repository.getInvalidationCount() - startInvalidationCount));
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.notepad.ui.note;
+
+import android.app.Application;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Parcelable;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.recyclerview.widget.ConcatAdapter;
+
+import com.example.notepad.R;
+
+import com.example.notepad.data.model.Note;
+import com.example.notepad.data.model.Notebook;
+import com.example.notepad.data.model.Tag;
+import com.example.notepad.data.repository.NoteRepository;
+import com.example.notepad.data.repository.NotebookRepository;
+import com.example.notepad.data.repository.TagRepository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 首页笔记列表ViewModel
+ * 保存列表适配器、滚动位置和最后一次渲染的数据，页面恢复时无需重建列表
+ */
+public class NoteListViewModel extends AndroidViewModel {
+    private final NoteRepository repository;
+    private final NotebookRepository notebookRepository;
+    private final TagRepository tagRepository;
+    private static final String PREFS_NAME = "note_list";
+    private static final String KEY_MANUAL_ORDER = "manual_order";
+
+    private final SharedPreferences prefs;
+    private final MutableLiveData<Filter> filter;
+    private LiveData<List<Note>> notes;
+    private LiveData<List<Note>> favoriteNotes;
+    private int userId = -1;
+    private int favoriteUserId = -1;
+
+    private NoteAdapter adapter;
+    private NoteAdapter favoriteAdapter;
+    private SectionHeaderAdapter favoritesHeader;
+    private SectionHeaderAdapter otherNotesHeader;
+    private ConcatAdapter concatAdapter;
+    private Parcelable layoutState;
+    private List<Note> lastRenderedNotes;
+
+    public NoteListViewModel(@NonNull Application application) {
+        super(application);
+        repository = NoteRepository.getInstance(application);
+        notebookRepository = NotebookRepository.getInstance(application);
+        tagRepository = TagRepository.getInstance(application);
+        prefs = application.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        filter = new MutableLiveData<>(new Filter("", null, null, prefs.getBoolean(KEY_MANUAL_ORDER, false)));
+    }
+
+    /**
+     * 获取笔记列表数据流，搜索关键字、当前笔记本或标签变化时自动切换查询
+     * 有关键字时搜索全部笔记；否则选中笔记本时显示它及所有子笔记本下的笔记，选中标签时显示带该标签的笔记；
+     * 都没有时只显示未收藏的笔记，收藏的笔记由 {@link #getFavoriteNotes(int)} 显示在单独的分区中，
+     * 两个分区按更新时间或手动排序显示
+     * @param userId 用户ID
+     */
+    public LiveData<List<Note>> getNotes(int userId) {
+        if (notes == null || this.userId != userId) {
+            this.userId = userId;
+            notes = Transformations.switchMap(filter, f -> {
+                if (!f.query.isEmpty()) {
+                    return repository.searchNotes(userId, f.query);
+                }
+                if (f.notebookId != null) {
+                    return repository.getNotesInNotebook(f.notebookId);
+                }
+                return f.tagId != null
+                    ? repository.getNotesByTag(f.tagId)
+                    : getSection(userId, false, f.manualOrder);
+            });
+        }
+        return notes;
+    }
+
+    /**
+     * 获取首页顶部收藏分区的笔记，搜索、浏览笔记本或按标签筛选时不分区，返回空列表
+     * @param userId 用户ID
+     */
+    public LiveData<List<Note>> getFavoriteNotes(int userId) {
+        if (favoriteNotes == null || favoriteUserId != userId) {
+            favoriteUserId = userId;
+            favoriteNotes = Transformations.switchMap(filter, f -> f.isUnfiltered()
+                ? getSection(userId, true, f.manualOrder)
+                : new MutableLiveData<>(Collections.emptyList()));
+        }
+        return favoriteNotes;
+    }
+
+    private LiveData<List<Note>> getSection(int userId, boolean favorite, boolean manualOrder) {
+        return manualOrder
+            ? repository.getNotesByFavoriteOrdered(userId, favorite)
+            : repository.getNotesByFavorite(userId, favorite);
+    }
+
+    public boolean isManualOrder() {
+        return filter.getValue().manualOrder;
+    }
+
+    /**
+     * 切换按更新时间排序和手动排序，设置会被保存
+     */
+    public void setManualOrder(boolean manualOrder) {
+        Filter current = filter.getValue();
+        if (current.manualOrder != manualOrder) {
+            prefs.edit().putBoolean(KEY_MANUAL_ORDER, manualOrder).apply();
+            filter.setValue(new Filter(current.query, current.notebookId, current.tagId, manualOrder));
+        }
+    }
+
+    /**
+     * 当前列表是否可以拖动排序：手动排序模式下，未搜索且未选中笔记本或标签时
+     */
+    public boolean canReorder() {
+        Filter current = filter.getValue();
+        return current.manualOrder && current.isUnfiltered();
+    }
+
+    /**
+     * 把笔记移动到两条笔记之间
+     * @param beforeId 移动后排在它前面的笔记，为null表示最前面
+     * @param afterId 移动后排在它后面的笔记，为null表示最后面
+     */
+    public void moveNote(Note note, Long beforeId, Long afterId) {
+        repository.moveNote(note.getId(), beforeId, afterId);
+    }
+
+    public LiveData<List<Notebook>> getNotebooks(int userId) {
+        return notebookRepository.getNotebooks(userId);
+    }
+
+    /**
+     * 当前选中的笔记本，为null表示全部笔记
+     */
+    public Long getNotebookId() {
+        return filter.getValue().notebookId;
+    }
+
+    /**
+     * 切换当前笔记本，与标签筛选互斥，未变化时不重新查询
+     * @param notebookId 笔记本ID，为null表示全部笔记
+     */
+    public void setNotebookId(Long notebookId) {
+        Filter current = filter.getValue();
+        if (!Objects.equals(current.notebookId, notebookId) || current.tagId != null) {
+            filter.setValue(new Filter(current.query, notebookId, null, current.manualOrder));
+        }
+    }
+
+    public LiveData<List<Tag>> getTags(int userId) {
+        return tagRepository.getTags(userId);
+    }
+
+    /**
+     * 当前筛选的标签，为null表示不按标签筛选
+     */
+    public Long getTagId() {
+        return filter.getValue().tagId;
+    }
+
+    /**
+     * 按标签筛选，与笔记本互斥，选中标签时回到全部笔记
+     * @param tagId 标签ID，为null表示不按标签筛选
+     */
+    public void setTagId(Long tagId) {
+        Filter current = filter.getValue();
+        if (!Objects.equals(current.tagId, tagId)) {
+            filter.setValue(new Filter(current.query, tagId != null ? null : current.notebookId, tagId,
+                current.manualOrder));
+        }
+    }
+
+    public void createNotebook(int userId, Long parentId, String name) {
+        notebookRepository.createNotebook(userId, parentId, name);
+    }
+
+    public void moveNotebook(long notebookId, Long newParentId, NotebookRepository.UpdateCallback callback) {
+        notebookRepository.moveNotebook(notebookId, newParentId, callback);
+    }
+
+    public void deleteNotebook(long notebookId) {
+        notebookRepository.deleteNotebook(notebookId);
+    }
+
+    /**
+     * 设置搜索关键字，关键字未变化时不重新查询
+     * @param newQuery 搜索关键字
+     * @return 关键字是否发生变化
+     */
+    public boolean setQuery(String newQuery) {
+        Filter current = filter.getValue();
+        String q = newQuery != null ? newQuery : "";
+        if (!current.query.equals(q)) {
+            filter.setValue(new Filter(q, current.notebookId, current.tagId, current.manualOrder));
+            return true;
+        }
+        return false;
+    }
+
+    public NoteAdapter getAdapter() {
+        if (adapter == null) {
+            adapter = new NoteAdapter();
+        }
+        return adapter;
+    }
+
+    public NoteAdapter getFavoriteAdapter() {
+        if (favoriteAdapter == null) {
+            favoriteAdapter = new NoteAdapter();
+        }
+        return favoriteAdapter;
+    }
+
+    public SectionHeaderAdapter getFavoritesHeader() {
+        if (favoritesHeader == null) {
+            favoritesHeader = new SectionHeaderAdapter(R.string.favorites_section);
+        }
+        return favoritesHeader;
+    }
+
+    public SectionHeaderAdapter getOtherNotesHeader() {
+        if (otherNotesHeader == null) {
+            otherNotesHeader = new SectionHeaderAdapter(R.string.other_notes_section);
+        }
+        return otherNotesHeader;
+    }
+
+    /**
+     * 获取整个首页列表的适配器：收藏分区标题、收藏笔记、其他笔记分区标题、其他笔记
+     * 与各分区适配器一起保存在ViewModel中，页面重建时复用，不重复注册分区适配器的数据观察者
+     */
+    public ConcatAdapter getConcatAdapter() {
+        if (concatAdapter == null) {
+            concatAdapter = new ConcatAdapter(getFavoritesHeader(), getFavoriteAdapter(),
+                getOtherNotesHeader(), getAdapter());
+        }
+        return concatAdapter;
+    }
+
+    public Parcelable getLayoutState() {
+        return layoutState;
+    }
+
+    public void setLayoutState(Parcelable layoutState) {
+        this.layoutState = layoutState;
+    }
+
+    /**
+     * 判断列表数据是否与上次渲染的相同
+     */
+    public boolean isSameAsRendered(List<Note> notes) {
+        return notes == lastRenderedNotes;
+    }
+
+    public void setLastRenderedNotes(List<Note> notes) {
+        this.lastRenderedNotes = notes;
+    }
+
+    public void delete(Note note) {
+        repository.delete(note);
+    }
+
+    /**
+     * 列表查询条件，整体替换以便一次修改只触发一次查询
+     */
+    private static final class Filter {
+        final String query;
+        final Long notebookId;
+        final Long tagId;
+        final boolean manualOrder;
+
+        Filter(String query, Long notebookId, Long tagId, boolean manualOrder) {
+            this.query = query;
+            this.notebookId = notebookId;
+            this.tagId = tagId;
+            this.manualOrder = manualOrder;
+        }
+
+        /**
+         * 未搜索、未选中笔记本和标签，显示分区的首页
+         */
+        boolean isUnfiltered() {
+            return query.isEmpty() && notebookId == null && tagId == null;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.notepad.ui.note;
+
+import android.text.method.LinkMovementMethod;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.notepad.databinding.ItemNoteHeaderBinding;
+import com.example.notepad.databinding.ItemNoteParagraphBinding;
+import com.example.notepad.databinding.ItemNoteSectionBinding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * 长笔记内容适配器
+ * 依次显示标题和时间、按段落切分的内容以及附件标题（附件列表由ConcatAdapter接在后面）。
+ * 段落的预计算排版（PrecomputedTextCompat）在后台线程中进行，绑定时只设置Future，
+ * RecyclerView预取时通常已经计算完成，测量时不会阻塞主线程
+ */
+public class NoteParagraphAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+    private static final int TYPE_HEADER = 0;
+    private static final int TYPE_PARAGRAPH = 1;
+    private static final int TYPE_SECTION = 2;
+
+    private final Executor precomputeExecutor;
+    private final List<CharSequence> paragraphs = new ArrayList<>();
+    private CharSequence title;
+    private CharSequence date;
+    private boolean showAttachmentsTitle;
+
+    // 所有段落的文本样式相同，第一次绑定时从视图中读取
+    private PrecomputedTextCompat.Params textParams;
+
+    public NoteParagraphAdapter(Executor precomputeExecutor) {
+        this.precomputeExecutor = precomputeExecutor;
+    }
+
+    public void setHeader(CharSequence title, CharSequence date) {
+        this.title = title;
+        this.date = date;
+        notifyItemChanged(0);
+    }
+
+    /**
+     * 设置段落，段落中的链接应已在后台线程中识别
+     */
+    public void setParagraphs(List<CharSequence> newParagraphs) {
+        int oldCount = paragraphs.size();
+        paragraphs.clear();
+        notifyItemRangeRemoved(1, oldCount);
+        paragraphs.addAll(newParagraphs);
+        notifyItemRangeInserted(1, paragraphs.size());
+    }
+
+    public void setShowAttachmentsTitle(boolean show) {
+        if (showAttachmentsTitle == show) {
+            return;
+        }
+        showAttachmentsTitle = show;
+        int position = 1 + paragraphs.size();
+        if (show) {
+            notifyItemInserted(position);
+        } else {
+            notifyItemRemoved(position);
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return 1 + paragraphs.size() + (showAttachmentsTitle ? 1 : 0);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        if (position == 0) {
+            return TYPE_HEADER;
+        }
+        return position <= paragraphs.size() ? TYPE_PARAGRAPH : TYPE_SECTION;
+    }
+
+    @NonNull
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+        switch (viewType) {
+            case TYPE_HEADER:
+                return new HeaderViewHolder(ItemNoteHeaderBinding.inflate(inflater, parent, false));
+            case TYPE_PARAGRAPH:
+                ItemNoteParagraphBinding binding = ItemNoteParagraphBinding.inflate(inflater, parent, false);
+                binding.textParagraph.setMovementMethod(LinkMovementMethod.getInstance());
+                return new ParagraphViewHolder(binding);
+            default:
+                return new SimpleViewHolder(ItemNoteSectionBinding.inflate(inflater, parent, false).getRoot());
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        if (holder instanceof HeaderViewHolder) {
+            ItemNoteHeaderBinding binding = ((HeaderViewHolder) holder).binding;
+            binding.textNoteTitle.setText(title);
+            binding.textNoteDate.setText(date);
+        } else if (holder instanceof ParagraphViewHolder) {
+            ItemNoteParagraphBinding binding = ((ParagraphViewHolder) holder).binding;
+            if (textParams == null) {
+                textParams = TextViewCompat.getTextMetricsParams(binding.textParagraph);
+            }
+            binding.textParagraph.setTextFuture(PrecomputedTextCompat.getTextFuture(
+                paragraphs.get(position - 1), textParams, precomputeExecutor));
+        }
+    }
+
+    static class HeaderViewHolder extends RecyclerView.ViewHolder {
+        final ItemNoteHeaderBinding binding;
+
+        HeaderViewHolder(ItemNoteHeaderBinding binding) {
+            super(binding.getRoot());
+            this.binding = binding;
+        }
+    }
+
+    static class ParagraphViewHolder extends RecyclerView.ViewHolder {
+        final ItemNoteParagraphBinding binding;
+
+        ParagraphViewHolder(ItemNoteParagraphBinding binding) {
+            super(binding.getRoot());
+            this.binding = binding;
+        }
+    }
+
+    static class SimpleViewHolder extends RecyclerView.ViewHolder {
+        SimpleViewHolder(View itemView) {
+            super(itemView);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.notepad.ui.note;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.ItemTouchHelper;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.notepad.data.model.Note;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 首页列表的拖动排序
+ * 只能在同一个分区（同一个NoteAdapter）内拖动。拖动过程中只移动适配器的本地列表（notifyItemMoved），
+ * 松手后提交一次列表，并按最终位置的前后两条笔记回调一次，由仓库为被移动的笔记生成新的排序键（只写一行）
+ */
+public class NoteReorderCallback extends ItemTouchHelper.Callback {
+    private final BooleanSupplier enabled;
+    private final OnNoteMovedListener listener;
+
+    // 以下字段只在拖动期间有效
+    private NoteAdapter dragAdapter;
+    private Note dragNote;
+    private int startIndex;
+
+    public NoteReorderCallback(BooleanSupplier enabled, OnNoteMovedListener listener) {
+        this.enabled = enabled;
+        this.listener = listener;
+    }
+
+    public interface OnNoteMovedListener {
+        /**
+         * 松手后笔记位置发生变化时调用
+         * @param note 被移动的笔记
+         * @param beforeId 新位置前面的笔记，为null表示最前面
+         * @param afterId 新位置后面的笔记，为null表示最后面
+         */
+        void onNoteMoved(Note note, Long beforeId, Long afterId);
+    }
+
+    @Override
+    public int getMovementFlags(@NonNull RecyclerView recyclerView, @NonNull RecyclerView.ViewHolder viewHolder) {
+        if (!enabled.getAsBoolean() || !(viewHolder.getBindingAdapter() instanceof NoteAdapter)) {
+            return 0;
+        }
+        return makeMovementFlags(ItemTouchHelper.UP | ItemTouchHelper.DOWN, 0);
+    }
+
+    @Override
+    public boolean canDropOver(@NonNull RecyclerView recyclerView, @NonNull RecyclerView.ViewHolder current,
+                               @NonNull RecyclerView.ViewHolder target) {
+        return target.getBindingAdapter() == current.getBindingAdapter();
+    }
+
+    @Override
+    public void onSelectedChanged(@Nullable RecyclerView.ViewHolder viewHolder, int actionState) {
+        super.onSelectedChanged(viewHolder, actionState);
+        if (actionState == ItemTouchHelper.ACTION_STATE_DRAG && viewHolder != null) {
+            dragAdapter = (NoteAdapter) viewHolder.getBindingAdapter();
+            int position = viewHolder.getBindingAdapterPosition();
+            if (dragAdapter == null || position == RecyclerView.NO_POSITION) {
+                dragAdapter = null;
+                return;
+            }
+            dragAdapter.startDrag();
+            dragNote = dragAdapter.getItem(position);
+            startIndex = position;
+        }
+    }
+
+    @Override
+    public boolean onMove(@NonNull RecyclerView recyclerView, @NonNull RecyclerView.ViewHolder viewHolder,
+                          @NonNull RecyclerView.ViewHolder target) {
+        if (dragAdapter == null || target.getBindingAdapter() != dragAdapter) {
+            return false;
+        }
+        // 拖动期间适配器显示本地列表并同步通知移动，位置总是与显示的一致
+        int from = viewHolder.getBindingAdapterPosition();
+        int to = target.getBindingAdapterPosition();
+        if (from == RecyclerView.NO_POSITION || to == RecyclerView.NO_POSITION || from == to) {
+            return false;
+        }
+        dragAdapter.moveItem(from, to);
+        return true;
+    }
+
+    @Override
+    public void clearView(@NonNull RecyclerView recyclerView, @NonNull RecyclerView.ViewHolder viewHolder) {
+        super.clearView(recyclerView, viewHolder);
+        if (dragAdapter == null) {
+            return;
+        }
+        List<Note> moved = dragAdapter.finishDrag();
+        int index = indexOf(moved, dragNote.getId());
+        if (index >= 0 && index != startIndex) {
+            Long beforeId = index > 0 ? moved.get(index - 1).getId() : null;
+            Long afterId = index < moved.size() - 1 ? moved.get(index + 1).getId() : null;
+            listener.onNoteMoved(dragNote, beforeId, afterId);
+        }
+        dragAdapter = null;
+        dragNote = null;
+    }
+
+    @Override
+    public void onSwiped(@NonNull RecyclerView.ViewHolder viewHolder, int direction) {
+        // 不支持滑动
+    }
+
+    private static int indexOf(List<Note> notes, long noteId) {
+        for (int i = 0; i < notes.size(); i++) {
+            if (notes.get(i).getId() == noteId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
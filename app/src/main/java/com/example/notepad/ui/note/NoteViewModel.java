@@ -9,10 +9,15 @@ import androidx.paging.PagingData;
 
 import com.example.notepad.data.model.Note;
 import com.example.notepad.data.model.Attachment;
+import com.example.notepad.data.model.NoteRevisionInfo;
 import com.example.notepad.data.model.NoteWithAttachments;
+import com.example.notepad.data.model.Tag;
 import com.example.notepad.data.repository.NoteRepository;
+import com.example.notepad.data.repository.NoteRevisionRepository;
+import com.example.notepad.data.repository.TagRepository;
 import com.example.notepad.data.callback.InsertCallback;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -21,10 +26,14 @@ import java.util.List;
  */
 public class NoteViewModel extends AndroidViewModel {
     private final NoteRepository repository;
+    private final NoteRevisionRepository revisionRepository;
+    private final TagRepository tagRepository;
     
     public NoteViewModel(@NonNull Application application) {
         super(application);
-        repository = new NoteRepository(application);
+        repository = NoteRepository.getInstance(application);
+        revisionRepository = NoteRevisionRepository.getInstance(application);
+        tagRepository = TagRepository.getInstance(application);
     }
     
     public void insert(Note note) {
@@ -57,6 +66,32 @@ public class NoteViewModel extends AndroidViewModel {
         return repository.getAllNotesByUser(userId);
     }
     
+    public LiveData<PagingData<Note>> getNotesByTagPaged(long tagId) {
+        return repository.getNotesByTagPaged(tagId);
+    }
+    
+    /**
+     * 分页获取笔记本及其所有子笔记本下的笔记
+     */
+    public LiveData<PagingData<Note>> getNotesInNotebookPaged(long notebookId) {
+        return repository.getNotesInNotebookPaged(notebookId);
+    }
+    
+    /**
+     * 获取用户的所有标签，笔记数由数据库维护，不需要重新统计
+     */
+    public LiveData<List<Tag>> getTags(int userId) {
+        return tagRepository.getTags(userId);
+    }
+    
+    public LiveData<List<Tag>> getTagsForNote(long noteId) {
+        return tagRepository.getTagsForNote(noteId);
+    }
+    
+    public void setNoteTags(int userId, long noteId, Collection<String> names) {
+        tagRepository.setNoteTags(userId, noteId, names);
+    }
+    
     public LiveData<PagingData<Note>> searchNotesPaged(int userId, String query) {
         return repository.searchNotesPaged(userId, query);
     }
@@ -73,6 +108,20 @@ public class NoteViewModel extends AndroidViewModel {
         return repository.getNoteWithAttachments(noteId);
     }
     
+    /**
+     * 获取笔记的历史版本列表，按版本号倒序
+     */
+    public LiveData<List<NoteRevisionInfo>> getRevisions(long noteId) {
+        return revisionRepository.getRevisions(noteId);
+    }
+    
+    /**
+     * 异步还原笔记的某个历史版本
+     */
+    public void loadRevision(long noteId, int revision, NoteRevisionRepository.RevisionCallback callback) {
+        revisionRepository.loadRevision(noteId, revision, callback);
+    }
+    
     /**
      * 删除附件
      * @param attachment 要删除的附件
@@ -0,0 +1,70 @@
+package com.example.notepad.ui.note;
+
+import com.example.notepad.data.model.Notebook;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 展开后的笔记本及其层级深度，用于在对话框中按层级显示笔记本
+ */
+public final class NotebookEntry {
+    public final Notebook notebook;
+    public final int depth;
+
+    private NotebookEntry(Notebook notebook, int depth) {
+        this.notebook = notebook;
+        this.depth = depth;
+    }
+
+    /**
+     * 按层级缩进的名称
+     */
+    public String indentedName() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            builder.append("    ");
+        }
+        return builder.append(notebook.getName()).toString();
+    }
+
+    /**
+     * 把笔记本按层级展开为深度优先的顺序，同级按名称排序（查询结果已按名称排序）
+     */
+    public static List<NotebookEntry> flatten(List<Notebook> notebooks) {
+        List<NotebookEntry> result = new ArrayList<>();
+        if (notebooks == null) {
+            return result;
+        }
+        Map<Long, Notebook> byId = new HashMap<>();
+        for (Notebook notebook : notebooks) {
+            byId.put(notebook.getId(), notebook);
+        }
+        Map<Long, List<Notebook>> children = new HashMap<>();
+        List<Notebook> roots = new ArrayList<>();
+        for (Notebook notebook : notebooks) {
+            Long parentId = notebook.getParentId();
+            if (parentId == null || !byId.containsKey(parentId)) {
+                roots.add(notebook);
+            } else {
+                children.computeIfAbsent(parentId, k -> new ArrayList<>()).add(notebook);
+            }
+        }
+        for (Notebook root : roots) {
+            append(result, children, root, 0);
+        }
+        return result;
+    }
+
+    private static void append(List<NotebookEntry> out, Map<Long, List<Notebook>> children,
+                               Notebook notebook, int depth) {
+        out.add(new NotebookEntry(notebook, depth));
+        List<Notebook> list = children.get(notebook.getId());
+        for (Notebook child : list != null ? list : Collections.<Notebook>emptyList()) {
+            append(out, children, child, depth + 1);
+        }
+    }
+}
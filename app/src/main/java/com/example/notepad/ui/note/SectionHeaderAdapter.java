@@ -0,0 +1,62 @@
+package com.example.notepad.ui.note;
+
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.StringRes;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.notepad.databinding.ItemNoteSectionBinding;
+
+/**
+ * 列表分区标题，最多一个条目，与其他适配器一起放入ConcatAdapter
+ */
+public class SectionHeaderAdapter extends RecyclerView.Adapter<SectionHeaderAdapter.HeaderViewHolder> {
+    @StringRes
+    private final int titleRes;
+    private boolean visible;
+
+    public SectionHeaderAdapter(@StringRes int titleRes) {
+        this.titleRes = titleRes;
+    }
+
+    public void setVisible(boolean visible) {
+        if (this.visible == visible) {
+            return;
+        }
+        this.visible = visible;
+        if (visible) {
+            notifyItemInserted(0);
+        } else {
+            notifyItemRemoved(0);
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return visible ? 1 : 0;
+    }
+
+    @NonNull
+    @Override
+    public HeaderViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+        return new HeaderViewHolder(ItemNoteSectionBinding.inflate(inflater, parent, false).getRoot());
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull HeaderViewHolder holder, int position) {
+        holder.title.setText(titleRes);
+    }
+
+    static class HeaderViewHolder extends RecyclerView.ViewHolder {
+        final TextView title;
+
+        HeaderViewHolder(TextView title) {
+            super(title);
+            this.title = title;
+        }
+    }
+}
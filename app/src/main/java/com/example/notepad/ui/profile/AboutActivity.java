@@ -1,5 +1,6 @@
 package com.example.notepad.ui.profile;
 
+import android.content.Intent;
 import android.os.Bundle;
 import android.content.pm.PackageManager;
 import android.content.pm.PackageInfo;
@@ -24,6 +25,11 @@ public class AboutActivity extends BaseActivity {
 
     private void setupViews() {
         binding.buttonBack.setOnClickListener(v -> finish());
+        // 长按版本号进入隐藏的性能指标页面
+        binding.textVersion.setOnLongClickListener(v -> {
+            startActivity(new Intent(this, MetricsActivity.class));
+            return true;
+        });
     }
 
     private void loadAppInfo() {
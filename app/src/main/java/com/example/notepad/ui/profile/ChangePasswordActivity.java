@@ -15,6 +15,7 @@ import com.example.notepad.R;
 import com.example.notepad.databinding.ActivityChangePasswordBinding;
 import com.example.notepad.data.model.User;
 import com.example.notepad.ui.auth.UserViewModel;
+import com.example.notepad.utils.AppExecutors;
 import com.example.notepad.utils.SessionManager;
 import com.example.notepad.utils.PasswordUtils;
 import com.google.android.material.textfield.TextInputLayout;
@@ -109,12 +110,21 @@ public class ChangePasswordActivity extends AppCompatActivity {
             // 显示加载状态
             showLoading(true);
             
-            // 在工作线程中验证密码
-            new Thread(() -> {
+            // 在计算线程中查询用户并验证密码，页面销毁时自动取消
+            AppExecutors appExecutors = AppExecutors.getInstance();
+            appExecutors.executeFor(this, appExecutors.cpu(), () -> {
                 try {
                     // 从数据库获取最新的用户信息
                     User dbUser = userViewModel.getUserByUsername(currentUser.getUsername());
                     
+                    // 检查数据库中的密码是否为空，为空时直接允许设置新密码
+                    String storedPassword = dbUser != null ? dbUser.getPassword() : null;
+                    boolean emptyPassword = storedPassword == null || storedPassword.isEmpty();
+                    
+                    // 密码哈希计算耗时较长，不能在UI线程中执行
+                    boolean verified = dbUser != null
+                        && (emptyPassword || PasswordUtils.verifyPassword(currentPassword, storedPassword));
+                    
                     // 切回UI线程处理结果
                     runOnUiThread(() -> {
                         if (dbUser == null) {
@@ -125,46 +135,28 @@ public class ChangePasswordActivity extends AppCompatActivity {
                             return;
                         }
 
-                        // 检查数据库中的密码是否为空
-                        String storedPassword = dbUser.getPassword();
-                        if (storedPassword == null || storedPassword.isEmpty()) {
+                        if (emptyPassword) {
                             Log.w(TAG, "数据库中的密码为空，允许直接设置新密码");
-                            
-                            // 如果数据库中的密码为空，直接允许设置新密码
-                            updatePassword(newPassword);
+                        } else if (!verified) {
+                            showLoading(false);
+                            Log.e(TAG, "当前密码验证失败");
+                            binding.layoutCurrentPassword.setError(getString(R.string.password_incorrect));
                             return;
-                        }
-
-                        try {
-                            Log.d(TAG, "验证当前密码...");
-                            Log.d(TAG, "存储的密码哈希: " + storedPassword);
-                            
-                            // 使用PasswordUtils验证当前密码
-                            if (!PasswordUtils.verifyPassword(currentPassword, storedPassword)) {
-                                showLoading(false);
-                                Log.e(TAG, "当前密码验证失败");
-                                binding.layoutCurrentPassword.setError(getString(R.string.password_incorrect));
-                                return;
-                            }
-                            
+                        } else {
                             Log.d(TAG, "当前密码验证成功，开始更新密码");
-                            
-                            // 更新密码
-                            updatePassword(newPassword);
-                        } catch (Exception e) {
-                            showLoading(false);
-                            Log.e(TAG, "密码验证失败: " + e.getMessage(), e);
-                            Toast.makeText(this, R.string.error_updating_profile, Toast.LENGTH_SHORT).show();
                         }
+                        
+                        // 更新密码
+                        updatePassword(newPassword);
                     });
                 } catch (Exception e) {
                     runOnUiThread(() -> {
                         showLoading(false);
-                        Log.e(TAG, "获取用户信息失败: " + e.getMessage(), e);
+                        Log.e(TAG, "密码验证失败: " + e.getMessage(), e);
                         Toast.makeText(this, R.string.error_updating_profile, Toast.LENGTH_SHORT).show();
                     });
                 }
-            }).start();
+            });
         } else {
             Log.e(TAG, "当前用户为空或用户名为空");
             Toast.makeText(this, R.string.error_user_not_found, Toast.LENGTH_SHORT).show();
@@ -182,8 +174,8 @@ public class ChangePasswordActivity extends AppCompatActivity {
             Log.d(TAG, "开始更新密码，用户名: " + currentUser.getUsername());
             final String username = currentUser.getUsername();
             
-            // 在工作线程中执行密码更新
-            new Thread(() -> {
+            // 在工作线程中执行密码更新，写入操作不随页面销毁取消
+            AppExecutors.getInstance().io().execute(() -> {
                 try {
                     // 使用专门的密码更新方法
                     boolean success = userViewModel.getRepository().updatePassword(username, newPassword);
@@ -229,7 +221,7 @@ public class ChangePasswordActivity extends AppCompatActivity {
                         Toast.makeText(this, R.string.error_updating_profile, Toast.LENGTH_SHORT).show();
                     });
                 }
-            }).start();
+            });
         }
     }
     
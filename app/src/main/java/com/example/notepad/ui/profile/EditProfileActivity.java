@@ -25,12 +25,15 @@ import com.bumptech.glide.request.RequestListener;
 import com.bumptech.glide.request.target.Target;
 import com.bumptech.glide.load.DecodeFormat;
 import com.bumptech.glide.Priority;
+import com.bumptech.glide.signature.ObjectKey;
 import com.example.notepad.R;
 import com.example.notepad.databinding.ActivityEditProfileBinding;
 import com.example.notepad.data.model.User;
+import com.example.notepad.utils.AvatarUtils;
 import com.example.notepad.utils.PermissionUtils;
 import com.example.notepad.utils.SessionManager;
 import com.example.notepad.utils.MediaUtils;
+import com.example.notepad.utils.MetricsRequestListener;
 import com.example.notepad.utils.FileUtils;
 
 import android.graphics.drawable.Drawable;
@@ -38,9 +41,6 @@ import android.view.View;
 import android.widget.ImageView;
 import java.io.File;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
 
 public class EditProfileActivity extends AppCompatActivity {
     private static final String TAG = "EditProfileActivity";
@@ -109,11 +109,14 @@ public class EditProfileActivity extends AppCompatActivity {
                                 
                                 // 对FileProvider URI不尝试获取持久化权限，直接使用
                                 // 更新头像预览
+                                // 预览文件名固定，用修改时间作为签名避免命中上一次选择的缓存
                                 Glide.with(this)
                                     .load(internalUri)
                                     .apply(getGlideRequestOptions())
+                                    .signature(new ObjectKey(currentImageFile.lastModified()))
                                     .transition(DrawableTransitionOptions.withCrossFade())
                                     .listener(createGlideListener())
+                                    .addListener(new MetricsRequestListener<>("glide.avatar"))
                                     .into(binding.imageAvatar);
                                 
                                 // 保存头像URI到ViewModel
@@ -135,18 +138,14 @@ public class EditProfileActivity extends AppCompatActivity {
     }
 
     private File createImageFile() throws IOException {
-        // 创建图片文件名
-        String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
-        String imageFileName = "AVATAR_" + timeStamp + "_";
-        
-        // 创建应用内部私有文件目录
-        File storageDir = new File(getFilesDir(), "avatars");
+        // 预览用的临时副本放在缓存目录，保存时由头像处理流程生成正式的压缩头像
+        File storageDir = new File(getCacheDir(), "avatar_pick");
         if (!storageDir.exists()) {
             storageDir.mkdirs();
         }
         
-        // 创建图片文件
-        return new File(storageDir, imageFileName + ".jpg");
+        // 每次选择覆盖同一个文件，避免遗留多份原图
+        return new File(storageDir, "avatar_pick.jpg");
     }
 
     private void loadImage(Uri uri) {
@@ -173,6 +172,7 @@ public class EditProfileActivity extends AppCompatActivity {
                 .apply(options)
                 .transition(DrawableTransitionOptions.withCrossFade())
                 .listener(createGlideListener())
+                .addListener(new MetricsRequestListener<>("glide.avatar"))
                 .into(binding.imageAvatar);
                 
         } catch (Exception e) {
@@ -283,12 +283,15 @@ public class EditProfileActivity extends AppCompatActivity {
                     Log.d(TAG, "内部URI无需获取持久化权限");
                 }
                 
-                // 使用统一的Glide加载图片
+                // 使用统一的Glide加载图片，头像版本号作为缓存签名
+                File avatarFile = AvatarUtils.getLocalAvatarFile(currentUser.getAvatarUrl());
                 Glide.with(this)
-                    .load(avatarUri)
+                    .load(avatarFile != null ? avatarFile : avatarUri)
                     .apply(getGlideRequestOptions())
+                    .signature(AvatarUtils.getSignature(currentUser))
                     .transition(DrawableTransitionOptions.withCrossFade())
                     .listener(createGlideListener())
+                    .addListener(new MetricsRequestListener<>("glide.avatar"))
                     .into(binding.imageAvatar);
             } else {
                 binding.imageAvatar.setImageResource(R.drawable.ic_person);
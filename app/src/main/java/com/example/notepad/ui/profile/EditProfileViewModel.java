@@ -10,11 +10,10 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.example.notepad.data.repository.UserRepository;
 import com.example.notepad.data.model.User;
+import com.example.notepad.utils.AvatarUtils;
 import com.example.notepad.utils.SessionManager;
 import com.example.notepad.utils.UriConverter;
 
-import java.util.UUID;
-
 public class EditProfileViewModel extends AndroidViewModel {
 
     private final UserRepository userRepository;
@@ -26,7 +25,7 @@ public class EditProfileViewModel extends AndroidViewModel {
     public EditProfileViewModel(@NonNull Application application) {
         super(application);
         this.application = application;
-        userRepository = new UserRepository(application);
+        userRepository = UserRepository.getInstance(application);
         sessionManager = new SessionManager(application);
     }
 
@@ -49,38 +48,33 @@ public class EditProfileViewModel extends AndroidViewModel {
         currentUser.setEmail(email);
         currentUser.setFullName(fullName);
 
-        // 如果选择了新头像，先上传头像
+        // 如果选择了新头像，先处理头像（缩放压缩后保存到内部存储），再与其他信息一起写入数据库
         if (selectedImageUri != null) {
-            // 尝试复制图片到内部存储以确保持久性访问
-            Uri internalUri = UriConverter.copyUriToInternalStorage(
-                application,
-                selectedImageUri,
-                "avatar_" + UUID.randomUUID().toString() + ".jpg"
-            );
-            
-            // 如果内部复制成功，使用内部URI；否则使用原始URI
-            final Uri finalUri = internalUri != null ? internalUri : selectedImageUri;
+            final String previousAvatarUrl = currentUser.getAvatarUrl();
             
-            userRepository.uploadAvatar(finalUri, avatarUrl -> {
+            userRepository.uploadAvatar(selectedImageUri, currentUser, avatarUrl -> {
                 if (avatarUrl != null) {
-                    currentUser.setAvatarUrl(avatarUrl);
-                    updateUserData(currentUser);
-                } else {
-                    updateResult.postValue(false);
+                    onUserUpdated(currentUser, previousAvatarUrl);
                 }
+                updateResult.postValue(avatarUrl != null);
             });
         } else {
-            updateUserData(currentUser);
+            userRepository.updateUser(currentUser, success -> {
+                if (success) {
+                    onUserUpdated(currentUser, null);
+                }
+                updateResult.postValue(success);
+            });
         }
     }
 
-    private void updateUserData(User user) {
-        userRepository.updateUser(user, success -> {
-            if (success) {
-                sessionManager.saveUser(user);
-            }
-            updateResult.postValue(success);
-        });
+    private void onUserUpdated(User user, String previousAvatarUrl) {
+        sessionManager.saveUser(user);
+        // 头像更新成功后删除被替换的旧头像文件
+        if (previousAvatarUrl != null && !previousAvatarUrl.equals(user.getAvatarUrl())) {
+            AvatarUtils.deleteSupersededAvatars(application, user.getId(),
+                AvatarUtils.getLocalAvatarFile(user.getAvatarUrl()), previousAvatarUrl);
+        }
     }
 
     public LiveData<Boolean> getUpdateResult() {
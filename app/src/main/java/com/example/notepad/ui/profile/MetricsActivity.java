@@ -0,0 +1,134 @@
+package com.example.notepad.ui.profile;
+
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import android.widget.Toast;
+
+import androidx.core.content.FileProvider;
+
+import com.example.notepad.R;
+import com.example.notepad.data.AppDatabase;
+import com.example.notepad.data.QueryTracer;
+import com.example.notepad.databinding.ActivityMetricsBinding;
+import com.example.notepad.ui.base.BaseActivity;
+import com.example.notepad.utils.AppExecutors;
+import com.example.notepad.utils.MainThreadIoDetector;
+import com.example.notepad.utils.Metrics;
+import com.example.notepad.utils.TraceRecorder;
+
+import java.io.File;
+
+/**
+ * 性能指标调试页面
+ * 从关于页面长按版本号进入，显示当前统计数据，支持清空和导出JSON，
+ * 以及录制Chrome trace-event格式的追踪文件（可用Perfetto或about:tracing打开）
+ */
+public class MetricsActivity extends BaseActivity {
+    private ActivityMetricsBinding binding;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        binding = ActivityMetricsBinding.inflate(getLayoutInflater());
+        setContentView(binding.getRoot());
+
+        setupViews();
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refresh();
+    }
+
+    private void setupViews() {
+        binding.buttonBack.setOnClickListener(v -> finish());
+
+        binding.switchEnabled.setChecked(Metrics.isEnabled());
+        binding.switchEnabled.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            Metrics.setEnabled(isChecked);
+            refresh();
+        });
+
+        binding.buttonRefresh.setOnClickListener(v -> refresh());
+        binding.buttonReset.setOnClickListener(v -> {
+            Metrics.reset();
+            MainThreadIoDetector detector = MainThreadIoDetector.get();
+            if (detector != null) {
+                detector.reset();
+            }
+            refresh();
+        });
+        binding.buttonExport.setOnClickListener(v -> exportJson());
+
+        updateTraceButton();
+        binding.buttonTrace.setOnClickListener(v -> toggleTraceRecording());
+    }
+
+    private void toggleTraceRecording() {
+        if (!TraceRecorder.isRecording()) {
+            TraceRecorder.startRecording();
+            updateTraceButton();
+            return;
+        }
+
+        binding.buttonTrace.setEnabled(false);
+        File directory = new File(getFilesDir(), "traces");
+        AppExecutors.getInstance().executeFor(this, AppExecutors.getInstance().io(), () -> {
+            File traceFile = TraceRecorder.stopRecording(directory);
+            runOnUiThread(() -> {
+                if (binding == null) {
+                    return;
+                }
+                binding.buttonTrace.setEnabled(true);
+                updateTraceButton();
+                if (traceFile != null) {
+                    shareTrace(traceFile);
+                } else {
+                    Toast.makeText(this, R.string.trace_empty, Toast.LENGTH_SHORT).show();
+                }
+            });
+        });
+    }
+
+    private void updateTraceButton() {
+        binding.buttonTrace.setText(TraceRecorder.isRecording() ? R.string.trace_stop : R.string.trace_start);
+    }
+
+    private void shareTrace(File traceFile) {
+        Uri uri = FileProvider.getUriForFile(this, getPackageName() + ".fileprovider", traceFile);
+        Intent shareIntent = new Intent(Intent.ACTION_SEND);
+        shareIntent.setType("application/json");
+        shareIntent.putExtra(Intent.EXTRA_STREAM, uri);
+        shareIntent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        startActivity(Intent.createChooser(shareIntent, getString(R.string.trace_stop)));
+    }
+
+    private void refresh() {
+        String text = Metrics.dump();
+        QueryTracer queryTracer = AppDatabase.getQueryTracer();
+        if (queryTracer != null) {
+            text += "\n" + queryTracer.dumpSlowQueries();
+        }
+        MainThreadIoDetector detector = MainThreadIoDetector.get();
+        if (detector != null) {
+            text += "\n" + detector.dump();
+        }
+        binding.textMetrics.setText(text);
+    }
+
+    private void exportJson() {
+        Intent shareIntent = new Intent(Intent.ACTION_SEND);
+        shareIntent.setType("application/json");
+        shareIntent.putExtra(Intent.EXTRA_SUBJECT, "QingNote metrics");
+        shareIntent.putExtra(Intent.EXTRA_TEXT, Metrics.toJson());
+        startActivity(Intent.createChooser(shareIntent, getString(R.string.metrics_export)));
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        binding = null;
+    }
+}
@@ -29,11 +29,15 @@ import com.example.notepad.data.model.User;
 import com.example.notepad.ui.auth.LoginActivity;
 import com.example.notepad.ui.auth.UserViewModel;
 import com.example.notepad.ui.base.BaseActivity;
+import com.example.notepad.utils.AvatarUtils;
 import com.example.notepad.utils.LanguageManager;
+import com.example.notepad.utils.MetricsRequestListener;
 import com.example.notepad.utils.SessionManager;
 
 import android.graphics.drawable.Drawable;
 
+import java.io.File;
+
 public class ProfileActivity extends BaseActivity {
     private static final String TAG = "ProfileActivity";
     private ActivityProfileBinding binding;
@@ -108,23 +112,23 @@ public class ProfileActivity extends BaseActivity {
             
             // 加载头像
             if (currentUser.getAvatarUrl() != null && !currentUser.getAvatarUrl().isEmpty()) {
-                loadUserAvatar(currentUser.getAvatarUrl());
+                loadUserAvatar(currentUser);
             } else {
                 binding.imageAvatar.setImageResource(R.drawable.ic_person);
             }
         }
     }
 
-    private void loadUserAvatar(String avatarUrl) {
+    private void loadUserAvatar(User user) {
         try {
-            // 本地文件添加随机参数强制刷新
-            String imageUrl = avatarUrl;
-            if (imageUrl.startsWith("content://") || imageUrl.startsWith("file://")) {
-                imageUrl = imageUrl + "?timestamp=" + System.currentTimeMillis();
-            }
+            // 本地头像直接按文件加载，头像版本号作为缓存签名，未更换头像时直接命中缓存
+            String avatarUrl = user.getAvatarUrl();
+            File avatarFile = AvatarUtils.getLocalAvatarFile(avatarUrl);
+            Object avatarModel = avatarFile != null ? avatarFile : avatarUrl;
 
             RequestOptions options = new RequestOptions()
-                .diskCacheStrategy(DiskCacheStrategy.ALL)  // 缓存所有版本的图片
+                .diskCacheStrategy(DiskCacheStrategy.RESOURCE)  // 本地文件只缓存裁剪后的结果
+                .signature(AvatarUtils.getSignature(user))  // 头像版本变化时缓存失效
                 .priority(Priority.HIGH)  // 高优先级加载
                 .circleCrop()  // 圆形裁剪
                 .placeholder(R.drawable.ic_person)  // 加载占位图
@@ -133,7 +137,7 @@ public class ProfileActivity extends BaseActivity {
                 .override(300, 300);  // 限制图片大小
 
             Glide.with(this)
-                .load(imageUrl)
+                .load(avatarModel)
                 .apply(options)
                 .transition(DrawableTransitionOptions.withCrossFade())  // 淡入淡出动画
                 .listener(new RequestListener<Drawable>() {
@@ -152,6 +156,7 @@ public class ProfileActivity extends BaseActivity {
                         return false;
                     }
                 })
+                .addListener(new MetricsRequestListener<>("glide.avatar"))
                 .into(binding.imageAvatar);
         } catch (Exception e) {
             Log.e(TAG, "加载头像失败: " + e.getMessage());
@@ -0,0 +1,330 @@
+package com.example.notepad.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.example.notepad.data.QueryTracer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 全局线程调度器
+ * 统一管理应用中的后台线程，替代各处临时创建的线程和线程池
+ *
+ * io：数据库读取、文件读写、ContentResolver查询等阻塞操作
+ * cpu：图片解码、密码哈希、文本处理等计算密集型任务
+ * diskWrite：数据库写入，单线程串行执行，保证写入顺序
+ * textLayout：列表绑定时缓存未命中的文本排版，主线程测量时会等待结果，不与cpu中的批量任务排队
+ */
+public class AppExecutors {
+    private static final String TAG = "AppExecutors";
+
+    private static final int CPU_COUNT = Runtime.getRuntime().availableProcessors();
+    private static final int IO_POOL_SIZE = 4;
+    private static final int CPU_POOL_SIZE = Math.max(1, Math.min(CPU_COUNT - 1, 4));
+    private static final int TEXT_LAYOUT_POOL_SIZE = 2;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static volatile AppExecutors instance;
+
+    private final MonitoredExecutor ioExecutor;
+    private final MonitoredExecutor cpuExecutor;
+    private final MonitoredExecutor diskWriteExecutor;
+    private final MonitoredExecutor textLayoutExecutor;
+    private final Executor mainThreadExecutor;
+
+    private AppExecutors() {
+        ioExecutor = new MonitoredExecutor("qingnote-io", IO_POOL_SIZE,
+            Process.THREAD_PRIORITY_BACKGROUND);
+        cpuExecutor = new MonitoredExecutor("qingnote-cpu", CPU_POOL_SIZE,
+            Process.THREAD_PRIORITY_BACKGROUND);
+        // 写入操作会阻塞用户可见的保存流程，优先级略高于普通后台线程
+        diskWriteExecutor = new MonitoredExecutor("qingnote-db-write", 1,
+            Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE);
+        // 主线程的测量会阻塞等待排版结果，使用普通优先级
+        textLayoutExecutor = new MonitoredExecutor("qingnote-text-layout", TEXT_LAYOUT_POOL_SIZE,
+            Process.THREAD_PRIORITY_DEFAULT);
+        mainThreadExecutor = new MainThreadExecutor();
+    }
+
+    public static AppExecutors getInstance() {
+        if (instance == null) {
+            synchronized (AppExecutors.class) {
+                if (instance == null) {
+                    instance = new AppExecutors();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public MonitoredExecutor io() {
+        return ioExecutor;
+    }
+
+    public MonitoredExecutor cpu() {
+        return cpuExecutor;
+    }
+
+    public MonitoredExecutor diskWrite() {
+        return diskWriteExecutor;
+    }
+
+    public MonitoredExecutor textLayout() {
+        return textLayoutExecutor;
+    }
+
+    public Executor mainThread() {
+        return mainThreadExecutor;
+    }
+
+    /**
+     * 在指定线程池中执行任务，并在生命周期销毁时自动取消
+     * 必须在主线程中调用
+     * @param owner 生命周期持有者（Activity等）
+     * @param executor 执行任务的线程池
+     * @param task 任务
+     * @return 任务的Future，可用于提前取消
+     */
+    public Future<?> executeFor(LifecycleOwner owner, MonitoredExecutor executor, Runnable task) {
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            Log.w(TAG, "生命周期已销毁，跳过任务");
+            return null;
+        }
+
+        final Future<?>[] futureHolder = new Future<?>[1];
+        LifecycleEventObserver observer = (source, event) -> {
+            if (event == Lifecycle.Event.ON_DESTROY && futureHolder[0] != null) {
+                if (futureHolder[0].cancel(true)) {
+                    executor.onCancelled();
+                }
+            }
+        };
+        lifecycle.addObserver(observer);
+
+        futureHolder[0] = executor.submit(() -> {
+            try {
+                task.run();
+            } finally {
+                // 任务结束后移除观察者，避免长期持有
+                mainThreadExecutor.execute(() -> lifecycle.removeObserver(observer));
+            }
+        });
+        return futureHolder[0];
+    }
+
+    /**
+     * 获取所有线程池的统计信息
+     */
+    public List<PoolStats> getStats() {
+        List<PoolStats> stats = new ArrayList<>();
+        stats.add(ioExecutor.getStats());
+        stats.add(cpuExecutor.getStats());
+        stats.add(diskWriteExecutor.getStats());
+        stats.add(textLayoutExecutor.getStats());
+        return stats;
+    }
+
+    /**
+     * 输出线程池统计信息到日志
+     */
+    public void logStats() {
+        for (PoolStats stats : getStats()) {
+            Log.d(TAG, stats.toString());
+        }
+    }
+
+    /**
+     * 带统计功能的线程池
+     * 记录任务数量、队列深度、排队等待时间和执行耗时
+     */
+    public static class MonitoredExecutor extends ThreadPoolExecutor {
+        private final String name;
+        private final AtomicLong submittedCount = new AtomicLong();
+        private final AtomicLong completedCount = new AtomicLong();
+        private final AtomicLong cancelledCount = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong totalRunNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+        MonitoredExecutor(String name, int poolSize, int threadPriority) {
+            super(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory(name, threadPriority));
+            this.name = name;
+            // 空闲时回收线程，线程池常驻进程但不长期占用线程
+            allowCoreThreadTimeOut(true);
+        }
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            submittedCount.incrementAndGet();
+            super.execute(new TimedRunnable(command));
+            int depth = getQueue().size();
+            int currentMax;
+            while (depth > (currentMax = maxQueueDepth.get())) {
+                if (maxQueueDepth.compareAndSet(currentMax, depth)) {
+                    break;
+                }
+            }
+        }
+
+        void onCancelled() {
+            cancelledCount.incrementAndGet();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public PoolStats getStats() {
+            long completed = completedCount.get();
+            return new PoolStats(
+                name,
+                getMaximumPoolSize(),
+                getActiveCount(),
+                getQueue().size(),
+                maxQueueDepth.get(),
+                submittedCount.get(),
+                completed,
+                cancelledCount.get(),
+                completed > 0 ? totalWaitNanos.get() / completed : 0,
+                maxWaitNanos.get(),
+                completed > 0 ? totalRunNanos.get() / completed : 0
+            );
+        }
+
+        private class TimedRunnable implements Runnable {
+            private final Runnable delegate;
+            private final long enqueueTime;
+
+            TimedRunnable(Runnable delegate) {
+                this.delegate = delegate;
+                this.enqueueTime = System.nanoTime();
+            }
+
+            @Override
+            public void run() {
+                long startTime = System.nanoTime();
+                long waitNanos = startTime - enqueueTime;
+                totalWaitNanos.addAndGet(waitNanos);
+                long currentMax;
+                while (waitNanos > (currentMax = maxWaitNanos.get())) {
+                    if (maxWaitNanos.compareAndSet(currentMax, waitNanos)) {
+                        break;
+                    }
+                }
+                try {
+                    delegate.run();
+                } finally {
+                    // 结束本任务中最后一条SQL的耗时统计
+                    QueryTracer.onTaskFinished();
+                    totalRunNanos.addAndGet(System.nanoTime() - startTime);
+                    completedCount.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * 线程池统计快照
+     */
+    public static class PoolStats {
+        public final String name;
+        public final int poolSize;
+        public final int activeCount;
+        public final int queueDepth;
+        public final int maxQueueDepth;
+        public final long submitted;
+        public final long completed;
+        public final long cancelled;
+        public final long avgWaitNanos;
+        public final long maxWaitNanos;
+        public final long avgRunNanos;
+
+        PoolStats(String name, int poolSize, int activeCount, int queueDepth, int maxQueueDepth,
+                  long submitted, long completed, long cancelled,
+                  long avgWaitNanos, long maxWaitNanos, long avgRunNanos) {
+            this.name = name;
+            this.poolSize = poolSize;
+            this.activeCount = activeCount;
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.cancelled = cancelled;
+            this.avgWaitNanos = avgWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.avgRunNanos = avgRunNanos;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return name
+                + " active=" + activeCount + "/" + poolSize
+                + " queue=" + queueDepth + " (max " + maxQueueDepth + ")"
+                + " submitted=" + submitted
+                + " completed=" + completed
+                + " cancelled=" + cancelled
+                + " avgWait=" + TimeUnit.NANOSECONDS.toMicros(avgWaitNanos) + "us"
+                + " maxWait=" + TimeUnit.NANOSECONDS.toMicros(maxWaitNanos) + "us"
+                + " avgRun=" + TimeUnit.NANOSECONDS.toMicros(avgRunNanos) + "us";
+        }
+    }
+
+    /**
+     * 带名称和优先级的线程工厂
+     */
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String name;
+        private final int threadPriority;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        NamedThreadFactory(String name, int threadPriority) {
+            this.name = name;
+            this.threadPriority = threadPriority;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            return new Thread(() -> {
+                Process.setThreadPriority(threadPriority);
+                runnable.run();
+            }, name + "-" + threadNumber.getAndIncrement());
+        }
+    }
+
+    /**
+     * 主线程执行器
+     */
+    private static class MainThreadExecutor implements Executor {
+        private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                command.run();
+            } else {
+                mainHandler.post(command);
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.notepad.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.exifinterface.media.ExifInterface;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import com.example.notepad.data.model.User;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 头像处理工具类
+ * 负责将选中的图片按EXIF方向摆正、缩放压缩为固定尺寸的WebP文件，并清理被替换的旧头像
+ */
+public class AvatarUtils {
+    private static final String TAG = "AvatarUtils";
+    private static final String AVATAR_DIR = "avatars";
+    private static final String AVATAR_EXTENSION = ".webp";
+
+    // 头像存储的最大边长（像素），显示尺寸为300，保留一定余量
+    public static final int MAX_AVATAR_SIZE = 512;
+    private static final int WEBP_QUALITY = 85;
+
+    /**
+     * 将图片摆正、缩放并压缩后保存为头像文件
+     * WebP不保留EXIF信息，压缩前需要按原图的方向旋转
+     * 必须在工作线程中调用
+     * @param context 上下文
+     * @param sourceUri 源图片URI
+     * @param userId 用户ID
+     * @param version 头像版本号
+     * @return 保存后的头像文件，失败时返回null
+     */
+    public static File storeAvatar(Context context, Uri sourceUri, int userId, long version) {
+        if (sourceUri == null) {
+            return null;
+        }
+
+        File outputDir = getAvatarDir(context);
+        if (!outputDir.exists() && !outputDir.mkdirs()) {
+            Log.e(TAG, "无法创建头像目录: " + outputDir.getAbsolutePath());
+            return null;
+        }
+
+        Bitmap bitmap = decodeScaledBitmap(context, sourceUri, MAX_AVATAR_SIZE);
+        if (bitmap == null) {
+            return null;
+        }
+        bitmap = applyExifOrientation(bitmap, readExifOrientation(context, sourceUri));
+
+        File outputFile = new File(outputDir, getAvatarFileName(userId, version));
+        try (OutputStream outputStream = new FileOutputStream(outputFile)) {
+            if (!bitmap.compress(Bitmap.CompressFormat.WEBP_LOSSY, WEBP_QUALITY, outputStream)) {
+                Log.e(TAG, "压缩头像失败");
+                outputFile.delete();
+                return null;
+            }
+            outputStream.flush();
+            Log.d(TAG, "头像已保存: " + outputFile.getAbsolutePath() + ", 大小: " + outputFile.length());
+            return outputFile;
+        } catch (IOException e) {
+            Log.e(TAG, "保存头像失败: " + e.getMessage(), e);
+            outputFile.delete();
+            return null;
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * 删除被新头像替换的旧文件
+     * 仅删除当前用户的旧头像以及之前记录的头像文件，不影响其他用户
+     * @param context 上下文
+     * @param userId 用户ID
+     * @param currentFile 当前使用的头像文件
+     * @param previousAvatarUrl 更新前的头像地址
+     */
+    public static void deleteSupersededAvatars(Context context, int userId, File currentFile, String previousAvatarUrl) {
+        File avatarDir = getAvatarDir(context);
+
+        String prefix = "avatar_" + userId + "_";
+        File[] files = avatarDir.listFiles((dir, name) -> name.startsWith(prefix));
+        if (files != null) {
+            for (File file : files) {
+                if (!file.equals(currentFile) && file.delete()) {
+                    Log.d(TAG, "已删除旧头像: " + file.getName());
+                }
+            }
+        }
+
+        // 清理旧版本遗留的头像文件（avatar_<UUID>.jpg）
+        if (previousAvatarUrl != null && previousAvatarUrl.startsWith("file://")) {
+            String path = Uri.parse(previousAvatarUrl).getPath();
+            if (path != null) {
+                File previousFile = new File(path);
+                if (!previousFile.equals(currentFile)
+                        && avatarDir.equals(previousFile.getParentFile())
+                        && previousFile.delete()) {
+                    Log.d(TAG, "已删除旧头像: " + previousFile.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取头像加载使用的Glide签名
+     * 头像版本变化时缓存自动失效，版本不变时直接命中内存和磁盘缓存
+     */
+    public static Key getSignature(User user) {
+        return new ObjectKey(user != null ? user.getAvatarVersion() : 0L);
+    }
+
+    /**
+     * 从URL中解析本地头像文件
+     * @return 本地文件，非本地URL时返回null
+     */
+    public static File getLocalAvatarFile(String avatarUrl) {
+        if (avatarUrl == null || !avatarUrl.startsWith("file://")) {
+            return null;
+        }
+        String path = Uri.parse(avatarUrl).getPath();
+        return path != null ? new File(path) : null;
+    }
+
+    private static File getAvatarDir(Context context) {
+        return new File(context.getFilesDir(), AVATAR_DIR);
+    }
+
+    private static String getAvatarFileName(int userId, long version) {
+        return "avatar_" + userId + "_" + version + AVATAR_EXTENSION;
+    }
+
+    /**
+     * 读取图片的EXIF方向，读取失败或没有EXIF信息时按正常方向处理
+     */
+    private static int readExifOrientation(Context context, Uri uri) {
+        try (InputStream inputStream = context.getContentResolver().openInputStream(uri)) {
+            if (inputStream == null) {
+                return ExifInterface.ORIENTATION_NORMAL;
+            }
+            return new ExifInterface(inputStream)
+                .getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException e) {
+            Log.w(TAG, "读取图片方向失败: " + e.getMessage());
+            return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    /**
+     * 按EXIF方向旋转或翻转图片，方向正常时返回原图
+     */
+    private static Bitmap applyExifOrientation(Bitmap bitmap, int orientation) {
+        Matrix matrix = new Matrix();
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.setScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.setRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.setScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.setRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.setRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.setRotate(-90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.setRotate(-90);
+                break;
+            default:
+                return bitmap;
+        }
+        Bitmap rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        if (rotated != bitmap) {
+            bitmap.recycle();
+        }
+        return rotated;
+    }
+
+    /**
+     * 按目标尺寸解码图片，先用inSampleSize粗略缩小，再精确缩放到目标尺寸以内
+     */
+    private static Bitmap decodeScaledBitmap(Context context, Uri uri, int maxSize) {
+        try {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            try (InputStream inputStream = context.getContentResolver().openInputStream(uri)) {
+                if (inputStream == null) {
+                    Log.e(TAG, "无法打开输入流: " + uri);
+                    return null;
+                }
+                BitmapFactory.decodeStream(inputStream, null, options);
+            }
+
+            if (options.outWidth <= 0 || options.outHeight <= 0) {
+                Log.e(TAG, "无法解析图片尺寸: " + uri);
+                return null;
+            }
+
+            int sampleSize = 1;
+            while (options.outWidth / (sampleSize * 2) >= maxSize
+                    && options.outHeight / (sampleSize * 2) >= maxSize) {
+                sampleSize *= 2;
+            }
+
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = sampleSize;
+            Bitmap decoded;
+            try (InputStream inputStream = context.getContentResolver().openInputStream(uri)) {
+                if (inputStream == null) {
+                    return null;
+                }
+                decoded = BitmapFactory.decodeStream(inputStream, null, options);
+            }
+            if (decoded == null) {
+                Log.e(TAG, "解码图片失败: " + uri);
+                return null;
+            }
+
+            int width = decoded.getWidth();
+            int height = decoded.getHeight();
+            if (width <= maxSize && height <= maxSize) {
+                return decoded;
+            }
+
+            float scale = Math.min((float) maxSize / width, (float) maxSize / height);
+            Bitmap scaled = Bitmap.createScaledBitmap(decoded,
+                Math.max(1, Math.round(width * scale)),
+                Math.max(1, Math.round(height * scale)),
+                true);
+            if (scaled != decoded) {
+                decoded.recycle();
+            }
+            return scaled;
+        } catch (Exception e) {
+            Log.e(TAG, "处理头像图片失败: " + e.getMessage(), e);
+            return null;
+        }
+    }
+}
@@ -1,36 +1,63 @@
 package com.example.notepad.utils;
 
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.Locale;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * 日期格式化工具类
+ * 基于java.time实现，格式化器不可变且线程安全，可以在后台线程中使用
+ *
+ * "今天/昨天/N天前"按日历日计算，而不是按24小时差值计算；
+ * 当前日期等信息每个时钟周期（一分钟）只计算一次，绑定列表时不再重复创建Date
+ */
 public class DateUtils {
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
-    private static final SimpleDateFormat TIME_FORMAT = new SimpleDateFormat("HH:mm", Locale.getDefault());
-    private static final SimpleDateFormat DATE_ONLY_FORMAT = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+    private static final String PATTERN_DATE_TIME = "yyyy-MM-dd HH:mm";
+    private static final String PATTERN_TIME = "HH:mm";
+    private static final String PATTERN_DATE = "yyyy-MM-dd";
+    private static final long TICK_MILLIS = 60_000L;
+
+    // 每个语言区域缓存一组格式化器
+    private static final Map<Locale, Formatters> FORMATTERS = new ConcurrentHashMap<>();
+
+    private static volatile Tick currentTick;
 
     public static String formatDateTime(Date date) {
+        return formatDateTime(date, currentTick());
+    }
+
+    /**
+     * 按指定时钟周期格式化相对时间
+     * @param date 时间
+     * @param tick 时钟周期，同一批绑定使用同一个周期可以保证结果一致
+     */
+    public static String formatDateTime(Date date, Tick tick) {
         if (date == null) {
             return "";
         }
 
-        Date now = new Date();
-        long diffInMillis = now.getTime() - date.getTime();
-        long diffInDays = TimeUnit.MILLISECONDS.toDays(diffInMillis);
+        ZonedDateTime dateTime = Instant.ofEpochMilli(date.getTime()).atZone(tick.zone);
+        long diffInDays = ChronoUnit.DAYS.between(dateTime.toLocalDate(), tick.today);
 
         if (diffInDays == 0) {
             // 今天
-            return "今天, " + TIME_FORMAT.format(date);
+            return "今天, " + tick.formatters.time.format(dateTime);
         } else if (diffInDays == 1) {
             // 昨天
-            return "昨天, " + TIME_FORMAT.format(date);
-        } else if (diffInDays < 7) {
+            return "昨天, " + tick.formatters.time.format(dateTime);
+        } else if (diffInDays > 1 && diffInDays < 7) {
             // 本周内
-            return diffInDays + "天前, " + TIME_FORMAT.format(date);
+            return diffInDays + "天前, " + tick.formatters.time.format(dateTime);
         } else {
-            // 一周前
-            return DATE_FORMAT.format(date);
+            // 一周前或时间在未来（设备时间被调整过）
+            return tick.formatters.dateTime.format(dateTime);
         }
     }
 
@@ -38,6 +65,73 @@ public class DateUtils {
         if (date == null) {
             return "";
         }
-        return DATE_ONLY_FORMAT.format(date);
+        Tick tick = currentTick();
+        return tick.formatters.date.format(Instant.ofEpochMilli(date.getTime()).atZone(tick.zone));
+    }
+
+    /**
+     * 获取当前时钟周期
+     * 周期在整分钟处结束；时区或语言变化时也会立即重新计算
+     */
+    public static Tick currentTick() {
+        long now = System.currentTimeMillis();
+        ZoneId zone = ZoneId.systemDefault();
+        Locale locale = Locale.getDefault();
+        Tick tick = currentTick;
+        if (tick == null || now >= tick.validUntil || now < tick.startedAt
+                || !tick.zone.equals(zone) || !tick.locale.equals(locale)) {
+            tick = new Tick(now, zone, locale);
+            currentTick = tick;
+        }
+        return tick;
+    }
+
+    /**
+     * 距离下一个时钟周期开始的毫秒数，用于对齐整分钟刷新
+     */
+    public static long millisUntilNextTick() {
+        long now = System.currentTimeMillis();
+        return TICK_MILLIS - (now % TICK_MILLIS);
+    }
+
+    private static Formatters formatters(Locale locale) {
+        return FORMATTERS.computeIfAbsent(locale, Formatters::new);
+    }
+
+    /**
+     * 一个时钟周期内不变的数据
+     */
+    public static final class Tick {
+        private final long startedAt;
+        private final long validUntil;
+        private final ZoneId zone;
+        private final Locale locale;
+        private final LocalDate today;
+        private final Formatters formatters;
+
+        private Tick(long now, ZoneId zone, Locale locale) {
+            this.startedAt = now - (now % TICK_MILLIS);
+            this.validUntil = startedAt + TICK_MILLIS;
+            this.zone = zone;
+            this.locale = locale;
+            this.today = Instant.ofEpochMilli(now).atZone(zone).toLocalDate();
+            this.formatters = formatters(locale);
+        }
+
+        public long getStartedAt() {
+            return startedAt;
+        }
+    }
+
+    private static final class Formatters {
+        final DateTimeFormatter dateTime;
+        final DateTimeFormatter time;
+        final DateTimeFormatter date;
+
+        Formatters(Locale locale) {
+            dateTime = DateTimeFormatter.ofPattern(PATTERN_DATE_TIME, locale);
+            time = DateTimeFormatter.ofPattern(PATTERN_TIME, locale);
+            date = DateTimeFormatter.ofPattern(PATTERN_DATE, locale);
+        }
     }
-} 
\ No newline at end of file
+}
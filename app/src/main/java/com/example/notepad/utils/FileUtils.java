@@ -18,6 +18,10 @@ import java.util.Date;
 import java.util.Locale;
 
 public class FileUtils {
+
+    // 文件复制耗时和字节数统计
+    private static final Metrics.Timer COPY_TIMER = Metrics.timer("file.copy");
+    private static final Metrics.Histogram COPY_BYTES = Metrics.histogram("file.copy.bytes");
     
     /**
      * 创建图片文件
@@ -150,14 +154,12 @@ public class FileUtils {
      * 将输入流复制到文件
      */
     private static void copyInputStreamToFile(InputStream inputStream, File file) throws IOException {
+        long start = COPY_TIMER.start();
         try (FileOutputStream outputStream = new FileOutputStream(file)) {
-            byte[] buffer = new byte[4096];
-            int length;
-            while ((length = inputStream.read(buffer)) > 0) {
-                outputStream.write(buffer, 0, length);
-            }
+            COPY_BYTES.record(IoUtils.copy(inputStream, outputStream));
             outputStream.flush();
         }
+        COPY_TIMER.stop(start);
     }
 
     /**
@@ -214,6 +216,7 @@ public class FileUtils {
      * 复制文件
      */
     public static void copyFile(Context context, Uri sourceUri, File destFile) throws IOException {
+        long start = COPY_TIMER.start();
         try (InputStream in = context.getContentResolver().openInputStream(sourceUri);
              OutputStream out = new FileOutputStream(destFile)) {
             
@@ -221,13 +224,10 @@ public class FileUtils {
                 throw new IOException("无法打开源文件");
             }
 
-            byte[] buffer = new byte[4096];
-            int length;
-            while ((length = in.read(buffer)) > 0) {
-                out.write(buffer, 0, length);
-            }
+            COPY_BYTES.record(IoUtils.copy(in, out));
             out.flush();
         }
+        COPY_TIMER.stop(start);
     }
 
     /**
@@ -243,17 +243,14 @@ public class FileUtils {
         
         java.io.FileInputStream fis = null;
         java.io.FileOutputStream fos = null;
+        long start = COPY_TIMER.start();
         
         try {
             fis = new java.io.FileInputStream(sourceFile);
             fos = new java.io.FileOutputStream(destFile);
             
-            byte[] buffer = new byte[4096];
-            int length;
-            
-            while ((length = fis.read(buffer)) > 0) {
-                fos.write(buffer, 0, length);
-            }
+            COPY_BYTES.record(IoUtils.copy(fis, fos));
+            COPY_TIMER.stop(start);
         } finally {
             if (fis != null) {
                 try {
@@ -0,0 +1,43 @@
+package com.example.notepad.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 流读写工具类
+ * 不依赖Android框架，可以直接在JVM基准测试中使用
+ */
+public class IoUtils {
+    public static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    /**
+     * 将输入流全部复制到输出流，不关闭流
+     * @param in 输入流
+     * @param out 输出流
+     * @return 复制的字节数
+     * @throws IOException 读写失败时抛出异常
+     */
+    public static long copy(InputStream in, OutputStream out) throws IOException {
+        return copy(in, out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * 使用指定大小的缓冲区复制流，不关闭流
+     * @param in 输入流
+     * @param out 输出流
+     * @param bufferSize 缓冲区大小
+     * @return 复制的字节数
+     * @throws IOException 读写失败时抛出异常
+     */
+    public static long copy(InputStream in, OutputStream out, int bufferSize) throws IOException {
+        byte[] buffer = new byte[bufferSize];
+        long total = 0;
+        int length;
+        while ((length = in.read(buffer)) > 0) {
+            out.write(buffer, 0, length);
+            total += length;
+        }
+        return total;
+    }
+}
@@ -1,32 +1,57 @@
 package com.example.notepad.utils;
 
 import android.content.Context;
+import android.content.ContextWrapper;
 import android.content.SharedPreferences;
+import android.content.pm.ActivityInfo;
 import android.content.res.Configuration;
 import android.content.res.Resources;
-import android.os.Build;
+import android.os.SystemClock;
 import android.preference.PreferenceManager;
 import android.util.Log;
 
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 语言管理器
  * 负责应用内语言切换和保存语言设置
+ *
+ * 每种语言的Configuration和Resources只创建一次，所有Activity共享；
+ * 只有切换语言、系统语言变化或影响资源选择的配置（屏幕密度、字体大小、夜间模式等）变化时才重新创建
  */
 public class LanguageManager {
     private static final String TAG = "LanguageManager";
     private static final String PREF_LANGUAGE = "pref_language";
+    private static final long FRAME_BUDGET_MILLIS = 16;
+
+    // 需要与Activity保持一致的配置项，这些项变化时缓存的资源不再可用
+    private static final int RESOURCE_CONFIG_MASK = ActivityInfo.CONFIG_DENSITY
+        | ActivityInfo.CONFIG_FONT_SCALE
+        | ActivityInfo.CONFIG_UI_MODE
+        | ActivityInfo.CONFIG_ORIENTATION
+        | ActivityInfo.CONFIG_SCREEN_LAYOUT
+        | ActivityInfo.CONFIG_SMALLEST_SCREEN_SIZE;
+
     private static LanguageManager instance;
     private SharedPreferences preferences;
     private final Context applicationContext;
 
+    // 当前语言，首次读取后缓存在内存中
+    private volatile String language;
+    // 上次看到的系统语言，用于判断系统语言是否变化
+    private volatile Locale systemLocale;
+    // 按语言缓存的资源
+    private final Map<String, LocaleResources> localeResources = new ConcurrentHashMap<>();
+
     // 支持的语言列表
     public static final String LANGUAGE_CHINESE = "zh";
     public static final String LANGUAGE_ENGLISH = "en";
 
     private LanguageManager(Context context) {
         this.applicationContext = context.getApplicationContext();
+        this.systemLocale = Resources.getSystem().getConfiguration().getLocales().get(0);
     }
 
     public static synchronized LanguageManager getInstance(Context context) {
@@ -45,16 +70,29 @@ public class LanguageManager {
 
     /**
      * 设置应用语言
+     * 保存设置并清除缓存，同时预先创建新语言的资源，记录切换耗时
      * @param context 上下文
      * @param language 语言代码：zh或en
      * @return 更新后的Context
      */
     public Context setLanguage(Context context, String language) {
+        long start = SystemClock.elapsedRealtime();
+
         // 保存语言设置到SharedPreferences
         getPreferences().edit().putString(PREF_LANGUAGE, language).apply();
-        
+        this.language = language;
+        localeResources.clear();
+
         // 更新应用资源配置
-        return updateResources(context, language);
+        Context localized = updateResources(context, language);
+
+        long elapsed = SystemClock.elapsedRealtime() - start;
+        if (elapsed > FRAME_BUDGET_MILLIS) {
+            Log.w(TAG, "语言切换耗时超过一帧: " + elapsed + "ms");
+        } else {
+            Log.d(TAG, "语言切换耗时: " + elapsed + "ms");
+        }
+        return localized;
     }
 
     /**
@@ -67,12 +105,34 @@ public class LanguageManager {
         return updateResources(context, currentLanguage);
     }
 
+    /**
+     * 配置变化时调用，系统语言变化则清除缓存
+     * @param newConfig 新的配置
+     */
+    public void onConfigurationChanged(Configuration newConfig) {
+        Locale newSystemLocale = Resources.getSystem().getConfiguration().getLocales().get(0);
+        if (!newSystemLocale.equals(systemLocale)) {
+            Log.d(TAG, "系统语言变化: " + systemLocale + " -> " + newSystemLocale);
+            systemLocale = newSystemLocale;
+            localeResources.clear();
+            // 未设置语言时跟随系统语言，需要重新读取
+            language = null;
+        }
+        // 系统配置变化会重置默认语言，重新设置
+        Locale.setDefault(new Locale(getLanguage()));
+    }
+
     /**
      * 获取当前设置的语言
      * @return 语言代码
      */
     public String getLanguage() {
-        return getPreferences().getString(PREF_LANGUAGE, getDeviceLanguage());
+        String current = language;
+        if (current == null) {
+            current = getPreferences().getString(PREF_LANGUAGE, getDeviceLanguage());
+            language = current;
+        }
+        return current;
     }
 
     /**
@@ -80,7 +140,7 @@ public class LanguageManager {
      * @return 语言代码
      */
     public String getDeviceLanguage() {
-        String deviceLanguage = Locale.getDefault().getLanguage();
+        String deviceLanguage = systemLocale.getLanguage();
         // 如果不是我们支持的语言，默认使用英文
         if (!deviceLanguage.equals(LANGUAGE_CHINESE) && !deviceLanguage.equals(LANGUAGE_ENGLISH)) {
             return LANGUAGE_ENGLISH;
@@ -99,6 +159,7 @@ public class LanguageManager {
 
     /**
      * 更新资源配置
+     * 上下文已经是目标语言时直接返回，否则使用缓存的资源包装上下文
      * @param context 上下文
      * @param language 语言代码
      * @return 更新后的Context
@@ -107,17 +168,60 @@ public class LanguageManager {
         Locale locale = new Locale(language);
         Locale.setDefault(locale);
 
-        Resources resources = context.getResources();
-        Configuration configuration = resources.getConfiguration();
+        Configuration baseConfiguration = context.getResources().getConfiguration();
+        if (locale.equals(baseConfiguration.getLocales().get(0))) {
+            return context;
+        }
+        return new LocalizedContext(context, getLocaleResources(language, locale, baseConfiguration).resources);
+    }
+
+    /**
+     * 获取指定语言的资源，缓存不存在或与当前配置不一致时重新创建
+     */
+    private LocaleResources getLocaleResources(String language, Locale locale, Configuration baseConfiguration) {
+        LocaleResources cached = localeResources.get(language);
+        if (cached != null
+                && (cached.configuration.diff(baseConfiguration) & RESOURCE_CONFIG_MASK) == 0) {
+            return cached;
+        }
+
+        long start = SystemClock.elapsedRealtime();
+        Configuration configuration = new Configuration(baseConfiguration);
         configuration.setLocale(locale);
-        
-        Log.d(TAG, "Applying language: " + language);
+        Context configurationContext = applicationContext.createConfigurationContext(configuration);
+        LocaleResources created = new LocaleResources(configuration, configurationContext.getResources());
+        localeResources.put(language, created);
+        Log.d(TAG, "创建语言资源: " + language + ", 耗时: " + (SystemClock.elapsedRealtime() - start) + "ms");
+        return created;
+    }
 
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-            return context.createConfigurationContext(configuration);
-        } else {
-            resources.updateConfiguration(configuration, resources.getDisplayMetrics());
-            return context;
+    /**
+     * 某种语言的配置和资源
+     */
+    private static final class LocaleResources {
+        final Configuration configuration;
+        final Resources resources;
+
+        LocaleResources(Configuration configuration, Resources resources) {
+            this.configuration = configuration;
+            this.resources = resources;
+        }
+    }
+
+    /**
+     * 使用缓存资源的上下文，Activity创建时不再重新创建Resources
+     */
+    private static final class LocalizedContext extends ContextWrapper {
+        private final Resources resources;
+
+        LocalizedContext(Context base, Resources resources) {
+            super(base);
+            this.resources = resources;
+        }
+
+        @Override
+        public Resources getResources() {
+            return resources;
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,223 @@
+package com.example.notepad.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按行计算文本差异（Myers算法）并编码为紧凑的补丁
+ *
+ * 补丁由若干段修改组成，每段以 "旧文本起始行,删除行数,插入行数" 开头，后面跟插入的行；
+ * 行内容按换行符切分，补丁中不需要转义。只依赖Java标准库，可以在单元测试中直接使用
+ */
+public final class LineDiff {
+    private LineDiff() {
+    }
+
+    /**
+     * 计算从旧文本到新文本的补丁
+     * @param oldText 旧文本
+     * @param newText 新文本
+     * @param maxEdits 最多允许的增删行数，超过时放弃计算（此时存完整文本更划算）
+     * @return 补丁，两段文本相同时返回空字符串，修改过多时返回null
+     */
+    public static String diff(String oldText, String newText, int maxEdits) {
+        String[] oldLines = split(oldText);
+        String[] newLines = split(newText);
+
+        // 先去掉相同的开头和结尾，通常编辑只集中在一小段
+        int prefix = 0;
+        int maxPrefix = Math.min(oldLines.length, newLines.length);
+        while (prefix < maxPrefix && oldLines[prefix].equals(newLines[prefix])) {
+            prefix++;
+        }
+        int suffix = 0;
+        int maxSuffix = maxPrefix - prefix;
+        while (suffix < maxSuffix
+            && oldLines[oldLines.length - 1 - suffix].equals(newLines[newLines.length - 1 - suffix])) {
+            suffix++;
+        }
+
+        int n = oldLines.length - prefix - suffix;
+        int m = newLines.length - prefix - suffix;
+        if (n == 0 && m == 0) {
+            return "";
+        }
+
+        // 把行映射为整数，比较时不再逐字符比较字符串
+        Map<String, Integer> ids = new HashMap<>();
+        int[] a = new int[n];
+        int[] b = new int[m];
+        for (int i = 0; i < n; i++) {
+            a[i] = ids.computeIfAbsent(oldLines[prefix + i], key -> ids.size());
+        }
+        for (int i = 0; i < m; i++) {
+            b[i] = ids.computeIfAbsent(newLines[prefix + i], key -> ids.size());
+        }
+
+        int[][] edits = shortestEdit(a, b, maxEdits);
+        if (edits == null) {
+            return null;
+        }
+        return encode(edits, prefix, newLines);
+    }
+
+    /**
+     * 将补丁应用到旧文本
+     * @param oldText 计算补丁时使用的旧文本
+     * @param patch {@link #diff} 返回的补丁
+     * @return 新文本
+     * @throws IllegalArgumentException 补丁格式错误或与旧文本不匹配
+     */
+    public static String apply(String oldText, String patch) {
+        if (patch.isEmpty()) {
+            return oldText;
+        }
+        String[] oldLines = split(oldText);
+        String[] patchLines = patch.split("\n", -1);
+        StringBuilder builder = new StringBuilder(oldText.length() + patch.length());
+        int oldPos = 0;
+        int i = 0;
+        boolean first = true;
+        while (i < patchLines.length) {
+            String[] header = patchLines[i++].split(",");
+            if (header.length != 3) {
+                throw new IllegalArgumentException("补丁格式错误: " + patchLines[i - 1]);
+            }
+            int start = Integer.parseInt(header[0]);
+            int deleted = Integer.parseInt(header[1]);
+            int inserted = Integer.parseInt(header[2]);
+            if (start < oldPos || start + deleted > oldLines.length || i + inserted > patchLines.length) {
+                throw new IllegalArgumentException("补丁与文本不匹配: " + patchLines[i - 1]);
+            }
+            for (; oldPos < start; oldPos++) {
+                first = appendLine(builder, oldLines[oldPos], first);
+            }
+            for (int k = 0; k < inserted; k++) {
+                first = appendLine(builder, patchLines[i++], first);
+            }
+            oldPos += deleted;
+        }
+        for (; oldPos < oldLines.length; oldPos++) {
+            first = appendLine(builder, oldLines[oldPos], first);
+        }
+        return builder.toString();
+    }
+
+    private static boolean appendLine(StringBuilder builder, String line, boolean first) {
+        if (!first) {
+            builder.append('\n');
+        }
+        builder.append(line);
+        return false;
+    }
+
+    private static String[] split(String text) {
+        return (text != null ? text : "").split("\n", -1);
+    }
+
+    /**
+     * Myers O(ND) 最短编辑路径
+     * 每一步只保存当前对角线范围内的端点，内存为 O(D²)
+     * @return 按顺序排列的增删操作，每项为 {是否删除(1/0), 旧文本位置, 新文本位置}，相同的行不记录；
+     *         编辑数超过上限时返回null
+     */
+    private static int[][] shortestEdit(int[] a, int[] b, int maxEdits) {
+        int n = a.length;
+        int m = b.length;
+        int max = Math.min(n + m, maxEdits);
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        List<int[]> trace = new ArrayList<>();
+
+        for (int d = 0; d <= max; d++) {
+            // 保存上一步的端点，回溯时使用
+            int[] snapshot = new int[2 * d + 1];
+            for (int k = -d; k <= d; k++) {
+                snapshot[k + d] = v[k + offset];
+            }
+            trace.add(snapshot);
+
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && v[k - 1 + offset] < v[k + 1 + offset])) {
+                    x = v[k + 1 + offset];
+                } else {
+                    x = v[k - 1 + offset] + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && a[x] == b[y]) {
+                    x++;
+                    y++;
+                }
+                v[k + offset] = x;
+                if (x >= n && y >= m) {
+                    return backtrack(trace, n, m, d);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int[][] backtrack(List<int[]> trace, int n, int m, int edits) {
+        int[][] result = new int[edits][];
+        int x = n;
+        int y = m;
+        for (int d = edits; d > 0; d--) {
+            int[] v = trace.get(d);
+            int k = x - y;
+            int prevK;
+            if (k == -d || (k != d && v[k - 1 + d] < v[k + 1 + d])) {
+                prevK = k + 1;
+            } else {
+                prevK = k - 1;
+            }
+            int prevX = v[prevK + d];
+            int prevY = prevX - prevK;
+            // prevK == k + 1 表示向下走了一步（插入新文本第prevY行），否则向右走了一步（删除旧文本第prevX行）
+            result[d - 1] = new int[] {prevK == k + 1 ? 0 : 1, prevX, prevY};
+            x = prevX;
+            y = prevY;
+        }
+        return result;
+    }
+
+    /**
+     * 将增删操作编码为补丁，位置相接的增删合并为一段
+     */
+    private static String encode(int[][] edits, int prefix, String[] newLines) {
+        StringBuilder builder = new StringBuilder();
+        int i = 0;
+        while (i < edits.length) {
+            int oldStart = edits[i][1];
+            int oldPos = oldStart;
+            int newPos = edits[i][2];
+            int deleted = 0;
+            int insertedFrom = -1;
+            int inserted = 0;
+            while (i < edits.length && edits[i][1] == oldPos && edits[i][2] == newPos) {
+                if (edits[i][0] == 1) {
+                    deleted++;
+                    oldPos++;
+                } else {
+                    if (insertedFrom < 0) {
+                        insertedFrom = newPos;
+                    }
+                    inserted++;
+                    newPos++;
+                }
+                i++;
+            }
+            if (builder.length() > 0) {
+                builder.append('\n');
+            }
+            builder.append(oldStart + prefix).append(',').append(deleted).append(',').append(inserted);
+            // 段内的插入行在新文本中是连续的
+            for (int k = 0; k < inserted; k++) {
+                builder.append('\n').append(newLines[prefix + insertedFrom + k]);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.notepad.utils;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.StrictMode;
+import android.os.SystemClock;
+import android.os.strictmode.Violation;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 主线程I/O检测器（仅调试版本）
+ * 为主线程安装StrictMode策略，检测磁盘读写、网络和自定义慢调用，
+ * 违规按调用栈签名去重后统计次数和耗时，汇总报告保存到应用私有目录并跨进程累计
+ *
+ * StrictMode的回调中没有违规耗时，这里记录发生违规的那条主线程消息的执行时间
+ * （StrictMode在该消息结束后才回调），作为该次违规阻塞主线程时间的上限
+ */
+public class MainThreadIoDetector {
+    private static final String TAG = "MainThreadIoDetector";
+    private static final String REPORT_FILE = "strictmode_report.json";
+    // 报告写入的最短间隔，连续违规时合并写入
+    private static final long PERSIST_DELAY_MILLIS = 5_000;
+
+    private static volatile MainThreadIoDetector instance;
+
+    private final File reportFile;
+    private final ViolationAggregator aggregator;
+    private final AtomicBoolean persistScheduled = new AtomicBoolean();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Metrics.Counter violationCounter = Metrics.counter("strictmode.violations");
+
+    // 主线程消息的开始时间和上一条消息的耗时，只在主线程中访问
+    private long messageStartUptime;
+    private long lastMessageDuration = -1;
+
+    private MainThreadIoDetector(Context context) {
+        reportFile = new File(context.getFilesDir(), REPORT_FILE);
+        aggregator = new ViolationAggregator(context.getPackageName());
+    }
+
+    /**
+     * 在调试版本中安装检测器，必须在主线程中调用
+     */
+    public static void install(Context context) {
+        if ((context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) == 0 || instance != null) {
+            return;
+        }
+        MainThreadIoDetector detector = new MainThreadIoDetector(context.getApplicationContext());
+        instance = detector;
+        detector.start();
+    }
+
+    /**
+     * 获取检测器
+     * @return 检测器，未安装（非调试版本）时返回null
+     */
+    public static MainThreadIoDetector get() {
+        return instance;
+    }
+
+    private void start() {
+        // 读取之前保存的报告，不能在主线程中读取，否则本身就是一次违规
+        AppExecutors.getInstance().io().execute(this::loadReport);
+
+        Looper.getMainLooper().setMessageLogging(line -> {
+            long now = SystemClock.uptimeMillis();
+            if (line.charAt(0) == '>') {
+                messageStartUptime = now;
+            } else if (line.charAt(0) == '<') {
+                lastMessageDuration = now - messageStartUptime;
+            }
+        });
+
+        StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+            .detectDiskReads()
+            .detectDiskWrites()
+            .detectNetwork()
+            .detectCustomSlowCalls()
+            .detectResourceMismatches()
+            .detectUnbufferedIo()
+            // 直接在主线程回调，以便读取发生违规的消息耗时
+            .penaltyListener(Runnable::run, this::onViolation)
+            .build());
+        Log.d(TAG, "主线程I/O检测已启用");
+    }
+
+    private void onViolation(Violation violation) {
+        violationCounter.increment();
+        long duration = Looper.myLooper() == Looper.getMainLooper() ? lastMessageDuration : -1;
+        ViolationAggregator.Site site = aggregator.record(
+            violation.getClass().getSimpleName(), violation.getStackTrace(), duration);
+        if (site.count == 1) {
+            // 新位置第一次出现时输出完整调用栈
+            Log.w(TAG, "新的主线程违规: " + site.signature, violation);
+        }
+        schedulePersist();
+    }
+
+    private void schedulePersist() {
+        if (!persistScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        mainHandler.postDelayed(() -> AppExecutors.getInstance().io().execute(() -> {
+            persistScheduled.set(false);
+            persistReport();
+        }), PERSIST_DELAY_MILLIS);
+    }
+
+    private synchronized void loadReport() {
+        if (!reportFile.exists()) {
+            return;
+        }
+        try {
+            String json = new String(Files.readAllBytes(reportFile.toPath()), StandardCharsets.UTF_8);
+            List<ViolationAggregator.Site> previous = ViolationAggregator.fromJson(json);
+            aggregator.merge(previous);
+            Log.d(TAG, "已加载之前的违规报告: " + (previous != null ? previous.size() : 0) + " 个位置");
+        } catch (Exception e) {
+            Log.e(TAG, "读取违规报告失败: " + e.getMessage());
+        }
+    }
+
+    private synchronized void persistReport() {
+        File tempFile = new File(reportFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            out.write(aggregator.toJson().getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        } catch (IOException e) {
+            Log.e(TAG, "保存违规报告失败: " + e.getMessage());
+            return;
+        }
+        if (!tempFile.renameTo(reportFile)) {
+            Log.e(TAG, "替换违规报告失败");
+        }
+    }
+
+    /**
+     * 按总耗时排序的违规位置，可用于测试中检查是否出现新的主线程I/O
+     */
+    public List<ViolationAggregator.Site> getRankedViolations() {
+        return aggregator.getRanked();
+    }
+
+    /**
+     * 生成文本报告
+     */
+    public String dump() {
+        return aggregator.dump(20);
+    }
+
+    /**
+     * 清空统计并删除保存的报告
+     */
+    public void reset() {
+        aggregator.clear();
+        AppExecutors.getInstance().io().execute(() -> {
+            synchronized (this) {
+                if (reportFile.exists() && !reportFile.delete()) {
+                    Log.e(TAG, "删除违规报告失败");
+                }
+            }
+        });
+    }
+
+    /**
+     * 获取报告文件
+     */
+    public File getReportFile() {
+        return reportFile;
+    }
+}
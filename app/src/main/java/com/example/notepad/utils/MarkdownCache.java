@@ -0,0 +1,113 @@
+package com.example.notepad.utils;
+
+import android.content.Context;
+import android.text.Spanned;
+import android.text.util.Linkify;
+import android.util.LruCache;
+
+import com.example.notepad.data.model.Note;
+
+/**
+ * Markdown渲染结果缓存
+ * 按 (笔记ID, 更新时间) 缓存渲染后的样式文本，笔记保存后更新时间改变，旧版本的结果自然被淘汰。
+ * 缓存总量按字符数限制；渲染结果不可变，可以在多个视图和线程间共享。
+ * 获取方法在未命中时同步渲染，必须在工作线程中调用
+ */
+public class MarkdownCache {
+    // 缓存的最大字符数（完整渲染和预览合计）
+    private static final int MAX_CACHED_CHARS = 1_000_000;
+    // 详情页中额外识别的链接类型
+    public static final int LINK_MASK = Linkify.WEB_URLS | Linkify.EMAIL_ADDRESSES;
+
+    private static final Metrics.Counter HITS = Metrics.counter("markdown.cache.hit");
+    private static final Metrics.Counter MISSES = Metrics.counter("markdown.cache.miss");
+
+    private static volatile MarkdownCache instance;
+
+    private final MarkdownRenderer renderer;
+    private final LruCache<Key, Spanned> cache = new LruCache<Key, Spanned>(MAX_CACHED_CHARS) {
+        @Override
+        protected int sizeOf(Key key, Spanned value) {
+            return Math.max(1, value.length());
+        }
+    };
+
+    private MarkdownCache(Context context) {
+        renderer = new MarkdownRenderer(context);
+    }
+
+    public static MarkdownCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (MarkdownCache.class) {
+                if (instance == null) {
+                    instance = new MarkdownCache(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 获取笔记内容的完整渲染结果（用于详情页），必须在工作线程中调用
+     */
+    public Spanned getRendered(Note note) {
+        Key key = new Key(note, false);
+        Spanned rendered = cache.get(key);
+        if (rendered != null) {
+            HITS.increment();
+            return rendered;
+        }
+        MISSES.increment();
+        String content = note.getContent() != null ? note.getContent() : "";
+        rendered = renderer.render(content, LINK_MASK);
+        cache.put(key, rendered);
+        return rendered;
+    }
+
+    /**
+     * 获取笔记的列表预览，必须在工作线程中调用
+     */
+    public Spanned getPreview(Note note) {
+        Key key = new Key(note, true);
+        Spanned preview = cache.get(key);
+        if (preview != null) {
+            HITS.increment();
+            return preview;
+        }
+        MISSES.increment();
+        preview = renderer.renderPreview(note.getContent(), NoteTextUtils.PREVIEW_MAX_LENGTH);
+        cache.put(key, preview);
+        return preview;
+    }
+
+    private static final class Key {
+        final long noteId;
+        final long updatedAt;
+        final boolean preview;
+
+        Key(Note note, boolean preview) {
+            this.noteId = note.getId();
+            this.updatedAt = note.getUpdatedAt() != null ? note.getUpdatedAt().getTime() : 0;
+            this.preview = preview;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return noteId == other.noteId && updatedAt == other.updatedAt && preview == other.preview;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Long.hashCode(noteId);
+            result = 31 * result + Long.hashCode(updatedAt);
+            return 31 * result + (preview ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package com.example.notepad.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 轻量Markdown解析器
+ * 支持标题、无序和有序列表、引用、分隔线、围栏代码块，以及行内的粗体、斜体、删除线、代码、链接和转义。
+ *
+ * 除围栏代码块外每行是一个块，块的解析只依赖从块开头往后的文本，因此编辑时只需要从被修改的块开始
+ * 重新解析，遇到与旧结果对齐的块边界后直接复用后面的块（只平移位置）。
+ * 行内元素的位置相对所在块的开头保存，平移块时不需要修改。
+ * 解析直接读取CharSequence，编辑器中使用时不需要复制文本。只依赖Java标准库，可以在单元测试中直接使用
+ */
+public final class MarkdownParser {
+    // 块类型
+    public static final int PARAGRAPH = 0;
+    public static final int HEADING = 1;
+    public static final int BULLET = 2;
+    public static final int ORDERED = 3;
+    public static final int QUOTE = 4;
+    public static final int CODE_BLOCK = 5;
+    public static final int RULE = 6;
+    public static final int BLANK = 7;
+
+    // 行内类型
+    public static final int BOLD = 0;
+    public static final int ITALIC = 1;
+    public static final int STRIKE = 2;
+    public static final int CODE = 3;
+    public static final int LINK = 4;
+    public static final int ESCAPE = 5;
+
+    private static final int MAX_HEADING_LEVEL = 6;
+    private static final String FENCE = "```";
+
+    private MarkdownParser() {
+    }
+
+    /**
+     * 块：一行，或者从开始围栏到结束围栏（没有结束围栏时到文本末尾）的代码块
+     */
+    public static final class Block {
+        public final int type;
+        // 标题级别，或列表的缩进级别（每两个空格一级）
+        public final int level;
+        // 内容相对块开头的范围，不含块标记（如 "# "、"- "、围栏行）
+        public final int contentStart;
+        public final int contentEnd;
+        // 行内元素，位置相对块开头
+        public final List<Inline> inlines;
+        // 块在文本中的范围，不含行尾的换行符；重新解析时会被平移
+        int start;
+        int end;
+
+        Block(int type, int level, int start, int end, int contentStart, int contentEnd, List<Inline> inlines) {
+            this.type = type;
+            this.level = level;
+            this.start = start;
+            this.end = end;
+            this.contentStart = contentStart;
+            this.contentEnd = contentEnd;
+            this.inlines = inlines;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+    }
+
+    /**
+     * 行内元素，位置都相对所在块的开头
+     */
+    public static final class Inline {
+        public final int type;
+        // 整个元素的范围（含标记）
+        public final int start;
+        public final int end;
+        // 其中内容的范围，[start, contentStart) 和 [contentEnd, end) 是标记
+        public final int contentStart;
+        public final int contentEnd;
+        // 链接地址，其他类型为null
+        public final String url;
+
+        Inline(int type, int start, int end, int contentStart, int contentEnd, String url) {
+            this.type = type;
+            this.start = start;
+            this.end = end;
+            this.contentStart = contentStart;
+            this.contentEnd = contentEnd;
+            this.url = url;
+        }
+    }
+
+    /**
+     * 解析结果，记录最近一次（重新）解析的块范围，编辑器只需要重新设置这些块的样式
+     */
+    public static final class Document {
+        private final List<Block> blocks;
+        private final int changedFrom;
+        private final int changedTo;
+
+        Document(List<Block> blocks, int changedFrom, int changedTo) {
+            this.blocks = blocks;
+            this.changedFrom = changedFrom;
+            this.changedTo = changedTo;
+        }
+
+        public List<Block> getBlocks() {
+            return Collections.unmodifiableList(blocks);
+        }
+
+        /**
+         * 本次重新解析的第一个块的下标
+         */
+        public int getChangedFrom() {
+            return changedFrom;
+        }
+
+        /**
+         * 本次重新解析的最后一个块的下标加一
+         */
+        public int getChangedTo() {
+            return changedTo;
+        }
+    }
+
+    /**
+     * 完整解析文本
+     */
+    public static Document parse(CharSequence text) {
+        List<Block> blocks = new ArrayList<>();
+        parseFrom(text, 0, blocks);
+        return new Document(blocks, 0, blocks.size());
+    }
+
+    /**
+     * 文本被编辑后增量解析：从包含编辑起点的块开始重新解析，
+     * 新的块边界越过编辑区域且与旧结果中某个块的开头对齐后，复用其后的旧块
+     * 旧结果中的块会被直接修改和复用，调用之后不能再使用 previous
+     * @param previous 编辑前文本的解析结果
+     * @param text 编辑后的文本
+     * @param editStart 编辑的起点
+     * @param removed 删除的字符数
+     * @param added 插入的字符数
+     * @return 编辑后文本的解析结果
+     */
+    public static Document reparse(Document previous, CharSequence text, int editStart, int removed, int added) {
+        List<Block> old = previous.blocks;
+        int first = findBlock(old, editStart);
+        int delta = added - removed;
+        int newEditEnd = editStart + added;
+        int length = text.length();
+
+        List<Block> result = new ArrayList<>(old.size() + Math.max(0, delta / 16));
+        result.addAll(old.subList(0, first));
+        int pos = old.get(first).start;
+        int candidate = first;
+        while (true) {
+            Block block = parseBlock(text, pos);
+            result.add(block);
+            if (block.end >= length) {
+                return new Document(result, first, result.size());
+            }
+            pos = block.end + 1;
+            if (pos < newEditEnd) {
+                continue;
+            }
+            // 编辑区域之后的文本与旧文本相同，块边界对齐后后续的解析结果也相同
+            int oldPos = pos - delta;
+            while (candidate < old.size() && old.get(candidate).start < oldPos) {
+                candidate++;
+            }
+            if (candidate < old.size() && old.get(candidate).start == oldPos) {
+                int changedTo = result.size();
+                for (int i = candidate; i < old.size(); i++) {
+                    Block reused = old.get(i);
+                    reused.start += delta;
+                    reused.end += delta;
+                    result.add(reused);
+                }
+                return new Document(result, first, changedTo);
+            }
+        }
+    }
+
+    /**
+     * 查找开头不晚于指定位置的最后一个块
+     */
+    private static int findBlock(List<Block> blocks, int position) {
+        int low = 0;
+        int high = blocks.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (blocks.get(mid).start <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private static void parseFrom(CharSequence text, int pos, List<Block> out) {
+        int length = text.length();
+        while (true) {
+            Block block = parseBlock(text, pos);
+            out.add(block);
+            if (block.end >= length) {
+                return;
+            }
+            pos = block.end + 1;
+        }
+    }
+
+    /**
+     * 解析从行首 pos 开始的一个块，结果只依赖 pos 之后的文本
+     */
+    private static Block parseBlock(CharSequence text, int pos) {
+        int length = text.length();
+        int lineEnd = lineEnd(text, pos);
+        int indent = 0;
+        while (pos + indent < lineEnd && text.charAt(pos + indent) == ' ') {
+            indent++;
+        }
+        int p = pos + indent;
+        if (p == lineEnd) {
+            return new Block(BLANK, 0, pos, lineEnd, lineEnd - pos, lineEnd - pos, Collections.emptyList());
+        }
+
+        if (indent <= 3 && startsWith(text, p, lineEnd, FENCE)) {
+            int contentStart = Math.min(lineEnd + 1, length);
+            int next = lineEnd;
+            while (next < length) {
+                int lineStart = next + 1;
+                int end = lineEnd(text, lineStart);
+                if (isFence(text, lineStart, end)) {
+                    int contentEnd = Math.max(contentStart, lineStart - 1);
+                    return new Block(CODE_BLOCK, 0, pos, end, contentStart - pos, contentEnd - pos,
+                        Collections.emptyList());
+                }
+                next = end;
+            }
+            // 没有结束围栏，代码块延续到文本末尾
+            return new Block(CODE_BLOCK, 0, pos, length, contentStart - pos, length - pos, Collections.emptyList());
+        }
+
+        char c = text.charAt(p);
+        int type = PARAGRAPH;
+        int level = 0;
+        int contentStart = pos;
+        if (c == '#') {
+            int hashes = 1;
+            while (p + hashes < lineEnd && text.charAt(p + hashes) == '#') {
+                hashes++;
+            }
+            if (hashes <= MAX_HEADING_LEVEL && (p + hashes == lineEnd || text.charAt(p + hashes) == ' ')) {
+                type = HEADING;
+                level = hashes;
+                contentStart = skipSpaces(text, p + hashes, lineEnd);
+            }
+        } else if (indent <= 3 && isRule(text, p, lineEnd)) {
+            return new Block(RULE, 0, pos, lineEnd, lineEnd - pos, lineEnd - pos, Collections.emptyList());
+        } else if (c == '>') {
+            type = QUOTE;
+            contentStart = p + 1 < lineEnd && text.charAt(p + 1) == ' ' ? p + 2 : p + 1;
+        } else if ((c == '-' || c == '*' || c == '+') && p + 1 < lineEnd && text.charAt(p + 1) == ' ') {
+            type = BULLET;
+            level = indent / 2;
+            contentStart = skipSpaces(text, p + 1, lineEnd);
+        } else if (c >= '0' && c <= '9') {
+            int digits = 1;
+            while (digits < 9 && p + digits < lineEnd && Character.isDigit(text.charAt(p + digits))) {
+                digits++;
+            }
+            int marker = p + digits;
+            if (marker + 1 < lineEnd && (text.charAt(marker) == '.' || text.charAt(marker) == ')')
+                    && text.charAt(marker + 1) == ' ') {
+                type = ORDERED;
+                level = indent / 2;
+                contentStart = skipSpaces(text, marker + 1, lineEnd);
+            }
+        }
+
+        List<Inline> inlines = new ArrayList<>();
+        parseInlines(text, pos, contentStart, lineEnd, inlines);
+        return new Block(type, level, pos, lineEnd, contentStart - pos, lineEnd - pos,
+            inlines.isEmpty() ? Collections.emptyList() : inlines);
+    }
+
+    /**
+     * 解析 [from, to) 中的行内元素，位置相对 base 保存
+     */
+    private static void parseInlines(CharSequence text, int base, int from, int to, List<Inline> out) {
+        int i = from;
+        while (i < to) {
+            char c = text.charAt(i);
+            int next = -1;
+            if (c == '\\' && i + 1 < to && isEscapable(text.charAt(i + 1))) {
+                out.add(new Inline(ESCAPE, i - base, i + 2 - base, i + 1 - base, i + 2 - base, null));
+                next = i + 2;
+            } else if (c == '`') {
+                int close = indexOf(text, '`', i + 1, to);
+                if (close > i + 1) {
+                    out.add(new Inline(CODE, i - base, close + 1 - base, i + 1 - base, close - base, null));
+                    next = close + 1;
+                }
+            } else if (c == '[') {
+                next = parseLink(text, base, i, to, out);
+            } else if (c == '*' || c == '_' || c == '~') {
+                next = parseEmphasis(text, base, i, to, out);
+            }
+            i = next > i ? next : i + 1;
+        }
+    }
+
+    /**
+     * 解析 [文字](地址)
+     * @return 链接之后的位置，不是链接时返回-1
+     */
+    private static int parseLink(CharSequence text, int base, int i, int to, List<Inline> out) {
+        int closeBracket = indexOf(text, ']', i + 1, to);
+        if (closeBracket <= i + 1 || closeBracket + 1 >= to || text.charAt(closeBracket + 1) != '(') {
+            return -1;
+        }
+        int closeParen = indexOf(text, ')', closeBracket + 2, to);
+        if (closeParen <= closeBracket + 2) {
+            return -1;
+        }
+        String url = text.subSequence(closeBracket + 2, closeParen).toString();
+        if (url.indexOf(' ') >= 0) {
+            return -1;
+        }
+        out.add(new Inline(LINK, i - base, closeParen + 1 - base, i + 1 - base, closeBracket - base, url));
+        parseInlines(text, base, i + 1, closeBracket, out);
+        return closeParen + 1;
+    }
+
+    /**
+     * 解析 **粗体**、__粗体__、*斜体*、_斜体_ 和 ~~删除线~~
+     * @return 元素之后的位置，不是强调时返回-1
+     */
+    private static int parseEmphasis(CharSequence text, int base, int i, int to, List<Inline> out) {
+        char c = text.charAt(i);
+        int run = 1;
+        while (i + run < to && text.charAt(i + run) == c) {
+            run++;
+        }
+        int len;
+        int type;
+        if (c == '~') {
+            if (run < 2) {
+                return -1;
+            }
+            len = 2;
+            type = STRIKE;
+        } else if (run >= 2) {
+            len = 2;
+            type = BOLD;
+        } else {
+            len = 1;
+            type = ITALIC;
+        }
+        // 单词中间的下划线（如snake_case）不是强调
+        if (c == '_' && i > 0 && Character.isLetterOrDigit(text.charAt(i - 1))) {
+            return -1;
+        }
+        int contentStart = i + len;
+        if (contentStart >= to || Character.isWhitespace(text.charAt(contentStart))) {
+            return -1;
+        }
+        for (int k = contentStart + 1; k + len <= to; k++) {
+            if (!matches(text, k, c, len) || Character.isWhitespace(text.charAt(k - 1))) {
+                continue;
+            }
+            if (len == 1 && k + 1 < to && text.charAt(k + 1) == c) {
+                // 查找单个标记时跳过成对的标记（斜体中的粗体）
+                k++;
+                continue;
+            }
+            if (c == '_' && k + len < to && Character.isLetterOrDigit(text.charAt(k + len))) {
+                continue;
+            }
+            out.add(new Inline(type, i - base, k + len - base, contentStart - base, k - base, null));
+            parseInlines(text, base, contentStart, k, out);
+            return k + len;
+        }
+        return -1;
+    }
+
+    private static boolean matches(CharSequence text, int pos, char c, int len) {
+        for (int i = 0; i < len; i++) {
+            if (text.charAt(pos + i) != c) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isFence(CharSequence text, int lineStart, int lineEnd) {
+        int p = skipSpaces(text, lineStart, lineEnd);
+        return p - lineStart <= 3 && startsWith(text, p, lineEnd, FENCE);
+    }
+
+    /**
+     * 分隔线：三个以上相同的 - * _，中间可以有空格
+     */
+    private static boolean isRule(CharSequence text, int p, int lineEnd) {
+        char c = text.charAt(p);
+        if (c != '-' && c != '*' && c != '_') {
+            return false;
+        }
+        int count = 0;
+        for (int i = p; i < lineEnd; i++) {
+            char ch = text.charAt(i);
+            if (ch == c) {
+                count++;
+            } else if (ch != ' ') {
+                return false;
+            }
+        }
+        return count >= 3;
+    }
+
+    private static boolean isEscapable(char c) {
+        return "\\`*_~[]()#>-+.!".indexOf(c) >= 0;
+    }
+
+    private static boolean startsWith(CharSequence text, int pos, int end, String prefix) {
+        if (end - pos < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(pos + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipSpaces(CharSequence text, int pos, int end) {
+        while (pos < end && text.charAt(pos) == ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int lineEnd(CharSequence text, int pos) {
+        int length = text.length();
+        while (pos < length && text.charAt(pos) != '\n') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int indexOf(CharSequence text, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
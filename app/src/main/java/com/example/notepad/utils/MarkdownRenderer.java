@@ -0,0 +1,295 @@
+package com.example.notepad.utils;
+
+import android.content.Context;
+import android.graphics.Typeface;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.SpannedString;
+import android.text.style.BackgroundColorSpan;
+import android.text.style.BulletSpan;
+import android.text.style.ForegroundColorSpan;
+import android.text.style.LeadingMarginSpan;
+import android.text.style.QuoteSpan;
+import android.text.style.RelativeSizeSpan;
+import android.text.style.StrikethroughSpan;
+import android.text.style.StyleSpan;
+import android.text.style.TypefaceSpan;
+import android.text.style.URLSpan;
+
+import androidx.core.content.ContextCompat;
+import androidx.core.text.util.LinkifyCompat;
+
+import com.example.notepad.R;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Markdown渲染器
+ * 把 {@link MarkdownParser} 的解析结果渲染为样式文本：去掉标记字符（#、**、[]() 等），样式用Span表示。
+ * 完整渲染用于详情页；预览渲染用于首页列表，不改变字号和缩进，并跳过空行和分隔线。
+ * 结果是不可变的SpannedString，可以缓存并在线程间共享。可以在工作线程中调用
+ */
+public class MarkdownRenderer {
+    private static final float[] HEADING_SCALES = {1.5f, 1.35f, 1.2f, 1.1f, 1.05f, 1f};
+    private static final String RULE_TEXT = "——————";
+    private static final String PREVIEW_BULLET = "• ";
+    private static final String ELLIPSIS = "...";
+    // 半透明灰色，浅色和深色主题下都可以使用
+    private static final int CODE_BACKGROUND = 0x22888888;
+    // 预览最多解析的源文本长度（相对预览长度），避免为几个字符的预览解析整篇笔记
+    private static final int PREVIEW_SOURCE_FACTOR = 4;
+
+    private static final Metrics.Timer RENDER_TIMER = Metrics.timer("markdown.render");
+
+    private final int secondaryColor;
+    private final int listIndent;
+    private final int bulletGap;
+    private final int quoteStripe;
+    private final int quoteGap;
+
+    public MarkdownRenderer(Context context) {
+        float density = context.getResources().getDisplayMetrics().density;
+        secondaryColor = ContextCompat.getColor(context, R.color.text_secondary);
+        listIndent = Math.round(16 * density);
+        bulletGap = Math.round(8 * density);
+        quoteStripe = Math.round(3 * density);
+        quoteGap = Math.round(8 * density);
+    }
+
+    /**
+     * 完整渲染
+     * @param source Markdown文本
+     * @param linkMask 额外识别的链接类型（Linkify），0表示只保留Markdown链接
+     * @return 渲染结果
+     */
+    public Spanned render(CharSequence source, int linkMask) {
+        long start = RENDER_TIMER.start();
+        List<MarkdownParser.Block> blocks = MarkdownParser.parse(source).getBlocks();
+        SpannableStringBuilder out = new SpannableStringBuilder();
+        List<LinkRange> links = new ArrayList<>();
+        for (int i = 0; i < blocks.size(); i++) {
+            if (i > 0) {
+                out.append('\n');
+            }
+            appendBlock(out, source, blocks.get(i), false, links);
+        }
+        if (linkMask != 0) {
+            // Linkify会移除已有的URLSpan，所以先识别文本中的链接，再加上Markdown链接
+            LinkifyCompat.addLinks(out, linkMask);
+        }
+        for (LinkRange link : links) {
+            for (URLSpan span : out.getSpans(link.start, link.end, URLSpan.class)) {
+                out.removeSpan(span);
+            }
+            out.setSpan(new URLSpan(link.url), link.start, link.end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
+        Spanned result = new SpannedString(out);
+        RENDER_TIMER.stop(start);
+        return result;
+    }
+
+    /**
+     * 渲染列表预览：去除附件标记，只解析开头的一部分，超过最大长度时截断
+     * @param source 笔记内容
+     * @param maxLength 预览的最大长度
+     * @return 渲染结果
+     */
+    public Spanned renderPreview(String source, int maxLength) {
+        long start = RENDER_TIMER.start();
+        String text = NoteTextUtils.stripAttachmentMarkers(source);
+        boolean truncated = false;
+        int sourceLimit = maxLength * PREVIEW_SOURCE_FACTOR;
+        if (text.length() > sourceLimit) {
+            int lineEnd = text.lastIndexOf('\n', sourceLimit);
+            text = text.substring(0, lineEnd > 0 ? lineEnd : sourceLimit);
+            truncated = true;
+        }
+
+        SpannableStringBuilder out = new SpannableStringBuilder();
+        for (MarkdownParser.Block block : MarkdownParser.parse(text).getBlocks()) {
+            if (block.type == MarkdownParser.BLANK || block.type == MarkdownParser.RULE) {
+                continue;
+            }
+            if (out.length() > 0) {
+                out.append('\n');
+            }
+            appendBlock(out, text, block, true, null);
+            if (out.length() > maxLength) {
+                truncated = true;
+                break;
+            }
+        }
+
+        int end = out.length();
+        while (end > 0 && Character.isWhitespace(out.charAt(end - 1))) {
+            end--;
+        }
+        if (end > maxLength) {
+            end = Character.isHighSurrogate(out.charAt(maxLength - 1)) ? maxLength - 1 : maxLength;
+        }
+        out.delete(end, out.length());
+        if (truncated) {
+            out.append(ELLIPSIS);
+        }
+        Spanned result = new SpannedString(out);
+        RENDER_TIMER.stop(start);
+        return result;
+    }
+
+    private void appendBlock(SpannableStringBuilder out, CharSequence text, MarkdownParser.Block block,
+                             boolean preview, List<LinkRange> links) {
+        int base = block.getStart();
+        int start = out.length();
+        switch (block.type) {
+            case MarkdownParser.BLANK:
+                return;
+            case MarkdownParser.RULE:
+                out.append(RULE_TEXT);
+                out.setSpan(new ForegroundColorSpan(secondaryColor), start, out.length(),
+                    Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                return;
+            case MarkdownParser.CODE_BLOCK:
+                out.append(text, base + block.contentStart, base + block.contentEnd);
+                setCodeSpans(out, start, out.length());
+                return;
+            default:
+                break;
+        }
+
+        if (block.type == MarkdownParser.BULLET && preview) {
+            out.append(PREVIEW_BULLET);
+        } else if (block.type == MarkdownParser.ORDERED) {
+            // 有序列表保留序号
+            int markerStart = base;
+            while (text.charAt(markerStart) == ' ') {
+                markerStart++;
+            }
+            out.append(text, markerStart, base + block.contentStart);
+        }
+        appendInlines(out, text, block, links);
+        int end = out.length();
+        if (end == start) {
+            return;
+        }
+
+        switch (block.type) {
+            case MarkdownParser.HEADING:
+                if (!preview) {
+                    out.setSpan(new RelativeSizeSpan(HEADING_SCALES[block.level - 1]), start, end,
+                        Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                }
+                out.setSpan(new StyleSpan(Typeface.BOLD), start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                break;
+            case MarkdownParser.BULLET:
+                if (!preview) {
+                    setIndent(out, block.level, start, end);
+                    out.setSpan(new BulletSpan(bulletGap, secondaryColor), start, end,
+                        Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                }
+                break;
+            case MarkdownParser.ORDERED:
+                if (!preview) {
+                    setIndent(out, block.level, start, end);
+                }
+                break;
+            case MarkdownParser.QUOTE:
+                if (!preview) {
+                    out.setSpan(new QuoteSpan(secondaryColor, quoteStripe, quoteGap), start, end,
+                        Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 追加块的内容，去掉行内标记，并把行内元素的位置换算到输出中设置样式
+     */
+    private void appendInlines(SpannableStringBuilder out, CharSequence text, MarkdownParser.Block block,
+                               List<LinkRange> links) {
+        int from = block.getStart() + block.contentStart;
+        int length = block.contentEnd - block.contentStart;
+        boolean[] hidden = new boolean[length];
+        for (MarkdownParser.Inline inline : block.inlines) {
+            hide(hidden, inline.start - block.contentStart, inline.contentStart - block.contentStart);
+            hide(hidden, inline.contentEnd - block.contentStart, inline.end - block.contentStart);
+        }
+
+        // map[i] 是源文本第i个字符在输出中的位置（被隐藏时为下一个可见字符的位置）
+        int start = out.length();
+        int[] map = new int[length + 1];
+        StringBuilder visible = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            map[i] = start + visible.length();
+            if (!hidden[i]) {
+                visible.append(text.charAt(from + i));
+            }
+        }
+        map[length] = start + visible.length();
+        out.append(visible);
+
+        for (MarkdownParser.Inline inline : block.inlines) {
+            int spanStart = map[inline.contentStart - block.contentStart];
+            int spanEnd = map[inline.contentEnd - block.contentStart];
+            if (spanEnd <= spanStart) {
+                continue;
+            }
+            switch (inline.type) {
+                case MarkdownParser.BOLD:
+                    out.setSpan(new StyleSpan(Typeface.BOLD), spanStart, spanEnd, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                    break;
+                case MarkdownParser.ITALIC:
+                    out.setSpan(new StyleSpan(Typeface.ITALIC), spanStart, spanEnd, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                    break;
+                case MarkdownParser.STRIKE:
+                    out.setSpan(new StrikethroughSpan(), spanStart, spanEnd, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                    break;
+                case MarkdownParser.CODE:
+                    setCodeSpans(out, spanStart, spanEnd);
+                    break;
+                case MarkdownParser.LINK:
+                    if (links != null) {
+                        links.add(new LinkRange(spanStart, spanEnd, inline.url));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static void hide(boolean[] hidden, int from, int to) {
+        for (int i = Math.max(0, from); i < to && i < hidden.length; i++) {
+            hidden[i] = true;
+        }
+    }
+
+    private void setIndent(SpannableStringBuilder out, int level, int start, int end) {
+        if (level > 0) {
+            out.setSpan(new LeadingMarginSpan.Standard(listIndent * level), start, end,
+                Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
+    }
+
+    private static void setCodeSpans(SpannableStringBuilder out, int start, int end) {
+        if (end <= start) {
+            return;
+        }
+        out.setSpan(new TypefaceSpan("monospace"), start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        out.setSpan(new BackgroundColorSpan(CODE_BACKGROUND), start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+    }
+
+    private static final class LinkRange {
+        final int start;
+        final int end;
+        final String url;
+
+        LinkRange(int start, int end, String url) {
+            this.start = start;
+            this.end = end;
+            this.url = url;
+        }
+    }
+}
@@ -22,6 +22,10 @@ import java.io.OutputStream;
 public class MediaUtils {
     
     private static final String TAG = "MediaUtils";
+
+    // 保存选中文件的耗时和字节数统计
+    private static final Metrics.Timer SAVE_URI_TIMER = Metrics.timer("file.saveUri");
+    private static final Metrics.Histogram SAVE_URI_BYTES = Metrics.histogram("file.saveUri.bytes");
     
     /**
      * 创建选择图片的Intent
@@ -90,6 +94,7 @@ public class MediaUtils {
 
         InputStream inputStream = null;
         OutputStream outputStream = null;
+        long start = SAVE_URI_TIMER.start();
         
         try {
             // 如果是外部内容URI，尝试获取持久化权限
@@ -117,12 +122,9 @@ public class MediaUtils {
             }
 
             outputStream = new FileOutputStream(destinationFile);
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, bytesRead);
-            }
+            SAVE_URI_BYTES.record(IoUtils.copy(inputStream, outputStream, 8192));
             outputStream.flush();
+            SAVE_URI_TIMER.stop(start);
             
             Log.d(TAG, "文件保存成功: " + destinationFile.getAbsolutePath());
             return true;
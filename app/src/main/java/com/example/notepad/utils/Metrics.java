@@ -0,0 +1,380 @@
+package com.example.notepad.utils;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.GsonBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 性能指标注册表
+ * 提供无锁的计数器、直方图和计时器，用于统计数据库访问、文件复制、图片解码等热点路径的耗时
+ *
+ * 指标对象在类加载时创建并保存在静态字段中，记录时不需要查找；
+ * 关闭统计时计时器的start()直接返回0，stop()立即返回，开销只有一次volatile读
+ */
+public final class Metrics {
+    private static volatile boolean enabled = false;
+
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * 获取或创建计数器
+     */
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, Counter::new);
+    }
+
+    /**
+     * 获取或创建直方图
+     */
+    public static Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, Histogram::new);
+    }
+
+    /**
+     * 获取或创建计时器
+     */
+    public static Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, Timer::new);
+    }
+
+    /**
+     * 清空所有指标的数据，指标对象保持不变
+     */
+    public static void reset() {
+        for (Counter counter : COUNTERS.values()) {
+            counter.reset();
+        }
+        for (Histogram histogram : HISTOGRAMS.values()) {
+            histogram.reset();
+        }
+        for (Timer timer : TIMERS.values()) {
+            timer.histogram.reset();
+        }
+    }
+
+    /**
+     * 生成所有指标的快照，计时器单位为毫秒
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", enabled);
+        snapshot.put("timestamp", System.currentTimeMillis());
+
+        Map<String, Long> counters = new TreeMap<>();
+        for (Counter counter : COUNTERS.values()) {
+            counters.put(counter.name, counter.get());
+        }
+        snapshot.put("counters", counters);
+
+        Map<String, Object> timers = new TreeMap<>();
+        for (Timer timer : TIMERS.values()) {
+            if (timer.histogram.getCount() > 0) {
+                timers.put(timer.name, timer.histogram.summary(1_000_000.0));
+            }
+        }
+        snapshot.put("timersMs", timers);
+
+        Map<String, Object> histograms = new TreeMap<>();
+        for (Histogram histogram : HISTOGRAMS.values()) {
+            if (histogram.getCount() > 0) {
+                histograms.put(histogram.name, histogram.summary(1.0));
+            }
+        }
+        snapshot.put("histograms", histograms);
+
+        List<Map<String, Object>> pools = new ArrayList<>();
+        for (AppExecutors.PoolStats stats : AppExecutors.getInstance().getStats()) {
+            Map<String, Object> pool = new LinkedHashMap<>();
+            pool.put("name", stats.name);
+            pool.put("active", stats.activeCount);
+            pool.put("poolSize", stats.poolSize);
+            pool.put("queueDepth", stats.queueDepth);
+            pool.put("maxQueueDepth", stats.maxQueueDepth);
+            pool.put("submitted", stats.submitted);
+            pool.put("completed", stats.completed);
+            pool.put("cancelled", stats.cancelled);
+            pool.put("avgWaitMs", stats.avgWaitNanos / 1_000_000.0);
+            pool.put("maxWaitMs", stats.maxWaitNanos / 1_000_000.0);
+            pool.put("avgRunMs", stats.avgRunNanos / 1_000_000.0);
+            pools.add(pool);
+        }
+        snapshot.put("executors", pools);
+        return snapshot;
+    }
+
+    /**
+     * 导出为JSON
+     */
+    public static String toJson() {
+        return new GsonBuilder().setPrettyPrinting().create().toJson(snapshot());
+    }
+
+    /**
+     * 生成便于阅读的文本，用于调试页面显示
+     */
+    public static String dump() {
+        StringBuilder builder = new StringBuilder();
+        List<Timer> timers = new ArrayList<>(TIMERS.values());
+        Collections.sort(timers, (a, b) -> Long.compare(b.histogram.getSum(), a.histogram.getSum()));
+        builder.append("== 计时（按总耗时排序，单位ms）==\n");
+        for (Timer timer : timers) {
+            Histogram histogram = timer.histogram;
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            builder.append(String.format(Locale.US, "%s\n  n=%d total=%.1f p50=%.2f p95=%.2f p99=%.2f max=%.2f\n",
+                timer.name, histogram.getCount(),
+                histogram.getSum() / 1e6,
+                histogram.percentile(50) / 1e6,
+                histogram.percentile(95) / 1e6,
+                histogram.percentile(99) / 1e6,
+                histogram.getMax() / 1e6));
+        }
+
+        builder.append("\n== 直方图 ==\n");
+        for (Histogram histogram : new TreeMap<>(HISTOGRAMS).values()) {
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            builder.append(String.format(Locale.US, "%s\n  n=%d p50=%d p95=%d p99=%d max=%d\n",
+                histogram.name, histogram.getCount(),
+                histogram.percentile(50), histogram.percentile(95),
+                histogram.percentile(99), histogram.getMax()));
+        }
+
+        builder.append("\n== 计数 ==\n");
+        for (Counter counter : new TreeMap<>(COUNTERS).values()) {
+            builder.append(counter.name).append(" = ").append(counter.get()).append('\n');
+        }
+
+        builder.append("\n== 线程池 ==\n");
+        for (AppExecutors.PoolStats stats : AppExecutors.getInstance().getStats()) {
+            builder.append(stats).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 计数器
+     */
+    public static final class Counter {
+        private final String name;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        public void increment() {
+            if (enabled) {
+                value.increment();
+            }
+        }
+
+        public void add(long delta) {
+            if (enabled) {
+                value.add(delta);
+            }
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        void reset() {
+            value.reset();
+        }
+    }
+
+    /**
+     * 直方图
+     * 按对数分桶，每个2的幂区间再分为4个子桶，相对误差不超过25%；记录只需要几次原子操作
+     */
+    public static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 2;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKET_COUNT = 64 * SUB_BUCKETS;
+
+        private final String name;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        private Histogram(String name) {
+            this.name = name;
+        }
+
+        public void record(long value) {
+            if (enabled) {
+                recordValue(value);
+            }
+        }
+
+        void recordValue(long value) {
+            long v = Math.max(0, value);
+            buckets.incrementAndGet(bucketIndex(v));
+            count.increment();
+            sum.add(v);
+            long currentMax;
+            while (v > (currentMax = max.get())) {
+                if (max.compareAndSet(currentMax, v)) {
+                    break;
+                }
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getSum() {
+            return sum.sum();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * 估算分位数，返回所在桶的下界
+         * @param percentile 0-100
+         */
+        public long percentile(double percentile) {
+            long total = 0;
+            long[] snapshot = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                snapshot[i] = buckets.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile / 100.0 * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return Math.min(bucketLowerBound(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        /**
+         * 生成统计摘要
+         * @param scale 数值除以该值后输出（纳秒转毫秒传入1e6）
+         */
+        Map<String, Object> summary(double scale) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            long n = getCount();
+            summary.put("count", n);
+            summary.put("sum", getSum() / scale);
+            summary.put("mean", n > 0 ? getSum() / scale / n : 0);
+            summary.put("p50", percentile(50) / scale);
+            summary.put("p95", percentile(95) / scale);
+            summary.put("p99", percentile(99) / scale);
+            summary.put("max", getMax() / scale);
+            return summary;
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            sum.reset();
+            max.set(0);
+        }
+
+        private static int bucketIndex(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+            return exponent * SUB_BUCKETS + subBucket;
+        }
+
+        private static long bucketLowerBound(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = index / SUB_BUCKETS;
+            int subBucket = index % SUB_BUCKETS;
+            return (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        }
+    }
+
+    /**
+     * 计时器，耗时以纳秒记录在直方图中
+     * 用法：long start = TIMER.start(); ... TIMER.stop(start);
+     */
+    public static final class Timer {
+        private final String name;
+        private final Histogram histogram;
+
+        private Timer(String name) {
+            this.name = name;
+            this.histogram = new Histogram(name);
+        }
+
+        /**
+         * 开始计时
+         * @return 开始时间，统计关闭时返回0
+         */
+        public long start() {
+            return enabled ? System.nanoTime() : 0;
+        }
+
+        /**
+         * 结束计时
+         * @param start start()的返回值
+         */
+        public void stop(long start) {
+            if (start != 0) {
+                histogram.recordValue(System.nanoTime() - start);
+            }
+        }
+
+        public void record(long duration, @NonNull TimeUnit unit) {
+            if (enabled) {
+                histogram.recordValue(unit.toNanos(duration));
+            }
+        }
+
+        public Histogram getHistogram() {
+            return histogram;
+        }
+    }
+}
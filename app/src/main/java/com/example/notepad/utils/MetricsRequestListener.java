@@ -0,0 +1,55 @@
+package com.example.notepad.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+
+/**
+ * 统计Glide加载耗时的监听器
+ * 从创建请求开始计时，按数据来源（内存缓存、磁盘缓存、原始数据）分别计数，同时记录同名的追踪区段；
+ * 通过addListener添加，不影响请求原有的监听器
+ *
+ * 每次请求需要新建实例
+ */
+public class MetricsRequestListener<R> implements RequestListener<R> {
+    private final String name;
+    private final Metrics.Timer timer;
+    private final long start;
+    private final TraceRecorder.AsyncSpan span;
+
+    /**
+     * @param name 指标名称前缀，例如 glide.avatar
+     */
+    public MetricsRequestListener(String name) {
+        this.name = name;
+        this.timer = Metrics.timer(name);
+        this.start = timer.start();
+        this.span = TraceRecorder.beginAsync(name);
+    }
+
+    @Override
+    public boolean onLoadFailed(@Nullable GlideException e, Object model,
+            @NonNull Target<R> target, boolean isFirstResource) {
+        timer.stop(start);
+        span.end();
+        if (Metrics.isEnabled()) {
+            Metrics.counter(name + ".failed").increment();
+        }
+        return false;
+    }
+
+    @Override
+    public boolean onResourceReady(@NonNull R resource, @NonNull Object model, Target<R> target,
+            @NonNull DataSource dataSource, boolean isFirstResource) {
+        timer.stop(start);
+        span.end();
+        if (Metrics.isEnabled()) {
+            Metrics.counter(name + ".source." + dataSource.name()).increment();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.notepad.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+/**
+ * 整分钟时钟
+ * 页面可见期间在每个整分钟回调一次，页面不可见时停止，用于刷新相对时间显示
+ */
+public class MinuteTicker implements DefaultLifecycleObserver {
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable listener;
+    private final Runnable tickRunnable = new Runnable() {
+        @Override
+        public void run() {
+            tick();
+            scheduleNext();
+        }
+    };
+    private long lastTick = DateUtils.currentTick().getStartedAt();
+
+    /**
+     * @param owner 生命周期持有者，STARTED期间计时
+     * @param listener 每分钟在主线程中执行的回调
+     */
+    public MinuteTicker(LifecycleOwner owner, Runnable listener) {
+        this.listener = listener;
+        owner.getLifecycle().addObserver(this);
+    }
+
+    @Override
+    public void onStart(@NonNull LifecycleOwner owner) {
+        // 页面不可见期间跨过了整分钟，先补一次刷新
+        if (DateUtils.currentTick().getStartedAt() != lastTick) {
+            tick();
+        }
+        scheduleNext();
+    }
+
+    @Override
+    public void onStop(@NonNull LifecycleOwner owner) {
+        handler.removeCallbacks(tickRunnable);
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        owner.getLifecycle().removeObserver(this);
+    }
+
+    private void tick() {
+        lastTick = DateUtils.currentTick().getStartedAt();
+        listener.run();
+    }
+
+    private void scheduleNext() {
+        handler.removeCallbacks(tickRunnable);
+        handler.postDelayed(tickRunnable, DateUtils.millisUntilNextTick());
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.notepad.utils;
+
+/**
+ * 笔记文本处理工具类
+ * 不依赖Android框架，可以直接在JVM基准测试中使用
+ */
+public class NoteTextUtils {
+    public static final int PREVIEW_MAX_LENGTH = 120;
+
+    /**
+     * 提取列表中显示的笔记预览
+     * 去除图片标记、录音标记等非文本内容，并截取前若干个字符
+     * @param content 笔记内容
+     * @return 预览文本
+     */
+    public static String extractPreview(String content) {
+        String preview = stripAttachmentMarkers(content).trim();
+
+        // 截取内容长度
+        if (preview.length() > PREVIEW_MAX_LENGTH) {
+            preview = preview.substring(0, PREVIEW_MAX_LENGTH) + "...";
+        }
+        return preview;
+    }
+
+    /**
+     * 去除图片标记、录音标记、附件标记等非文本内容
+     * @param content 笔记内容
+     * @return 去除标记后的内容，content为null时返回空字符串
+     */
+    public static String stripAttachmentMarkers(String content) {
+        if (content == null) {
+            return "";
+        }
+        return content.replaceAll("\\[图片:.*?\\]", "")
+                      .replaceAll("\\[录音:.*?\\]", "")
+                      .replaceAll("\\[附件:.*?\\]", "");
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.notepad.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 手动排序的排序键（分数索引）
+ * 排序键是0到1之间的62进制小数的小数部分，按字符串比较即按数值比较（字符按ASCII顺序排列，
+ * 与SQLite默认的BINARY排序规则一致）。在两条笔记之间插入时生成介于两者之间的新键，
+ * 只需修改被移动的一行；多次在同一位置插入后键会变长，超过 {@link #REBALANCE_LENGTH} 时应重新均匀分配。
+ * 键不为空且不以'0'结尾，因此任意键之前总能再插入新的键。只依赖Java标准库，可以在单元测试中直接使用
+ */
+public final class OrderKeys {
+    static final String DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = DIGITS.length();
+
+    // 键超过该长度时需要重新分配
+    public static final int REBALANCE_LENGTH = 16;
+
+    private OrderKeys() {
+    }
+
+    /**
+     * 生成介于两个键之间的新键
+     * @param before 前一个键，为null表示最前面
+     * @param after 后一个键，为null表示最后面
+     * @return 新键，满足 before &lt; 新键 &lt; after
+     * @throws IllegalArgumentException 键不合法或 before 不小于 after
+     */
+    public static String between(String before, String after) {
+        String a = before != null ? before : "";
+        if (!a.isEmpty()) {
+            check(a);
+        }
+        if (after != null) {
+            check(after);
+            if (a.compareTo(after) >= 0) {
+                throw new IllegalArgumentException("排序键顺序错误: " + before + " >= " + after);
+            }
+        }
+        StringBuilder key = new StringBuilder();
+        midpoint(a, after, key);
+        return key.toString();
+    }
+
+    /**
+     * 生成count个均匀分布的递增键，用于初始化和重新分配
+     * 键的长度只与数量的对数有关，两端都留有空间
+     */
+    public static List<String> evenlySpaced(int count) {
+        List<String> keys = new ArrayList<>(count);
+        if (count <= 0) {
+            return keys;
+        }
+        // 键的位数：能容纳 count + 1 个间隔，再多一位使每个间隔中至少有BASE个可用值
+        int length = 1;
+        long range = BASE;
+        while (range < (long) count + 1) {
+            range *= BASE;
+            length++;
+        }
+        range *= BASE;
+        length++;
+        char[] digits = new char[length];
+        for (int i = 1; i <= count; i++) {
+            long value = range / (count + 1) * i;
+            for (int d = length - 1; d >= 0; d--) {
+                digits[d] = DIGITS.charAt((int) (value % BASE));
+                value /= BASE;
+            }
+            int end = length;
+            while (digits[end - 1] == '0') {
+                end--;
+            }
+            keys.add(new String(digits, 0, end));
+        }
+        return keys;
+    }
+
+    /**
+     * 判断键是否已经过长，需要重新分配所在分区的排序键
+     */
+    public static boolean needsRebalance(String key) {
+        return key == null || key.length() > REBALANCE_LENGTH;
+    }
+
+    /**
+     * 计算 a 与 b 之间的中间值，a 可以为空字符串（表示0），b 为null表示1
+     */
+    private static void midpoint(String a, String b, StringBuilder out) {
+        if (b != null) {
+            // 跳过公共前缀（a不足的位补0）
+            int n = 0;
+            while (n < b.length() && (n < a.length() ? a.charAt(n) : '0') == b.charAt(n)) {
+                n++;
+            }
+            if (n > 0) {
+                out.append(b, 0, n);
+                midpoint(a.length() > n ? a.substring(n) : "", b.substring(n), out);
+                return;
+            }
+        }
+        int digitA = a.isEmpty() ? 0 : DIGITS.indexOf(a.charAt(0));
+        int digitB = b != null ? DIGITS.indexOf(b.charAt(0)) : BASE;
+        if (digitB - digitA > 1) {
+            out.append(DIGITS.charAt((digitA + digitB + 1) / 2));
+        } else if (b != null && b.length() > 1) {
+            // b的首位本身就介于两者之间
+            out.append(b.charAt(0));
+        } else {
+            out.append(DIGITS.charAt(digitA));
+            midpoint(a.length() > 1 ? a.substring(1) : "", null, out);
+        }
+    }
+
+    private static void check(String key) {
+        if (key.isEmpty() || key.charAt(key.length() - 1) == '0') {
+            throw new IllegalArgumentException("排序键不合法: " + key);
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (DIGITS.indexOf(key.charAt(i)) < 0) {
+                throw new IllegalArgumentException("排序键不合法: " + key);
+            }
+        }
+    }
+}
@@ -1,110 +1,233 @@
 package com.example.notepad.utils;
 
 import android.util.Log;
+
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
 import java.util.Base64;
 
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * 密码哈希工具类
+ *
+ * 新密码使用PBKDF2-HMAC-SHA256，格式为 pbkdf2-sha256$迭代次数$salt$hash，
+ * 迭代次数按设备性能校准到目标耗时，并随哈希一起保存，以后提高强度不影响已有密码的验证；
+ * 旧版本的 salt:hash（单轮SHA-256）格式仍可验证，登录成功后由UserRepository升级
+ *
+ * 哈希计算是CPU密集型操作，必须在后台线程中执行
+ */
 public class PasswordUtils {
     private static final String TAG = "PasswordUtils";
     private static final int SALT_LENGTH = 16;
+    private static final int HASH_LENGTH_BITS = 256;
+
+    public static final String ALGORITHM_PBKDF2 = "pbkdf2-sha256";
+    private static final String PBKDF2_JCA_NAME = "PBKDF2WithHmacSHA256";
+
+    // 迭代次数的上下限，校准结果不会超出此范围
+    public static final int MIN_ITERATIONS = 10_000;
+    public static final int MAX_ITERATIONS = 600_000;
+    private static final int CALIBRATION_ITERATIONS = 10_000;
+    private static final int CALIBRATION_ROUNDS = 3;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // SecretKeyFactory和MessageDigest不是线程安全的，每个线程复用一个实例
+    private static final ThreadLocal<SecretKeyFactory> KEY_FACTORY = ThreadLocal.withInitial(() -> {
+        try {
+            return SecretKeyFactory.getInstance(PBKDF2_JCA_NAME);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    // 当前使用的迭代次数，由UserRepository在校准或读取配置后设置
+    private static volatile int iterations = 0;
 
     /**
      * 对密码进行加密
      * @param password 原始密码
-     * @return 加密后的密码（格式：salt:hash）
+     * @return 加密后的密码（格式：pbkdf2-sha256$iterations$salt$hash）
      */
     public static String hashPassword(String password) {
-        try {
-            if (password == null || password.isEmpty()) {
-                Log.e(TAG, "无法哈希空密码");
-                return null;
-            }
-
-            Log.d(TAG, "开始哈希密码，密码长度: " + password.length());
+        return hashPassword(password, getIterations());
+    }
 
-            // 生成随机盐值
-            SecureRandom random = new SecureRandom();
+    /**
+     * 使用指定迭代次数对密码进行加密
+     * @param password 原始密码
+     * @param iterationCount 迭代次数
+     * @return 加密后的密码，失败时返回null
+     */
+    public static String hashPassword(String password, int iterationCount) {
+        if (password == null || password.isEmpty()) {
+            Log.e(TAG, "无法哈希空密码");
+            return null;
+        }
+        try {
             byte[] salt = new byte[SALT_LENGTH];
-            random.nextBytes(salt);
-
-            // 将密码和盐值组合后进行SHA-256哈希
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            md.update(salt);
-            byte[] hashedPassword = md.digest(password.getBytes());
+            RANDOM.nextBytes(salt);
+            byte[] hash = pbkdf2(password, salt, iterationCount);
 
-            // 将盐值和哈希后的密码编码为Base64字符串
-            String saltString = Base64.getEncoder().encodeToString(salt);
-            String hashString = Base64.getEncoder().encodeToString(hashedPassword);
-
-            // 返回格式：salt:hash
-            String result = saltString + ":" + hashString;
-            Log.d(TAG, "密码哈希成功，结果长度: " + result.length());
-            return result;
-        } catch (NoSuchAlgorithmException e) {
-            Log.e(TAG, "加密密码失败: " + e.getMessage(), e);
-            return null;
+            Base64.Encoder encoder = Base64.getEncoder();
+            return ALGORITHM_PBKDF2 + "$" + iterationCount + "$"
+                + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
         } catch (Exception e) {
-            Log.e(TAG, "密码哈希过程中出现未知错误: " + e.getMessage(), e);
+            Log.e(TAG, "加密密码失败: " + e.getMessage(), e);
             return null;
         }
     }
 
     /**
-     * 验证密码
+     * 验证密码，同时支持新格式和旧的 salt:hash 格式
      * @param password 待验证的密码
      * @param storedPassword 存储的加密密码
      * @return 密码是否匹配
      */
     public static boolean verifyPassword(String password, String storedPassword) {
+        // 检查输入
+        if (password == null || password.isEmpty()) {
+            Log.e(TAG, "待验证的密码为空");
+            return false;
+        }
+        if (storedPassword == null || storedPassword.isEmpty()) {
+            Log.e(TAG, "存储的密码哈希为空");
+            return false;
+        }
+
         try {
-            Log.d(TAG, "开始验证密码");
-            
-            // 检查输入
-            if (password == null || password.isEmpty()) {
-                Log.e(TAG, "待验证的密码为空");
-                return false;
-            }
-            
-            if (storedPassword == null || storedPassword.isEmpty()) {
-                Log.e(TAG, "存储的密码哈希为空");
-                return false;
-            }
-            
-            // 分离存储的盐值和哈希值
-            String[] parts = storedPassword.split(":");
-            if (parts.length != 2) {
-                Log.e(TAG, "存储的密码格式错误，应为 salt:hash 格式");
-                return false;
+            if (storedPassword.startsWith(ALGORITHM_PBKDF2 + "$")) {
+                String[] parts = storedPassword.split("\\$");
+                if (parts.length != 4) {
+                    Log.e(TAG, "存储的密码格式错误，应为 algo$iterations$salt$hash 格式");
+                    return false;
+                }
+                int storedIterations = Integer.parseInt(parts[1]);
+                byte[] salt = Base64.getDecoder().decode(parts[2]);
+                byte[] storedHash = Base64.getDecoder().decode(parts[3]);
+                // 使用常量时间比较防止时序攻击
+                return MessageDigest.isEqual(storedHash, pbkdf2(password, salt, storedIterations));
             }
+            return verifyLegacyPassword(password, storedPassword);
+        } catch (Exception e) {
+            Log.e(TAG, "验证密码失败: " + e.getMessage(), e);
+            return false;
+        }
+    }
 
-            byte[] salt = Base64.getDecoder().decode(parts[0]);
-            byte[] storedHash = Base64.getDecoder().decode(parts[1]);
+    /**
+     * 判断存储的密码是否需要重新哈希（旧格式或迭代次数低于当前设置）
+     * @param storedPassword 存储的加密密码
+     */
+    public static boolean needsRehash(String storedPassword) {
+        if (storedPassword == null || !storedPassword.startsWith(ALGORITHM_PBKDF2 + "$")) {
+            return true;
+        }
+        String[] parts = storedPassword.split("\\$");
+        if (parts.length != 4) {
+            return true;
+        }
+        try {
+            return Integer.parseInt(parts[1]) < getIterations();
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
 
-            // 使用相同的盐值对输入的密码进行哈希
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            md.update(salt);
-            byte[] hashedPassword = md.digest(password.getBytes());
+    /**
+     * 按目标耗时校准迭代次数
+     * 先预热一次，再取多次测量中的最短耗时按比例推算，结果取整到千位
+     * @param targetMillis 单次哈希的目标耗时
+     * @return 校准后的迭代次数
+     */
+    public static int calibrateIterations(long targetMillis) {
+        try {
+            byte[] salt = new byte[SALT_LENGTH];
+            RANDOM.nextBytes(salt);
+            pbkdf2("calibration", salt, CALIBRATION_ITERATIONS);
 
-            // 比较哈希值
-            if (storedHash.length != hashedPassword.length) {
-                Log.e(TAG, "哈希长度不匹配");
-                return false;
+            long elapsedNanos = Long.MAX_VALUE;
+            for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+                long start = System.nanoTime();
+                pbkdf2("calibration", salt, CALIBRATION_ITERATIONS);
+                elapsedNanos = Math.min(elapsedNanos, Math.max(1, System.nanoTime() - start));
             }
-            
-            // 使用常量时间比较防止时序攻击
-            int diff = 0;
-            for (int i = 0; i < storedHash.length; i++) {
-                diff |= storedHash[i] ^ hashedPassword[i];
-            }
-            
-            boolean result = diff == 0;
-            Log.d(TAG, "密码验证结果: " + result);
+
+            long estimated = CALIBRATION_ITERATIONS * targetMillis * 1_000_000L / elapsedNanos;
+            int result = (int) Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, estimated / 1000 * 1000));
+            Log.d(TAG, "迭代次数校准完成: " + result + "（" + CALIBRATION_ITERATIONS + "次耗时 "
+                + elapsedNanos / 1000 + "us）");
             return result;
         } catch (Exception e) {
-            Log.e(TAG, "验证密码失败: " + e.getMessage(), e);
+            Log.e(TAG, "迭代次数校准失败: " + e.getMessage(), e);
+            return MIN_ITERATIONS;
+        }
+    }
+
+    /**
+     * 获取当前迭代次数，尚未设置时返回下限
+     */
+    public static int getIterations() {
+        int current = iterations;
+        return current > 0 ? current : MIN_ITERATIONS;
+    }
+
+    /**
+     * 设置当前迭代次数
+     */
+    public static void setIterations(int iterationCount) {
+        iterations = Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, iterationCount));
+    }
+
+    /**
+     * 是否已经设置过迭代次数
+     */
+    public static boolean isCalibrated() {
+        return iterations > 0;
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterationCount)
+            throws InvalidKeySpecException {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterationCount, HASH_LENGTH_BITS);
+        try {
+            return KEY_FACTORY.get().generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * 验证旧格式（salt:hash，单轮SHA-256）的密码
+     */
+    private static boolean verifyLegacyPassword(String password, String storedPassword) {
+        // 分离存储的盐值和哈希值
+        String[] parts = storedPassword.split(":");
+        if (parts.length != 2) {
+            Log.e(TAG, "存储的密码格式错误，应为 salt:hash 格式");
             return false;
         }
+
+        byte[] salt = Base64.getDecoder().decode(parts[0]);
+        byte[] storedHash = Base64.getDecoder().decode(parts[1]);
+
+        // 使用相同的盐值对输入的密码进行哈希
+        MessageDigest md = SHA_256.get();
+        md.reset();
+        md.update(salt);
+        byte[] hashedPassword = md.digest(password.getBytes());
+
+        // 使用常量时间比较防止时序攻击
+        return MessageDigest.isEqual(storedHash, hashedPassword);
     }
-} 
\ No newline at end of file
+}
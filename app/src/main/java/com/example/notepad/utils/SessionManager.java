@@ -5,11 +5,16 @@ import android.content.SharedPreferences;
 
 import com.example.notepad.data.model.User;
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 
 /**
  * 会话管理类，用于管理用户登录状态和存储用户信息
+ *
+ * 会话数据在进程内只解析一次，保存为不可变快照，所有SessionManager实例共享；
+ * 通过saveUser等方法修改时直接更新快照，其他途径修改SharedPreferences时由监听器重新加载
  */
 public class SessionManager {
+    private static final String TAG = "SessionManager";
     private static final String PREF_NAME = "QingNotePrefs";
     private static final String KEY_USER = "user";
     private static final String KEY_IS_LOGGED_IN = "isLoggedIn";
@@ -17,17 +22,43 @@ public class SessionManager {
     private static final String KEY_USERNAME = "username";
     private static final String KEY_EMAIL = "email";
     private static final String KEY_FULL_NAME = "fullName";
-    
+
+    private static final Gson GSON = new GsonBuilder()
+        .registerTypeAdapter(User.class, new UserTypeAdapter())
+        .create();
+
+    private static volatile Snapshot snapshot;
+
+    // SharedPreferences只弱引用监听器，必须由静态字段持有
+    private static final SharedPreferences.OnSharedPreferenceChangeListener PREFERENCE_LISTENER =
+        (sharedPreferences, key) -> {
+            Snapshot current = snapshot;
+            // 本进程通过saveUser写入的数据快照已是最新，无需重新解析
+            if (current != null && KEY_USER.equals(key)
+                    && current.userJson != null
+                    && current.userJson.equals(sharedPreferences.getString(KEY_USER, null))) {
+                return;
+            }
+            snapshot = null;
+        };
+    private static volatile boolean listenerRegistered = false;
+
     private final SharedPreferences prefs;
     private final SharedPreferences.Editor editor;
-    private final Gson gson;
-    
+
     public SessionManager(Context context) {
-        prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        prefs = context.getApplicationContext().getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
         editor = prefs.edit();
-        gson = new Gson();
+        if (!listenerRegistered) {
+            synchronized (SessionManager.class) {
+                if (!listenerRegistered) {
+                    prefs.registerOnSharedPreferenceChangeListener(PREFERENCE_LISTENER);
+                    listenerRegistered = true;
+                }
+            }
+        }
     }
-    
+
     /**
      * 创建登录会话
      */
@@ -38,92 +69,136 @@ public class SessionManager {
         editor.putString(KEY_EMAIL, email);
         editor.putString(KEY_FULL_NAME, fullName);
         editor.apply();
+        // apply已同步更新内存中的数据，下次读取时重新加载
+        snapshot = null;
     }
-    
+
     /**
      * 获取用户详细信息
      */
     public int getUserId() {
-        return prefs.getInt(KEY_USER_ID, -1);
+        return getSnapshot().userId;
     }
-    
+
     public String getUsername() {
-        User user = getCurrentUser();
+        User user = getSnapshot().user;
         return user != null ? user.getUsername() : "";
     }
-    
+
     public String getEmail() {
-        User user = getCurrentUser();
+        User user = getSnapshot().user;
         return user != null ? user.getEmail() : "";
     }
-    
+
     public String getFullName() {
-        User user = getCurrentUser();
+        User user = getSnapshot().user;
         return user != null ? user.getFullName() : "";
     }
-    
+
     /**
      * 检查用户是否已登录
      */
     public boolean isLoggedIn() {
-        return prefs.getBoolean(KEY_IS_LOGGED_IN, false);
+        return getSnapshot().loggedIn;
     }
-    
+
     /**
      * 清除会话，退出登录
      */
     public void logout() {
         editor.clear();
         editor.apply();
+        snapshot = Snapshot.EMPTY;
     }
 
     public void saveUser(User user) {
         if (user == null) {
-            android.util.Log.e("SessionManager", "尝试保存空用户");
+            android.util.Log.e(TAG, "尝试保存空用户");
             return;
         }
-        
+
         try {
-            String userJson = gson.toJson(user);
+            String userJson = GSON.toJson(user, User.class);
             editor.putString(KEY_USER, userJson);
             editor.putBoolean(KEY_IS_LOGGED_IN, true);
-            
+
             // 同时更新单独的字段，增加冗余以提高可靠性
             editor.putInt(KEY_USER_ID, user.getId());
             editor.putString(KEY_USERNAME, user.getUsername());
             editor.putString(KEY_EMAIL, user.getEmail());
             editor.putString(KEY_FULL_NAME, user.getFullName());
-            
-            // 使用apply异步写入，避免阻塞主线程
+
+            // 先更新快照，再使用apply异步写入，避免阻塞主线程
+            snapshot = new Snapshot(true, user.getId(), new User(user), userJson);
             editor.apply();
-            android.util.Log.d("SessionManager", "用户信息已保存: " + user.getUsername());
+            android.util.Log.d(TAG, "用户信息已保存: " + user.getUsername());
         } catch (Exception e) {
-            android.util.Log.e("SessionManager", "保存用户信息失败: " + e.getMessage());
+            android.util.Log.e(TAG, "保存用户信息失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 获取当前用户
+     * @return 用户对象的独立副本，调用方可以修改；未登录时返回null
+     */
     public User getCurrentUser() {
+        User user = getSnapshot().user;
+        return user != null ? new User(user) : null;
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            current = loadSnapshot();
+            snapshot = current;
+        }
+        return current;
+    }
+
+    private Snapshot loadSnapshot() {
+        boolean loggedIn = prefs.getBoolean(KEY_IS_LOGGED_IN, false);
+        int userId = prefs.getInt(KEY_USER_ID, -1);
         String userJson = prefs.getString(KEY_USER, null);
         User user = null;
-        
+
         if (userJson != null) {
             try {
-                user = gson.fromJson(userJson, User.class);
+                user = GSON.fromJson(userJson, User.class);
             } catch (Exception e) {
                 // JSON解析错误，尝试使用单独存储的字段重建用户对象
                 user = null;
             }
         }
-        
+
         // 如果无法从JSON获取，则尝试从单独的字段重建
-        if (user == null && isLoggedIn()) {
+        if (user == null && loggedIn) {
             user = new User();
-            user.setId(prefs.getInt(KEY_USER_ID, -1));
+            user.setId(userId);
             user.setUsername(prefs.getString(KEY_USERNAME, ""));
             user.setEmail(prefs.getString(KEY_EMAIL, ""));
             user.setFullName(prefs.getString(KEY_FULL_NAME, ""));
         }
-        
-        return user;
+
+        return new Snapshot(loggedIn, userId, user, userJson);
+    }
+
+    /**
+     * 会话快照，创建后不再修改
+     * 其中的User不会直接交给调用方，对外只返回副本
+     */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(false, -1, null, null);
+
+        final boolean loggedIn;
+        final int userId;
+        final User user;
+        final String userJson;
+
+        Snapshot(boolean loggedIn, int userId, User user, String userJson) {
+            this.loggedIn = loggedIn;
+            this.userId = userId;
+            this.user = user;
+            this.userJson = userJson;
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,151 @@
+package com.example.notepad.utils;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.notepad.data.AppDatabase;
+import com.example.notepad.data.model.Note;
+import com.example.notepad.data.repository.NoteRepository;
+import com.example.notepad.data.repository.UserRepository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 冷启动预热流程
+ * 在Application创建时于后台线程中提前打开数据库、读取会话、检查用户并预取首页笔记，
+ * 首页创建时直接使用已预热的数据，避免在主线程等待数据库打开和首次查询
+ *
+ * 数据库打开 ─┬─> 用户检查 ───┐
+ * 会话读取 ───┴─> 首页预取 ───┴─> 完成
+ */
+public class StartupPipeline {
+    private static final String TAG = "StartupPipeline";
+
+    private static volatile StartupPipeline instance;
+
+    private final long startTime = SystemClock.elapsedRealtime();
+    private final CompletableFuture<Void> databaseFuture;
+    private final CompletableFuture<Session> sessionFuture;
+    private final CompletableFuture<Integer> userFuture;
+    // 预取的首页笔记，只交给第一次读取的页面，之后释放
+    private final AtomicReference<List<Note>> prefetchedNotes = new AtomicReference<>();
+
+    private StartupPipeline(Context context) {
+        AppExecutors executors = AppExecutors.getInstance();
+
+        // 打开数据库并执行迁移，之后的查询无需再等待
+        databaseFuture = CompletableFuture.runAsync(() -> {
+            long stageStart = SystemClock.elapsedRealtime();
+            AppDatabase.getInstance(context).getOpenHelper().getWritableDatabase();
+            logStage("数据库打开", stageStart);
+        }, executors.io());
+
+        // 读取会话，同时将SharedPreferences文件加载进内存
+        sessionFuture = CompletableFuture.supplyAsync(() -> {
+            long stageStart = SystemClock.elapsedRealtime();
+            SessionManager sessionManager = new SessionManager(context);
+            Session session = sessionManager.isLoggedIn()
+                ? new Session(sessionManager.getUserId(), sessionManager.getUsername())
+                : null;
+            logStage("会话读取", stageStart);
+            return session;
+        }, executors.io());
+
+        // 确保用户存在（解决外键约束问题），返回已检查的用户ID
+        userFuture = databaseFuture.thenCombineAsync(sessionFuture, (ignored, session) -> {
+            if (session == null || session.userId == -1) {
+                return -1;
+            }
+            long stageStart = SystemClock.elapsedRealtime();
+            UserRepository.getInstance(context).ensureUserExistsSync(session.userId, session.username);
+            logStage("用户检查", stageStart);
+            return session.userId;
+        }, executors.diskWrite());
+
+        // 预取首页笔记并放入仓库缓存
+        CompletableFuture<Void> firstPageFuture = databaseFuture.thenCombineAsync(sessionFuture, (ignored, session) -> {
+            if (session == null || session.userId == -1) {
+                return null;
+            }
+            long stageStart = SystemClock.elapsedRealtime();
+            List<Note> notes = NoteRepository.getInstance(context).prefetchRecentNotes(session.userId);
+            logStage("首页预取(" + notes.size() + "条)", stageStart);
+            return notes;
+        }, executors.io()).thenAccept(prefetchedNotes::set);
+
+        CompletableFuture.allOf(userFuture, firstPageFuture).whenComplete((ignored, error) -> {
+            if (error != null) {
+                Log.e(TAG, "启动预热失败: " + error.getMessage());
+            } else {
+                Log.d(TAG, "启动预热完成，总耗时: " + (SystemClock.elapsedRealtime() - startTime) + "ms");
+            }
+        });
+    }
+
+    /**
+     * 启动预热流程，只在Application.onCreate中调用一次
+     */
+    public static void start(Context context) {
+        if (instance == null) {
+            synchronized (StartupPipeline.class) {
+                if (instance == null) {
+                    instance = new StartupPipeline(context.getApplicationContext());
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取预热流程实例
+     * @return 实例，未启动时返回null
+     */
+    public static StartupPipeline get() {
+        return instance;
+    }
+
+    /**
+     * 获取已预取的首页笔记，不会阻塞
+     * 预取结果只返回一次，之后的调用返回null，避免页面重建时再显示启动时的旧数据，也不再持有这份列表
+     * @param userId 当前用户ID
+     * @return 首页笔记，尚未完成、已被读取或用户不一致时返回null
+     */
+    public List<Note> getPrefetchedNotes(int userId) {
+        Session session = sessionFuture.getNow(null);
+        if (session == null || session.userId != userId) {
+            return null;
+        }
+        return prefetchedNotes.getAndSet(null);
+    }
+
+    /**
+     * 判断启动时是否已经确保该用户存在，不会阻塞
+     * @param userId 当前用户ID
+     */
+    public boolean isUserEnsured(int userId) {
+        if (!userFuture.isDone() || userFuture.isCompletedExceptionally()) {
+            return false;
+        }
+        return userFuture.getNow(-1) == userId;
+    }
+
+    private void logStage(String stage, long stageStart) {
+        long now = SystemClock.elapsedRealtime();
+        Log.d(TAG, stage + "耗时: " + (now - stageStart) + "ms, 距启动: " + (now - startTime) + "ms");
+    }
+
+    /**
+     * 启动时读取到的会话信息
+     */
+    private static class Session {
+        final int userId;
+        final String username;
+
+        Session(int userId, String username) {
+            this.userId = userId;
+            this.username = username;
+        }
+    }
+}
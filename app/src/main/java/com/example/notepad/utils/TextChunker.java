@@ -0,0 +1,67 @@
+package com.example.notepad.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 长文本分段
+ * 把长文本切成若干段，每段可以单独排版和显示（例如作为RecyclerView的一项），
+ * 避免一次测量和排版整篇文本。只依赖Java标准库，可以在单元测试中直接使用
+ */
+public final class TextChunker {
+    private TextChunker() {
+    }
+
+    /**
+     * 按段落切分文本，所有段依次拼接后与原文完全相同
+     * 段在换行符之后结束，长度达到目标值后在下一个换行处切分；
+     * 单个段落超过上限时在最后一个空白字符处（没有空白时直接）切分，不会拆开代理对
+     * @param text 文本
+     * @param targetLength 每段的目标长度
+     * @param maxLength 每段的最大长度
+     * @return 切分后的各段
+     */
+    public static List<String> split(String text, int targetLength, int maxLength) {
+        if (targetLength <= 0 || maxLength < targetLength) {
+            throw new IllegalArgumentException("targetLength=" + targetLength + ", maxLength=" + maxLength);
+        }
+        List<String> chunks = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return chunks;
+        }
+        int length = text.length();
+        int start = 0;
+        while (start < length) {
+            int end = findEnd(text, start, targetLength, maxLength);
+            chunks.add(text.substring(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static int findEnd(String text, int start, int targetLength, int maxLength) {
+        int length = text.length();
+        if (length - start <= maxLength) {
+            // 剩余部分不超过上限时，仍然优先在目标长度之后的换行处切分
+            int newline = text.indexOf('\n', Math.min(length, start + targetLength) - 1);
+            return newline >= 0 && newline + 1 < length ? newline + 1 : length;
+        }
+        int limit = start + maxLength;
+        int newline = text.indexOf('\n', start + targetLength - 1);
+        if (newline >= 0 && newline < limit) {
+            return newline + 1;
+        }
+        // 目标长度之后没有合适的换行，退回到上限之前的最后一个换行
+        newline = text.lastIndexOf('\n', limit - 1);
+        if (newline >= start) {
+            return newline + 1;
+        }
+        for (int i = limit - 1; i > start; i--) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                return i + 1;
+            }
+        }
+        // 没有空白字符，直接切分，但不拆开代理对
+        return Character.isHighSurrogate(text.charAt(limit - 1)) ? limit - 1 : limit;
+    }
+}
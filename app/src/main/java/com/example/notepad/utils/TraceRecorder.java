@@ -0,0 +1,284 @@
+package com.example.notepad.utils;
+
+import android.os.Process;
+import android.os.Trace;
+import android.util.JsonWriter;
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 性能追踪工具
+ * 同时输出两种追踪数据：
+ * 1. android.os.Trace 区段，使用Perfetto/systrace抓取系统追踪时可见；
+ * 2. 进程内录制的事件，停止录制时写入Chrome trace-event格式的JSON，可直接用Perfetto或about:tracing离线打开
+ *
+ * 两者都未开启时返回空实现，不分配对象也不读取时钟
+ *
+ * 同步区段：try (TraceRecorder.Section ignored = TraceRecorder.section("name")) { ... }
+ * 跨线程区段：TraceRecorder.AsyncSpan span = TraceRecorder.beginAsync("name"); ... span.end();
+ */
+public final class TraceRecorder {
+    private static final String TAG = "TraceRecorder";
+
+    // 录制的事件数上限，超出后丢弃新事件
+    private static final int MAX_EVENTS = 100_000;
+
+    private static final Section NOOP_SECTION = new Section(null, 0, 0);
+    private static final AsyncSpan NOOP_SPAN = new AsyncSpan(null, 0, false);
+
+    private static volatile boolean recording = false;
+    private static volatile long recordingStartedAt;
+
+    private static final Queue<Event> EVENTS = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger EVENT_COUNT = new AtomicInteger();
+    private static final AtomicInteger DROPPED_COUNT = new AtomicInteger();
+    private static final AtomicInteger NEXT_COOKIE = new AtomicInteger();
+    private static final Map<Integer, String> THREAD_NAMES = new ConcurrentHashMap<>();
+
+    private TraceRecorder() {
+    }
+
+    /**
+     * 开始同步区段，必须在同一线程中关闭
+     * @param name 区段名称
+     */
+    public static Section section(String name) {
+        boolean record = recording;
+        if (!record && !Trace.isEnabled()) {
+            return NOOP_SECTION;
+        }
+        Trace.beginSection(name);
+        return record ? new Section(name, nowMicros(), currentTid()) : new Section(name, 0, 0);
+    }
+
+    /**
+     * 开始跨线程区段，可以在任意线程结束
+     * @param name 区段名称
+     */
+    public static AsyncSpan beginAsync(String name) {
+        boolean record = recording;
+        boolean systrace = Trace.isEnabled();
+        if (!record && !systrace) {
+            return NOOP_SPAN;
+        }
+        int cookie = NEXT_COOKIE.incrementAndGet();
+        if (systrace) {
+            Trace.beginAsyncSection(name, cookie);
+        }
+        if (record) {
+            addEvent(new Event('b', name, nowMicros(), 0, currentTid(), cookie));
+        }
+        return new AsyncSpan(name, cookie, systrace);
+    }
+
+    /**
+     * 记录瞬时事件
+     */
+    public static void instant(String name) {
+        if (recording) {
+            addEvent(new Event('i', name, nowMicros(), 0, currentTid(), 0));
+        }
+    }
+
+    public static boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * 开始录制，清空之前录制的事件
+     */
+    public static synchronized void startRecording() {
+        EVENTS.clear();
+        EVENT_COUNT.set(0);
+        DROPPED_COUNT.set(0);
+        THREAD_NAMES.clear();
+        recordingStartedAt = System.currentTimeMillis();
+        recording = true;
+        Log.d(TAG, "开始录制追踪");
+    }
+
+    /**
+     * 停止录制并写入JSON文件，必须在工作线程中调用
+     * @param directory 输出目录
+     * @return 生成的文件，没有事件或写入失败时返回null
+     */
+    public static synchronized File stopRecording(File directory) {
+        recording = false;
+        if (EVENTS.isEmpty()) {
+            Log.d(TAG, "停止录制，没有记录到事件");
+            return null;
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.e(TAG, "无法创建追踪目录: " + directory);
+            return null;
+        }
+
+        String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US).format(new Date(recordingStartedAt));
+        File file = new File(directory, "trace_" + timeStamp + ".json");
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)))) {
+            writeTrace(writer);
+        } catch (IOException e) {
+            Log.e(TAG, "写入追踪文件失败: " + e.getMessage(), e);
+            return null;
+        } finally {
+            EVENTS.clear();
+            EVENT_COUNT.set(0);
+        }
+        Log.d(TAG, "追踪已保存: " + file.getAbsolutePath() + "，丢弃事件: " + DROPPED_COUNT.get());
+        return file;
+    }
+
+    private static void writeTrace(JsonWriter writer) throws IOException {
+        int pid = Process.myPid();
+        writer.beginObject();
+        writer.name("displayTimeUnit").value("ms");
+        writer.name("traceEvents").beginArray();
+
+        for (Map.Entry<Integer, String> thread : THREAD_NAMES.entrySet()) {
+            writer.beginObject();
+            writer.name("ph").value("M");
+            writer.name("name").value("thread_name");
+            writer.name("pid").value(pid);
+            writer.name("tid").value(thread.getKey());
+            writer.name("args").beginObject().name("name").value(thread.getValue()).endObject();
+            writer.endObject();
+        }
+
+        for (Event event : EVENTS) {
+            writer.beginObject();
+            writer.name("name").value(event.name);
+            writer.name("cat").value("qingnote");
+            writer.name("ph").value(String.valueOf(event.phase));
+            writer.name("ts").value(event.timestampMicros);
+            writer.name("pid").value(pid);
+            writer.name("tid").value(event.tid);
+            switch (event.phase) {
+                case 'X':
+                    writer.name("dur").value(event.durationMicros);
+                    break;
+                case 'b':
+                case 'e':
+                    writer.name("id").value(event.id);
+                    break;
+                case 'i':
+                    writer.name("s").value("t");
+                    break;
+                default:
+                    break;
+            }
+            writer.endObject();
+        }
+
+        writer.endArray();
+        writer.endObject();
+    }
+
+    private static void addEvent(Event event) {
+        if (EVENT_COUNT.incrementAndGet() > MAX_EVENTS) {
+            EVENT_COUNT.decrementAndGet();
+            DROPPED_COUNT.incrementAndGet();
+            return;
+        }
+        EVENTS.add(event);
+    }
+
+    private static long nowMicros() {
+        return System.nanoTime() / 1000;
+    }
+
+    private static int currentTid() {
+        int tid = Process.myTid();
+        if (!THREAD_NAMES.containsKey(tid)) {
+            THREAD_NAMES.put(tid, Thread.currentThread().getName());
+        }
+        return tid;
+    }
+
+    /**
+     * 同步区段
+     */
+    public static final class Section implements AutoCloseable {
+        private final String name;
+        private final long startMicros;
+        private final int tid;
+
+        private Section(String name, long startMicros, int tid) {
+            this.name = name;
+            this.startMicros = startMicros;
+            this.tid = tid;
+        }
+
+        @Override
+        public void close() {
+            if (name == null) {
+                return;
+            }
+            Trace.endSection();
+            if (startMicros != 0) {
+                addEvent(new Event('X', name, startMicros, nowMicros() - startMicros, tid, 0));
+            }
+        }
+    }
+
+    /**
+     * 跨线程区段，只能结束一次
+     */
+    public static final class AsyncSpan {
+        private final String name;
+        private final int cookie;
+        private final boolean systrace;
+        private volatile boolean ended;
+
+        private AsyncSpan(String name, int cookie, boolean systrace) {
+            this.name = name;
+            this.cookie = cookie;
+            this.systrace = systrace;
+        }
+
+        public void end() {
+            if (name == null || ended) {
+                return;
+            }
+            ended = true;
+            if (systrace) {
+                Trace.endAsyncSection(name, cookie);
+            }
+            if (recording) {
+                addEvent(new Event('e', name, nowMicros(), 0, currentTid(), cookie));
+            }
+        }
+    }
+
+    private static final class Event {
+        final char phase;
+        final String name;
+        final long timestampMicros;
+        final long durationMicros;
+        final int tid;
+        final int id;
+
+        Event(char phase, String name, long timestampMicros, long durationMicros, int tid, int id) {
+            this.phase = phase;
+            this.name = name;
+            this.timestampMicros = timestampMicros;
+            this.durationMicros = durationMicros;
+            this.tid = tid;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.notepad.utils;
+
+import com.example.notepad.data.model.User;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * User的JSON序列化适配器
+ * 手写字段读写，避免Gson反射；字段名与之前反射生成的JSON一致，已保存的会话可以直接读取
+ * User增加需要保存到会话的字段时，必须同时在这里添加
+ */
+public class UserTypeAdapter extends TypeAdapter<User> {
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_USERNAME = "username";
+    private static final String FIELD_EMAIL = "email";
+    private static final String FIELD_PASSWORD = "password";
+    private static final String FIELD_FULL_NAME = "fullName";
+    private static final String FIELD_AVATAR_URL = "avatarUrl";
+    private static final String FIELD_AVATAR_VERSION = "avatarVersion";
+
+    @Override
+    public void write(JsonWriter out, User user) throws IOException {
+        if (user == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name(FIELD_ID).value(user.getId());
+        writeString(out, FIELD_USERNAME, user.getUsername());
+        writeString(out, FIELD_EMAIL, user.getEmail());
+        writeString(out, FIELD_PASSWORD, user.getPassword());
+        writeString(out, FIELD_FULL_NAME, user.getFullName());
+        writeString(out, FIELD_AVATAR_URL, user.getAvatarUrl());
+        out.name(FIELD_AVATAR_VERSION).value(user.getAvatarVersion());
+        out.endObject();
+    }
+
+    @Override
+    public User read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        User user = new User();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case FIELD_ID:
+                    user.setId(in.nextInt());
+                    break;
+                case FIELD_USERNAME:
+                    user.setUsername(in.nextString());
+                    break;
+                case FIELD_EMAIL:
+                    user.setEmail(in.nextString());
+                    break;
+                case FIELD_PASSWORD:
+                    user.setPassword(in.nextString());
+                    break;
+                case FIELD_FULL_NAME:
+                    user.setFullName(in.nextString());
+                    break;
+                case FIELD_AVATAR_URL:
+                    user.setAvatarUrl(in.nextString());
+                    break;
+                case FIELD_AVATAR_VERSION:
+                    user.setAvatarVersion(in.nextLong());
+                    break;
+                default:
+                    // 忽略未知字段，兼容旧版本写入的数据
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return user;
+    }
+
+    private static void writeString(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+}
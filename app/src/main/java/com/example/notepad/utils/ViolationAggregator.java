@@ -0,0 +1,212 @@
+package com.example.notepad.utils;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * StrictMode违规汇总
+ * 按违规类型和调用栈中最靠近的应用代码位置去重，统计次数和阻塞耗时，并按总耗时排序
+ *
+ * 只依赖Java标准库和Gson，可以在单元测试中直接使用
+ */
+public class ViolationAggregator {
+    // 调用栈签名中保留的应用代码帧数
+    static final int SIGNATURE_FRAMES = 3;
+    // 报告中保留的完整调用栈帧数
+    private static final int SAMPLE_FRAMES = 20;
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final Type SITE_LIST_TYPE = new TypeToken<List<Site>>() { }.getType();
+
+    private final String appPackage;
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+
+    /**
+     * @param appPackage 应用代码的包名前缀，签名只取该包下的调用帧
+     */
+    public ViolationAggregator(String appPackage) {
+        this.appPackage = appPackage;
+    }
+
+    /**
+     * 记录一次违规
+     * @param type 违规类型，例如 DiskReadViolation
+     * @param stack 违规发生时的调用栈
+     * @param durationMillis 阻塞耗时，未知时传入负数
+     * @return 本次违规所属的位置
+     */
+    public Site record(String type, StackTraceElement[] stack, long durationMillis) {
+        String signature = signature(type, stack);
+        Site site = sites.computeIfAbsent(signature, key -> new Site(type, key, sampleStack(stack)));
+        site.add(durationMillis);
+        return site;
+    }
+
+    /**
+     * 合并之前保存的报告，用于跨进程累计
+     */
+    public void merge(List<Site> previous) {
+        if (previous == null) {
+            return;
+        }
+        for (Site old : previous) {
+            if (old == null || old.signature == null) {
+                continue;
+            }
+            Site site = sites.computeIfAbsent(old.signature, key -> new Site(old.type, key, old.stack));
+            site.merge(old);
+        }
+    }
+
+    /**
+     * 按总耗时（其次按次数）从高到低排序的违规位置
+     */
+    public List<Site> getRanked() {
+        List<Site> ranked = new ArrayList<>();
+        for (Site site : sites.values()) {
+            ranked.add(site.copy());
+        }
+        Collections.sort(ranked, (a, b) -> {
+            int byDuration = Long.compare(b.totalMillis, a.totalMillis);
+            return byDuration != 0 ? byDuration : Long.compare(b.count, a.count);
+        });
+        return ranked;
+    }
+
+    public int size() {
+        return sites.size();
+    }
+
+    public void clear() {
+        sites.clear();
+    }
+
+    public String toJson() {
+        return GSON.toJson(getRanked(), SITE_LIST_TYPE);
+    }
+
+    public static List<Site> fromJson(String json) {
+        return GSON.fromJson(json, SITE_LIST_TYPE);
+    }
+
+    /**
+     * 生成便于阅读的文本报告
+     * @param limit 最多列出的位置数
+     */
+    public String dump(int limit) {
+        StringBuilder builder = new StringBuilder("== 主线程I/O ==\n");
+        List<Site> ranked = getRanked();
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            Site site = ranked.get(i);
+            builder.append(String.format(Locale.US, "%d. %s n=%d total=%dms max=%dms\n",
+                i + 1, site.type, site.count, site.totalMillis, site.maxMillis));
+            builder.append("   ").append(site.signature.substring(site.signature.indexOf('|') + 1)
+                .replace("|", "\n   ")).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 计算调用栈签名：违规类型加上最靠近违规处的若干个应用代码帧
+     * 不包含行号以外的信息，同一处代码的违规总是得到相同的签名
+     */
+    String signature(String type, StackTraceElement[] stack) {
+        StringBuilder builder = new StringBuilder(type);
+        int frames = 0;
+        if (stack != null) {
+            for (StackTraceElement element : stack) {
+                if (!element.getClassName().startsWith(appPackage) || isInstrumentation(element)) {
+                    continue;
+                }
+                builder.append('|').append(element.getClassName()).append('.')
+                    .append(element.getMethodName()).append(':').append(element.getLineNumber());
+                if (++frames == SIGNATURE_FRAMES) {
+                    break;
+                }
+            }
+        }
+        if (frames == 0) {
+            // 没有应用代码帧（例如框架内部触发），退化为使用最顶部的帧
+            if (stack != null && stack.length > 0) {
+                builder.append('|').append(stack[0].getClassName()).append('.').append(stack[0].getMethodName());
+            } else {
+                builder.append("|unknown");
+            }
+        }
+        return builder.toString();
+    }
+
+    private boolean isInstrumentation(StackTraceElement element) {
+        // 检测器和追踪工具自身的帧不参与签名
+        String className = element.getClassName();
+        return className.startsWith(appPackage + ".utils.MainThreadIoDetector")
+            || className.startsWith(appPackage + ".utils.TraceRecorder");
+    }
+
+    private static List<String> sampleStack(StackTraceElement[] stack) {
+        List<String> sample = new ArrayList<>();
+        if (stack != null) {
+            for (int i = 0; i < stack.length && i < SAMPLE_FRAMES; i++) {
+                sample.add(stack[i].toString());
+            }
+        }
+        return sample;
+    }
+
+    /**
+     * 一个违规位置的统计
+     */
+    public static class Site {
+        public String type;
+        public String signature;
+        public long count;
+        public long totalMillis;
+        public long maxMillis;
+        public List<String> stack;
+
+        Site(String type, String signature, List<String> stack) {
+            this.type = type;
+            this.signature = signature;
+            this.stack = stack;
+        }
+
+        synchronized void add(long durationMillis) {
+            count++;
+            if (durationMillis > 0) {
+                totalMillis += durationMillis;
+                maxMillis = Math.max(maxMillis, durationMillis);
+            }
+        }
+
+        synchronized void merge(Site other) {
+            count += other.count;
+            totalMillis += other.totalMillis;
+            maxMillis = Math.max(maxMillis, other.maxMillis);
+        }
+
+        synchronized Site copy() {
+            Site copy = new Site(type, signature, stack);
+            copy.count = count;
+            copy.totalMillis = totalMillis;
+            copy.maxMillis = maxMillis;
+            return copy;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return signature + " n=" + count + " total=" + totalMillis + "ms max=" + maxMillis + "ms";
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.notepad.data;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录单个场景的耗时样本并计算分位数
+ */
+class LatencyRecorder {
+    private final String name;
+    private long[] samples = new long[64];
+    private int count = 0;
+
+    LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 执行一次操作并记录耗时
+     */
+    void time(Runnable operation) {
+        long start = System.nanoTime();
+        operation.run();
+        record(System.nanoTime() - start);
+    }
+
+    void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * 计算分位数（最近秩法）
+     * @param percentile 0-100
+     * @return 耗时（纳秒），没有样本时返回0
+     */
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    /**
+     * 生成统计摘要，耗时单位为毫秒
+     */
+    Map<String, Object> summary() {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("scenario", name);
+        summary.put("samples", count);
+        summary.put("p50Ms", toMillis(percentile(sorted, 50)));
+        summary.put("p95Ms", toMillis(percentile(sorted, 95)));
+        summary.put("p99Ms", toMillis(percentile(sorted, 99)));
+        summary.put("maxMs", toMillis(count > 0 ? sorted[count - 1] : 0));
+        return summary;
+    }
+
+    @Override
+    public String toString() {
+        Map<String, Object> summary = summary();
+        return String.format(Locale.US, "%-36s n=%-6d p50=%9.3fms p95=%9.3fms p99=%9.3fms max=%9.3fms",
+            name, count, summary.get("p50Ms"), summary.get("p95Ms"), summary.get("p99Ms"), summary.get("maxMs"));
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.notepad.data;
+
+import android.app.Application;
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.notepad.data.dao.AttachmentDao;
+import com.example.notepad.data.dao.NoteDao;
+import com.example.notepad.data.model.Attachment;
+import com.example.notepad.data.model.Note;
+import com.example.notepad.data.model.NoteWithAttachments;
+import com.example.notepad.data.model.User;
+import com.google.gson.GsonBuilder;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * NoteDao在生产数据规模下的性能测试
+ * 在JVM上使用Robolectric运行真实的Room/SQLite，数据库可以在内存中或临时文件中创建
+ * 使用空的Application，避免启动预热流程在后台打开正式数据库干扰计时
+ *
+ * 运行方式：
+ * ./gradlew :app:testDebugUnitTest --tests "*NoteDaoBenchmarkTest" -PbenchNotes=100000 -PbenchFileDb=true
+ *
+ * 结果输出到控制台，并以JSON格式写入 app/build/reports/room-benchmark/
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class NoteDaoBenchmarkTest {
+    private static final long SEED = 20250601L;
+    private static final int PAGE_SIZE = 20;
+    private static final int SEED_BATCH_SIZE = 5000;
+    private static final int SAMPLES = 200;
+    private static final int INSERT_BURST_SIZE = 500;
+
+    // 与NoteDao中的查询保持一致；分页查询按Room分页的方式在外层加LIMIT/OFFSET
+    private static final String PAGE_QUERY =
+        "SELECT * FROM (SELECT * FROM notes WHERE userId = ? ORDER BY updatedAt DESC) LIMIT ? OFFSET ?";
+    private static final String SEARCH_QUERY =
+        "SELECT * FROM notes WHERE userId = ? AND (title LIKE '%' || ? || '%' OR content LIKE '%' || ? || '%') ORDER BY updatedAt DESC";
+
+    private final int noteCount = Integer.getInteger("qingnote.bench.notes", 2000);
+    private final boolean fileDatabase = Boolean.getBoolean("qingnote.bench.fileDb");
+
+    private AppDatabase db;
+    private NoteDao noteDao;
+    private AttachmentDao attachmentDao;
+    private File databaseFile;
+    private SyntheticCorpus corpus;
+    private int userId;
+    private final List<Long> noteIds = new ArrayList<>();
+    private long attachmentCount = 0;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        if (fileDatabase) {
+            databaseFile = new File(context.getCacheDir(), "benchmark_" + System.nanoTime() + ".db");
+            db = Room.databaseBuilder(context, AppDatabase.class, databaseFile.getAbsolutePath())
+                .allowMainThreadQueries()
+                .build();
+        } else {
+            db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        }
+        noteDao = db.noteDao();
+        attachmentDao = db.attachmentDao();
+        corpus = new SyntheticCorpus(SEED);
+        userId = insertUser("bench_user");
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+        if (databaseFile != null) {
+            // 同时删除WAL/SHM/journal文件
+            for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+                new File(databaseFile.getPath() + suffix).delete();
+            }
+        }
+    }
+
+    @Test
+    public void runScenarios() throws IOException {
+        long seedStart = System.nanoTime();
+        seed(userId, noteCount, noteIds);
+        double seedSeconds = (System.nanoTime() - seedStart) / 1e9;
+        System.out.printf("已生成 %d 条笔记、%d 个附件，耗时 %.1fs（%s）%n",
+            noteCount, attachmentCount, seedSeconds, fileDatabase ? "文件数据库" : "内存数据库");
+
+        List<LatencyRecorder> results = new ArrayList<>();
+        results.add(pagingFirstPages());
+        results.add(pagingDeepPages());
+        results.add(search());
+        results.add(noteWithAttachments());
+        results.addAll(insertBursts());
+        results.add(cascadeDeletes());
+        results.add(deleteAllNotesByUser());
+
+        for (LatencyRecorder recorder : results) {
+            System.out.println(recorder);
+        }
+        writeReport(results, seedSeconds);
+    }
+
+    /**
+     * 首页及之后连续翻页，模拟用户打开应用后向下滚动
+     */
+    private LatencyRecorder pagingFirstPages() {
+        LatencyRecorder recorder = new LatencyRecorder("paging.first10Pages");
+        for (int round = 0; round < SAMPLES / 10; round++) {
+            for (int page = 0; page < 10; page++) {
+                int offset = page * PAGE_SIZE;
+                recorder.time(() -> assertRowCount(queryPage(offset), Math.min(PAGE_SIZE, Math.max(0, noteCount - offset))));
+            }
+        }
+        return recorder;
+    }
+
+    /**
+     * 随机跳转到较深的位置，OFFSET分页的代价随偏移量增长
+     */
+    private LatencyRecorder pagingDeepPages() {
+        LatencyRecorder recorder = new LatencyRecorder("paging.randomDeepPage");
+        for (int i = 0; i < SAMPLES; i++) {
+            int offset = corpus.nextInt(Math.max(1, noteCount - PAGE_SIZE));
+            recorder.time(() -> queryPage(offset));
+        }
+        return recorder;
+    }
+
+    private LatencyRecorder search() {
+        LatencyRecorder recorder = new LatencyRecorder("search.like");
+        for (int i = 0; i < SAMPLES / 4; i++) {
+            String query = corpus.randomWord();
+            recorder.time(() -> readAll(db.query(new SimpleSQLiteQuery(SEARCH_QUERY,
+                new Object[]{userId, query, query}))));
+        }
+        return recorder;
+    }
+
+    private LatencyRecorder noteWithAttachments() {
+        LatencyRecorder recorder = new LatencyRecorder("getNoteWithAttachments");
+        for (int i = 0; i < SAMPLES; i++) {
+            long noteId = noteIds.get(corpus.nextInt(noteIds.size()));
+            recorder.time(() -> {
+                NoteWithAttachments result = noteDao.getNoteWithAttachmentsSync(noteId);
+                assertNotNull(result);
+            });
+        }
+        return recorder;
+    }
+
+    /**
+     * 连续插入：每条单独提交（与编辑页保存相同）和在一个事务中批量提交
+     */
+    private List<LatencyRecorder> insertBursts() {
+        LatencyRecorder single = new LatencyRecorder("insert.singleCommit");
+        for (int i = 0; i < INSERT_BURST_SIZE; i++) {
+            Note note = corpus.nextNote(userId);
+            single.time(() -> noteIds.add(noteDao.insert(note)));
+        }
+
+        LatencyRecorder batched = new LatencyRecorder("insert.burst" + INSERT_BURST_SIZE + "InTransaction");
+        for (int round = 0; round < 5; round++) {
+            List<Note> notes = new ArrayList<>(INSERT_BURST_SIZE);
+            for (int i = 0; i < INSERT_BURST_SIZE; i++) {
+                notes.add(corpus.nextNote(userId));
+            }
+            batched.time(() -> db.runInTransaction(() -> {
+                for (Note note : notes) {
+                    noteIds.add(noteDao.insert(note));
+                }
+            }));
+        }
+
+        List<LatencyRecorder> recorders = new ArrayList<>();
+        recorders.add(single);
+        recorders.add(batched);
+        return recorders;
+    }
+
+    /**
+     * 删除单条笔记，附件通过外键级联删除
+     */
+    private LatencyRecorder cascadeDeletes() {
+        LatencyRecorder recorder = new LatencyRecorder("delete.noteCascade");
+        int deletes = Math.min(SAMPLES, noteIds.size() / 2);
+        for (int i = 0; i < deletes; i++) {
+            long noteId = noteIds.remove(corpus.nextInt(noteIds.size()));
+            Note note = noteDao.getNoteByIdSync(noteId);
+            recorder.time(() -> noteDao.delete(note));
+            assertNull(noteDao.getNoteWithAttachmentsSync(noteId));
+            assertEquals(0, count("SELECT COUNT(*) FROM attachments WHERE noteId = " + noteId));
+        }
+        return recorder;
+    }
+
+    /**
+     * 删除另一个用户的全部笔记（注销账号时的路径）
+     */
+    private LatencyRecorder deleteAllNotesByUser() {
+        int otherUserId = insertUser("bench_user_2");
+        int otherCount = Math.max(100, noteCount / 10);
+        seed(otherUserId, otherCount, new ArrayList<>());
+
+        LatencyRecorder recorder = new LatencyRecorder("delete.allNotesByUser(" + otherCount + ")");
+        recorder.time(() -> noteDao.deleteAllNotesByUser(otherUserId));
+        assertEquals(0, count("SELECT COUNT(*) FROM notes WHERE userId = " + otherUserId));
+        return recorder;
+    }
+
+    private void seed(int ownerId, int count, List<Long> ids) {
+        for (int start = 0; start < count; start += SEED_BATCH_SIZE) {
+            int end = Math.min(count, start + SEED_BATCH_SIZE);
+            int batchSize = end - start;
+            db.runInTransaction(() -> {
+                for (int i = 0; i < batchSize; i++) {
+                    long noteId = noteDao.insert(corpus.nextNote(ownerId));
+                    ids.add(noteId);
+                    for (Attachment attachment : corpus.nextAttachments(noteId)) {
+                        attachmentDao.insert(attachment);
+                        attachmentCount++;
+                    }
+                }
+            });
+        }
+    }
+
+    private int insertUser(String username) {
+        User user = new User(username, "password", username + "@example.com");
+        return (int) db.userDao().insert(user);
+    }
+
+    private Cursor queryPage(int offset) {
+        return db.query(new SimpleSQLiteQuery(PAGE_QUERY, new Object[]{userId, PAGE_SIZE, offset}));
+    }
+
+    private void assertRowCount(Cursor cursor, int expected) {
+        assertEquals(expected, readAll(cursor));
+    }
+
+    /**
+     * 读取游标中所有行的所有列，包含行数据的拷贝开销
+     * @return 行数
+     */
+    private static int readAll(Cursor cursor) {
+        try {
+            int rows = 0;
+            int columns = cursor.getColumnCount();
+            while (cursor.moveToNext()) {
+                for (int i = 0; i < columns; i++) {
+                    if (cursor.getType(i) == Cursor.FIELD_TYPE_STRING) {
+                        cursor.getString(i);
+                    } else {
+                        cursor.getLong(i);
+                    }
+                }
+                rows++;
+            }
+            return rows;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private long count(String sql) {
+        try (Cursor cursor = db.query(new SimpleSQLiteQuery(sql))) {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        }
+    }
+
+    private void writeReport(List<LatencyRecorder> results, double seedSeconds) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("notes", noteCount);
+        report.put("attachments", attachmentCount);
+        report.put("database", fileDatabase ? "file" : "memory");
+        report.put("seedSeconds", seedSeconds);
+        List<Map<String, Object>> scenarios = new ArrayList<>();
+        for (LatencyRecorder recorder : results) {
+            scenarios.add(recorder.summary());
+        }
+        report.put("scenarios", scenarios);
+
+        File dir = new File("build/reports/room-benchmark");
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("无法创建报告目录: " + dir.getAbsolutePath());
+        }
+        File file = new File(dir, "notes-" + noteCount + (fileDatabase ? "-file" : "-memory") + ".json");
+        try (Writer writer = new FileWriter(file)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(report, writer);
+        }
+        System.out.println("报告已写入: " + file.getAbsolutePath());
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.notepad.data;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.notepad.data.model.Note;
+import com.example.notepad.data.model.User;
+import com.example.notepad.data.repository.NoteRepository;
+import com.example.notepad.utils.Metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * NoteRepository缓存的失效测试
+ * 在JVM上使用Robolectric运行真实的Room/SQLite，通过Metrics中的计数器验证
+ * 被观察的笔记在数据库中被修改后，每次失效通知只重新查询一次
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class NoteRepositoryCacheTest {
+    private static final long TIMEOUT_MS = 5000;
+    // 收到新数据后再等待一段时间，确认没有多余的查询
+    private static final long SETTLE_MS = 300;
+
+    // 数据库不允许在主线程中访问，测试中的直接读写在单独的线程中执行
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+    private AppDatabase db;
+    private NoteRepository repository;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        Metrics.setEnabled(true);
+        db = AppDatabase.getInstance(context);
+        repository = NoteRepository.getInstance(context);
+    }
+
+    @After
+    public void tearDown() {
+        worker.shutdownNow();
+        Metrics.setEnabled(false);
+    }
+
+    @Test
+    public void externalUpdateReloadsObservedNoteOnce() throws Exception {
+        long insertInvalidations = repository.getInvalidationCount();
+        long noteId = onWorker(() -> {
+            String username = "cache_user_" + System.nanoTime();
+            User user = new User(username, "password", username + "@example.com");
+            int userId = (int) db.userDao().insert(user);
+            return db.noteDao().insert(new Note("标题", "内容", userId));
+        });
+        // 等待插入引起的失效通知，避免计入后面的统计
+        awaitUntil(() -> repository.getInvalidationCount() > insertInvalidations);
+
+        List<Note> emitted = new ArrayList<>();
+        Observer<Note> observer = emitted::add;
+        LiveData<Note> liveData = repository.getNoteById(noteId);
+        liveData.observeForever(observer);
+        awaitUntil(() -> emitted.size() == 1);
+        settle();
+
+        long queries = repository.getCachedQueryCount();
+        long invalidations = repository.getInvalidationCount();
+        onWorker(() -> {
+            Note note = db.noteDao().getNoteByIdSync(noteId);
+            note.setTitle("外部修改");
+            note.setUpdatedAt(new Date(note.getUpdatedAt().getTime() + 1000));
+            db.noteDao().update(note);
+            return null;
+        });
+        awaitUntil(() -> emitted.size() == 2);
+        settle();
+
+        assertEquals("外部修改", emitted.get(1).getTitle());
+        assertEquals(2, emitted.size());
+        assertEquals(1, repository.getInvalidationCount() - invalidations);
+        assertEquals(1, repository.getCachedQueryCount() - queries);
+
+        liveData.removeObserver(observer);
+    }
+
+    private <T> T onWorker(Callable<T> task) throws Exception {
+        return worker.submit(task).get();
+    }
+
+    /**
+     * 执行主线程中的任务直到条件满足，超时则失败
+     */
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("等待超时");
+            }
+            shadowOf(Looper.getMainLooper()).idle();
+            Thread.sleep(10);
+        }
+    }
+
+    private static void settle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + SETTLE_MS;
+        while (System.currentTimeMillis() < deadline) {
+            shadowOf(Looper.getMainLooper()).idle();
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.notepad.data;
+
+import com.example.notepad.data.model.Attachment;
+import com.example.notepad.data.model.Note;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 确定性的合成笔记语料
+ * 相同种子生成完全相同的数据，中英文混排，内容长度和附件数量按真实使用情况分布：
+ * 70%短笔记（50-500字符）、25%中等笔记（500-5000字符）、5%长笔记（5000-50000字符）；
+ * 60%无附件、30%有1-3个附件、10%有4-10个附件
+ */
+class SyntheticCorpus {
+    private static final String[] CJK_WORDS = {
+        "今天", "会议", "记录", "项目", "进度", "需要", "完成", "讨论", "轻笺", "笔记",
+        "周末", "计划", "购物", "清单", "学习", "总结", "问题", "方案", "测试", "发布",
+        "读书", "旅行", "预算", "健身", "电影", "想法", "待办", "日记", "工作", "生活"
+    };
+    private static final String[] LATIN_WORDS = {
+        "meeting", "todo", "review", "release", "draft", "android", "room", "paging",
+        "sync", "backup", "idea", "list", "note", "summary", "deadline", "design",
+        "budget", "travel", "reading", "workout"
+    };
+    private static final String[] ATTACHMENT_NAMES = {"IMG_%d.jpg", "audio_%d.m4a", "doc_%d.pdf"};
+    private static final String[] ATTACHMENT_MIME_TYPES = {"image/jpeg", "audio/mp4", "application/pdf"};
+
+    private final Random random;
+    private final long baseTime;
+    private int sequence = 0;
+
+    SyntheticCorpus(long seed) {
+        this.random = new Random(seed);
+        // 固定时间基准，保证排序结果可重复
+        this.baseTime = 1735689600000L;
+    }
+
+    /**
+     * 生成下一条笔记，更新时间依次递减
+     * @param userId 所属用户ID
+     */
+    Note nextNote(int userId) {
+        int index = sequence++;
+        Note note = new Note(nextTitle(index), nextText(nextContentLength()), userId);
+        Date updatedAt = new Date(baseTime - index * 60_000L - random.nextInt(60_000));
+        note.setCreatedAt(updatedAt);
+        note.setUpdatedAt(updatedAt);
+        return note;
+    }
+
+    /**
+     * 按分布生成附件列表
+     * @param noteId 所属笔记ID
+     */
+    List<Attachment> nextAttachments(long noteId) {
+        int bucket = random.nextInt(100);
+        int count;
+        if (bucket < 60) {
+            count = 0;
+        } else if (bucket < 90) {
+            count = 1 + random.nextInt(3);
+        } else {
+            count = 4 + random.nextInt(7);
+        }
+        List<Attachment> attachments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int type = random.nextInt(ATTACHMENT_NAMES.length);
+            String name = String.format(ATTACHMENT_NAMES[type], random.nextInt(1_000_000));
+            Attachment attachment = new Attachment();
+            attachment.setNoteId(noteId);
+            attachment.setType(type + 1);
+            attachment.setName(name);
+            attachment.setPath("/data/user/0/com.example.notepad/files/" + name);
+            attachment.setMimeType(ATTACHMENT_MIME_TYPES[type]);
+            attachment.setSize(1024L + random.nextInt(8 * 1024 * 1024));
+            attachments.add(attachment);
+        }
+        return attachments;
+    }
+
+    /**
+     * 随机取一个词作为搜索关键字
+     */
+    String randomWord() {
+        return random.nextBoolean()
+            ? CJK_WORDS[random.nextInt(CJK_WORDS.length)]
+            : LATIN_WORDS[random.nextInt(LATIN_WORDS.length)];
+    }
+
+    int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    private int nextContentLength() {
+        int bucket = random.nextInt(100);
+        if (bucket < 70) {
+            return 50 + random.nextInt(450);
+        } else if (bucket < 95) {
+            return 500 + random.nextInt(4500);
+        } else {
+            return 5000 + random.nextInt(45000);
+        }
+    }
+
+    private String nextTitle(int index) {
+        return CJK_WORDS[random.nextInt(CJK_WORDS.length)]
+            + LATIN_WORDS[random.nextInt(LATIN_WORDS.length)] + " " + index;
+    }
+
+    private String nextText(int length) {
+        StringBuilder builder = new StringBuilder(length + 16);
+        while (builder.length() < length) {
+            if (random.nextInt(3) == 0) {
+                builder.append(LATIN_WORDS[random.nextInt(LATIN_WORDS.length)]).append(' ');
+            } else {
+                builder.append(CJK_WORDS[random.nextInt(CJK_WORDS.length)]);
+            }
+            if (random.nextInt(12) == 0) {
+                builder.append(random.nextBoolean() ? '\n' : '，');
+            }
+        }
+        builder.setLength(length);
+        return builder.toString();
+    }
+}
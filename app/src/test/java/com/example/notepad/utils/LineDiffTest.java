@@ -0,0 +1,78 @@
+package com.example.notepad.utils;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 按行差异的补丁计算和还原
+ */
+public class LineDiffTest {
+    private static void assertRoundTrip(String oldText, String newText) {
+        String patch = LineDiff.diff(oldText, newText, Integer.MAX_VALUE);
+        assertEquals(newText, LineDiff.apply(oldText, patch));
+    }
+
+    @Test
+    public void identicalTextsProduceEmptyPatch() {
+        assertEquals("", LineDiff.diff("a\nb", "a\nb", 10));
+        assertEquals("a\nb", LineDiff.apply("a\nb", ""));
+    }
+
+    @Test
+    public void singleLineEditOnlyStoresChangedLine() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.append("第").append(i).append("行内容\n");
+        }
+        String oldText = builder.toString();
+        String newText = oldText.replace("第500行内容", "第500行内容，已修改");
+
+        String patch = LineDiff.diff(oldText, newText, 100);
+        assertEquals("500,1,1\n第500行内容，已修改", patch);
+        assertEquals(newText, LineDiff.apply(oldText, patch));
+    }
+
+    @Test
+    public void insertionsDeletionsAndLineEndings() {
+        assertRoundTrip("", "a");
+        assertRoundTrip("a", "");
+        assertRoundTrip("a\nb\nc", "a\nc");
+        assertRoundTrip("a\nc", "x\na\nb\nc\n");
+        assertRoundTrip("a\nb\n", "a\nb");
+        assertRoundTrip("1,2,3\nb", "1,2,3\n4,5,6\nb");
+        assertRoundTrip("a\nb\nc\na\nb\nb\na", "c\nb\na\nb\na\nc");
+    }
+
+    @Test
+    public void tooManyEditsReturnsNull() {
+        assertNull(LineDiff.diff("a\nb\nc\nd", "w\nx\ny\nz", 3));
+    }
+
+    @Test
+    public void randomEditsRoundTrip() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            StringBuilder oldText = new StringBuilder();
+            StringBuilder newText = new StringBuilder();
+            int lines = random.nextInt(30);
+            for (int i = 0; i < lines; i++) {
+                String line = "l" + random.nextInt(8);
+                int op = random.nextInt(4);
+                if (op != 1) {
+                    oldText.append(line).append('\n');
+                }
+                if (op != 2) {
+                    newText.append(op == 3 ? "m" + random.nextInt(8) : line).append('\n');
+                }
+            }
+            assertRoundTrip(oldText.toString(), newText.toString());
+            String patch = LineDiff.diff(oldText.toString(), newText.toString(), Integer.MAX_VALUE);
+            assertTrue(patch.length() <= newText.length() + oldText.length() + 16 * lines + 16);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.notepad.utils;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Markdown块和行内元素的解析，以及增量解析与完整解析结果一致
+ */
+public class MarkdownParserTest {
+
+    private static String describe(MarkdownParser.Document document) {
+        StringBuilder builder = new StringBuilder();
+        for (MarkdownParser.Block block : document.getBlocks()) {
+            builder.append(block.type).append('/').append(block.level).append('@')
+                .append(block.getStart()).append('-').append(block.getEnd())
+                .append('[').append(block.contentStart).append(',').append(block.contentEnd).append(']');
+            for (MarkdownParser.Inline inline : block.inlines) {
+                builder.append(' ').append(inline.type).append(':').append(inline.start).append('-').append(inline.end)
+                    .append('(').append(inline.contentStart).append(',').append(inline.contentEnd).append(')');
+                if (inline.url != null) {
+                    builder.append(inline.url);
+                }
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void blocksAreRecognized() {
+        String text = "# 标题\n- 列表\n2. 第二项\n> 引用\n---\n\n```\ncode *x*\n```\n正文";
+        List<MarkdownParser.Block> blocks = MarkdownParser.parse(text).getBlocks();
+        assertEquals(8, blocks.size());
+        assertEquals(MarkdownParser.HEADING, blocks.get(0).type);
+        assertEquals(1, blocks.get(0).level);
+        assertEquals(2, blocks.get(0).contentStart);
+        assertEquals(MarkdownParser.BULLET, blocks.get(1).type);
+        assertEquals(MarkdownParser.ORDERED, blocks.get(2).type);
+        assertEquals(MarkdownParser.QUOTE, blocks.get(3).type);
+        assertEquals(MarkdownParser.RULE, blocks.get(4).type);
+        assertEquals(MarkdownParser.BLANK, blocks.get(5).type);
+        MarkdownParser.Block code = blocks.get(6);
+        assertEquals(MarkdownParser.CODE_BLOCK, code.type);
+        assertTrue(code.inlines.isEmpty());
+        assertEquals("code *x*", text.substring(code.getStart() + code.contentStart, code.getStart() + code.contentEnd));
+        assertEquals(MarkdownParser.PARAGRAPH, blocks.get(7).type);
+    }
+
+    @Test
+    public void inlinesAreRecognized() {
+        String text = "**粗** *斜* ~~删~~ `代码` [链接](https://example.com) snake_case_name \\*字面\\*";
+        MarkdownParser.Block block = MarkdownParser.parse(text).getBlocks().get(0);
+        int[] counts = new int[6];
+        for (MarkdownParser.Inline inline : block.inlines) {
+            counts[inline.type]++;
+            if (inline.type == MarkdownParser.LINK) {
+                assertEquals("https://example.com", inline.url);
+                assertEquals("链接", text.substring(inline.contentStart, inline.contentEnd));
+            }
+            if (inline.type == MarkdownParser.BOLD) {
+                assertEquals("粗", text.substring(inline.contentStart, inline.contentEnd));
+            }
+        }
+        assertEquals(1, counts[MarkdownParser.BOLD]);
+        assertEquals(1, counts[MarkdownParser.ITALIC]);
+        assertEquals(1, counts[MarkdownParser.STRIKE]);
+        assertEquals(1, counts[MarkdownParser.CODE]);
+        assertEquals(1, counts[MarkdownParser.LINK]);
+        assertEquals(2, counts[MarkdownParser.ESCAPE]);
+    }
+
+    @Test
+    public void editInsideLineReparsesOnlyThatBlock() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.append("第").append(i).append("行 **重点**\n");
+        }
+        String before = builder.toString();
+        MarkdownParser.Document document = MarkdownParser.parse(before);
+        int editStart = before.indexOf("第500行");
+        String after = before.substring(0, editStart) + "# " + before.substring(editStart);
+
+        MarkdownParser.Document reparsed = MarkdownParser.reparse(document, after, editStart, 0, 2);
+        assertEquals(1, reparsed.getChangedTo() - reparsed.getChangedFrom());
+        assertEquals(MarkdownParser.HEADING, reparsed.getBlocks().get(500).type);
+        assertEquals(describe(MarkdownParser.parse(after)), describe(reparsed));
+    }
+
+    @Test
+    public void openingFenceReparsesUntilClosed() {
+        String before = "a\nb\nc\n```\nd";
+        MarkdownParser.Document document = MarkdownParser.parse(before);
+        String after = "```\n" + before;
+        MarkdownParser.Document reparsed = MarkdownParser.reparse(document, after, 0, 0, 4);
+        assertEquals(describe(MarkdownParser.parse(after)), describe(reparsed));
+        assertEquals(MarkdownParser.CODE_BLOCK, reparsed.getBlocks().get(0).type);
+    }
+
+    @Test
+    public void randomEditsMatchFullParse() {
+        String[] pieces = {"# ", "- ", "1. ", "> ", "```", "---", "**", "*", "_", "~~", "`", "[a](b)", "\n", "\n\n",
+            "文字", " ", "x", "\\*"};
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append(pieces[random.nextInt(pieces.length)]);
+        }
+        MarkdownParser.Document document = MarkdownParser.parse(text);
+        for (int round = 0; round < 500; round++) {
+            int start = random.nextInt(text.length() + 1);
+            int removed = Math.min(random.nextInt(4), text.length() - start);
+            String inserted = random.nextBoolean() ? pieces[random.nextInt(pieces.length)] : "";
+            text.replace(start, start + removed, inserted);
+            document = MarkdownParser.reparse(document, text, start, removed, inserted.length());
+            assertEquals("round " + round, describe(MarkdownParser.parse(text)), describe(document));
+        }
+    }
+}
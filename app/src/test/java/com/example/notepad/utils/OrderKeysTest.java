@@ -0,0 +1,93 @@
+package com.example.notepad.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 排序键：新键总在两个键之间，均匀分配的键递增且较短
+ */
+public class OrderKeysTest {
+
+    private static void assertBetween(String before, String key, String after) {
+        assertTrue(key + " 应大于 " + before, before == null || before.compareTo(key) < 0);
+        assertTrue(key + " 应小于 " + after, after == null || key.compareTo(after) < 0);
+        assertTrue("不应以0结尾: " + key, key.charAt(key.length() - 1) != '0');
+    }
+
+    @Test
+    public void firstKeyAndEnds() {
+        String first = OrderKeys.between(null, null);
+        assertEquals(1, first.length());
+        assertBetween(null, OrderKeys.between(null, first), first);
+        assertBetween(first, OrderKeys.between(first, null), null);
+    }
+
+    @Test
+    public void adjacentDigitsExtendKey() {
+        assertBetween("1", OrderKeys.between("1", "2"), "2");
+        assertBetween("1z", OrderKeys.between("1z", "2"), "2");
+        assertBetween(null, OrderKeys.between(null, "01"), "01");
+        assertBetween("zz", OrderKeys.between("zz", null), null);
+        assertBetween(null, OrderKeys.between(null, "0001"), "0001");
+    }
+
+    @Test
+    public void invalidKeysAreRejected() {
+        String[][] cases = {{"2", "1"}, {"1", "1"}, {"10", "2"}, {"1-", "2"}, {"1", "1-"}};
+        for (String[] pair : cases) {
+            try {
+                OrderKeys.between(pair[0], pair[1]);
+                fail("应拒绝: " + pair[0] + ", " + pair[1]);
+            } catch (IllegalArgumentException expected) {
+                // 预期的异常
+            }
+        }
+    }
+
+    @Test
+    public void repeatedInsertsStayOrdered() {
+        Random random = new Random(7);
+        List<String> keys = new ArrayList<>();
+        keys.add(OrderKeys.between(null, null));
+        for (int i = 0; i < 2000; i++) {
+            int position = random.nextInt(keys.size() + 1);
+            String before = position > 0 ? keys.get(position - 1) : null;
+            String after = position < keys.size() ? keys.get(position) : null;
+            String key = OrderKeys.between(before, after);
+            assertBetween(before, key, after);
+            keys.add(position, key);
+        }
+    }
+
+    @Test
+    public void insertingAtTopGrowsSlowly() {
+        String first = OrderKeys.between(null, null);
+        for (int i = 0; i < 60; i++) {
+            first = OrderKeys.between(null, first);
+        }
+        assertTrue(first, first.length() <= 12);
+        assertTrue(OrderKeys.needsRebalance(first + "abcdefgh"));
+    }
+
+    @Test
+    public void evenlySpacedKeysIncrease() {
+        for (int count : new int[] {1, 2, 61, 62, 1000, 50_000}) {
+            List<String> keys = OrderKeys.evenlySpaced(count);
+            assertEquals(count, keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                String before = i > 0 ? keys.get(i - 1) : null;
+                assertBetween(before, keys.get(i), null);
+                assertTrue(!OrderKeys.needsRebalance(keys.get(i)));
+            }
+            // 两端都留有空间
+            assertBetween(null, OrderKeys.between(null, keys.get(0)), keys.get(0));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.notepad.utils;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 长文本分段
+ */
+public class TextChunkerTest {
+    private static String join(List<String> chunks) {
+        StringBuilder builder = new StringBuilder();
+        for (String chunk : chunks) {
+            builder.append(chunk);
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void shortTextIsSingleChunk() {
+        List<String> chunks = TextChunker.split("一行\n两行", 100, 200);
+        assertEquals(1, chunks.size());
+        assertEquals("一行\n两行", chunks.get(0));
+        assertTrue(TextChunker.split("", 100, 200).isEmpty());
+    }
+
+    @Test
+    public void splitsAtParagraphsAfterTarget() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            builder.append("第").append(i).append("段内容，长度差不多。\n");
+        }
+        String text = builder.toString();
+        List<String> chunks = TextChunker.split(text, 50, 200);
+        assertEquals(text, join(chunks));
+        for (String chunk : chunks) {
+            assertTrue(chunk.length() <= 200);
+            assertTrue(chunk.endsWith("\n"));
+        }
+    }
+
+    @Test
+    public void longParagraphIsSplitAtWhitespaceOrHardLimit() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            builder.append("word ");
+        }
+        builder.append("😀".repeat(300));
+        String text = builder.toString();
+        List<String> chunks = TextChunker.split(text, 64, 101);
+        assertEquals(text, join(chunks));
+        for (String chunk : chunks) {
+            assertTrue(chunk.length() <= 101);
+            assertTrue(!Character.isHighSurrogate(chunk.charAt(chunk.length() - 1)));
+        }
+        assertTrue(chunks.get(0).endsWith(" "));
+    }
+}
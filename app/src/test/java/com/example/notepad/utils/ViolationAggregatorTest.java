@@ -0,0 +1,80 @@
+package com.example.notepad.utils;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 主线程违规汇总的去重、排序和报告读写
+ */
+public class ViolationAggregatorTest {
+    private static final String APP_PACKAGE = "com.example.notepad";
+
+    private static StackTraceElement[] stack(String... appFrames) {
+        StackTraceElement[] elements = new StackTraceElement[appFrames.length + 2];
+        elements[0] = new StackTraceElement("android.os.StrictMode$AndroidBlockGuardPolicy", "onReadFromDisk", "StrictMode.java", 1);
+        elements[1] = new StackTraceElement("java.io.File", "exists", "File.java", 2);
+        for (int i = 0; i < appFrames.length; i++) {
+            elements[i + 2] = new StackTraceElement(APP_PACKAGE + "." + appFrames[i], "run", appFrames[i] + ".java", 10 + i);
+        }
+        return elements;
+    }
+
+    @Test
+    public void sameAppFramesAreDeduplicated() {
+        ViolationAggregator aggregator = new ViolationAggregator(APP_PACKAGE);
+        aggregator.record("DiskReadViolation", stack("ui.note.CreateNoteActivity", "ui.base.BaseActivity"), 12);
+        aggregator.record("DiskReadViolation", stack("ui.note.CreateNoteActivity", "ui.base.BaseActivity"), 30);
+
+        List<ViolationAggregator.Site> ranked = aggregator.getRanked();
+        assertEquals(1, ranked.size());
+        assertEquals(2, ranked.get(0).count);
+        assertEquals(42, ranked.get(0).totalMillis);
+        assertEquals(30, ranked.get(0).maxMillis);
+    }
+
+    @Test
+    public void typeAndCallSiteAreSeparated() {
+        ViolationAggregator aggregator = new ViolationAggregator(APP_PACKAGE);
+        String read = aggregator.signature("DiskReadViolation", stack("ui.note.CreateNoteActivity"));
+        String write = aggregator.signature("DiskWriteViolation", stack("ui.note.CreateNoteActivity"));
+        String other = aggregator.signature("DiskReadViolation", stack("utils.FileUtils"));
+        assertNotEquals(read, write);
+        assertNotEquals(read, other);
+        assertTrue(read.contains("CreateNoteActivity.run"));
+    }
+
+    @Test
+    public void rankedByTotalDurationThenCount() {
+        ViolationAggregator aggregator = new ViolationAggregator(APP_PACKAGE);
+        for (int i = 0; i < 5; i++) {
+            aggregator.record("DiskReadViolation", stack("utils.FileUtils"), 1);
+        }
+        aggregator.record("DiskWriteViolation", stack("ui.note.CreateNoteActivity"), 80);
+        aggregator.record("DiskReadViolation", stack("utils.SessionManager"), -1);
+
+        List<ViolationAggregator.Site> ranked = aggregator.getRanked();
+        assertEquals("DiskWriteViolation", ranked.get(0).type);
+        assertEquals(5, ranked.get(1).count);
+        assertEquals(0, ranked.get(2).totalMillis);
+    }
+
+    @Test
+    public void reportSurvivesRoundTrip() {
+        ViolationAggregator aggregator = new ViolationAggregator(APP_PACKAGE);
+        aggregator.record("DiskReadViolation", stack("ui.note.CreateNoteActivity"), 20);
+
+        ViolationAggregator restored = new ViolationAggregator(APP_PACKAGE);
+        restored.merge(ViolationAggregator.fromJson(aggregator.toJson()));
+        restored.record("DiskReadViolation", stack("ui.note.CreateNoteActivity"), 5);
+
+        List<ViolationAggregator.Site> ranked = restored.getRanked();
+        assertEquals(1, ranked.size());
+        assertEquals(2, ranked.get(0).count);
+        assertEquals(25, ranked.get(0).totalMillis);
+    }
+}
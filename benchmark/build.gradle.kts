@@ -0,0 +1,65 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// 直接编译app模块中不依赖Android框架的源码，基准测试测量的就是应用实际运行的代码
+// android.util.Log 由本模块提供空实现
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include(
+                "android/util/Log.java",
+                "com/example/notepad/data/model/Note.java",
+                // Note的外键引用了Notebook
+                "com/example/notepad/data/model/Notebook.java",
+                "com/example/notepad/data/model/User.java",
+                "com/example/notepad/utils/DateConverter.java",
+                "com/example/notepad/utils/DateUtils.java",
+                "com/example/notepad/utils/IoUtils.java",
+                "com/example/notepad/utils/NoteTextUtils.java",
+                "com/example/notepad/utils/PasswordUtils.java"
+            )
+        }
+    }
+}
+
+dependencies {
+    implementation(libs.room.common.jvm)
+}
+
+// 源码注释为中文，不依赖平台默认编码
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+val gitRevision = providers.exec {
+    commandLine("git", "rev-parse", "--short", "HEAD")
+    isIgnoreExitValue = true
+}.standardOutput.asText.map { it.trim().ifEmpty { "unknown" } }
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
+
+// 按提交保存结果，便于比较不同提交之间的性能变化
+val archiveJmhResults = tasks.register<Copy>("archiveJmhResults") {
+    from(layout.buildDirectory.file("results/jmh/results.json"))
+    into(layout.projectDirectory.dir("results"))
+    rename { "jmh-${gitRevision.get()}.json" }
+}
+
+tasks.named("jmh") {
+    finalizedBy(archiveJmhResults)
+}
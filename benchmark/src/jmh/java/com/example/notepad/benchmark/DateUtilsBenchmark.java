@@ -0,0 +1,44 @@
+package com.example.notepad.benchmark;
+
+import com.example.notepad.utils.DateUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 笔记时间格式化的耗时，覆盖今天、昨天、本周内和一周前四种分支
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateUtilsBenchmark {
+
+    @Param({"0", "1", "3", "30"})
+    public int daysAgo;
+
+    private Date date;
+
+    @Setup
+    public void setup() {
+        date = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(daysAgo) - TimeUnit.MINUTES.toMillis(5));
+    }
+
+    @Benchmark
+    public String formatDateTime() {
+        return DateUtils.formatDateTime(date);
+    }
+
+    @Benchmark
+    public String formatDate() {
+        return DateUtils.formatDate(date);
+    }
+}
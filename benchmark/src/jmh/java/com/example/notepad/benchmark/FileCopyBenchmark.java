@@ -0,0 +1,69 @@
+package com.example.notepad.benchmark;
+
+import com.example.notepad.utils.IoUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 附件复制（FileUtils.copyFile使用的复制循环）的耗时
+ * 文件大小覆盖小图片、照片和录音，缓冲区大小用于评估默认值是否合适
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FileCopyBenchmark {
+
+    @Param({"16384", "1048576", "16777216"})
+    public int fileSize;
+
+    @Param({"4096", "65536"})
+    public int bufferSize;
+
+    private File directory;
+    private File source;
+    private File dest;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("qingnote-copy").toFile();
+        source = new File(directory, "source.bin");
+        dest = new File(directory, "dest.bin");
+        byte[] data = new byte[fileSize];
+        new Random(fileSize).nextBytes(data);
+        Files.write(source.toPath(), data);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dest.delete();
+        source.delete();
+        directory.delete();
+    }
+
+    @Benchmark
+    public long copyFile() throws IOException {
+        try (InputStream in = new FileInputStream(source);
+             OutputStream out = new FileOutputStream(dest)) {
+            return IoUtils.copy(in, out, bufferSize);
+        }
+    }
+}
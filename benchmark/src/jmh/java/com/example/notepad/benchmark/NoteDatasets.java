@@ -0,0 +1,98 @@
+package com.example.notepad.benchmark;
+
+import com.example.notepad.data.model.Note;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试数据集
+ * 使用固定种子生成中英文混排的笔记内容，每次运行的数据完全一致，结果可以跨提交比较
+ */
+final class NoteDatasets {
+    private static final long SEED = 20250601L;
+
+    private static final String[] CJK_WORDS = {
+        "今天", "会议", "记录", "项目", "进度", "需要", "完成", "讨论", "轻笺", "笔记",
+        "周末", "计划", "购物", "清单", "学习", "总结", "问题", "方案", "测试", "发布"
+    };
+    private static final String[] LATIN_WORDS = {
+        "meeting", "todo", "review", "release", "draft", "android", "room", "paging",
+        "sync", "backup", "idea", "list", "note", "summary", "deadline", "design"
+    };
+    private static final String[] MARKERS = {
+        "[图片:/storage/emulated/0/Pictures/IMG_%d.jpg]",
+        "[录音:/data/user/0/com.example.notepad/files/audio_%d.m4a]",
+        "[附件:/data/user/0/com.example.notepad/files/doc_%d.pdf]"
+    };
+
+    private NoteDatasets() {
+    }
+
+    /**
+     * 生成指定长度的笔记内容，约每200个字符插入一个附件标记
+     * @param length 内容长度（字符数）
+     * @param seed 随机种子
+     */
+    static String content(int length, long seed) {
+        Random random = new Random(SEED ^ seed);
+        StringBuilder builder = new StringBuilder(length + 64);
+        int nextMarker = 200;
+        while (builder.length() < length) {
+            if (builder.length() >= nextMarker) {
+                builder.append(String.format(MARKERS[random.nextInt(MARKERS.length)], random.nextInt(10000)));
+                nextMarker += 200;
+            } else if (random.nextInt(3) == 0) {
+                builder.append(LATIN_WORDS[random.nextInt(LATIN_WORDS.length)]).append(' ');
+            } else {
+                builder.append(CJK_WORDS[random.nextInt(CJK_WORDS.length)]);
+            }
+            if (random.nextInt(12) == 0) {
+                builder.append(random.nextBoolean() ? '\n' : '，');
+            }
+        }
+        builder.setLength(length);
+        return builder.toString();
+    }
+
+    /**
+     * 生成笔记列表，按更新时间倒序排列
+     * @param count 笔记数量
+     * @param contentLength 每条笔记的内容长度
+     */
+    static List<Note> notes(int count, int contentLength) {
+        Random random = new Random(SEED);
+        long now = System.currentTimeMillis();
+        List<Note> notes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Note note = new Note("笔记 " + i, content(contentLength, i), 1);
+            note.setId(i + 1);
+            Date updatedAt = new Date(now - i * 3_600_000L - random.nextInt(3_600_000));
+            note.setCreatedAt(updatedAt);
+            note.setUpdatedAt(updatedAt);
+            notes.add(note);
+        }
+        return notes;
+    }
+
+    /**
+     * 复制笔记列表并修改其中一部分，模拟数据库刷新后提交给列表的新数据
+     * @param notes 原列表
+     * @param changedPercent 被修改的笔记占比
+     */
+    static List<Note> modifiedCopy(List<Note> notes, int changedPercent) {
+        Random random = new Random(SEED + 1);
+        List<Note> copy = new ArrayList<>(notes.size());
+        for (Note note : notes) {
+            Note newNote = new Note(note);
+            if (random.nextInt(100) < changedPercent) {
+                newNote.setContent(note.getContent() + "。");
+                newNote.setUpdatedAt(new Date(note.getUpdatedAt().getTime() + 1000));
+            }
+            copy.add(newNote);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.notepad.benchmark;
+
+import com.example.notepad.data.model.Note;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 列表差异比较（NoteAdapter.DIFF_CALLBACK）的耗时
+ * 每次数据库刷新时，ListAdapter会对新旧列表中相同位置的笔记逐一比较内容
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NoteDiffBenchmark {
+    private static final int NOTE_COUNT = 500;
+
+    @Param({"100", "2000", "20000"})
+    public int contentLength;
+
+    @Param({"0", "10"})
+    public int changedPercent;
+
+    private List<Note> oldNotes;
+    private List<Note> newNotes;
+
+    @Setup
+    public void setup() {
+        oldNotes = NoteDatasets.notes(NOTE_COUNT, contentLength);
+        newNotes = NoteDatasets.modifiedCopy(oldNotes, changedPercent);
+    }
+
+    @Benchmark
+    public int compareLists() {
+        int changed = 0;
+        for (int i = 0; i < NOTE_COUNT; i++) {
+            Note oldNote = oldNotes.get(i);
+            Note newNote = newNotes.get(i);
+            if (oldNote.getId() != newNote.getId() || !oldNote.hasSameContents(newNote)) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+}
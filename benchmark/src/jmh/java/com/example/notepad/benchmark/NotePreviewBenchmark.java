@@ -0,0 +1,38 @@
+package com.example.notepad.benchmark;
+
+import com.example.notepad.utils.NoteTextUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 列表预览提取（NoteAdapter绑定时执行）的耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NotePreviewBenchmark {
+
+    @Param({"100", "2000", "20000", "200000"})
+    public int contentLength;
+
+    private String content;
+
+    @Setup
+    public void setup() {
+        content = NoteDatasets.content(contentLength, 0);
+    }
+
+    @Benchmark
+    public String extractPreview() {
+        return NoteTextUtils.extractPreview(content);
+    }
+}
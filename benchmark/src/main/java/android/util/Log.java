@@ -0,0 +1,30 @@
+package android.util;
+
+/**
+ * android.util.Log 的JVM空实现
+ * 基准测试不关心日志输出，只保证被测代码可以在JVM上编译运行
+ */
+public final class Log {
+    private Log() {
+    }
+
+    public static int d(String tag, String msg) {
+        return 0;
+    }
+
+    public static int i(String tag, String msg) {
+        return 0;
+    }
+
+    public static int w(String tag, String msg) {
+        return 0;
+    }
+
+    public static int e(String tag, String msg) {
+        return 0;
+    }
+
+    public static int e(String tag, String msg, Throwable tr) {
+        return 0;
+    }
+}